@@ -0,0 +1,147 @@
+package me.akuz.core;
+
+/**
+ * Circular buffer of primitive doubles, which can
+ * also be used as a bounded double-ended queue;
+ * adding and removing values doesn't allocate.
+ *
+ */
+public final class DoubleRingBuffer implements Cloneable {
+
+	private double[] _data;
+	private int _first;
+	private int _currSize;
+
+	/**
+	 * Create a ring buffer with
+	 * a predefined maximum size.
+	 */
+	public DoubleRingBuffer(final int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("DoubleRingBuffer max size must be positive");
+		}
+		_data = new double[maxSize];
+	}
+
+	/**
+	 * Add new value at the end; if the buffer
+	 * is full, the first value is removed.
+	 */
+	public void add(final double value) {
+		if (_currSize == _data.length) {
+			_data[_first] = value;
+			_first = next(_first);
+		} else {
+			_data[index(_currSize)] = value;
+			_currSize++;
+		}
+	}
+
+	/**
+	 * Get value by index, counting from the first
+	 * (oldest) value in the buffer.
+	 */
+	public double get(final int index) {
+		if (index < 0 || index >= _currSize) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds, current size " + _currSize);
+		}
+		return _data[index(index)];
+	}
+
+	/**
+	 * Get first (oldest) value in the buffer;
+	 * throws exception if buffer is empty.
+	 */
+	public double getFirst() {
+		if (_currSize == 0) {
+			throw new IllegalStateException("Cannot get first value, ring buffer is empty");
+		}
+		return _data[_first];
+	}
+
+	/**
+	 * Get last value added to the buffer;
+	 * throws exception if buffer is empty.
+	 */
+	public double getLast() {
+		if (_currSize == 0) {
+			throw new IllegalStateException("Cannot get last value, ring buffer is empty");
+		}
+		return _data[index(_currSize - 1)];
+	}
+
+	/**
+	 * Remove and return the first (oldest) value.
+	 */
+	public double removeFirst() {
+		final double value = getFirst();
+		_first = next(_first);
+		_currSize--;
+		return value;
+	}
+
+	/**
+	 * Remove and return the last value.
+	 */
+	public double removeLast() {
+		final double value = getLast();
+		_currSize--;
+		return value;
+	}
+
+	private int next(final int index) {
+		return index + 1 < _data.length ? index + 1 : 0;
+	}
+
+	private int index(final int offset) {
+		final int index = _first + offset;
+		return index < _data.length ? index : index - _data.length;
+	}
+
+	/**
+	 * Get maximum size of the buffer.
+	 */
+	public int getMaxSize() {
+		return _data.length;
+	}
+
+	/**
+	 * Get current size of the buffer.
+	 */
+	public int getCurrSize() {
+		return _currSize;
+	}
+
+	/**
+	 * Check if buffer is empty.
+	 */
+	public boolean isEmpty() {
+		return _currSize == 0;
+	}
+
+	/**
+	 * Check if buffer is full.
+	 */
+	public boolean isFull() {
+		return _currSize == _data.length;
+	}
+
+	/**
+	 * Clear the buffer.
+	 */
+	public void clear() {
+		_first = 0;
+		_currSize = 0;
+	}
+
+	@Override
+	public DoubleRingBuffer clone() {
+		try {
+			DoubleRingBuffer copy = (DoubleRingBuffer)super.clone();
+			copy._data = _data.clone();
+			return copy;
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException("Cloning error", e);
+		}
+	}
+}
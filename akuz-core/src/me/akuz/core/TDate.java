@@ -11,22 +11,84 @@ import org.joda.time.LocalDate;
  * does not implement Comparable<LocalDate> which is needed by the 
  * akuz-ts library.
  *
+ * The date is also kept as a number of days since 1970-01-01
+ * (epoch day, ISO calendar), which is used for comparisons,
+ * hashing and day arithmetic, without calling Joda.
+ *
  */
 public final class TDate implements Comparable<TDate> {
 	
+	private static final int DAYS_0000_TO_1970 = 719468;
+	private static final int DAYS_IN_400_YEARS = 146097;
+	private static final int PARSE_CACHE_SIZE = 100000;
+	private static final TParseCache<TDate> _parseCache = new TParseCache<>(PARSE_CACHE_SIZE);
+
 	private final LocalDate _date;
+	private final int _epochDay;
+
+	/**
+	 * Parse date from string, reusing
+	 * previously parsed equal dates.
+	 */
+	public static final TDate parse(final String str) {
+		TDate date = _parseCache.get(str);
+		if (date == null) {
+			date = new TDate(LocalDate.parse(str));
+			_parseCache.put(str, date);
+		}
+		return date;
+	}
+
+	/**
+	 * Create date from the number of days since 1970-01-01.
+	 */
+	public static final TDate ofEpochDay(final int epochDay) {
+
+		// civil from days (proleptic Gregorian)
+		final int z = epochDay + DAYS_0000_TO_1970;
+		final int era = Math.floorDiv(z, DAYS_IN_400_YEARS);
+		final int doe = z - era * DAYS_IN_400_YEARS;
+		final int yoe = (doe - doe/1460 + doe/36524 - doe/146096) / 365;
+		final int doy = doe - (365*yoe + yoe/4 - yoe/100);
+		final int mp = (5*doy + 2) / 153;
+		final int dayOfMonth = doy - (153*mp + 2) / 5 + 1;
+		final int month = mp < 10 ? mp + 3 : mp - 9;
+		final int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+		return new TDate(new LocalDate(year, month, dayOfMonth), epochDay);
+	}
+
+	private static final int toEpochDay(final int year, final int month, final int dayOfMonth) {
+
+		// days from civil (proleptic Gregorian)
+		final int y = month <= 2 ? year - 1 : year;
+		final int era = Math.floorDiv(y, 400);
+		final int yoe = y - era * 400;
+		final int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + dayOfMonth - 1;
+		final int doe = yoe * 365 + yoe/4 - yoe/100 + doy;
+		return era * DAYS_IN_400_YEARS + doe - DAYS_0000_TO_1970;
+	}
+
+	private TDate(final LocalDate date, final int epochDay) {
+		_date = date;
+		_epochDay = epochDay;
+	}
 	
 	public TDate(final LocalDate date) {
 		_date = date;
+		_epochDay = toEpochDay(date.getYear(), date.getMonthOfYear(), date.getDayOfMonth());
 	}
 	
 	public TDate(final String str) {
-		_date = LocalDate.parse(str);
+		final TDate parsed = parse(str);
+		_date = parsed._date;
+		_epochDay = parsed._epochDay;
 	}
 	
 	public TDate(final int year, final int month, final int dayOfMonth) {
 		
 		_date = new LocalDate(year, month, dayOfMonth);
+		_epochDay = toEpochDay(year, month, dayOfMonth);
 	}
 	
 	public TDate(final int num) {
@@ -43,6 +105,7 @@ public final class TDate implements Comparable<TDate> {
 		final int dayOfMonth = remaining;
 		
 		_date = new LocalDate(year, month, dayOfMonth);
+		_epochDay = toEpochDay(year, month, dayOfMonth);
 	}
 	
 	public int getNum() {
@@ -56,6 +119,21 @@ public final class TDate implements Comparable<TDate> {
 		return _date;
 	}
 	
+	/**
+	 * Get the number of days since 1970-01-01.
+	 */
+	public int getEpochDay() {
+		return _epochDay;
+	}
+
+	/**
+	 * Get the number of days from this date to
+	 * the other date (negative, if other is before).
+	 */
+	public int daysTo(final TDate other) {
+		return other._epochDay - _epochDay;
+	}
+
 	public TDate plusYears(final int years) {
 		return new TDate(_date.plusYears(years));
 	}
@@ -65,11 +143,11 @@ public final class TDate implements Comparable<TDate> {
 	}
 	
 	public TDate plusWeeks(final int weeks) {
-		return new TDate(_date.plusWeeks(weeks));
+		return ofEpochDay(_epochDay + weeks * 7);
 	}
 	
 	public TDate plusDays(final int days) {
-		return new TDate(_date.plusDays(days));
+		return ofEpochDay(_epochDay + days);
 	}
 	
 	public int getYear() {
@@ -80,8 +158,12 @@ public final class TDate implements Comparable<TDate> {
 		return _date.getMonthOfYear();
 	}
 	
+	/**
+	 * Get ISO day of week (1 is Monday, 7 is Sunday).
+	 */
 	public int getDayOfWeek() {
-		return _date.getDayOfWeek();
+		// 1970-01-01 was Thursday
+		return Math.floorMod(_epochDay + 3, 7) + 1;
 	}
 	
 	public int getDayOfMonth() {
@@ -103,7 +185,7 @@ public final class TDate implements Comparable<TDate> {
 
 	@Override
 	public int compareTo(TDate o) {
-		return _date.compareTo(o._date);
+		return Integer.compare(_epochDay, o._epochDay);
 	}
 	
 	@Override
@@ -113,7 +195,7 @@ public final class TDate implements Comparable<TDate> {
 	
 	@Override
 	public int hashCode() {
-		return _date.hashCode();
+		return _epochDay;
 	}
 	
 	@Override
@@ -124,7 +206,7 @@ public final class TDate implements Comparable<TDate> {
 		if (obj == this) {
 			return true;
 		}
-		return _date.equals(((TDate)obj)._date);
+		return _epochDay == ((TDate)obj)._epochDay;
 	}
 
 }
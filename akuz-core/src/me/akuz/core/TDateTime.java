@@ -9,13 +9,29 @@ import org.joda.time.DateTime;
  * does not implement Comparable<DateTime> which is needed by the 
  * akuz-ts library.
  *
+ * The instant is also kept as milliseconds since the epoch,
+ * which are used for comparisons, without calling Joda.
+ *
  */
 public final class TDateTime implements Comparable<TDateTime> {
 	
+	private static final int PARSE_CACHE_SIZE = 100000;
+	private static final TParseCache<TDateTime> _parseCache = new TParseCache<>(PARSE_CACHE_SIZE);
+
 	private final DateTime _dateTime;
+	private final long _millis;
 	
+	/**
+	 * Parse date/time from string, reusing
+	 * previously parsed equal date/times.
+	 */
 	public static final TDateTime parse(final String str) {
-		return TDateTime.from(DateTime.parse(str));
+		TDateTime dateTime = _parseCache.get(str);
+		if (dateTime == null) {
+			dateTime = TDateTime.from(DateTime.parse(str));
+			_parseCache.put(str, dateTime);
+		}
+		return dateTime;
 	}
 	
 	public static final TDateTime from(final DateTime dateTime) {
@@ -33,6 +49,7 @@ public final class TDateTime implements Comparable<TDateTime> {
 				dayOfMonth,
 				0,
 				0);
+		_millis = _dateTime.getMillis();
 	}
 	
 	public TDateTime(
@@ -48,16 +65,33 @@ public final class TDateTime implements Comparable<TDateTime> {
 				dayOfMonth,
 				hourOfDay,
 				minuteOfHour);
+		_millis = _dateTime.getMillis();
 	}
 	
 	public TDateTime(final DateTime dateTime) {
 		_dateTime = dateTime;
+		_millis = dateTime.getMillis();
 	}
 	
 	public DateTime get() {
 		return _dateTime;
 	}
 	
+	/**
+	 * Get milliseconds since 1970-01-01T00:00:00Z.
+	 */
+	public long getMillis() {
+		return _millis;
+	}
+	
+	/**
+	 * Get the number of milliseconds from this date/time
+	 * to the other date/time (negative, if other is before).
+	 */
+	public long millisTo(final TDateTime other) {
+		return other._millis - _millis;
+	}
+	
 	public TDate toLocalDate() {
 		return new TDate(_dateTime.toLocalDate());
 	}
@@ -68,7 +102,7 @@ public final class TDateTime implements Comparable<TDateTime> {
 
 	@Override
 	public int compareTo(TDateTime o) {
-		return _dateTime.compareTo(o._dateTime);
+		return Long.compare(_millis, o._millis);
 	}
 	
 	@Override
@@ -78,7 +112,8 @@ public final class TDateTime implements Comparable<TDateTime> {
 	
 	@Override
 	public int hashCode() {
-		return _dateTime.hashCode();
+		// equal date/times have equal millis
+		return (int)(_millis ^ (_millis >>> 32));
 	}
 	
 	@Override
@@ -89,7 +124,8 @@ public final class TDateTime implements Comparable<TDateTime> {
 		if (obj == this) {
 			return true;
 		}
-		return _dateTime.equals(((TDateTime)obj)._dateTime);
+		final TDateTime other = (TDateTime)obj;
+		return _millis == other._millis && _dateTime.equals(other._dateTime);
 	}
 
 }
@@ -0,0 +1,35 @@
+package me.akuz.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of immutable values parsed from strings,
+ * shared between threads; cleared when full, so
+ * that it doesn't grow without bounds.
+ *
+ */
+final class TParseCache<V> {
+
+	private final int _maxSize;
+	private final ConcurrentHashMap<String, V> _map;
+
+	public TParseCache(final int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Argument maxSize must be positive");
+		}
+		_maxSize = maxSize;
+		_map = new ConcurrentHashMap<>();
+	}
+
+	public V get(final String str) {
+		return _map.get(str);
+	}
+
+	public void put(final String str, final V value) {
+		if (_map.size() >= _maxSize) {
+			_map.clear();
+		}
+		_map.put(str, value);
+	}
+
+}
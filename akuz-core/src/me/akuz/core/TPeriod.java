@@ -29,7 +29,7 @@ public final class TPeriod implements Comparable<TPeriod> {
 	}
 	
 	public TPeriod(final TDateTime dateTime1, final TDateTime dateTime2) {
-		this(new Duration(dateTime1.get(), dateTime2.get()));
+		this(dateTime1.millisTo(dateTime2));
 	}
 	
 	public Duration get() {
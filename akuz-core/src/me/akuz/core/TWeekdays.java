@@ -1,13 +1,42 @@
 package me.akuz.core;
 
-import org.joda.time.Days;
-
 /**
  * Weekdays calculations.
  *
+ * Weekdays are numbered consecutively (weekday index),
+ * so that the weekday arithmetic is done on integers:
+ * index of Monday, 1970-01-05 is 0, index of each next
+ * weekday is one more, and Saturday and Sunday have
+ * the same index as the next Monday.
+ *
  */
 public final class TWeekdays {
 	
+	// 1970-01-05 was Monday
+	private static final int FIRST_MONDAY_EPOCH_DAY = 4;
+	
+	/**
+	 * Get weekday index of the date (weekends
+	 * have the same index as the next Monday).
+	 * 
+	 */
+	public static int toIndex(final TDate date) {
+		final int days = date.getEpochDay() - FIRST_MONDAY_EPOCH_DAY;
+		final int weeks = Math.floorDiv(days, 7);
+		final int dayOfWeek = days - weeks * 7;
+		return weeks * 5 + (dayOfWeek < 5 ? dayOfWeek : 5);
+	}
+	
+	/**
+	 * Get weekday with the given weekday index.
+	 * 
+	 */
+	public static TDate fromIndex(final int index) {
+		final int weeks = Math.floorDiv(index, 5);
+		final int dayOfWeek = index - weeks * 5;
+		return TDate.ofEpochDay(FIRST_MONDAY_EPOCH_DAY + weeks * 7 + dayOfWeek);
+	}
+	
 	/**
 	 * Throws exception if the date is *not* a weekday.
 	 * 
@@ -91,26 +120,7 @@ public final class TWeekdays {
 	 */
 	public static TDate add(final TDate date, final int weekdays) {
 		checkWeekday(date);
-		if (weekdays <= -5 || 5 <= weekdays) {
-			final int fullWeeks = weekdays / 5;
-			final int weekdaysRemaining = weekdays % 5;
-			final TDate dateAfterWeeks = date.plusWeeks(fullWeeks);
-			return weekdaysRemaining == 0 ? dateAfterWeeks : add(dateAfterWeeks, weekdaysRemaining);
-		} else if (weekdays > 0) {
-			TDate result = date;
-			for (int i=0; i<weekdays; i++) {
-				result = next(result);
-			}
-			return result;
-		} else if (weekdays < 0) {
-			TDate result = date;
-			for (int i=0; i>weekdays; i--) {
-				result = prev(result);
-			}
-			return result;
-		} else {
-			return date;
-		}
+		return weekdays == 0 ? date : fromIndex(toIndex(date) + weekdays);
 	}
 	
 	/**
@@ -121,24 +131,7 @@ public final class TWeekdays {
 	public static int distance(final TDate date1, final TDate date2) {
 		checkWeekday(date1);
 		checkWeekday(date2);
-		final int days = Days.daysBetween(
-				date1.get(), 
-				date2.get())
-				.getDays();
-		final int fullWeeks = days / 7;
-		final int daysRemaining = days % 7;
-		final int weekdaysAfterWeeks = fullWeeks * 5;
-		if (daysRemaining == 0) {
-			return weekdaysAfterWeeks;
-		}
-		final int step = daysRemaining < 0 ? -1 : 1;
-		TDate date = add(date1, weekdaysAfterWeeks);
-		int weekdaysRemaining = 0;
-		while (!date.equals(date2)) {
-			weekdaysRemaining += step;
-			date = add(date, step);
-		}
-		return weekdaysAfterWeeks + weekdaysRemaining;
+		return toIndex(date2) - toIndex(date1);
 	}
 	
 	/**
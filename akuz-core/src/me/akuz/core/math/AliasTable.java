@@ -0,0 +1,135 @@
+package me.akuz.core.math;
+
+import java.util.Random;
+
+/**
+ * Walker's alias table for sampling from a discrete distribution
+ * in constant time, after linear time construction from weights.
+ * The table can be rebuilt many times, reallocating the internal
+ * arrays only when the number of weights exceeds the capacity.
+ *
+ */
+public final class AliasTable {
+	
+	private double[] _prob;
+	private int[] _alias;
+	private int[] _small;
+	private int[] _large;
+	private int _size;
+	private double _sum;
+	
+	public AliasTable() {
+		this(0);
+	}
+	
+	public AliasTable(int capacity) {
+		ensureCapacity(capacity);
+	}
+	
+	private void ensureCapacity(int capacity) {
+		if (_prob == null || _prob.length < capacity) {
+			_prob = new double[capacity];
+			_alias = new int[capacity];
+			_small = new int[capacity];
+			_large = new int[capacity];
+		}
+	}
+	
+	/**
+	 * Number of outcomes in the table.
+	 */
+	public int size() {
+		return _size;
+	}
+	
+	/**
+	 * Sum of the (unnormalized) weights the table was built from.
+	 */
+	public double getSum() {
+		return _sum;
+	}
+	
+	/**
+	 * Build the table from the first count non-negative weights.
+	 */
+	public void build(double[] weights, int count) {
+		build(weights, 0, count);
+	}
+	
+	/**
+	 * Build the table from count non-negative weights starting at offset.
+	 */
+	public void build(double[] weights, int offset, int count) {
+		
+		ensureCapacity(count);
+		_size = count;
+		
+		double sum = 0;
+		for (int i=0; i<count; i++) {
+			final double w = weights[offset+i];
+			if (w < 0) {
+				throw new IllegalArgumentException("Weight at index " + i + " is negative: " + w);
+			}
+			sum += w;
+		}
+		_sum = sum;
+		if (count == 0 || sum <= 0) {
+			return;
+		}
+		
+		int smallCount = 0;
+		int largeCount = 0;
+		for (int i=0; i<count; i++) {
+			final double p = weights[offset+i] * count / sum;
+			_prob[i] = p;
+			_alias[i] = i;
+			if (p < 1.0) {
+				_small[smallCount++] = i;
+			} else {
+				_large[largeCount++] = i;
+			}
+		}
+		
+		while (smallCount > 0 && largeCount > 0) {
+			final int s = _small[--smallCount];
+			final int l = _large[largeCount-1];
+			_alias[s] = l;
+			_prob[l] = (_prob[l] + _prob[s]) - 1.0;
+			if (_prob[l] < 1.0) {
+				largeCount--;
+				_small[smallCount++] = l;
+			}
+		}
+		
+		// remaining entries are 1.0 up to rounding
+		while (largeCount > 0) {
+			_prob[_large[--largeCount]] = 1.0;
+		}
+		while (smallCount > 0) {
+			_prob[_small[--smallCount]] = 1.0;
+		}
+	}
+	
+	/**
+	 * Sample an outcome index using a uniform number from [0, 1).
+	 */
+	public int sample(double u) {
+		if (_size == 0 || _sum <= 0) {
+			throw new IllegalStateException("Cannot sample from an empty alias table");
+		}
+		final double x = u * _size;
+		int i = (int)x;
+		if (i >= _size) {
+			i = _size - 1;
+		}
+		return (x - i) < _prob[i] ? i : _alias[i];
+	}
+	
+	/**
+	 * Sample an outcome index.
+	 */
+	public int sample(Random rnd) {
+		return sample(rnd.nextDouble());
+	}
+
+}
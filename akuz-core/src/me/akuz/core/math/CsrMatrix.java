@@ -0,0 +1,421 @@
+package me.akuz.core.math;
+
+import java.util.Arrays;
+
+import Jama.Matrix;
+
+/**
+ * Immutable sparse matrix in compressed sparse row (CSR) format:
+ * the column indices and values of row i are stored in colIdx
+ * and vals at positions rowPtr[i] to rowPtr[i+1] (exclusive),
+ * sorted by column index.
+ *
+ * Compressed sparse column (CSC) format of a matrix is the same
+ * as CSR format of its transpose, see {@link #transpose()}.
+ *
+ * Dense matrices in the multiplication methods are row-major
+ * arrays: element (i, j) of an m x p matrix is at i*p + j.
+ *
+ */
+public final class CsrMatrix {
+
+	/**
+	 * Number of columns of the dense matrix processed
+	 * at once by the multiplication, so that the gathered
+	 * parts of its rows stay in cache for each block.
+	 */
+	private static final int MULT_COL_BLOCK = 64;
+
+	private final int _rowCount;
+	private final int _colCount;
+	private final int[] _rowPtr;
+	private final int[] _colIdx;
+	private final double[] _vals;
+
+	/**
+	 * Builder from coordinate list (COO) entries,
+	 * which can be added in any order.
+	 *
+	 */
+	public final static class Builder {
+
+		private final int _rowCount;
+		private final int _colCount;
+		private int[] _rows;
+		private int[] _cols;
+		private double[] _vals;
+		private int _size;
+
+		private Builder(final int rowCount, final int colCount, final int capacity) {
+			if (rowCount < 0 || colCount < 0) {
+				throw new IllegalArgumentException("Matrix dimensions cannot be negative");
+			}
+			_rowCount = rowCount;
+			_colCount = colCount;
+			_rows = new int[capacity];
+			_cols = new int[capacity];
+			_vals = new double[capacity];
+		}
+
+		/**
+		 * Add value at (i, j); values added at
+		 * the same cell more than once are summed.
+		 *
+		 */
+		public Builder add(final int i, final int j, final double value) {
+			if (i < 0 || i >= _rowCount || j < 0 || j >= _colCount) {
+				throw new IndexOutOfBoundsException("Cell (" + i + ", " + j + ") is outside of matrix " + _rowCount + "x" + _colCount);
+			}
+			if (_size == _rows.length) {
+				final int capacity = Math.max(16, _size * 2);
+				_rows = Arrays.copyOf(_rows, capacity);
+				_cols = Arrays.copyOf(_cols, capacity);
+				_vals = Arrays.copyOf(_vals, capacity);
+			}
+			_rows[_size] = i;
+			_cols[_size] = j;
+			_vals[_size] = value;
+			_size++;
+			return this;
+		}
+
+		/**
+		 * Get the number of entries added so far.
+		 *
+		 */
+		public int size() {
+			return _size;
+		}
+
+		/**
+		 * Finish building the matrix.
+		 *
+		 */
+		public CsrMatrix create() {
+
+			// count entries per row
+			final int[] rowPtr = new int[_rowCount + 1];
+			for (int k=0; k<_size; k++) {
+				rowPtr[_rows[k] + 1]++;
+			}
+			for (int i=0; i<_rowCount; i++) {
+				rowPtr[i + 1] += rowPtr[i];
+			}
+
+			// distribute entries into rows
+			final int[] next = Arrays.copyOf(rowPtr, _rowCount);
+			final int[] colIdx = new int[_size];
+			final double[] vals = new double[_size];
+			for (int k=0; k<_size; k++) {
+				final int pos = next[_rows[k]]++;
+				colIdx[pos] = _cols[k];
+				vals[pos] = _vals[k];
+			}
+
+			// sort each row and sum duplicates
+			int nnz = 0;
+			int rowStart = 0;
+			for (int i=0; i<_rowCount; i++) {
+				final int rowEnd = rowPtr[i + 1];
+				sortByIndex(colIdx, vals, rowStart, rowEnd);
+				rowPtr[i] = nnz;
+				for (int k=rowStart; k<rowEnd; k++) {
+					if (nnz > rowPtr[i] && colIdx[nnz - 1] == colIdx[k]) {
+						vals[nnz - 1] += vals[k];
+					} else {
+						colIdx[nnz] = colIdx[k];
+						vals[nnz] = vals[k];
+						nnz++;
+					}
+				}
+				rowStart = rowEnd;
+			}
+			rowPtr[_rowCount] = nnz;
+
+			return new CsrMatrix(
+					_rowCount,
+					_colCount,
+					rowPtr,
+					nnz < colIdx.length ? Arrays.copyOf(colIdx, nnz) : colIdx,
+					nnz < vals.length ? Arrays.copyOf(vals, nnz) : vals);
+		}
+	}
+
+	/**
+	 * Start building a matrix from coordinate list entries.
+	 *
+	 */
+	public static final Builder build(final int rowCount, final int colCount) {
+		return new Builder(rowCount, colCount, 16);
+	}
+
+	/**
+	 * Start building a matrix from coordinate list entries,
+	 * with capacity for the expected number of entries.
+	 *
+	 */
+	public static final Builder build(final int rowCount, final int colCount, final int capacity) {
+		return new Builder(rowCount, colCount, Math.max(1, capacity));
+	}
+
+	/**
+	 * Create sparse matrix from non-zero values of a dense matrix.
+	 *
+	 */
+	public static final CsrMatrix fromDense(final Matrix m) {
+		final Builder builder = build(m.getRowDimension(), m.getColumnDimension());
+		final double[][] arr = m.getArray();
+		for (int i=0; i<arr.length; i++) {
+			final double[] row = arr[i];
+			for (int j=0; j<row.length; j++) {
+				if (row[j] != 0.0) {
+					builder.add(i, j, row[j]);
+				}
+			}
+		}
+		return builder.create();
+	}
+
+	/**
+	 * Create sparse matrix from CSR arrays (not copied),
+	 * column indices in each row must be sorted.
+	 *
+	 */
+	public CsrMatrix(
+			final int rowCount,
+			final int colCount,
+			final int[] rowPtr,
+			final int[] colIdx,
+			final double[] vals) {
+
+		if (rowPtr.length != rowCount + 1) {
+			throw new IllegalArgumentException("Array rowPtr must have length rowCount + 1");
+		}
+		if (colIdx.length != vals.length || rowPtr[rowCount] != vals.length) {
+			throw new IllegalArgumentException("Arrays colIdx and vals must have length rowPtr[rowCount]");
+		}
+		_rowCount = rowCount;
+		_colCount = colCount;
+		_rowPtr = rowPtr;
+		_colIdx = colIdx;
+		_vals = vals;
+	}
+
+	private static void sortByIndex(final int[] idx, final double[] vals, final int start, final int end) {
+
+		// insertion sort, rows are short
+		// and often already sorted
+		for (int k=start+1; k<end; k++) {
+			final int index = idx[k];
+			final double value = vals[k];
+			int pos = k - 1;
+			while (pos >= start && idx[pos] > index) {
+				idx[pos + 1] = idx[pos];
+				vals[pos + 1] = vals[pos];
+				pos--;
+			}
+			idx[pos + 1] = index;
+			vals[pos + 1] = value;
+		}
+	}
+
+	public int getRowCount() {
+		return _rowCount;
+	}
+
+	public int getColCount() {
+		return _colCount;
+	}
+
+	/**
+	 * Get the number of stored (non-zero) values.
+	 *
+	 */
+	public int getNonZeroCount() {
+		return _vals.length;
+	}
+
+	/**
+	 * Get row pointers (not copied, don't modify).
+	 *
+	 */
+	public int[] getRowPtr() {
+		return _rowPtr;
+	}
+
+	/**
+	 * Get column indices (not copied, don't modify).
+	 *
+	 */
+	public int[] getColIdx() {
+		return _colIdx;
+	}
+
+	/**
+	 * Get stored values (not copied, don't modify).
+	 *
+	 */
+	public double[] getValues() {
+		return _vals;
+	}
+
+	/**
+	 * Get value at (i, j), using binary search in the row.
+	 *
+	 */
+	public double get(final int i, final int j) {
+		final int pos = Arrays.binarySearch(_colIdx, _rowPtr[i], _rowPtr[i + 1], j);
+		return pos >= 0 ? _vals[pos] : 0.0;
+	}
+
+	/**
+	 * Get transposed matrix, which is also
+	 * the CSC representation of this matrix.
+	 *
+	 */
+	public CsrMatrix transpose() {
+
+		final int[] rowPtr = new int[_colCount + 1];
+		for (int k=0; k<_colIdx.length; k++) {
+			rowPtr[_colIdx[k] + 1]++;
+		}
+		for (int j=0; j<_colCount; j++) {
+			rowPtr[j + 1] += rowPtr[j];
+		}
+
+		// rows are visited in order, so the
+		// transposed rows come out sorted
+		final int[] next = Arrays.copyOf(rowPtr, _colCount);
+		final int[] colIdx = new int[_colIdx.length];
+		final double[] vals = new double[_vals.length];
+		for (int i=0; i<_rowCount; i++) {
+			for (int k=_rowPtr[i]; k<_rowPtr[i + 1]; k++) {
+				final int pos = next[_colIdx[k]]++;
+				colIdx[pos] = i;
+				vals[pos] = _vals[k];
+			}
+		}
+		return new CsrMatrix(_colCount, _rowCount, rowPtr, colIdx, vals);
+	}
+
+	/**
+	 * Size of a row-major array for a dense matrix,
+	 * checking that it fits into an int.
+	 *
+	 */
+	static int rowMajorSize(final int rowCount, final int colCount) {
+		final long size = (long)rowCount * colCount;
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(
+					"Dense result " + rowCount + "x" + colCount +
+					" is too large for a single array");
+		}
+		return (int)size;
+	}
+
+	/**
+	 * Multiply this matrix by a dense row-major matrix
+	 * on the right (this * right), adding the result into
+	 * the row-major output array (rowCount x rightColCount).
+	 *
+	 */
+	public void multOnRightBy(final double[] right, final int rightColCount, final double[] out) {
+		if (right.length != (long)_colCount * rightColCount) {
+			throw new IllegalArgumentException("Matrix dimensions do not match");
+		}
+		if (out.length != (long)_rowCount * rightColCount) {
+			throw new IllegalArgumentException("Output array has wrong size");
+		}
+		multRows(right, rightColCount, out, 0, _rowCount);
+	}
+
+	/**
+	 * Multiply rows [rowStart, rowEnd) of this matrix by
+	 * a dense row-major matrix on the right, adding the
+	 * result into the same rows of the output array.
+	 *
+	 */
+	void multRows(
+			final double[] right,
+			final int rightColCount,
+			final double[] out,
+			final int rowStart,
+			final int rowEnd) {
+
+		for (int colStart=0; colStart<rightColCount; colStart+=MULT_COL_BLOCK) {
+			final int colEnd = Math.min(rightColCount, colStart + MULT_COL_BLOCK);
+			for (int i=rowStart; i<rowEnd; i++) {
+				final int outOffset = i * rightColCount;
+				for (int k=_rowPtr[i]; k<_rowPtr[i + 1]; k++) {
+					final double value = _vals[k];
+					final int rightOffset = _colIdx[k] * rightColCount;
+					for (int j=colStart; j<colEnd; j++) {
+						out[outOffset + j] += value * right[rightOffset + j];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Multiply this matrix by a dense matrix on the right (this * right).
+	 *
+	 */
+	public Matrix multOnRightBy(final Matrix right) {
+		if (_colCount != right.getRowDimension()) {
+			throw new IllegalArgumentException("Matrix dimensions do not match");
+		}
+		final int p = right.getColumnDimension();
+		final double[] out = new double[rowMajorSize(_rowCount, p)];
+		multOnRightBy(right.getRowPackedCopy(), p, out);
+		return fromRowMajor(out, _rowCount, p);
+	}
+
+	/**
+	 * Multiply this matrix by a dense matrix on the left (left * this).
+	 *
+	 */
+	public Matrix multOnLeftBy(final Matrix left) {
+		if (_rowCount != left.getColumnDimension()) {
+			throw new IllegalArgumentException("Matrix dimensions do not match");
+		}
+		final double[][] leftArr = left.getArray();
+		final double[][] res = new double[leftArr.length][_colCount];
+		for (int r=0; r<leftArr.length; r++) {
+			final double[] leftRow = leftArr[r];
+			final double[] resRow = res[r];
+			for (int i=0; i<_rowCount; i++) {
+				final double leftValue = leftRow[i];
+				if (leftValue != 0.0) {
+					for (int k=_rowPtr[i]; k<_rowPtr[i + 1]; k++) {
+						resRow[_colIdx[k]] += leftValue * _vals[k];
+					}
+				}
+			}
+		}
+		return new Matrix(res, leftArr.length, _colCount);
+	}
+
+	/**
+	 * Create Jama matrix from a row-major array.
+	 *
+	 */
+	static Matrix fromRowMajor(final double[] arr, final int m, final int n) {
+		final double[][] res = new double[m][];
+		for (int i=0; i<m; i++) {
+			res[i] = Arrays.copyOfRange(arr, i * n, (i + 1) * n);
+		}
+		return new Matrix(res, m, n);
+	}
+
+	public Matrix toDense() {
+		final double[][] res = new double[_rowCount][_colCount];
+		for (int i=0; i<_rowCount; i++) {
+			for (int k=_rowPtr[i]; k<_rowPtr[i + 1]; k++) {
+				res[i][_colIdx[k]] = _vals[k];
+			}
+		}
+		return new Matrix(res, _rowCount, _colCount);
+	}
+
+}
@@ -0,0 +1,77 @@
+package me.akuz.core.math;
+
+import java.util.Random;
+
+import Jama.Matrix;
+
+/**
+ * Manual benchmark of a power iteration step (A^T * A * X)
+ * with the CsrMatrix against the SpaMatrix;
+ * arguments (optional): rows, columns, dense columns, repeats.
+ *
+ */
+public final class CsrMatrixBenchmark {
+
+	private static Matrix random(final Random rnd, final int m, final int n) {
+		final Matrix result = new Matrix(m, n);
+		for (int i=0; i<m; i++) {
+			for (int j=0; j<n; j++) {
+				result.set(i, j, rnd.nextGaussian());
+			}
+		}
+		return result;
+	}
+
+	public static void main(String[] args) {
+
+		final int m = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		final int n = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+		final int p = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+		final int repeats = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+		// 1% non-zero
+		final Random rnd = new Random(3);
+		final SpaMatrix spa = new SpaMatrix(m, n);
+		for (int k=0; k<m*n/100; k++) {
+			spa.set(rnd.nextInt(m), rnd.nextInt(n), rnd.nextDouble());
+		}
+		spa.optimize();
+		final CsrMatrix csr = spa.toCsr();
+		final CsrMatrix csrT = csr.transpose();
+		final Matrix right = random(rnd, n, p);
+
+		// keep the results, so that the runs are not optimized out
+		double check = 0;
+
+		long spaMs = Long.MAX_VALUE;
+		long csrMs = Long.MAX_VALUE;
+		long parallelMs = Long.MAX_VALUE;
+
+		// first round is a warm up
+		for (int k=0; k<=repeats; k++) {
+
+			long startMs = System.currentTimeMillis();
+			check += spa.transposedView().multOnRightBy(spa.multOnRightBy(right)).get(0, 0);
+			final long spaTime = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			check += csrT.multOnRightBy(csr.multOnRightBy(right)).get(0, 0);
+			final long csrTime = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			check += ParallelMatrixUtils.times(csrT, ParallelMatrixUtils.times(csr, right)).get(0, 0);
+			final long parallelTime = System.currentTimeMillis() - startMs;
+
+			if (k > 0) {
+				spaMs = Math.min(spaMs, spaTime);
+				csrMs = Math.min(csrMs, csrTime);
+				parallelMs = Math.min(parallelMs, parallelTime);
+			}
+		}
+
+		System.out.println("Best of " + repeats + " on " + m + "x" + n + " by " + p + " (check " + check + "):");
+		System.out.println("Power iteration: SpaMatrix " + spaMs + " ms, CsrMatrix " + csrMs + " ms, " +
+				"parallel CsrMatrix " + parallelMs + " ms");
+	}
+
+}
@@ -0,0 +1,359 @@
+package me.akuz.core.math;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-synchronized random number generator (xoroshiro128**,
+ * seeded by SplitMix64) with the samplers of Randoms; Gamma
+ * variates are generated by Marsaglia-Tsang method, and Beta
+ * and Dirichlet variates from Gamma variates.
+ *
+ * An instance must only be used by one thread at a time;
+ * use split() to create independent streams for other
+ * threads, which are reproducible for a seeded parent.
+ *
+ */
+public class FastRandoms extends Random {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final AtomicLong SEED_UNIQUIFIER = new AtomicLong(System.nanoTime());
+
+	private long _s0;
+	private long _s1;
+	private double _nextGaussian;
+	private boolean _haveNextGaussian;
+
+	public FastRandoms() {
+		this(SEED_UNIQUIFIER.getAndAdd(GOLDEN_GAMMA) ^ System.nanoTime());
+	}
+
+	public FastRandoms(long seed) {
+		super(seed);
+	}
+
+	/**
+	 * SplitMix64 output function.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	@Override
+	public void setSeed(long seed) {
+		// called from the constructor of Random
+		_s0 = mix(seed += GOLDEN_GAMMA);
+		_s1 = mix(seed + GOLDEN_GAMMA);
+		if (_s0 == 0 && _s1 == 0) {
+			_s1 = GOLDEN_GAMMA;
+		}
+		_haveNextGaussian = false;
+	}
+
+	/**
+	 * Create a new generator, which is seeded from
+	 * this generator, for use by another thread.
+	 */
+	public FastRandoms split() {
+		return new FastRandoms(nextLong());
+	}
+
+	@Override
+	public long nextLong() {
+		final long s0 = _s0;
+		long s1 = _s1;
+		final long result = Long.rotateLeft(s0 * 5, 7) * 9;
+		s1 ^= s0;
+		_s0 = Long.rotateLeft(s0, 24) ^ s1 ^ (s1 << 16);
+		_s1 = Long.rotateLeft(s1, 37);
+		return result;
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int)(nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public int nextInt() {
+		return (int)(nextLong() >>> 32);
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("Bound must be positive");
+		}
+		// multiply and reject (Lemire)
+		long m = (nextLong() >>> 32) * bound;
+		long low = m & 0xffffffffL;
+		if (low < bound) {
+			final long threshold = (0x100000000L - bound) % bound;
+			while (low < threshold) {
+				m = (nextLong() >>> 32) * bound;
+				low = m & 0xffffffffL;
+			}
+		}
+		return (int)(m >>> 32);
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+
+	/**
+	 * Return a random double in the range [0, 1).
+	 */
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Return a random double in the range [0, 1).
+	 */
+	public double nextUniform() {
+		return nextDouble();
+	}
+
+	/**
+	 * Return a random double in the range [a, b).
+	 */
+	public double nextUniform(double a, double b) {
+		return a + (b - a) * nextDouble();
+	}
+
+	/**
+	 * Return a random double drawn from a Gaussian
+	 * distribution with mean 0 and variance 1.
+	 */
+	@Override
+	public double nextGaussian() {
+		if (_haveNextGaussian) {
+			_haveNextGaussian = false;
+			return _nextGaussian;
+		}
+		double v1, v2, s;
+		do {
+			v1 = 2 * nextDouble() - 1;
+			v2 = 2 * nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+		final double multiplier = Math.sqrt(-2 * Math.log(s) / s);
+		_nextGaussian = v2 * multiplier;
+		_haveNextGaussian = true;
+		return v1 * multiplier;
+	}
+
+	/**
+	 * Return a random double drawn from a Gaussian
+	 * distribution with mean m and variance s2.
+	 */
+	public double nextGaussian(double m, double s2) {
+		return nextGaussian() * Math.sqrt(s2) + m;
+	}
+
+	/**
+	 * Return a random double drawn from an Exponential
+	 * distribution with mean beta.
+	 */
+	public double nextExp(double beta) {
+		return -beta * Math.log(1.0 - nextDouble());
+	}
+
+	/**
+	 * Return a random double drawn from a Gamma distribution
+	 * with shape alpha and scale 1 (mean alpha).
+	 */
+	public double nextGamma(double alpha) {
+		if (alpha <= 0) {
+			throw new IllegalArgumentException("Alpha must be strictly positive");
+		}
+		if (alpha < 1) {
+			// boost: Gamma(alpha) = Gamma(alpha + 1) * U^(1/alpha)
+			final double u = 1.0 - nextDouble();
+			return nextGamma(alpha + 1) * Math.pow(u, 1.0 / alpha);
+		}
+		final double d = alpha - 1.0 / 3.0;
+		final double c = 1.0 / Math.sqrt(9.0 * d);
+		while (true) {
+			double x, v;
+			do {
+				x = nextGaussian();
+				v = 1.0 + c * x;
+			} while (v <= 0);
+			v = v * v * v;
+			final double u = nextDouble();
+			final double x2 = x * x;
+			if (u < 1.0 - 0.0331 * x2 * x2) {
+				return d * v;
+			}
+			if (Math.log(u) < 0.5 * x2 + d * (1.0 - v + Math.log(v))) {
+				return d * v;
+			}
+		}
+	}
+
+	/**
+	 * Return a random double drawn from a Gamma distribution
+	 * with shape alpha and scale beta (mean alpha*beta).
+	 */
+	public double nextGamma(double alpha, double beta) {
+		if (beta <= 0) {
+			throw new IllegalArgumentException("Beta must be strictly positive");
+		}
+		return beta * nextGamma(alpha);
+	}
+
+	/**
+	 * Return a random double drawn from a Beta
+	 * distribution with mean a/(a+b).
+	 */
+	public double nextBeta(double alpha, double beta) {
+		final double x = nextGamma(alpha);
+		final double y = nextGamma(beta);
+		final double sum = x + y;
+		if (sum > 0) {
+			return x / sum;
+		}
+		// both underflowed, for tiny alpha and beta
+		return nextDouble() * (alpha + beta) < alpha ? 1.0 : 0.0;
+	}
+
+	/**
+	 * Fill the array with a sample from a Dirichlet
+	 * distribution with the given parameters.
+	 */
+	public void nextDirichlet(double[] alpha, double[] out) {
+		if (alpha.length != out.length) {
+			throw new IllegalArgumentException("Arrays must have the same length");
+		}
+		double sum = 0;
+		for (int i=0; i<alpha.length; i++) {
+			final double x = nextGamma(alpha[i]);
+			out[i] = x;
+			sum += x;
+		}
+		if (sum > 0) {
+			final double inv = 1.0 / sum;
+			for (int i=0; i<out.length; i++) {
+				out[i] *= inv;
+			}
+		} else {
+			// all underflowed, for tiny alphas
+			Arrays.fill(out, 0.0);
+			out[nextDiscrete(alpha)] = 1.0;
+		}
+	}
+
+	/**
+	 * Fill the array with a sample from a symmetric
+	 * Dirichlet distribution with parameter alpha.
+	 */
+	public void nextDirichlet(double alpha, double[] out) {
+		double sum = 0;
+		for (int i=0; i<out.length; i++) {
+			final double x = nextGamma(alpha);
+			out[i] = x;
+			sum += x;
+		}
+		if (sum > 0) {
+			final double inv = 1.0 / sum;
+			for (int i=0; i<out.length; i++) {
+				out[i] *= inv;
+			}
+		} else {
+			// all underflowed, for tiny alpha
+			Arrays.fill(out, 0.0);
+			out[nextInt(out.length)] = 1.0;
+		}
+	}
+
+	/**
+	 * Draw a single sample from (unnormalized) multinomial "a".
+	 */
+	public int nextDiscrete(double[] a) {
+		double sum = 0;
+		for (int i=0; i<a.length; i++) {
+			sum += a[i];
+		}
+		return nextDiscrete(a, sum);
+	}
+
+	/**
+	 * Draw a single sample from (unnormalized) multinomial
+	 * "a", with normalizing factor "sum".
+	 */
+	public int nextDiscrete(double[] a, double sum) {
+		double b = 0, r = nextDouble() * sum;
+		for (int i=0; i<a.length; i++) {
+			b += a[i];
+			if (b > r) {
+				return i;
+			}
+		}
+		return a.length-1;
+	}
+
+	/**
+	 * Draw a single sample from the alias table, in constant
+	 * time, for drawing many samples from the same weights.
+	 */
+	public int nextDiscrete(AliasTable table) {
+		return table.sample(nextDouble());
+	}
+
+	/**
+	 * Return random integer from Poisson with parameter lambda.
+	 */
+	public int nextPoisson(double lambda) {
+		if (lambda < 30) {
+			int v = -1;
+			final double l = Math.exp(-lambda);
+			double p = 1.0;
+			while (p >= l) {
+				p *= nextDouble();
+				v++;
+			}
+			return v;
+		}
+		// split into a Gamma waiting time and
+		// a Binomial count (Ahrens-Dieter)
+		final int m = (int)(lambda * 7.0 / 8.0);
+		final double x = nextGamma(m);
+		if (x > lambda) {
+			return nextBinomial(m - 1, lambda / x);
+		}
+		return m + nextPoisson(lambda - x);
+	}
+
+	/**
+	 * Return random integer from Binomial with n trials of probability p.
+	 */
+	public int nextBinomial(int n, double p) {
+		if (n < 64) {
+			int count = 0;
+			for (int i=0; i<n; i++) {
+				if (nextDouble() < p) {
+					count++;
+				}
+			}
+			return count;
+		}
+		// split by the order statistic (Knuth)
+		final int a = 1 + n / 2;
+		final int b = n + 1 - a;
+		final double x = nextBeta(a, b);
+		if (x >= p) {
+			return nextBinomial(a - 1, p / x);
+		}
+		return a + nextBinomial(b - 1, (p - x) / (1.0 - x));
+	}
+
+}
@@ -0,0 +1,86 @@
+package me.akuz.core.math;
+
+/**
+ * Manual benchmark of the FastRandoms against the Randoms
+ * on uniform, Gaussian and gamma samples;
+ * arguments (optional): sample count, repeats.
+ *
+ */
+public final class FastRandomsBenchmark {
+
+	private static final double GAMMA_ALPHA = 2.5;
+
+	public static void main(String[] args) {
+
+		final int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		final int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		final Randoms randoms = new Randoms(6);
+		final FastRandoms fastRandoms = new FastRandoms(6);
+
+		// keep the results, so that the loops are not optimized out
+		double check = 0;
+
+		long randomsUniformMs = Long.MAX_VALUE;
+		long fastUniformMs = Long.MAX_VALUE;
+		long randomsGaussianMs = Long.MAX_VALUE;
+		long fastGaussianMs = Long.MAX_VALUE;
+		long randomsGammaMs = Long.MAX_VALUE;
+		long fastGammaMs = Long.MAX_VALUE;
+
+		// first round is a warm up
+		for (int k=0; k<=repeats; k++) {
+
+			long startMs = System.currentTimeMillis();
+			for (int i=0; i<count; i++) {
+				check += randoms.nextDouble();
+			}
+			final long randomsUniform = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			for (int i=0; i<count; i++) {
+				check += fastRandoms.nextDouble();
+			}
+			final long fastUniform = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			for (int i=0; i<count; i++) {
+				check += randoms.nextGaussian();
+			}
+			final long randomsGaussian = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			for (int i=0; i<count; i++) {
+				check += fastRandoms.nextGaussian();
+			}
+			final long fastGaussian = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			for (int i=0; i<count; i++) {
+				check += randoms.nextGamma(GAMMA_ALPHA);
+			}
+			final long randomsGamma = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			for (int i=0; i<count; i++) {
+				check += fastRandoms.nextGamma(GAMMA_ALPHA);
+			}
+			final long fastGamma = System.currentTimeMillis() - startMs;
+
+			if (k > 0) {
+				randomsUniformMs = Math.min(randomsUniformMs, randomsUniform);
+				fastUniformMs = Math.min(fastUniformMs, fastUniform);
+				randomsGaussianMs = Math.min(randomsGaussianMs, randomsGaussian);
+				fastGaussianMs = Math.min(fastGaussianMs, fastGaussian);
+				randomsGammaMs = Math.min(randomsGammaMs, randomsGamma);
+				fastGammaMs = Math.min(fastGammaMs, fastGamma);
+			}
+		}
+
+		System.out.println("Best of " + repeats + " on " + count + " samples (check " + check + "):");
+		System.out.println("Uniform: Randoms " + randomsUniformMs + " ms, FastRandoms " + fastUniformMs + " ms");
+		System.out.println("Gaussian: Randoms " + randomsGaussianMs + " ms, FastRandoms " + fastGaussianMs + " ms");
+		System.out.println("Gamma(" + GAMMA_ALPHA + "): Randoms " + randomsGammaMs + " ms, FastRandoms " + fastGammaMs + " ms");
+	}
+
+}
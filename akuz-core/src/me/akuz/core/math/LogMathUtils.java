@@ -0,0 +1,362 @@
+package me.akuz.core.math;
+
+import java.security.InvalidParameterException;
+
+/**
+ * Log-space kernels for the inner loops of the inference algorithms:
+ * approximate exp() and log() with bounded relative error (1e-12),
+ * and fused softmax / log-normalization of rows of a row-major array.
+ *
+ * The approximations use small tables and short polynomials, and
+ * the loops are plain counted loops over primitive arrays without
+ * calls to the Math library, so that the JIT can unroll them.
+ *
+ */
+public final class LogMathUtils {
+
+	/**
+	 * Bound on relative error of fastExp() and fastLog()
+	 * (absolute error for results of fastLog() below 1).
+	 */
+	public static final double MAX_ERROR = 1e-12;
+
+	private static final double LN2 = 0.6931471805599453;
+
+	/**
+	 * exp(x) = 2^(k/EXP_TABLE_SIZE) * exp(r), where 2^(j/EXP_TABLE_SIZE)
+	 * is taken from the table, and |r| <= ln(2)/(2*EXP_TABLE_SIZE).
+	 */
+	private static final int EXP_TABLE_BITS = 6;
+	private static final int EXP_TABLE_SIZE = 1 << EXP_TABLE_BITS;
+	private static final double[] EXP_TABLE = new double[EXP_TABLE_SIZE];
+	private static final double EXP_INV_STEP = EXP_TABLE_SIZE / LN2;
+	private static final double EXP_STEP_HI;
+	private static final double EXP_STEP_LO;
+
+	/**
+	 * log(x) = e*ln(2) + log(c) + log(m/c), where m is the mantissa
+	 * of x, and c is the nearest point of the table, so that
+	 * |m/c - 1| <= 1/(2*LOG_TABLE_SIZE).
+	 */
+	private static final int LOG_TABLE_BITS = 7;
+	private static final int LOG_TABLE_SIZE = 1 << LOG_TABLE_BITS;
+	private static final double[] LOG_TABLE = new double[LOG_TABLE_SIZE + 1];
+	private static final double[] LOG_INV_TABLE = new double[LOG_TABLE_SIZE + 1];
+
+	static {
+		for (int j=0; j<EXP_TABLE_SIZE; j++) {
+			EXP_TABLE[j] = Math.pow(2.0, j / (double)EXP_TABLE_SIZE);
+		}
+		// high part with zero low bits, so that k*EXP_STEP_HI is exact
+		final double step = LN2 / EXP_TABLE_SIZE;
+		EXP_STEP_HI = Double.longBitsToDouble(Double.doubleToRawLongBits(step) & 0xfffffffff8000000L);
+		EXP_STEP_LO = step - EXP_STEP_HI;
+
+		for (int j=0; j<=LOG_TABLE_SIZE; j++) {
+			final double c = 1.0 + j / (double)LOG_TABLE_SIZE;
+			LOG_TABLE[j] = Math.log(c);
+			LOG_INV_TABLE[j] = 1.0 / c;
+		}
+	}
+
+	/**
+	 * Adding this number rounds a double of magnitude
+	 * below 2^51 to an integer in the low bits.
+	 */
+	private static final double ROUND_SHIFTER = 0x1.8p52;
+	private static final long ROUND_SHIFTER_BITS = Double.doubleToRawLongBits(ROUND_SHIFTER);
+
+	/**
+	 * Arguments of fastExp() above which the result
+	 * overflows, and below which it is flushed to zero.
+	 */
+	private static final double EXP_MAX_ARG = 709.782712893384;
+	private static final double EXP_MIN_ARG = -708.3964185322641;
+
+	private static final long MANTISSA_MASK = 0x000fffffffffffffL;
+	private static final long EXPONENT_ONE = 0x3ff0000000000000L;
+
+	/**
+	 * Approximate exp(x), with relative error below MAX_ERROR;
+	 * the result is zero for x below log(Double.MIN_NORMAL).
+	 */
+	public static double fastExp(final double x) {
+		if (x > EXP_MAX_ARG) {
+			return Double.POSITIVE_INFINITY;
+		}
+		if (x < EXP_MIN_ARG) {
+			return 0.0;
+		}
+		if (x != x) {
+			return x;
+		}
+		final double shifted = x * EXP_INV_STEP + ROUND_SHIFTER;
+		final long k = Double.doubleToRawLongBits(shifted) - ROUND_SHIFTER_BITS;
+		final double kd = shifted - ROUND_SHIFTER;
+		final double r = (x - kd * EXP_STEP_HI) - kd * EXP_STEP_LO;
+		final double t = EXP_TABLE[(int)k & (EXP_TABLE_SIZE - 1)];
+		final double p = t + t * (r + r * r * (1.0/2 + r * (1.0/6 + r * (1.0/24))));
+		final long e = k >> EXP_TABLE_BITS;
+		if (e > 1023) {
+			return p * 2.0 * Double.longBitsToDouble((e - 1 + 1023) << 52);
+		}
+		return p * Double.longBitsToDouble((e + 1023) << 52);
+	}
+
+	/**
+	 * Approximate exp(x) for x <= 0 without range checks, for
+	 * the inner loops; the result for x below EXP_MIN_ARG is
+	 * about Double.MIN_NORMAL, instead of zero.
+	 */
+	private static double expNonPositive(double x) {
+		x = Math.max(x, EXP_MIN_ARG);
+		final double shifted = x * EXP_INV_STEP + ROUND_SHIFTER;
+		final long k = Double.doubleToRawLongBits(shifted) - ROUND_SHIFTER_BITS;
+		final double kd = shifted - ROUND_SHIFTER;
+		final double r = (x - kd * EXP_STEP_HI) - kd * EXP_STEP_LO;
+		final double t = EXP_TABLE[(int)k & (EXP_TABLE_SIZE - 1)];
+		final double p = t + t * (r + r * r * (1.0/2 + r * (1.0/6 + r * (1.0/24))));
+		return p * Double.longBitsToDouble(((k >> EXP_TABLE_BITS) + 1023) << 52);
+	}
+
+	/**
+	 * Approximate log(x), with relative error below MAX_ERROR
+	 * (absolute error, where the result is below 1).
+	 */
+	public static double fastLog(double x) {
+		if (!(x > 0.0) || x == Double.POSITIVE_INFINITY) {
+			if (x == 0.0) {
+				return Double.NEGATIVE_INFINITY;
+			}
+			return x > 0.0 ? x : Double.NaN;
+		}
+		long bits = Double.doubleToRawLongBits(x);
+		int e = (int)(bits >>> 52);
+		if (e == 0) {
+			// subnormal
+			bits = Double.doubleToRawLongBits(x * 0x1.0p54);
+			e = (int)(bits >>> 52) - 54;
+		}
+		e -= 1023;
+		final double m = Double.longBitsToDouble((bits & MANTISSA_MASK) | EXPONENT_ONE);
+
+		// nearest table point, by the first
+		// mantissa bits, rounded up by the next bit
+		final int shift = 52 - LOG_TABLE_BITS;
+		final int j = (int)((bits & MANTISSA_MASK) >>> shift) + (int)((bits >>> (shift - 1)) & 1);
+
+		final double u = m * LOG_INV_TABLE[j] - 1.0;
+		final double logU = u - u * u * (1.0/2 - u * (1.0/3 - u * (1.0/4 - u * (1.0/5 - u * (1.0/6)))));
+		return e * LN2 + LOG_TABLE[j] + logU;
+	}
+
+	/**
+	 * Replace the values with their fastExp().
+	 */
+	public static void expInPlace(final double[] values, final int startIdx, final int length) {
+		for (int i=startIdx; i<startIdx+length; i++) {
+			values[i] = fastExp(values[i]);
+		}
+	}
+
+	/**
+	 * Replace the values with their fastLog().
+	 */
+	public static void logInPlace(final double[] values, final int startIdx, final int length) {
+		for (int i=startIdx; i<startIdx+length; i++) {
+			values[i] = fastLog(values[i]);
+		}
+	}
+
+	/**
+	 * Calculate LogSumExp(values) = log(sum(exp(value))),
+	 * returns negative infinity for empty values.
+	 */
+	public static double logSumExp(final double[] values, final int startIdx, final int length) {
+		final int endIdx = startIdx + length;
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i=startIdx; i<endIdx; i++) {
+			max = Math.max(max, values[i]);
+		}
+		if (max == Double.NEGATIVE_INFINITY || max == Double.POSITIVE_INFINITY) {
+			return max;
+		}
+		double sum = 0.0;
+		for (int i=startIdx; i<endIdx; i++) {
+			sum += expNonPositive(values[i] - max);
+		}
+		return max + fastLog(sum);
+	}
+
+	public static double logSumExp(final double[] values) {
+		return logSumExp(values, 0, values.length);
+	}
+
+	/**
+	 * Convert log likelihoods into probabilities (softmax) in
+	 * one pass of exp(); returns LogSumExp of the values.
+	 */
+	public static double softmaxInPlace(final double[] values, final int startIdx, final int length) {
+		return softmax(values, startIdx, values, startIdx, length);
+	}
+
+	public static double softmaxInPlace(final double[] values) {
+		return softmax(values, 0, values, 0, values.length);
+	}
+
+	/**
+	 * Write softmax of the log likelihoods into the output array
+	 * (which can be the input array); returns LogSumExp of the
+	 * log likelihoods, if all of them are negative infinity,
+	 * the probabilities are uniform.
+	 */
+	public static double softmax(
+			final double[] logLikes,
+			final int logLikesIdx,
+			final double[] probs,
+			final int probsIdx,
+			final int length) {
+
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i=0; i<length; i++) {
+			max = Math.max(max, logLikes[logLikesIdx + i]);
+		}
+		if (max == Double.NEGATIVE_INFINITY) {
+			final double uniform = 1.0 / length;
+			for (int i=0; i<length; i++) {
+				probs[probsIdx + i] = uniform;
+			}
+			return max;
+		}
+		double sum = 0.0;
+		for (int i=0; i<length; i++) {
+			final double exp = expNonPositive(logLikes[logLikesIdx + i] - max);
+			probs[probsIdx + i] = exp;
+			sum += exp;
+		}
+		final double scale = 1.0 / sum;
+		for (int i=0; i<length; i++) {
+			probs[probsIdx + i] *= scale;
+		}
+		return max + fastLog(sum);
+	}
+
+	/**
+	 * Softmax of each row of a row-major array of log likelihoods
+	 * (rowCount x colCount) into the output array (which can be
+	 * the input array); LogSumExp of each row is written into
+	 * rowLogSums, if it is not null.
+	 */
+	public static void softmaxRows(
+			final double[] logLikes,
+			final int rowCount,
+			final int colCount,
+			final double[] probs,
+			final double[] rowLogSums) {
+
+		checkRows(logLikes, rowCount, colCount, probs, rowLogSums);
+		for (int row=0; row<rowCount; row++) {
+			final int offset = row * colCount;
+			final double logSum = softmax(logLikes, offset, probs, offset, colCount);
+			if (rowLogSums != null) {
+				rowLogSums[row] = logSum;
+			}
+		}
+	}
+
+	/**
+	 * Normalize each row of a row-major array of log likelihoods
+	 * (rowCount x colCount) into log probabilities in the output
+	 * array (which can be the input array); LogSumExp of each row
+	 * is written into rowLogSums, if it is not null.
+	 */
+	public static void logProbsRows(
+			final double[] logLikes,
+			final int rowCount,
+			final int colCount,
+			final double[] logProbs,
+			final double[] rowLogSums) {
+
+		checkRows(logLikes, rowCount, colCount, logProbs, rowLogSums);
+		for (int row=0; row<rowCount; row++) {
+			final int offset = row * colCount;
+			final double logSum = logSumExp(logLikes, offset, colCount);
+			if (logSum == Double.NEGATIVE_INFINITY) {
+				final double uniform = -fastLog(colCount);
+				for (int i=offset; i<offset+colCount; i++) {
+					logProbs[i] = uniform;
+				}
+			} else {
+				for (int i=offset; i<offset+colCount; i++) {
+					logProbs[i] = logLikes[i] - logSum;
+				}
+			}
+			if (rowLogSums != null) {
+				rowLogSums[row] = logSum;
+			}
+		}
+	}
+
+	private static void checkRows(
+			final double[] input,
+			final int rowCount,
+			final int colCount,
+			final double[] output,
+			final double[] rowLogSums) {
+
+		final long size = (long)rowCount * colCount;
+		if (input.length < size || output.length < size) {
+			throw new IllegalArgumentException("Arrays must have at least " + size + " elements");
+		}
+		if (rowLogSums != null && rowLogSums.length < rowCount) {
+			throw new IllegalArgumentException("Row log sums must have at least " + rowCount + " elements");
+		}
+	}
+
+	/**
+	 * Same as StatsUtils.calcKLDiv(), using fastLog().
+	 */
+	public static double calcKLDiv(final double[] left, final double[] right) {
+		if (left.length != right.length) {
+			throw new InvalidParameterException("Arrays should have the same number of elements");
+		}
+		double divKL = 0.0;
+		for (int i=0; i<left.length; i++) {
+			final double leftProb = left[i];
+			if (leftProb > 0) {
+				final double rightProb = right[i];
+				if (rightProb == 0) {
+					throw new InvalidParameterException(
+							"KL-divergence error: right distribution is zero on a " +
+							"set that has non-zero probability in left distribution");
+				}
+				divKL += leftProb * fastLog(leftProb / rightProb);
+			}
+		}
+		return divKL;
+	}
+
+	/**
+	 * Same as StatsUtils.calcJSDist(), using fastLog().
+	 */
+	public static double calcJSDist(final double[] left, final double[] right) {
+		if (left.length != right.length) {
+			throw new InvalidParameterException("Arrays should have the same number of elements");
+		}
+		double divKL1 = 0.0;
+		double divKL2 = 0.0;
+		for (int i=0; i<left.length; i++) {
+			final double leftProb = left[i];
+			final double rightProb = right[i];
+			final double mid = (leftProb + rightProb) / 2.0;
+			if (leftProb > 0) {
+				divKL1 += leftProb * fastLog(leftProb / mid);
+			}
+			if (rightProb > 0) {
+				divKL2 += rightProb * fastLog(rightProb / mid);
+			}
+		}
+		return (divKL1 + divKL2)/2.0;
+	}
+
+}
@@ -0,0 +1,151 @@
+package me.akuz.core.math;
+
+import java.util.Random;
+
+/**
+ * Manual benchmark of the fast exp(), log() and softmax
+ * of LogMathUtils against Math.exp() and Math.log();
+ * arguments (optional): value count, repeats.
+ *
+ */
+public final class LogMathUtilsBenchmark {
+
+	private static final int SOFTMAX_COL_COUNT = 100;
+
+	private static double sumMathExp(final double[] values) {
+		double sum = 0;
+		for (int i=0; i<values.length; i++) {
+			sum += Math.exp(values[i]);
+		}
+		return sum;
+	}
+
+	private static double sumFastExp(final double[] values) {
+		double sum = 0;
+		for (int i=0; i<values.length; i++) {
+			sum += LogMathUtils.fastExp(values[i]);
+		}
+		return sum;
+	}
+
+	private static double sumMathLog(final double[] values) {
+		double sum = 0;
+		for (int i=0; i<values.length; i++) {
+			sum += Math.log(values[i]);
+		}
+		return sum;
+	}
+
+	private static double sumFastLog(final double[] values) {
+		double sum = 0;
+		for (int i=0; i<values.length; i++) {
+			sum += LogMathUtils.fastLog(values[i]);
+		}
+		return sum;
+	}
+
+	/**
+	 * Softmax of each row with Math.exp() and Math.log().
+	 */
+	private static double mathSoftmaxRows(final double[] logLikes, final int rowCount, final int colCount, final double[] probs) {
+		double logLike = 0;
+		for (int row=0; row<rowCount; row++) {
+			final int offset = row * colCount;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int j=0; j<colCount; j++) {
+				max = Math.max(max, logLikes[offset + j]);
+			}
+			double sum = 0;
+			for (int j=0; j<colCount; j++) {
+				final double exp = Math.exp(logLikes[offset + j] - max);
+				probs[offset + j] = exp;
+				sum += exp;
+			}
+			for (int j=0; j<colCount; j++) {
+				probs[offset + j] /= sum;
+			}
+			logLike += max + Math.log(sum);
+		}
+		return logLike;
+	}
+
+	private static double fastSoftmaxRows(final double[] logLikes, final int rowCount, final int colCount, final double[] probs, final double[] rowLogSums) {
+		LogMathUtils.softmaxRows(logLikes, rowCount, colCount, probs, rowLogSums);
+		double logLike = 0;
+		for (int row=0; row<rowCount; row++) {
+			logLike += rowLogSums[row];
+		}
+		return logLike;
+	}
+
+	public static void main(String[] args) {
+
+		final int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		final int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		final Random rnd = new Random(1);
+		final double[] expArgs = new double[count];
+		final double[] logArgs = new double[count];
+		for (int i=0; i<count; i++) {
+			expArgs[i] = rnd.nextGaussian() * 10.0;
+			logArgs[i] = Math.exp(rnd.nextGaussian() * 10.0);
+		}
+		final int rowCount = count / SOFTMAX_COL_COUNT;
+		final double[] probs = new double[rowCount * SOFTMAX_COL_COUNT];
+		final double[] rowLogSums = new double[rowCount];
+
+		// keep the results, so that the loops are not optimized out
+		double check = 0;
+
+		long mathExpMs = Long.MAX_VALUE;
+		long fastExpMs = Long.MAX_VALUE;
+		long mathLogMs = Long.MAX_VALUE;
+		long fastLogMs = Long.MAX_VALUE;
+		long mathSoftmaxMs = Long.MAX_VALUE;
+		long fastSoftmaxMs = Long.MAX_VALUE;
+
+		// first round is a warm up
+		for (int k=0; k<=repeats; k++) {
+
+			long startMs = System.currentTimeMillis();
+			check += sumMathExp(expArgs);
+			final long mathExp = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			check += sumFastExp(expArgs);
+			final long fastExp = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			check += sumMathLog(logArgs);
+			final long mathLog = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			check += sumFastLog(logArgs);
+			final long fastLog = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			check += mathSoftmaxRows(expArgs, rowCount, SOFTMAX_COL_COUNT, probs);
+			final long mathSoftmax = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			check += fastSoftmaxRows(expArgs, rowCount, SOFTMAX_COL_COUNT, probs, rowLogSums);
+			final long fastSoftmax = System.currentTimeMillis() - startMs;
+
+			if (k > 0) {
+				mathExpMs = Math.min(mathExpMs, mathExp);
+				fastExpMs = Math.min(fastExpMs, fastExp);
+				mathLogMs = Math.min(mathLogMs, mathLog);
+				fastLogMs = Math.min(fastLogMs, fastLog);
+				mathSoftmaxMs = Math.min(mathSoftmaxMs, mathSoftmax);
+				fastSoftmaxMs = Math.min(fastSoftmaxMs, fastSoftmax);
+			}
+		}
+
+		System.out.println("Best of " + repeats + " on " + count + " values (check " + check + "):");
+		System.out.println("exp: Math " + mathExpMs + " ms, LogMathUtils " + fastExpMs + " ms");
+		System.out.println("log: Math " + mathLogMs + " ms, LogMathUtils " + fastLogMs + " ms");
+		System.out.println("softmax " + rowCount + "x" + SOFTMAX_COL_COUNT + ": " +
+				"Math " + mathSoftmaxMs + " ms, LogMathUtils " + fastSoftmaxMs + " ms");
+	}
+
+}
@@ -0,0 +1,308 @@
+package me.akuz.core.math;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import Jama.Matrix;
+
+/**
+ * Dense and sparse matrix kernels, which split the work
+ * into row or column ranges and run them on a fork-join
+ * pool; small problems are computed on the calling thread.
+ *
+ */
+public final class ParallelMatrixUtils {
+
+	/**
+	 * Block sizes of the matrix multiplication: a block
+	 * of rows of the right matrix (GEMM_K_BLOCK x GEMM_N_BLOCK)
+	 * is reused for all rows of the result in a task.
+	 */
+	private static final int GEMM_K_BLOCK = 128;
+	private static final int GEMM_N_BLOCK = 256;
+
+	/**
+	 * Problems with fewer operations are not split.
+	 */
+	private static final long MIN_PARALLEL_FLOPS = 1L << 18;
+
+	/**
+	 * Number of tasks per thread, for load balancing.
+	 */
+	private static final int TASKS_PER_THREAD = 4;
+
+	/**
+	 * Work on a range of indices.
+	 */
+	interface RangeTask {
+		void run(int start, int end);
+	}
+
+	private static final class RangeAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final RangeTask _task;
+		private final int _start;
+		private final int _end;
+		private final int _grain;
+
+		public RangeAction(final RangeTask task, final int start, final int end, final int grain) {
+			_task = task;
+			_start = start;
+			_end = end;
+			_grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (_end - _start <= _grain) {
+				_task.run(_start, _end);
+			} else {
+				final int mid = (_start + _end) >>> 1;
+				invokeAll(
+					new RangeAction(_task, _start, mid, _grain),
+					new RangeAction(_task, mid, _end, _grain));
+			}
+		}
+	}
+
+	/**
+	 * Run the task on the range [0, count), split into
+	 * sub-ranges on the pool, if the work is large enough.
+	 */
+	static void parallelFor(
+			final ForkJoinPool pool,
+			final int count,
+			final long flops,
+			final RangeTask task) {
+
+		if (count <= 0) {
+			return;
+		}
+		final int parallelism = pool.getParallelism();
+		if (count == 1 || parallelism <= 1 || flops < MIN_PARALLEL_FLOPS) {
+			task.run(0, count);
+			return;
+		}
+		final int grain = Math.max(1, count / (parallelism * TASKS_PER_THREAD));
+		pool.invoke(new RangeAction(task, 0, count, grain));
+	}
+
+	/**
+	 * Multiply matrices (A * B) on the common pool.
+	 */
+	public static Matrix times(final Matrix A, final Matrix B) {
+		return times(A, B, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Multiply matrices (A * B), the rows
+	 * of the result are split between tasks.
+	 */
+	public static Matrix times(final Matrix A, final Matrix B, final ForkJoinPool pool) {
+		if (A.getColumnDimension() != B.getRowDimension()) {
+			throw new IllegalArgumentException("Matrix inner dimensions must agree");
+		}
+		final int m = A.getRowDimension();
+		final int k = A.getColumnDimension();
+		final int n = B.getColumnDimension();
+		final double[][] a = A.getArray();
+		final double[][] b = B.getArray();
+		final double[][] c = new double[m][n];
+		parallelFor(pool, m, 2L * m * n * k, (start, end) -> {
+			gemmRows(a, b, c, k, n, start, end);
+		});
+		return new Matrix(c, m, n);
+	}
+
+	private static void gemmRows(
+			final double[][] a,
+			final double[][] b,
+			final double[][] c,
+			final int k,
+			final int n,
+			final int rowStart,
+			final int rowEnd) {
+
+		for (int pStart=0; pStart<k; pStart+=GEMM_K_BLOCK) {
+			final int pEnd = Math.min(k, pStart + GEMM_K_BLOCK);
+			for (int jStart=0; jStart<n; jStart+=GEMM_N_BLOCK) {
+				final int jEnd = Math.min(n, jStart + GEMM_N_BLOCK);
+				for (int i=rowStart; i<rowEnd; i++) {
+					final double[] ai = a[i];
+					final double[] ci = c[i];
+					for (int p=pStart; p<pEnd; p++) {
+						final double aip = ai[p];
+						final double[] bp = b[p];
+						for (int j=jStart; j<jEnd; j++) {
+							ci[j] += aip * bp[j];
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Multiply transposed matrix by another matrix (A^T * B) on the common pool.
+	 */
+	public static Matrix transposeTimes(final Matrix A, final Matrix B) {
+		return transposeTimes(A, B, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Multiply transposed matrix by another matrix (A^T * B).
+	 */
+	public static Matrix transposeTimes(final Matrix A, final Matrix B, final ForkJoinPool pool) {
+		return times(A.transpose(), B, pool);
+	}
+
+	/**
+	 * Multiply matrix by another transposed matrix (A * B^T) on the common pool.
+	 */
+	public static Matrix timesTranspose(final Matrix A, final Matrix B) {
+		return timesTranspose(A, B, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Multiply matrix by another transposed matrix (A * B^T).
+	 */
+	public static Matrix timesTranspose(final Matrix A, final Matrix B, final ForkJoinPool pool) {
+		return times(A, B.transpose(), pool);
+	}
+
+	/**
+	 * Multiply sparse matrix by a dense matrix (A * B) on the common pool.
+	 */
+	public static Matrix times(final CsrMatrix A, final Matrix B) {
+		return times(A, B, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Multiply sparse matrix by a dense matrix (A * B), the rows
+	 * of the result are split between tasks by the number of
+	 * non-zero values in them.
+	 */
+	public static Matrix times(final CsrMatrix A, final Matrix B, final ForkJoinPool pool) {
+		if (A.getColCount() != B.getRowDimension()) {
+			throw new IllegalArgumentException("Matrix inner dimensions must agree");
+		}
+		final int m = A.getRowCount();
+		final int p = B.getColumnDimension();
+		final double[] out = new double[CsrMatrix.rowMajorSize(m, p)];
+		final double[] right = B.getRowPackedCopy();
+
+		// row ranges with equal non-zero counts
+		final int[] rowPtr = A.getRowPtr();
+		final int nnz = A.getNonZeroCount();
+		final int chunkCount = Math.max(1, Math.min(m, pool.getParallelism() * TASKS_PER_THREAD));
+		final int[] chunkStarts = new int[chunkCount + 1];
+		int row = 0;
+		for (int c=1; c<chunkCount; c++) {
+			final long target = (long)nnz * c / chunkCount;
+			while (row < m && rowPtr[row] < target) {
+				row++;
+			}
+			chunkStarts[c] = row;
+		}
+		chunkStarts[chunkCount] = m;
+
+		parallelFor(pool, chunkCount, 2L * nnz * p, (start, end) -> {
+			for (int c=start; c<end; c++) {
+				A.multRows(right, p, out, chunkStarts[c], chunkStarts[c + 1]);
+			}
+		});
+		return CsrMatrix.fromRowMajor(out, m, p);
+	}
+
+	/**
+	 * Calculate Q matrix of QR decomposition on the common pool.
+	 */
+	public static Matrix qrQ(final Matrix A) {
+		return qrQ(A, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Calculate orthonormal basis of the columns of A (m >= n),
+	 * which is the Q matrix (m x n) of Householder QR decomposition,
+	 * the same as Jama QRDecomposition.getQ(); each reflector is
+	 * applied to the trailing columns split into panels of columns,
+	 * which are processed by different tasks.
+	 */
+	public static Matrix qrQ(final Matrix A, final ForkJoinPool pool) {
+		final int m = A.getRowDimension();
+		final int n = A.getColumnDimension();
+		if (m < n) {
+			throw new IllegalArgumentException("Matrix must have at least as many rows as columns");
+		}
+
+		// column-major copy, columns become
+		// Householder vectors after the loop
+		final double[][] qr = new double[n][m];
+		final double[][] a = A.getArray();
+		for (int i=0; i<m; i++) {
+			for (int j=0; j<n; j++) {
+				qr[j][i] = a[i][j];
+			}
+		}
+
+		for (int k=0; k<n; k++) {
+			final double[] colK = qr[k];
+			double norm = 0.0;
+			for (int i=k; i<m; i++) {
+				norm += colK[i] * colK[i];
+			}
+			norm = Math.sqrt(norm);
+			if (norm == 0.0) {
+				continue;
+			}
+			if (colK[k] < 0) {
+				norm = -norm;
+			}
+			for (int i=k; i<m; i++) {
+				colK[i] /= norm;
+			}
+			colK[k] += 1.0;
+
+			final int kk = k;
+			parallelFor(pool, n - k - 1, 4L * (m - k) * (n - k - 1), (start, end) -> {
+				for (int j=kk+1+start; j<kk+1+end; j++) {
+					applyReflector(colK, kk, m, qr[j]);
+				}
+			});
+		}
+
+		// apply reflectors to identity columns
+		final double[][] q = new double[m][n];
+		parallelFor(pool, n, 4L * m * n * n, (start, end) -> {
+			final double[] col = new double[m];
+			for (int j=start; j<end; j++) {
+				Arrays.fill(col, 0.0);
+				col[j] = 1.0;
+				for (int k=j; k>=0; k--) {
+					if (qr[k][k] != 0.0) {
+						applyReflector(qr[k], k, m, col);
+					}
+				}
+				for (int i=0; i<m; i++) {
+					q[i][j] = col[i];
+				}
+			}
+		});
+		return new Matrix(q, m, n);
+	}
+
+	private static void applyReflector(final double[] v, final int k, final int m, final double[] col) {
+		double s = 0.0;
+		for (int i=k; i<m; i++) {
+			s += v[i] * col[i];
+		}
+		s = -s / v[k];
+		for (int i=k; i<m; i++) {
+			col[i] += s * v[i];
+		}
+	}
+
+}
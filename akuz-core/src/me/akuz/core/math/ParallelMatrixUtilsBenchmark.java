@@ -0,0 +1,74 @@
+package me.akuz.core.math;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import Jama.EigenvalueDecomposition;
+import Jama.Matrix;
+
+/**
+ * Manual benchmark of the parallel matrix multiplication
+ * and symmetric eigen decomposition against Jama;
+ * arguments (optional): matrix size, repeats.
+ *
+ */
+public final class ParallelMatrixUtilsBenchmark {
+
+	private static Matrix random(final Random rnd, final int m, final int n) {
+		final Matrix result = new Matrix(m, n);
+		for (int i=0; i<m; i++) {
+			for (int j=0; j<n; j++) {
+				result.set(i, j, rnd.nextGaussian());
+			}
+		}
+		return result;
+	}
+
+	public static void main(String[] args) {
+
+		final int n = args.length > 0 ? Integer.parseInt(args[0]) : 800;
+		final int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+		final Random rnd = new Random(1);
+		final Matrix A = random(rnd, n, n);
+		final Matrix B = random(rnd, n, n);
+		final Matrix X = random(rnd, n / 2, n / 2);
+		final Matrix S = X.plus(X.transpose()).times(0.5);
+
+		// warm up
+		A.times(B);
+		ParallelMatrixUtils.times(A, B);
+		new EigenvalueDecomposition(S);
+		new SymmetricEigen(S);
+
+		long jamaMs = Long.MAX_VALUE;
+		long parallelMs = Long.MAX_VALUE;
+		long jamaEigenMs = Long.MAX_VALUE;
+		long parallelEigenMs = Long.MAX_VALUE;
+		for (int k=0; k<repeats; k++) {
+
+			long startMs = System.currentTimeMillis();
+			A.times(B);
+			jamaMs = Math.min(jamaMs, System.currentTimeMillis() - startMs);
+
+			startMs = System.currentTimeMillis();
+			ParallelMatrixUtils.times(A, B);
+			parallelMs = Math.min(parallelMs, System.currentTimeMillis() - startMs);
+
+			startMs = System.currentTimeMillis();
+			new EigenvalueDecomposition(S);
+			jamaEigenMs = Math.min(jamaEigenMs, System.currentTimeMillis() - startMs);
+
+			startMs = System.currentTimeMillis();
+			new SymmetricEigen(S);
+			parallelEigenMs = Math.min(parallelEigenMs, System.currentTimeMillis() - startMs);
+		}
+
+		System.out.println("Best of " + repeats + " on " + ForkJoinPool.commonPool().getParallelism() + " threads:");
+		System.out.println("Multiply " + n + "x" + n + ": " +
+				"Jama " + jamaMs + " ms, parallel " + parallelMs + " ms");
+		System.out.println("Symmetric eigen " + (n / 2) + "x" + (n / 2) + ": " +
+				"Jama " + jamaEigenMs + " ms, parallel " + parallelEigenMs + " ms");
+	}
+
+}
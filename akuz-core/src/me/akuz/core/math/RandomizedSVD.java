@@ -2,15 +2,25 @@ package me.akuz.core.math;
 
 import java.security.InvalidParameterException;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
 
 import Jama.Matrix;
-import Jama.QRDecomposition;
-import Jama.SingularValueDecomposition;
 
+/**
+ * Randomized truncated SVD of a sparse matrix; the sparse
+ * matrix is multiplied in compressed sparse row format,
+ * and the products, the QR and the eigen decomposition
+ * are computed by the parallel kernels on a fork-join pool.
+ *
+ */
 public final class RandomizedSVD {
 	
+	private static final Logger _log = Logger.getLogger(RandomizedSVD.class.getName());
+	
+	private final ForkJoinPool _pool;
 	private final Random _random;
-	private final SpaMatrix _A;
+	private final CsrMatrix _A;
 	private final int _k;
 	private final int _q;
 	
@@ -22,6 +32,14 @@ public final class RandomizedSVD {
 	private Matrix _V;
 	
 	public RandomizedSVD(final SpaMatrix A, final int k, final int q) {
+		this(A.toCsr(), k, q);
+	}
+	
+	public RandomizedSVD(final CsrMatrix A, final int k, final int q) {
+		this(A, k, q, ForkJoinPool.commonPool());
+	}
+	
+	public RandomizedSVD(final CsrMatrix A, final int k, final int q, final ForkJoinPool pool) {
 		if (A == null) {
 			throw new NullPointerException();
 		}
@@ -34,6 +52,7 @@ public final class RandomizedSVD {
 		if (2*k > Math.min(A.getColCount(), A.getRowCount())) {
 			throw new InvalidParameterException("2*k must not be larger than minimum matrix dimension size");
 		}
+		_pool = pool;
 		_random = new Random(System.currentTimeMillis());
 		_A = A;
 		_k = k;
@@ -43,87 +62,44 @@ public final class RandomizedSVD {
 
 	private void execute() {
 		
-		long millis;
-		System.out.println("Executing Randomized SVD...");
+		long millis = System.currentTimeMillis();
 		
-		System.out.print("Generating Omega (" + _A.getColCount() + ", " + 2*_k + ")... ");
-		millis = System.currentTimeMillis();
 		_Omega = new Matrix(_A.getColCount(), 2*_k);
 		for (int i=0; i<_Omega.getRowDimension(); i++) {
 			for (int j=0; j<_Omega.getColumnDimension(); j++) {
 				_Omega.set(i, j, _random.nextGaussian());
 			}
 		}
-		System.out.println(System.currentTimeMillis() - millis + "ms");
 		
-		System.out.print("Multiplying A by Omega... ");
-		millis = System.currentTimeMillis();
-		_Y = _A.multOnRightBy(_Omega);
-		System.out.println(System.currentTimeMillis() - millis + "ms");
-		System.out.println("Obtained Y (" + _Y.getRowDimension() + ", " + _Y.getColumnDimension() + ")");
+		_Y = ParallelMatrixUtils.times(_A, _Omega, _pool);
 		
-		SpaMatrix AT = _A.transposedView();
+		CsrMatrix AT = _A.transpose();
 		for (int iteration=1; iteration<=_q; iteration++) {
-			System.out.print("Power iteration " + iteration + "... ");
-			millis = System.currentTimeMillis();
-			System.out.print("Mult by A^T... ");
-			_Y = AT.multOnRightBy(_Y);
-			System.out.print("Mult by A... ");
-			_Y = _A.multOnRightBy(_Y);
-			System.out.println(System.currentTimeMillis() - millis + "ms");
-			System.out.println("Updated Y (" + _Y.getRowDimension() + ", " + _Y.getColumnDimension() + ")");
+			_Y = ParallelMatrixUtils.times(AT, _Y, _pool);
+			_Y = ParallelMatrixUtils.times(_A, _Y, _pool);
 		}
+		_log.fine("Obtained Y (" + _Y.getRowDimension() + ", " + _Y.getColumnDimension() + ") after " + _q + 
+				" power iterations in " + (System.currentTimeMillis() - millis) + "ms");
 		
-		System.out.print("Performing QR-decomposition... ");
 		millis = System.currentTimeMillis();
-		QRDecomposition qr = new QRDecomposition(_Y);
-		_Q = qr.getQ();
-		System.out.println(System.currentTimeMillis() - millis + "ms");
-		System.out.println("Obtained Q (" + _Q.getRowDimension() + ", " + _Q.getColumnDimension() + ")");
+		_Q = ParallelMatrixUtils.qrQ(_Y, _pool);
 		
-		System.out.print("Transposing Q... ");
-		millis = System.currentTimeMillis();
-		Matrix QT = _Q.transpose();
-		System.out.println(System.currentTimeMillis() - millis + "ms");
+		// B = Q^T * A = (A^T * Q)^T
+		Matrix B = ParallelMatrixUtils.times(AT, _Q, _pool).transpose();
+		Matrix BBT = ParallelMatrixUtils.timesTranspose(B, B, _pool);
 		
-		System.out.print("Calculating matrix B... ");
-		millis = System.currentTimeMillis();
-		Matrix B = _A.multOnLeftBy(QT);
-		System.out.println(System.currentTimeMillis() - millis + "ms");
-		System.out.println("Obtained B (" + B.getRowDimension() + ", " + B.getColumnDimension() + ")");
+		// B*B^T is symmetric, so its SVD
+		// is the same as eigen decomposition
+		SymmetricEigen eigen = new SymmetricEigen(BBT, _pool);
+		Matrix Uhat = eigen.getV();
+		_U = ParallelMatrixUtils.times(_Q, Uhat, _pool);
 		
-		System.out.print("Calculating matrix BxB^T... ");
-		millis = System.currentTimeMillis();
-		Matrix BT = B.transpose();
-		Matrix BBT = B.times(BT);
-		System.out.println(System.currentTimeMillis() - millis + "ms");
-		System.out.println("Obtained B*B^T (" + BBT.getRowDimension() + ", " + BBT.getColumnDimension() + ")");
-		
-		System.out.print("Calculating full SVD of small BxB^T... ");
-		millis = System.currentTimeMillis();
-		SingularValueDecomposition svd = new SingularValueDecomposition(BBT);
-		System.out.println(System.currentTimeMillis() - millis + "ms");
-		
-		Matrix Uhat = svd.getU();
-		System.out.println("Obtained Uhat (" + Uhat.getRowDimension() + ", " + Uhat.getColumnDimension() + ")");
-		
-		System.out.print("Calculating U = Q * Uhat... ");
-		millis = System.currentTimeMillis();
-		_U = _Q.times(Uhat);
-		System.out.println(System.currentTimeMillis() - millis + "ms");
-		System.out.println("Obtained U (" + _U.getRowDimension() + ", " + _U.getColumnDimension() + ")");
-		
-		System.out.print("Calculating Sigma... ");
-		millis = System.currentTimeMillis();
-		_S = svd.getS().copy();
+		double[] values = eigen.getValues();
+		_S = new Matrix(values.length, values.length);
 		for (int d=0; d<_S.getColumnDimension(); d++) {
-			_S.set(d, d, Math.sqrt(_S.get(d, d)));
+			_S.set(d, d, Math.sqrt(Math.max(0.0, values[d])));
 		}
-		System.out.println(System.currentTimeMillis() - millis + "ms");
-		System.out.println("Obtained Sigma (" + _S.getRowDimension() + ", " + _S.getColumnDimension() + ")");
 		
-		System.out.print("Calculating V... ");
-		millis = System.currentTimeMillis();
 		Matrix SigmaInv = _S.copy();
 		for (int d=0; d<SigmaInv.getColumnDimension(); d++) {
 			double value = SigmaInv.get(d, d);
@@ -131,13 +107,11 @@ public final class RandomizedSVD {
 				SigmaInv.set(d, d, 1.0/value);
 			}
 		}
-		Matrix UT = _U.transpose();
-		_V = SigmaInv.times(_A.multOnLeftBy(UT));
-		_V = _V.transpose();
-		System.out.println(System.currentTimeMillis() - millis + "ms");
-		System.out.println("Obtained V (" + _V.getRowDimension() + ", " + _V.getColumnDimension() + ")");
-	
-		System.out.println("Randomized SVD done.");
+		// V = (SigmaInv * U^T * A)^T = A^T * U * SigmaInv
+		_V = ParallelMatrixUtils.times(AT, _U, _pool).times(SigmaInv);
+		_log.fine("Obtained U (" + _U.getRowDimension() + ", " + _U.getColumnDimension() + "), " + 
+				"V (" + _V.getRowDimension() + ", " + _V.getColumnDimension() + ") in " + 
+				(System.currentTimeMillis() - millis) + "ms");
 	}
 
 	public Matrix getU() {
@@ -240,19 +240,20 @@ public final class SpaMatrix implements Cloneable {
 			throw new IllegalStateException("This sparse matrix is not optimised for multiplication on the right");
 		}
 		
+		final double[][] rightArr = right.getArray();
 		Matrix res = new Matrix(_m, right.getColumnDimension());
+		final double[][] resArr = res.getArray();
 		for (int i=0; i<res.getRowDimension(); i++) {
-			for (int j=0; j<res.getColumnDimension(); j++) {
-				SpaMatrixLine rowLine = _rowLines[i];
-				if (rowLine != null) {
-					double sum = 0;
-					for (int idx=0; idx<rowLine.size(); idx++) {
-						int k = rowLine.getIndexByIdx(idx);
-						double leftValue = rowLine.getValueByIdx(idx);
-						double rightValue = right.get(k, j);
-						sum += leftValue*rightValue;
+			SpaMatrixLine rowLine = _rowLines[i];
+			if (rowLine != null) {
+				final double[] resRow = resArr[i];
+				for (int idx=0; idx<rowLine.size(); idx++) {
+					int k = rowLine.getIndexByIdx(idx);
+					double leftValue = rowLine.getValueByIdx(idx);
+					final double[] rightRow = rightArr[k];
+					for (int j=0; j<resRow.length; j++) {
+						resRow[j] += leftValue*rightRow[j];
 					}
-					res.set(i, j, sum);
 				}
 			}
 		}
@@ -268,19 +269,22 @@ public final class SpaMatrix implements Cloneable {
 			throw new IllegalStateException("This sparse matrix is not optimised for multiplication on the left");
 		}
 		
+		final double[][] leftArr = left.getArray();
 		Matrix res = new Matrix(left.getRowDimension(), _n);
-		for (int i=0; i<res.getRowDimension(); i++) {
-			for (int j=0; j<res.getColumnDimension(); j++) {
-				SpaMatrixLine col = _colLines[j];
-				if (col != null) {
+		final double[][] resArr = res.getArray();
+		for (int j=0; j<res.getColumnDimension(); j++) {
+			SpaMatrixLine col = _colLines[j];
+			if (col != null) {
+				for (int i=0; i<res.getRowDimension(); i++) {
+					final double[] leftRow = leftArr[i];
 					double sum = 0;
 					for (int idx=0; idx<col.size(); idx++) {
 						int k = col.getIndexByIdx(idx);
 						double rightValue = col.getValueByIdx(idx);
-						double leftValue = left.get(i, k);
+						double leftValue = leftRow[k];
 						sum += rightValue*leftValue;
 					}
-					res.set(i, j, sum);
+					resArr[i][j] = sum;
 				}
 			}
 		}
@@ -316,6 +320,39 @@ public final class SpaMatrix implements Cloneable {
 		return m;
 	}
 	
+	/**
+	 * Convert optimized matrix into compressed sparse row
+	 * format, which is faster for multiplication.
+	 */
+	public CsrMatrix toCsr() {
+		if (!_isOptimized) {
+			throw new IllegalStateException("Sparse matrix is not optimized yet, call optimize() first.");
+		}
+		if (_rowLines != null) {
+			final CsrMatrix.Builder builder = CsrMatrix.build(_m, _n);
+			for (int i=0; i<_m; i++) {
+				SpaMatrixLine row = _rowLines[i];
+				if (row != null) {
+					for (int idx=0; idx<row.size(); idx++) {
+						builder.add(i, row.getIndexByIdx(idx), row.getValueByIdx(idx));
+					}
+				}
+			}
+			return builder.create();
+		} else {
+			final CsrMatrix.Builder builder = CsrMatrix.build(_n, _m);
+			for (int j=0; j<_n; j++) {
+				SpaMatrixLine col = _colLines[j];
+				if (col != null) {
+					for (int idx=0; idx<col.size(); idx++) {
+						builder.add(j, col.getIndexByIdx(idx), col.getValueByIdx(idx));
+					}
+				}
+			}
+			return builder.create().transpose();
+		}
+	}
+	
 	public static SpaMatrix randomGaussian(int m, int n, double fillPercentage) {
 		return randomGaussian(m, n, fillPercentage, OPT_MULT_BOTH_WAYS);
 	}
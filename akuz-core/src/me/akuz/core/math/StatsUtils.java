@@ -123,16 +123,24 @@ public final class StatsUtils {
 	 * log ( sum_value_in_array ( exp ( value ) ) ).
 	 */
 	public static final double logSumExp(double[] values) {
+		return logSumExp(values, 0, values.length);
+	}
+	
+	public static final double logSumExp(
+			final double[] values,
+			final int startIdx,
+			final int length) {
+		
 		double max = 0;
-		for (int i=0; i<values.length; i++) {
-			double value = values[i];
+		for (int i=0; i<length; i++) {
+			double value = values[startIdx + i];
 			if (i==0 || max < value) {
 				max = value;
 			}
 		}
 		double sum = 0;
-		for (int i=0; i<values.length; i++) {
-			double value = values[i];
+		for (int i=0; i<length; i++) {
+			double value = values[startIdx + i];
 			sum += Math.exp(value - max);
 		}
 		return max + Math.log(sum);
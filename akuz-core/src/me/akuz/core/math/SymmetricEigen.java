@@ -0,0 +1,318 @@
+package me.akuz.core.math;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import Jama.Matrix;
+
+/**
+ * Eigen decomposition of a symmetric matrix (A = V * D * V^T),
+ * with eigenvalues sorted in descending order.
+ *
+ * The matrix is reduced to tridiagonal form by Householder
+ * reflections and then diagonalized by implicit QL iterations
+ * (as in Jama); the O(n^3) parts (reflector updates and the
+ * rotations of the eigenvectors) are split between tasks
+ * on a fork-join pool, see {@link ParallelMatrixUtils}.
+ *
+ */
+public final class SymmetricEigen {
+
+	private static final double EPS = Math.pow(2.0, -52.0);
+
+	private final double[] _values;
+	private final Matrix _V;
+
+	public SymmetricEigen(final Matrix A) {
+		this(A, ForkJoinPool.commonPool());
+	}
+
+	public SymmetricEigen(final Matrix A, final ForkJoinPool pool) {
+		final int n = A.getRowDimension();
+		if (n != A.getColumnDimension()) {
+			throw new IllegalArgumentException("Matrix must be square");
+		}
+		final double[][] a = A.getArrayCopy();
+		final double[] d = new double[n];
+		final double[] e = new double[n];
+		final double[][] v = new double[n][n];
+		tridiagonalize(a, d, e, v, pool);
+		diagonalize(d, e, v, pool);
+
+		// sort descending
+		final Integer[] order = new Integer[n];
+		for (int i=0; i<n; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (i1, i2) -> Double.compare(d[i2], d[i1]));
+		_values = new double[n];
+		final double[][] sorted = new double[n][n];
+		for (int j=0; j<n; j++) {
+			final int src = order[j];
+			_values[j] = d[src];
+			for (int i=0; i<n; i++) {
+				sorted[i][j] = v[i][src];
+			}
+		}
+		_V = new Matrix(sorted, n, n);
+	}
+
+	/**
+	 * Reduce a to tridiagonal form (d, e) and
+	 * accumulate the transformations into v.
+	 */
+	private static void tridiagonalize(
+			final double[][] a,
+			final double[] d,
+			final double[] e,
+			final double[][] v,
+			final ForkJoinPool pool) {
+
+		final int n = a.length;
+		final double[][] reflectors = new double[n][];
+		final double[] betas = new double[n];
+		final double[] x = new double[n];
+		final double[] w = new double[n];
+
+		for (int k=0; k<n-2; k++) {
+
+			final int start = k + 1;
+			double norm = 0.0;
+			for (int i=start; i<n; i++) {
+				norm += a[i][k] * a[i][k];
+			}
+			norm = Math.sqrt(norm);
+			if (norm == 0.0) {
+				continue;
+			}
+
+			// reflector x, which zeroes a[k+2..n)[k]
+			final double alpha = a[start][k] > 0 ? -norm : norm;
+			double xx = 0.0;
+			for (int i=start; i<n; i++) {
+				x[i] = a[i][k];
+			}
+			x[start] -= alpha;
+			for (int i=start; i<n; i++) {
+				xx += x[i] * x[i];
+			}
+			final double beta = 2.0 / xx;
+
+			// w = beta * A22 * x
+			ParallelMatrixUtils.parallelFor(pool, n - start, 2L * (n - start) * (n - start), (s, t) -> {
+				for (int i=start+s; i<start+t; i++) {
+					final double[] row = a[i];
+					double sum = 0.0;
+					for (int j=start; j<n; j++) {
+						sum += row[j] * x[j];
+					}
+					w[i] = beta * sum;
+				}
+			});
+
+			// w = w - (beta * w.x / 2) * x
+			double wx = 0.0;
+			for (int i=start; i<n; i++) {
+				wx += w[i] * x[i];
+			}
+			final double c = beta * wx / 2.0;
+			for (int i=start; i<n; i++) {
+				w[i] -= c * x[i];
+			}
+
+			// A22 = A22 - x * w^T - w * x^T
+			ParallelMatrixUtils.parallelFor(pool, n - start, 4L * (n - start) * (n - start), (s, t) -> {
+				for (int i=start+s; i<start+t; i++) {
+					final double[] row = a[i];
+					final double xi = x[i];
+					final double wi = w[i];
+					for (int j=start; j<n; j++) {
+						row[j] -= xi * w[j] + wi * x[j];
+					}
+				}
+			});
+
+			a[start][k] = alpha;
+			a[k][start] = alpha;
+			for (int i=start+1; i<n; i++) {
+				a[i][k] = 0.0;
+				a[k][i] = 0.0;
+			}
+			reflectors[k] = Arrays.copyOfRange(x, start, n);
+			betas[k] = beta;
+		}
+
+		for (int i=0; i<n; i++) {
+			d[i] = a[i][i];
+			e[i] = i > 0 ? a[i][i-1] : 0.0;
+		}
+
+		// v = H_0 * H_1 * ... * H_(n-3)
+		for (int i=0; i<n; i++) {
+			Arrays.fill(v[i], 0.0);
+			v[i][i] = 1.0;
+		}
+		final double[] u = new double[n];
+		for (int k=n-3; k>=0; k--) {
+			final double[] r = reflectors[k];
+			if (r == null) {
+				continue;
+			}
+			final int start = k + 1;
+			final double beta = betas[k];
+			ParallelMatrixUtils.parallelFor(pool, n - start, 4L * (n - start) * (n - start), (s, t) -> {
+				final int jStart = start + s;
+				final int jEnd = start + t;
+				// u = r^T * v (for columns of the task)
+				Arrays.fill(u, jStart, jEnd, 0.0);
+				for (int i=start; i<n; i++) {
+					final double ri = r[i - start];
+					final double[] row = v[i];
+					for (int j=jStart; j<jEnd; j++) {
+						u[j] += ri * row[j];
+					}
+				}
+				// v = v - beta * r * u
+				for (int i=start; i<n; i++) {
+					final double ri = beta * r[i - start];
+					final double[] row = v[i];
+					for (int j=jStart; j<jEnd; j++) {
+						row[j] -= ri * u[j];
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Diagonalize tridiagonal matrix (d, e) by implicit QL
+	 * iterations, applying the rotations to the rows of v.
+	 */
+	private static void diagonalize(
+			final double[] d,
+			final double[] e,
+			final double[][] v,
+			final ForkJoinPool pool) {
+
+		final int n = d.length;
+		if (n == 0) {
+			return;
+		}
+		for (int i=1; i<n; i++) {
+			e[i-1] = e[i];
+		}
+		e[n-1] = 0.0;
+
+		final double[] cs = new double[n];
+		final double[] sn = new double[n];
+		double f = 0.0;
+		double tst1 = 0.0;
+		for (int l=0; l<n; l++) {
+
+			// find small subdiagonal element
+			tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+			int m = l;
+			while (m < n) {
+				if (Math.abs(e[m]) <= EPS*tst1) {
+					break;
+				}
+				m++;
+			}
+			if (m == n) {
+				throw new IllegalStateException("Could not find small subdiagonal element");
+			}
+
+			if (m > l) {
+				do {
+					// compute implicit shift
+					double g = d[l];
+					double p = (d[l+1] - g) / (2.0 * e[l]);
+					double r = Math.hypot(p, 1.0);
+					if (p < 0) {
+						r = -r;
+					}
+					d[l] = e[l] / (p + r);
+					d[l+1] = e[l] * (p + r);
+					final double dl1 = d[l+1];
+					double h = g - d[l];
+					for (int i=l+2; i<n; i++) {
+						d[i] -= h;
+					}
+					f += h;
+
+					// implicit QL transformation
+					p = d[m];
+					double c = 1.0;
+					double c2 = c;
+					double c3 = c;
+					final double el1 = e[l+1];
+					double s = 0.0;
+					double s2 = 0.0;
+					for (int i=m-1; i>=l; i--) {
+						c3 = c2;
+						c2 = c;
+						s2 = s;
+						g = c * e[i];
+						h = c * p;
+						r = Math.hypot(p, e[i]);
+						e[i+1] = s * r;
+						s = e[i] / r;
+						c = p / r;
+						p = c * d[i] - s * g;
+						d[i+1] = h + s * (c * g + s * d[i]);
+						cs[i] = c;
+						sn[i] = s;
+					}
+					p = -s * s2 * c3 * el1 * e[l] / dl1;
+					e[l] = s * p;
+					d[l] = c * p;
+
+					// apply the rotations to the vectors
+					final int ll = l;
+					final int mm = m;
+					ParallelMatrixUtils.parallelFor(pool, n, 6L * n * (m - l), (start, end) -> {
+						for (int k=start; k<end; k++) {
+							final double[] row = v[k];
+							for (int i=mm-1; i>=ll; i--) {
+								final double hh = row[i+1];
+								row[i+1] = sn[i] * row[i] + cs[i] * hh;
+								row[i] = cs[i] * row[i] - sn[i] * hh;
+							}
+						}
+					});
+
+				} while (Math.abs(e[l]) > EPS*tst1);
+			}
+			d[l] = d[l] + f;
+			e[l] = 0.0;
+		}
+	}
+
+	/**
+	 * Get eigenvalues in descending order.
+	 */
+	public double[] getValues() {
+		return _values.clone();
+	}
+
+	/**
+	 * Get eigenvectors (columns), in the
+	 * same order as the eigenvalues.
+	 */
+	public Matrix getV() {
+		return _V;
+	}
+
+	/**
+	 * Get diagonal matrix of eigenvalues.
+	 */
+	public Matrix getD() {
+		final int n = _values.length;
+		final Matrix D = new Matrix(n, n);
+		for (int i=0; i<n; i++) {
+			D.set(i, i, _values[i]);
+		}
+		return D;
+	}
+
+}
@@ -0,0 +1,281 @@
+package me.akuz.core.sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntToDoubleFunction;
+
+import me.akuz.core.Pair;
+import me.akuz.core.SortOrder;
+
+/**
+ * Selects K (int key, double value) items from all the items
+ * added via add(), same as SelectK, but without boxing: the
+ * items are kept in a binary heap in primitive arrays, which
+ * has the worst of the selected items at the top, so that the
+ * items, which are not better than it, are rejected at once.
+ *
+ * Values are compared as by Double.compare(); the selector
+ * can be reused after get() or clear().
+ *
+ */
+public final class SelectKIntDouble {
+
+	/**
+	 * Minimum number of items per task
+	 * in the parallel selection.
+	 */
+	private static final int PARALLEL_MIN_CHUNK = 1 << 14;
+
+	private final boolean _desc;
+	private final int _k;
+	private final int[] _keys;
+	private final double[] _values;
+	private int _size;
+
+	public SelectKIntDouble(final SortOrder sortOrder, final int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("Argument k must not be negative");
+		}
+		if (SortOrder.Desc.equals(sortOrder)) {
+			_desc = true;
+		} else if (SortOrder.Asc.equals(sortOrder)) {
+			_desc = false;
+		} else {
+			throw new IllegalArgumentException("Unsupported sort order: " + sortOrder);
+		}
+		_k = k;
+		_keys = new int[k];
+		_values = new double[k];
+	}
+
+	public SortOrder getSortOrder() {
+		return _desc ? SortOrder.Desc : SortOrder.Asc;
+	}
+
+	public int getK() {
+		return _k;
+	}
+
+	/**
+	 * Get the number of items selected so far.
+	 */
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * Check if K items are selected, so that
+	 * only items better than the threshold
+	 * can be added.
+	 */
+	public boolean isFull() {
+		return _size == _k;
+	}
+
+	/**
+	 * Get value of the worst selected item,
+	 * valid only when the selector is full.
+	 */
+	public double getThreshold() {
+		if (_size < _k || _k == 0) {
+			throw new IllegalStateException("Selector is not full, there is no threshold");
+		}
+		return _values[0];
+	}
+
+	/**
+	 * Check if value a is worse than value b,
+	 * i.e. should be closer to the heap top.
+	 */
+	private boolean worse(final double a, final double b) {
+		final int cmp = Double.compare(a, b);
+		return _desc ? cmp < 0 : cmp > 0;
+	}
+
+	/**
+	 * Add item, returns false if the item
+	 * was rejected as not one of the top K.
+	 */
+	public boolean add(final int key, final double value) {
+		if (_size < _k) {
+			// sift up
+			int pos = _size++;
+			while (pos > 0) {
+				final int parent = (pos - 1) >>> 1;
+				if (!worse(value, _values[parent])) {
+					break;
+				}
+				_keys[pos] = _keys[parent];
+				_values[pos] = _values[parent];
+				pos = parent;
+			}
+			_keys[pos] = key;
+			_values[pos] = value;
+			return true;
+		}
+		if (_k == 0 || !worse(_values[0], value)) {
+			// fast reject
+			return false;
+		}
+		replaceTop(key, value);
+		return true;
+	}
+
+	private void replaceTop(final int key, final double value) {
+		// sift down
+		int pos = 0;
+		final int half = _size >>> 1;
+		while (pos < half) {
+			int child = 2 * pos + 1;
+			final int right = child + 1;
+			if (right < _size && worse(_values[right], _values[child])) {
+				child = right;
+			}
+			if (!worse(_values[child], value)) {
+				break;
+			}
+			_keys[pos] = _keys[child];
+			_values[pos] = _values[child];
+			pos = child;
+		}
+		_keys[pos] = key;
+		_values[pos] = value;
+	}
+
+	private void removeTop() {
+		_size--;
+		if (_size > 0) {
+			final int key = _keys[_size];
+			final double value = _values[_size];
+			replaceTop(key, value);
+		}
+	}
+
+	/**
+	 * Add all items selected by another selector.
+	 */
+	public void addAll(final SelectKIntDouble other) {
+		for (int i=0; i<other._size; i++) {
+			add(other._keys[i], other._values[i]);
+		}
+	}
+
+	/**
+	 * Remove all items.
+	 */
+	public void clear() {
+		_size = 0;
+	}
+
+	/**
+	 * Move selected items into the arrays, best item
+	 * first, and clear the selector; returns the
+	 * number of items written.
+	 */
+	public int drainTo(final int[] keys, final double[] values) {
+		final int count = _size;
+		if (keys.length < count || values.length < count) {
+			throw new IllegalArgumentException("Arrays must have length of at least " + count);
+		}
+		for (int i=count-1; i>=0; i--) {
+			keys[i] = _keys[0];
+			values[i] = _values[0];
+			removeTop();
+		}
+		return count;
+	}
+
+	/**
+	 * Get selected items, best item
+	 * first, and clear the selector.
+	 */
+	public List<Pair<Integer, Double>> get() {
+		final int count = _size;
+		final int[] keys = new int[count];
+		final double[] values = new double[count];
+		drainTo(keys, values);
+		final List<Pair<Integer, Double>> list = new ArrayList<>(count);
+		for (int i=0; i<count; i++) {
+			list.add(new Pair<Integer, Double>(keys[i], values[i]));
+		}
+		return list;
+	}
+
+	/**
+	 * Select K items from the keys [0, count) with the values
+	 * given by the function, splitting the keys into ranges,
+	 * which are selected from by tasks on the pool, and then
+	 * merging the selected items of the tasks.
+	 */
+	public static SelectKIntDouble select(
+			final SortOrder sortOrder,
+			final int k,
+			final int count,
+			final IntToDoubleFunction values,
+			final ForkJoinPool pool) {
+
+		final int chunk = Math.max(PARALLEL_MIN_CHUNK, count / (4 * pool.getParallelism()) + 1);
+		return pool.invoke(new SelectTask(sortOrder, k, values, 0, count, chunk));
+	}
+
+	/**
+	 * Select K items from the indices of the array.
+	 */
+	public static SelectKIntDouble select(
+			final SortOrder sortOrder,
+			final int k,
+			final double[] values,
+			final ForkJoinPool pool) {
+
+		return select(sortOrder, k, values.length, i -> values[i], pool);
+	}
+
+	private static final class SelectTask extends RecursiveTask<SelectKIntDouble> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final SortOrder _sortOrder;
+		private final int _k;
+		private final IntToDoubleFunction _values;
+		private final int _start;
+		private final int _end;
+		private final int _chunk;
+
+		public SelectTask(
+				final SortOrder sortOrder,
+				final int k,
+				final IntToDoubleFunction values,
+				final int start,
+				final int end,
+				final int chunk) {
+
+			_sortOrder = sortOrder;
+			_k = k;
+			_values = values;
+			_start = start;
+			_end = end;
+			_chunk = chunk;
+		}
+
+		@Override
+		protected SelectKIntDouble compute() {
+			if (_end - _start <= _chunk) {
+				final SelectKIntDouble select = new SelectKIntDouble(_sortOrder, _k);
+				for (int i=_start; i<_end; i++) {
+					select.add(i, _values.applyAsDouble(i));
+				}
+				return select;
+			}
+			final int mid = (_start + _end) >>> 1;
+			final SelectTask left = new SelectTask(_sortOrder, _k, _values, _start, mid, _chunk);
+			final SelectTask right = new SelectTask(_sortOrder, _k, _values, mid, _end, _chunk);
+			right.fork();
+			final SelectKIntDouble result = left.compute();
+			result.addAll(right.join());
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+package me.akuz.core.sort;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import me.akuz.core.Pair;
+import me.akuz.core.SortOrder;
+
+/**
+ * Manual benchmark of selecting the top K values with the
+ * SelectK of pairs against the primitive SelectKIntDouble,
+ * serially and on the common pool;
+ * arguments (optional): value count, K, repeats.
+ *
+ */
+public final class SelectKIntDoubleBenchmark {
+
+	public static void main(String[] args) {
+
+		final int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		final int k = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		final int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		final Random rnd = new Random(3);
+		final double[] values = new double[count];
+		for (int i=0; i<values.length; i++) {
+			values[i] = rnd.nextDouble();
+		}
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+		// keep the results, so that the runs are not optimized out
+		double check = 0;
+
+		long selectMs = Long.MAX_VALUE;
+		long primitiveMs = Long.MAX_VALUE;
+		long parallelMs = Long.MAX_VALUE;
+
+		// first round is a warm up
+		for (int r=0; r<=repeats; r++) {
+
+			long startMs = System.currentTimeMillis();
+			final SelectK<Integer, Double> select = new SelectK<>(SortOrder.Desc, k);
+			for (int i=0; i<count; i++) {
+				select.add(new Pair<Integer, Double>(i, values[i]));
+			}
+			check += select.get().get(0).v2();
+			final long selectTime = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			final SelectKIntDouble selectPrimitive = new SelectKIntDouble(SortOrder.Desc, k);
+			for (int i=0; i<count; i++) {
+				selectPrimitive.add(i, values[i]);
+			}
+			check += selectPrimitive.get().get(0).v2();
+			final long primitiveTime = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			check += SelectKIntDouble.select(SortOrder.Desc, k, values, pool).get().get(0).v2();
+			final long parallelTime = System.currentTimeMillis() - startMs;
+
+			if (r > 0) {
+				selectMs = Math.min(selectMs, selectTime);
+				primitiveMs = Math.min(primitiveMs, primitiveTime);
+				parallelMs = Math.min(parallelMs, parallelTime);
+			}
+		}
+
+		System.out.println("Best of " + repeats + " on " + pool.getParallelism() + " threads (check " + check + "):");
+		System.out.println("Select top " + k + " of " + count + ": " +
+				"SelectK " + selectMs + " ms, SelectKIntDouble " + primitiveMs + " ms, " +
+				"parallel SelectKIntDouble " + parallelMs + " ms");
+	}
+
+}
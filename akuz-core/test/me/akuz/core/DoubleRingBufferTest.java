@@ -0,0 +1,57 @@
+package me.akuz.core;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class DoubleRingBufferTest {
+
+	@Test
+	public void testAgainstDeque() {
+		
+		final int maxSize = 7;
+		final DoubleRingBuffer buff = new DoubleRingBuffer(maxSize);
+		final ArrayDeque<Double> deque = new ArrayDeque<>();
+		final Random rnd = new Random(1);
+		
+		for (int i=0; i<10000; i++) {
+			final int op = rnd.nextInt(4);
+			if (op < 2) {
+				final double value = rnd.nextDouble();
+				if (deque.size() == maxSize) {
+					deque.removeFirst();
+				}
+				deque.addLast(value);
+				buff.add(value);
+			} else if (op == 2 && !deque.isEmpty()) {
+				Assert.assertEquals(deque.removeFirst(), buff.removeFirst(), 0.0);
+			} else if (op == 3 && !deque.isEmpty()) {
+				Assert.assertEquals(deque.removeLast(), buff.removeLast(), 0.0);
+			}
+			
+			Assert.assertEquals(deque.size(), buff.getCurrSize());
+			Assert.assertEquals(deque.size() == maxSize, buff.isFull());
+			Assert.assertEquals(deque.isEmpty(), buff.isEmpty());
+			if (!deque.isEmpty()) {
+				Assert.assertEquals(deque.getFirst(), buff.getFirst(), 0.0);
+				Assert.assertEquals(deque.getLast(), buff.getLast(), 0.0);
+				int index = 0;
+				for (Double value : deque) {
+					Assert.assertEquals(value, buff.get(index++), 0.0);
+				}
+			}
+		}
+		
+		final DoubleRingBuffer copy = buff.clone();
+		buff.clear();
+		Assert.assertEquals(0, buff.getCurrSize());
+		Assert.assertEquals(deque.size(), copy.getCurrSize());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testEmpty() {
+		new DoubleRingBuffer(3).getFirst();
+	}
+}
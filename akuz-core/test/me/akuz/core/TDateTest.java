@@ -1,5 +1,8 @@
 package me.akuz.core;
 
+import org.joda.time.DateTimeZone;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -94,4 +97,55 @@ public class TDateTest {
 		}
 	}
 
+	@Test
+	public void testEpochDay() {
+		
+		Assert.assertEquals(0, new TDate(1970, 1, 1).getEpochDay());
+		Assert.assertEquals(-1, new TDate(1969, 12, 31).getEpochDay());
+		
+		// same as Joda for every day in a long range
+		final LocalDate epoch = new LocalDate(1970, 1, 1);
+		LocalDate local = new LocalDate(1600, 1, 1);
+		TDate prev = null;
+		while (local.getYear() < 2400) {
+			final TDate date = new TDate(local);
+			final int epochDay = Days.daysBetween(epoch, local).getDays();
+			Assert.assertEquals(epochDay, date.getEpochDay());
+			Assert.assertEquals(local.getDayOfWeek(), date.getDayOfWeek());
+			Assert.assertEquals(local, TDate.ofEpochDay(epochDay).get());
+			if (prev != null) {
+				Assert.assertEquals(local, prev.plusDays(1).get());
+				Assert.assertEquals(1, prev.daysTo(date));
+				Assert.assertTrue(prev.compareTo(date) < 0);
+				Assert.assertTrue(date.compareTo(prev) > 0);
+				Assert.assertFalse(prev.equals(date));
+			}
+			Assert.assertEquals(date, new TDate(date.getNum()));
+			Assert.assertEquals(date.hashCode(), new TDate(date.getNum()).hashCode());
+			prev = date;
+			local = local.plusDays(1);
+		}
+	}
+	
+	@Test
+	public void testParse() {
+		
+		final TDate date = TDate.parse("2014-08-17");
+		Assert.assertSame(date, TDate.parse("2014-08-17"));
+		Assert.assertEquals(new TDate(2014, 8, 17), new TDate("2014-08-17"));
+		
+		final TDateTime dateTime = TDateTime.parse("2014-08-17T10:15:00.000Z");
+		Assert.assertSame(dateTime, TDateTime.parse("2014-08-17T10:15:00.000Z"));
+		Assert.assertEquals(dateTime.get().getMillis(), dateTime.getMillis());
+		
+		// same instant in different zones
+		final TDateTime other = TDateTime.from(dateTime.get().withZone(DateTimeZone.forOffsetHours(2)));
+		Assert.assertEquals(0, dateTime.compareTo(other));
+		Assert.assertFalse(dateTime.equals(other));
+		Assert.assertEquals(dateTime.hashCode(), other.hashCode());
+		Assert.assertEquals(dateTime.hashCode(), TDateTime.from(dateTime.get().plusMinutes(1).minusMinutes(1)).hashCode());
+		Assert.assertEquals(60000L, dateTime.millisTo(dateTime.plusMinutes(1)));
+		Assert.assertTrue(dateTime.compareTo(dateTime.plusMinutes(1)) < 0);
+	}
+
 }
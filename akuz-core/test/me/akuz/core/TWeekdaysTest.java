@@ -99,4 +99,30 @@ public class TWeekdaysTest {
 		Assert.assertEquals(new TDate(20140815), TWeekdays.add(new TDate(20140902), -12));
 	}
 
+	@Test
+	public void testIndex() {
+		
+		// compare with stepping one weekday at a time
+		final TDate start = new TDate(19991227);
+		TDate date = start;
+		for (int i=0; i<3000; i++) {
+			Assert.assertEquals(date, TWeekdays.add(start, i));
+			Assert.assertEquals(start, TWeekdays.add(date, -i));
+			Assert.assertEquals(i, TWeekdays.distance(start, date));
+			Assert.assertEquals(-i, TWeekdays.distance(date, start));
+			Assert.assertEquals(date, TWeekdays.fromIndex(TWeekdays.toIndex(date)));
+			date = TWeekdays.next(date);
+		}
+		
+		// weekends have index of next Monday
+		Assert.assertEquals(
+				TWeekdays.toIndex(new TDate(20140901)), 
+				TWeekdays.toIndex(new TDate(20140830)));
+		Assert.assertEquals(
+				TWeekdays.toIndex(new TDate(20140901)), 
+				TWeekdays.toIndex(new TDate(20140831)));
+		Assert.assertEquals(0, TWeekdays.toIndex(new TDate(19700105)));
+		Assert.assertEquals(-1, TWeekdays.toIndex(new TDate(19700102)));
+	}
+
 }
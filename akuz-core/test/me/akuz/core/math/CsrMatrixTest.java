@@ -0,0 +1,146 @@
+package me.akuz.core.math;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import Jama.Matrix;
+
+public class CsrMatrixTest {
+
+	private static void assertMatrixEquals(final Matrix expected, final Matrix actual, final double delta) {
+		Assert.assertEquals(expected.getRowDimension(), actual.getRowDimension());
+		Assert.assertEquals(expected.getColumnDimension(), actual.getColumnDimension());
+		for (int i=0; i<expected.getRowDimension(); i++) {
+			for (int j=0; j<expected.getColumnDimension(); j++) {
+				Assert.assertEquals(expected.get(i, j), actual.get(i, j), delta);
+			}
+		}
+	}
+
+	private static Matrix randomDense(final Random rnd, final int m, final int n, final double fill) {
+		final Matrix result = new Matrix(m, n);
+		for (int i=0; i<m; i++) {
+			for (int j=0; j<n; j++) {
+				if (rnd.nextDouble() < fill) {
+					result.set(i, j, rnd.nextGaussian());
+				}
+			}
+		}
+		return result;
+	}
+
+	@Test
+	public void testBuild() {
+
+		final CsrMatrix m = CsrMatrix.build(3, 4)
+				.add(2, 3, 1.0)
+				.add(0, 2, 2.0)
+				.add(0, 0, 3.0)
+				.add(2, 3, 4.0)
+				.create();
+
+		Assert.assertEquals(3, m.getNonZeroCount());
+		Assert.assertArrayEquals(new int[] { 0, 2, 2, 3 }, m.getRowPtr());
+		Assert.assertArrayEquals(new int[] { 0, 2, 3 }, m.getColIdx());
+		Assert.assertEquals(3.0, m.get(0, 0), 0.0);
+		Assert.assertEquals(0.0, m.get(0, 1), 0.0);
+		Assert.assertEquals(2.0, m.get(0, 2), 0.0);
+		Assert.assertEquals(0.0, m.get(1, 2), 0.0);
+		Assert.assertEquals(5.0, m.get(2, 3), 0.0);
+
+		final CsrMatrix t = m.transpose();
+		Assert.assertEquals(4, t.getRowCount());
+		Assert.assertEquals(3, t.getColCount());
+		assertMatrixEquals(m.toDense().transpose(), t.toDense(), 0.0);
+
+		try {
+			CsrMatrix.build(3, 4).add(3, 0, 1.0);
+			Assert.fail("Cell outside of matrix accepted");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testMult() {
+
+		final Random rnd = new Random(1);
+		final Matrix dense = randomDense(rnd, 50, 40, 0.1);
+		final CsrMatrix sparse = CsrMatrix.fromDense(dense);
+		assertMatrixEquals(dense, sparse.toDense(), 0.0);
+
+		// more columns than one multiplication block
+		final Matrix right = randomDense(rnd, 40, 150, 1.0);
+		assertMatrixEquals(dense.times(right), sparse.multOnRightBy(right), 1e-12);
+
+		final Matrix left = randomDense(rnd, 7, 50, 1.0);
+		assertMatrixEquals(left.times(dense), sparse.multOnLeftBy(left), 1e-12);
+
+		// same as the existing sparse matrix
+		final SpaMatrix spa = new SpaMatrix(dense);
+		spa.optimize();
+		assertMatrixEquals(dense, spa.toCsr().toDense(), 0.0);
+		assertMatrixEquals(spa.multOnRightBy(right), sparse.multOnRightBy(right), 1e-12);
+		assertMatrixEquals(spa.multOnLeftBy(left), sparse.multOnLeftBy(left), 1e-12);
+
+		final SpaMatrix spaCols = new SpaMatrix(dense, SpaMatrix.OPT_MULT_ON_LEFT_BY);
+		spaCols.optimize();
+		assertMatrixEquals(dense, spaCols.toCsr().toDense(), 0.0);
+	}
+
+	@Test
+	public void testResultTooLarge() {
+
+		// 100000 x 100000 dense result overflows an int size
+		final CsrMatrix tall = CsrMatrix.build(100000, 1).add(0, 0, 1.0).create();
+		final Matrix wide = new Matrix(1, 100000);
+		try {
+			tall.multOnRightBy(wide);
+			Assert.fail("Overflowing result size accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			ParallelMatrixUtils.times(tall, wide);
+			Assert.fail("Overflowing result size accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRandomizedSVD() {
+
+		// sparse matrix of rank 3: blocks
+		// of rows with random column sets
+		final Random rnd = new Random(2);
+		final int m = 300;
+		final int n = 200;
+		final int rank = 3;
+		final CsrMatrix.Builder builder = CsrMatrix.build(m, n);
+		for (int r=0; r<rank; r++) {
+			final double[] rowWeights = new double[m];
+			for (int i=r; i<m; i+=rank) {
+				rowWeights[i] = 1.0 + rnd.nextDouble();
+			}
+			for (int j=0; j<n; j++) {
+				if (rnd.nextInt(10) == 0) {
+					final double colWeight = rnd.nextGaussian();
+					for (int i=0; i<m; i++) {
+						if (rowWeights[i] != 0.0) {
+							builder.add(i, j, rowWeights[i] * colWeight);
+						}
+					}
+				}
+			}
+		}
+		final CsrMatrix A = builder.create();
+
+		final RandomizedSVD svd = new RandomizedSVD(A, rank, 2);
+		final Matrix reconstructed = svd.getU().times(svd.getS()).times(svd.getV().transpose());
+		assertMatrixEquals(A.toDense(), reconstructed, 1e-8);
+	}
+
+}
@@ -0,0 +1,119 @@
+package me.akuz.core.math;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FastRandomsTest {
+
+	private static final int SAMPLE_COUNT = 200000;
+
+	@Test
+	public void testStreams() {
+
+		final FastRandoms rnd1 = new FastRandoms(1);
+		final FastRandoms rnd2 = new FastRandoms(1);
+		for (int i=0; i<1000; i++) {
+			Assert.assertEquals(rnd1.nextLong(), rnd2.nextLong());
+		}
+
+		// split streams are reproducible and differ
+		final FastRandoms split1 = rnd1.split();
+		final FastRandoms split2 = rnd2.split();
+		final FastRandoms split3 = rnd1.split();
+		for (int i=0; i<1000; i++) {
+			final long value = split1.nextLong();
+			Assert.assertEquals(value, split2.nextLong());
+			Assert.assertNotEquals(value, split3.nextLong());
+		}
+
+		rnd1.setSeed(2);
+		rnd2.setSeed(2);
+		Assert.assertEquals(rnd1.nextGaussian(), rnd2.nextGaussian(), 0.0);
+
+		final int[] counts = new int[7];
+		for (int i=0; i<SAMPLE_COUNT; i++) {
+			final double u = rnd1.nextDouble();
+			Assert.assertTrue(u >= 0 && u < 1);
+			counts[rnd1.nextInt(counts.length)]++;
+		}
+		for (int i=0; i<counts.length; i++) {
+			Assert.assertEquals(1.0 / counts.length, counts[i] / (double)SAMPLE_COUNT, 0.01);
+		}
+	}
+
+	@Test
+	public void testGamma() {
+
+		final FastRandoms rnd = new FastRandoms(3);
+		for (double alpha : new double[] { 0.1, 0.5, 1.0, 3.0, 50.0 }) {
+			double sum = 0;
+			double sumSq = 0;
+			for (int i=0; i<SAMPLE_COUNT; i++) {
+				final double x = rnd.nextGamma(alpha, 2.0);
+				Assert.assertTrue(x >= 0);
+				sum += x;
+				sumSq += x * x;
+			}
+			final double mean = sum / SAMPLE_COUNT;
+			final double var = sumSq / SAMPLE_COUNT - mean * mean;
+			Assert.assertEquals(2.0 * alpha, mean, 0.02 * (1.0 + 2.0 * alpha));
+			Assert.assertEquals(4.0 * alpha, var, 0.05 * (1.0 + 4.0 * alpha));
+		}
+	}
+
+	@Test
+	public void testBetaAndDirichlet() {
+
+		final FastRandoms rnd = new FastRandoms(4);
+		double sum = 0;
+		for (int i=0; i<SAMPLE_COUNT; i++) {
+			sum += rnd.nextBeta(2.0, 6.0);
+		}
+		Assert.assertEquals(0.25, sum / SAMPLE_COUNT, 0.005);
+
+		final double[] alpha = { 0.2, 1.0, 3.8 };
+		final double[] sample = new double[alpha.length];
+		final double[] means = new double[alpha.length];
+		for (int i=0; i<SAMPLE_COUNT; i++) {
+			rnd.nextDirichlet(alpha, sample);
+			double total = 0;
+			for (int k=0; k<sample.length; k++) {
+				total += sample[k];
+				means[k] += sample[k] / SAMPLE_COUNT;
+			}
+			Assert.assertEquals(1.0, total, 1e-12);
+		}
+		for (int k=0; k<alpha.length; k++) {
+			Assert.assertEquals(alpha[k] / 5.0, means[k], 0.005);
+		}
+	}
+
+	@Test
+	public void testDiscrete() {
+
+		final FastRandoms rnd = new FastRandoms(5);
+		final double[] weights = { 1.0, 0.0, 3.0, 6.0 };
+		final AliasTable table = new AliasTable();
+		table.build(weights, weights.length);
+
+		final int[] counts = new int[weights.length];
+		final int[] aliasCounts = new int[weights.length];
+		for (int i=0; i<SAMPLE_COUNT; i++) {
+			counts[rnd.nextDiscrete(weights)]++;
+			aliasCounts[rnd.nextDiscrete(table)]++;
+		}
+		for (int k=0; k<weights.length; k++) {
+			Assert.assertEquals(weights[k] / 10.0, counts[k] / (double)SAMPLE_COUNT, 0.005);
+			Assert.assertEquals(weights[k] / 10.0, aliasCounts[k] / (double)SAMPLE_COUNT, 0.005);
+		}
+
+		for (double lambda : new double[] { 0.5, 4.0, 100.0 }) {
+			double sum = 0;
+			for (int i=0; i<SAMPLE_COUNT / 10; i++) {
+				sum += rnd.nextPoisson(lambda);
+			}
+			Assert.assertEquals(lambda, sum / (SAMPLE_COUNT / 10), 0.02 * (1.0 + lambda));
+		}
+	}
+
+}
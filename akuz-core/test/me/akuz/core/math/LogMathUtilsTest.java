@@ -0,0 +1,145 @@
+package me.akuz.core.math;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LogMathUtilsTest {
+
+	private static void assertRelativeError(final double expected, final double actual) {
+		final double error = Math.abs(actual - expected) / Math.max(1.0, Math.abs(expected));
+		if (!(error <= LogMathUtils.MAX_ERROR)) {
+			Assert.fail("Expected " + expected + ", but got " + actual + " (error " + error + ")");
+		}
+	}
+
+	/**
+	 * Reference softmax, using StatsUtils.logSumExp() and Math.exp().
+	 */
+	private static double softmaxInPlace(final double[] values, final int offset, final int length) {
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i=0; i<length; i++) {
+			max = Math.max(max, values[offset + i]);
+		}
+		if (max == Double.NEGATIVE_INFINITY) {
+			Arrays.fill(values, offset, offset + length, 1.0 / length);
+			return max;
+		}
+		final double logSum = StatsUtils.logSumExp(values, offset, length);
+		for (int i=0; i<length; i++) {
+			values[offset + i] = Math.exp(values[offset + i] - logSum);
+		}
+		return logSum;
+	}
+
+	@Test
+	public void testExp() {
+
+		final Random rnd = new Random(1);
+		for (int i=0; i<1000000; i++) {
+			final double x = (rnd.nextDouble() - 0.5) * (i % 2 == 0 ? 1416 : 20);
+			final double expected = Math.exp(x);
+			final double actual = LogMathUtils.fastExp(x);
+			if (expected >= Double.MIN_NORMAL) {
+				Assert.assertEquals(1.0, actual / expected, LogMathUtils.MAX_ERROR);
+			}
+		}
+		Assert.assertEquals(1.0, LogMathUtils.fastExp(0.0), 0.0);
+		Assert.assertEquals(Math.exp(709.7), LogMathUtils.fastExp(709.7), Math.exp(709.7) * LogMathUtils.MAX_ERROR);
+		Assert.assertEquals(Double.POSITIVE_INFINITY, LogMathUtils.fastExp(710.0), 0.0);
+		Assert.assertEquals(Double.POSITIVE_INFINITY, LogMathUtils.fastExp(Double.POSITIVE_INFINITY), 0.0);
+		Assert.assertEquals(0.0, LogMathUtils.fastExp(-710.0), 0.0);
+		Assert.assertEquals(0.0, LogMathUtils.fastExp(Double.NEGATIVE_INFINITY), 0.0);
+		Assert.assertTrue(Double.isNaN(LogMathUtils.fastExp(Double.NaN)));
+	}
+
+	@Test
+	public void testLog() {
+
+		final Random rnd = new Random(2);
+		for (int i=0; i<1000000; i++) {
+			final double x;
+			if (i % 2 == 0) {
+				// whole range of normal exponents
+				x = Math.pow(2.0, (rnd.nextDouble() - 0.5) * 2040);
+			} else {
+				// near one
+				x = 1.0 + (rnd.nextDouble() - 0.5) * 0.1;
+			}
+			assertRelativeError(Math.log(x), LogMathUtils.fastLog(x));
+		}
+		assertRelativeError(Math.log(Double.MIN_VALUE), LogMathUtils.fastLog(Double.MIN_VALUE));
+		assertRelativeError(Math.log(Double.MAX_VALUE), LogMathUtils.fastLog(Double.MAX_VALUE));
+		Assert.assertEquals(0.0, LogMathUtils.fastLog(1.0), 0.0);
+		Assert.assertEquals(Double.NEGATIVE_INFINITY, LogMathUtils.fastLog(0.0), 0.0);
+		Assert.assertEquals(Double.POSITIVE_INFINITY, LogMathUtils.fastLog(Double.POSITIVE_INFINITY), 0.0);
+		Assert.assertTrue(Double.isNaN(LogMathUtils.fastLog(-1.0)));
+		Assert.assertTrue(Double.isNaN(LogMathUtils.fastLog(Double.NaN)));
+	}
+
+	@Test
+	public void testRows() {
+
+		final Random rnd = new Random(3);
+		final int rowCount = 50;
+		final int colCount = 17;
+		final double[] logLikes = new double[rowCount * colCount];
+		for (int i=0; i<logLikes.length; i++) {
+			logLikes[i] = rnd.nextGaussian() * 30.0 - 500.0;
+		}
+		// row with zero likelihoods
+		for (int j=0; j<colCount; j++) {
+			logLikes[colCount + j] = Double.NEGATIVE_INFINITY;
+		}
+		logLikes[2 * colCount] = Double.NEGATIVE_INFINITY;
+
+		final double[] probs = new double[logLikes.length];
+		final double[] rowLogSums = new double[rowCount];
+		LogMathUtils.softmaxRows(logLikes, rowCount, colCount, probs, rowLogSums);
+
+		final double[] logProbs = new double[logLikes.length];
+		final double[] rowLogSums2 = new double[rowCount];
+		LogMathUtils.logProbsRows(logLikes, rowCount, colCount, logProbs, rowLogSums2);
+
+		final double[] expected = logLikes.clone();
+		for (int row=0; row<rowCount; row++) {
+			final int offset = row * colCount;
+			final double expectedLogSum = softmaxInPlace(expected, offset, colCount);
+			Assert.assertEquals(expectedLogSum, rowLogSums[row], 1e-12 * Math.abs(expectedLogSum));
+			Assert.assertEquals(expectedLogSum, rowLogSums2[row], 1e-12 * Math.abs(expectedLogSum));
+			if (row != 1) {
+				Assert.assertEquals(expectedLogSum, LogMathUtils.logSumExp(logLikes, offset, colCount), 1e-12 * Math.abs(expectedLogSum));
+			}
+			for (int j=0; j<colCount; j++) {
+				final int idx = offset + j;
+				Assert.assertEquals(expected[idx], probs[idx], 1e-12);
+				Assert.assertEquals(expected[idx], Math.exp(logProbs[idx]), 1e-12);
+			}
+		}
+
+		// in place
+		final double[] inPlace = logLikes.clone();
+		LogMathUtils.softmaxRows(inPlace, rowCount, colCount, inPlace, null);
+		Assert.assertArrayEquals(probs, inPlace, 0.0);
+	}
+
+	@Test
+	public void testDivergence() {
+
+		final Random rnd = new Random(4);
+		final double[] left = new double[100];
+		final double[] right = new double[100];
+		for (int i=0; i<left.length; i++) {
+			left[i] = i % 10 == 0 ? 0.0 : rnd.nextDouble();
+			right[i] = rnd.nextDouble();
+		}
+		StatsUtils.normalizeInPlace(left);
+		StatsUtils.normalizeInPlace(right);
+		Assert.assertEquals(StatsUtils.calcKLDiv(left, right), LogMathUtils.calcKLDiv(left, right), 1e-12);
+		Assert.assertEquals(StatsUtils.calcJSDist(left, right), LogMathUtils.calcJSDist(left, right), 1e-12);
+		Assert.assertEquals(StatsUtils.calcJSDist(right, left), LogMathUtils.calcJSDist(right, left), 1e-12);
+	}
+
+}
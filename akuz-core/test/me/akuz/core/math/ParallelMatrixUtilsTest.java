@@ -0,0 +1,136 @@
+package me.akuz.core.math;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import Jama.EigenvalueDecomposition;
+import Jama.Matrix;
+import Jama.QRDecomposition;
+
+public class ParallelMatrixUtilsTest {
+
+	private static Matrix random(final Random rnd, final int m, final int n) {
+		final Matrix result = new Matrix(m, n);
+		for (int i=0; i<m; i++) {
+			for (int j=0; j<n; j++) {
+				result.set(i, j, rnd.nextGaussian());
+			}
+		}
+		return result;
+	}
+
+	private static Matrix randomSymmetric(final Random rnd, final int n) {
+		final Matrix X = random(rnd, n, n);
+		return X.plus(X.transpose()).times(0.5);
+	}
+
+	private static void assertMatrixEquals(final Matrix expected, final Matrix actual, final double delta) {
+		Assert.assertEquals(expected.getRowDimension(), actual.getRowDimension());
+		Assert.assertEquals(expected.getColumnDimension(), actual.getColumnDimension());
+		for (int i=0; i<expected.getRowDimension(); i++) {
+			for (int j=0; j<expected.getColumnDimension(); j++) {
+				Assert.assertEquals(expected.get(i, j), actual.get(i, j), delta);
+			}
+		}
+	}
+
+	private static void checkEigen(final Matrix A, final SymmetricEigen eigen, final double delta) {
+		final int n = A.getRowDimension();
+		final Matrix V = eigen.getV();
+		assertMatrixEquals(Matrix.identity(n, n), V.transpose().times(V), delta);
+		assertMatrixEquals(A.times(V), V.times(eigen.getD()), delta);
+		final double[] values = eigen.getValues();
+		for (int i=1; i<n; i++) {
+			Assert.assertTrue(values[i-1] >= values[i]);
+		}
+	}
+
+	@Test
+	public void testTimes() {
+
+		final Random rnd = new Random(1);
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final Matrix A = random(rnd, 150, 300);
+			final Matrix B = random(rnd, 300, 270);
+			assertMatrixEquals(A.times(B), ParallelMatrixUtils.times(A, B, pool), 1e-10);
+			assertMatrixEquals(A.transpose().times(A), ParallelMatrixUtils.transposeTimes(A, A, pool), 1e-10);
+			assertMatrixEquals(B.times(B.transpose()), ParallelMatrixUtils.timesTranspose(B, B, pool), 1e-10);
+			assertMatrixEquals(new Matrix(0, 270), ParallelMatrixUtils.times(new Matrix(0, 300), B, pool), 0.0);
+
+			final CsrMatrix.Builder builder = CsrMatrix.build(1000, 300);
+			for (int k=0; k<20000; k++) {
+				// some rows much denser than others
+				final int i = rnd.nextInt(10) == 0 ? rnd.nextInt(10) : rnd.nextInt(1000);
+				builder.add(i, rnd.nextInt(300), rnd.nextGaussian());
+			}
+			final CsrMatrix S = builder.create();
+			assertMatrixEquals(S.multOnRightBy(B), ParallelMatrixUtils.times(S, B, pool), 1e-10);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testQR() {
+
+		final Random rnd = new Random(2);
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final Matrix A = random(rnd, 500, 40);
+			final Matrix Q = ParallelMatrixUtils.qrQ(A, pool);
+			assertMatrixEquals(new QRDecomposition(A).getQ(), Q, 1e-10);
+			assertMatrixEquals(Matrix.identity(40, 40), Q.transpose().times(Q), 1e-10);
+
+			// zero column
+			final Matrix Z = random(rnd, 10, 3);
+			for (int i=0; i<10; i++) {
+				Z.set(i, 1, 0.0);
+			}
+			assertMatrixEquals(new QRDecomposition(Z).getQ(), ParallelMatrixUtils.qrQ(Z, pool), 1e-12);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSymmetricEigen() {
+
+		final Random rnd = new Random(3);
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int n : new int[] { 1, 2, 3, 10, 100 }) {
+				final Matrix A = randomSymmetric(rnd, n);
+				final SymmetricEigen eigen = new SymmetricEigen(A, pool);
+				checkEigen(A, eigen, 1e-9);
+
+				final double[] expected = new EigenvalueDecomposition(A).getRealEigenvalues();
+				Arrays.sort(expected);
+				final double[] actual = eigen.getValues();
+				for (int i=0; i<n; i++) {
+					Assert.assertEquals(expected[n-1-i], actual[i], 1e-9);
+				}
+			}
+
+			// repeated eigenvalues and zeros
+			final Matrix D = new Matrix(5, 5);
+			D.set(0, 0, 2.0);
+			D.set(2, 2, 2.0);
+			D.set(4, 4, -1.0);
+			checkEigen(D, new SymmetricEigen(D, pool), 1e-12);
+			Assert.assertArrayEquals(new double[] { 2, 2, 0, 0, -1 }, new SymmetricEigen(D, pool).getValues(), 1e-12);
+
+			// covariance matrix of low rank
+			final Matrix X = random(rnd, 5, 50);
+			final Matrix C = X.transpose().times(X);
+			checkEigen(C, new SymmetricEigen(C, pool), 1e-9);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+}
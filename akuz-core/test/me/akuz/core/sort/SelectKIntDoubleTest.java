@@ -0,0 +1,125 @@
+package me.akuz.core.sort;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import me.akuz.core.Pair;
+import me.akuz.core.SortOrder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class SelectKIntDoubleTest {
+
+	private static final double[] VALUES = { .6, .7, .5, .4, .3, .9, .1, .8, .2, .0 };
+
+	@Test
+	public void testSelectK_Highest() {
+
+		SelectKIntDouble selectK = new SelectKIntDouble(SortOrder.Desc, 3);
+		for (int i=0; i<VALUES.length; i++) {
+			selectK.add(i, VALUES[i]);
+		}
+		Assert.assertEquals(.7, selectK.getThreshold(), 0.0);
+
+		List<Pair<Integer, Double>> list = selectK.get();
+		Assert.assertEquals(3, list.size());
+		Assert.assertEquals(Integer.valueOf(5), list.get(0).v1());
+		Assert.assertEquals(Integer.valueOf(7), list.get(1).v1());
+		Assert.assertEquals(Integer.valueOf(1), list.get(2).v1());
+		Assert.assertEquals(0, selectK.size());
+	}
+
+	@Test
+	public void testSelectK_Lowest() {
+
+		SelectKLongDouble selectK = new SelectKLongDouble(SortOrder.Asc, 3);
+		for (int i=0; i<VALUES.length; i++) {
+			selectK.add(1000000000000L + i, VALUES[i]);
+		}
+		Assert.assertFalse(selectK.add(0L, .5));
+
+		final long[] keys = new long[3];
+		final double[] values = new double[3];
+		Assert.assertEquals(3, selectK.drainTo(keys, values));
+		Assert.assertArrayEquals(new long[] { 1000000000009L, 1000000000006L, 1000000000008L }, keys);
+		Assert.assertArrayEquals(new double[] { .0, .1, .2 }, values, 0.0);
+	}
+
+	@Test
+	public void testSelectK_SameAsSelectK() {
+
+		final Random rnd = new Random(1);
+		for (int k : new int[] { 1, 5, 100, 1000 }) {
+			final SelectKIntDouble selectPrimitive = new SelectKIntDouble(SortOrder.Desc, k);
+			final SelectK<Integer, Double> select = new SelectK<>(SortOrder.Desc, k);
+			for (int i=0; i<500; i++) {
+				// few distinct values
+				final double value = rnd.nextInt(50);
+				selectPrimitive.add(i, value);
+				select.add(new Pair<Integer, Double>(i, value));
+			}
+			final List<Pair<Integer, Double>> expected = select.get();
+			final List<Pair<Integer, Double>> actual = selectPrimitive.get();
+			Assert.assertEquals(expected.size(), actual.size());
+			for (int i=0; i<expected.size(); i++) {
+				Assert.assertEquals(expected.get(i).v2(), actual.get(i).v2());
+			}
+		}
+
+		final SelectKIntDouble selectNone = new SelectKIntDouble(SortOrder.Desc, 0);
+		Assert.assertFalse(selectNone.add(0, 1.0));
+		Assert.assertEquals(0, selectNone.get().size());
+	}
+
+	@Test
+	public void testSelectK_Parallel() {
+
+		final Random rnd = new Random(2);
+		final double[] values = new double[200000];
+		for (int i=0; i<values.length; i++) {
+			values[i] = rnd.nextDouble();
+		}
+		final double[] sorted = values.clone();
+		Arrays.sort(sorted);
+
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final SelectKIntDouble selectK = SelectKIntDouble.select(SortOrder.Desc, 10, values, pool);
+			final int[] keys = new int[10];
+			final double[] selected = new double[10];
+			Assert.assertEquals(10, selectK.drainTo(keys, selected));
+			for (int i=0; i<10; i++) {
+				Assert.assertEquals(sorted[sorted.length - 1 - i], selected[i], 0.0);
+				Assert.assertEquals(values[keys[i]], selected[i], 0.0);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSelectK_SameKeys() {
+
+		// distinct values, so the keys must match too
+		final Random rnd = new Random(3);
+		final int count = 20000;
+		final int k = 100;
+		final SelectK<Integer, Double> select = new SelectK<>(SortOrder.Desc, k);
+		final SelectKIntDouble selectPrimitive = new SelectKIntDouble(SortOrder.Desc, k);
+		for (int i=0; i<count; i++) {
+			final double value = rnd.nextDouble();
+			select.add(new Pair<Integer, Double>(i, value));
+			selectPrimitive.add(i, value);
+		}
+		final List<Pair<Integer, Double>> expected = select.get();
+		final List<Pair<Integer, Double>> actual = selectPrimitive.get();
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i=0; i<k; i++) {
+			Assert.assertEquals(expected.get(i).v1(), actual.get(i).v1());
+		}
+	}
+
+}
@@ -1,16 +1,17 @@
 package me.akuz.fb.loc;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import me.akuz.core.Pair;
 import me.akuz.core.SortOrder;
 import me.akuz.core.math.NIGDist;
-import me.akuz.core.sort.SelectK;
+import me.akuz.core.sort.SelectKIntDouble;
 
 public final class Tree {
 	
-	private Iterable<Place> _places;
+	private Place[] _places;
 	
 	private double _x1;
 	private double _x2;
@@ -34,18 +35,36 @@ public final class Tree {
 	public List<Pair<Place, Double>> findTop(double x, double y, double accuracy, int k) {
 		
 		if (_places != null) {
-			SelectK<Place, Double> top = new SelectK<>(SortOrder.Desc, k);
-			for (Place place : _places) {
-				top.add(place, place.logLike(x, y, accuracy));
+			SelectKIntDouble top = new SelectKIntDouble(SortOrder.Desc, k);
+			for (int i=0; i<_places.length; i++) {
+				top.add(i, _places[i].logLike(x, y, accuracy));
 			}
-			return top.get();
+			final int count = top.size();
+			final int[] indices = new int[count];
+			final double[] logLikes = new double[count];
+			top.drainTo(indices, logLikes);
+			List<Pair<Place, Double>> result = new ArrayList<>(count);
+			for (int i=0; i<count; i++) {
+				result.add(new Pair<Place, Double>(_places[indices[i]], logLikes[i]));
+			}
+			return result;
 		} else {
-			SelectK<Tree, Double> top = new SelectK<>(SortOrder.Asc, 1);
-			top.add(_child1, distance(x, _x1, y, _y1));
-			top.add(_child2, distance(x, _x2, y, _y1));
-			top.add(_child3, distance(x, _x1, y, _y2));
-			top.add(_child4, distance(x, _x2, y, _y2));
-			return top.get().get(0).v1().findTop(x, y, accuracy, k);
+			Tree nearest = _child1;
+			double nearestDistance = distance(x, _x1, y, _y1);
+			double d;
+			if ((d = distance(x, _x2, y, _y1)) < nearestDistance) {
+				nearest = _child2;
+				nearestDistance = d;
+			}
+			if ((d = distance(x, _x1, y, _y2)) < nearestDistance) {
+				nearest = _child3;
+				nearestDistance = d;
+			}
+			if ((d = distance(x, _x2, y, _y2)) < nearestDistance) {
+				nearest = _child4;
+				nearestDistance = d;
+			}
+			return nearest.findTop(x, y, accuracy, k);
 		}
 	}
 	
@@ -53,9 +72,15 @@ public final class Tree {
 		
 		System.out.println(size);
 		
+		Place[] placesArr = new Place[size];
+		int count = 0;
+		for (Place place : places) {
+			placesArr[count++] = place;
+		}
+		
 		if (size <= 400) {
 			
-			_places = places;
+			_places = count < size ? Arrays.copyOf(placesArr, count) : placesArr;
 			
 		} else {
 			
@@ -72,48 +97,41 @@ public final class Tree {
 			_y1 = yDist.getMeanMode() - Math.sqrt(yDist.getVarianceMode());
 			_y2 = yDist.getMeanMode() + Math.sqrt(yDist.getVarianceMode());
 			
-			SelectK<Place, Double> top1 = new SelectK<Place, Double>(SortOrder.Asc, size/2);
-			SelectK<Place, Double> top2 = new SelectK<Place, Double>(SortOrder.Asc, size/2);
-			SelectK<Place, Double> top3 = new SelectK<Place, Double>(SortOrder.Asc, size/2);
-			SelectK<Place, Double> top4 = new SelectK<Place, Double>(SortOrder.Asc, size/2);
+			SelectKIntDouble top1 = new SelectKIntDouble(SortOrder.Asc, size/2);
+			SelectKIntDouble top2 = new SelectKIntDouble(SortOrder.Asc, size/2);
+			SelectKIntDouble top3 = new SelectKIntDouble(SortOrder.Asc, size/2);
+			SelectKIntDouble top4 = new SelectKIntDouble(SortOrder.Asc, size/2);
 			
-			for (Place place : places) {
+			for (int i=0; i<count; i++) {
 				
+				final Place place = placesArr[i];
 				final double x = place.getXDist().getMeanMode();
 				final double y = place.getYDist().getMeanMode();
 				
-				top1.add(place, distance(_x1, x, _y1, y));
-				top2.add(place, distance(_x2, x, _y1, y));
-				top3.add(place, distance(_x1, x, _y2, y));
-				top4.add(place, distance(_x2, x, _y2, y));
-			}
-			
-			List<Place> subPlaces;
-			
-			subPlaces = new ArrayList<>();
-			for (Pair<Place, Double> pair : top1.get()) {
-				subPlaces.add(pair.v1());
+				top1.add(i, distance(_x1, x, _y1, y));
+				top2.add(i, distance(_x2, x, _y1, y));
+				top3.add(i, distance(_x1, x, _y2, y));
+				top4.add(i, distance(_x2, x, _y2, y));
 			}
-			_child1 = new Tree(subPlaces, subPlaces.size());
 			
-			subPlaces = new ArrayList<>();
-			for (Pair<Place, Double> pair : top2.get()) {
-				subPlaces.add(pair.v1());
-			}
-			_child2 = new Tree(subPlaces, subPlaces.size());
-			
-			subPlaces = new ArrayList<>();
-			for (Pair<Place, Double> pair : top3.get()) {
-				subPlaces.add(pair.v1());
-			}
-			_child3 = new Tree(subPlaces, subPlaces.size());
-			
-			subPlaces = new ArrayList<>();
-			for (Pair<Place, Double> pair : top4.get()) {
-				subPlaces.add(pair.v1());
-			}
-			_child4 = new Tree(subPlaces, subPlaces.size());
+			_child1 = createChild(placesArr, top1);
+			_child2 = createChild(placesArr, top2);
+			_child3 = createChild(placesArr, top3);
+			_child4 = createChild(placesArr, top4);
+		}
+	}
+	
+	private static Tree createChild(Place[] places, SelectKIntDouble top) {
+		
+		final int count = top.size();
+		final int[] indices = new int[count];
+		top.drainTo(indices, new double[count]);
+		
+		List<Place> subPlaces = new ArrayList<>(count);
+		for (int i=0; i<count; i++) {
+			subPlaces.add(places[indices[i]]);
 		}
+		return new Tree(subPlaces, subPlaces.size());
 	}
 
 }
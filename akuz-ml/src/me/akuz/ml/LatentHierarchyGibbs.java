@@ -1,9 +1,8 @@
 package me.akuz.ml;
 
 import java.util.Arrays;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
 
+import me.akuz.core.math.FastRandoms;
 import me.akuz.core.math.NIGDist;
 import me.akuz.core.math.StatsUtils;
 import Jama.Matrix;
@@ -13,7 +12,7 @@ import me.akuz.core.math.MultDist;
 
 public final class LatentHierarchyGibbs {
 
-	private final Random _rnd;
+	private final FastRandoms _rnd;
 
 	private final Matrix _data;
 
@@ -41,7 +40,7 @@ public final class LatentHierarchyGibbs {
 			int wSize,
 			double wAlpha) {
 		
-		_rnd = ThreadLocalRandom.current();
+		_rnd = new FastRandoms();
 		_data = data;
 
 		// set v var
@@ -2,9 +2,9 @@ package me.akuz.ml;
 
 import java.security.InvalidParameterException;
 import java.util.Arrays;
-import java.util.Random;
 
 import me.akuz.core.Pair;
+import me.akuz.core.math.FastRandoms;
 import me.akuz.core.math.GammaApprox;
 import me.akuz.core.math.StatsUtils;
 import Jama.Matrix;
@@ -18,7 +18,7 @@ public class LatentNaiveGaussianGibbs {
 		AverageSamples
 	}
 
-	private final Random _rnd;
+	private final FastRandoms _rnd;
 
 	private final double _dirichletAlpha;
 	private final int _topicCount;
@@ -61,7 +61,7 @@ public class LatentNaiveGaussianGibbs {
 			throw new InvalidParameterException("At least one variable must be specified");
 		}
 		
-		_rnd = new Random(System.currentTimeMillis());
+		_rnd = new FastRandoms();
 		
 		_dirichletAlpha = dirichletAlpha;
 		_topicCount = topicCount;
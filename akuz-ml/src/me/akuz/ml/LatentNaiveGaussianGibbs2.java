@@ -2,8 +2,8 @@ package me.akuz.ml;
 
 import java.security.InvalidParameterException;
 import java.util.Arrays;
-import java.util.Random;
 
+import me.akuz.core.math.FastRandoms;
 import me.akuz.core.math.NIGDist;
 import me.akuz.core.math.StatsUtils;
 import Jama.Matrix;
@@ -12,7 +12,7 @@ import me.akuz.core.math.MatrixVar;
 
 public class LatentNaiveGaussianGibbs2 {
 
-	private final Random _rnd;
+	private final FastRandoms _rnd;
 
 	private final Matrix _data;
 	private final MatrixVar[] _vars;
@@ -41,7 +41,7 @@ public class LatentNaiveGaussianGibbs2 {
 			throw new InvalidParameterException("At least one variable must be specified");
 		}
 		
-		_rnd = new Random(System.currentTimeMillis());
+		_rnd = new FastRandoms();
 		
 		_topicCount = topicCount;
 		_dirichletAlpha = dirichletAlpha;
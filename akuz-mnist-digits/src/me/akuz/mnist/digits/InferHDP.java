@@ -10,6 +10,7 @@ import java.util.concurrent.ThreadLocalRandom;
 import me.akuz.core.logs.LocalMonitor;
 import me.akuz.core.logs.Monitor;
 import me.akuz.core.math.DirDist;
+import me.akuz.core.math.LogMathUtils;
 import me.akuz.core.math.StatsUtils;
 
 public final class InferHDP {
@@ -292,37 +293,35 @@ public final class InferHDP {
 								final double[] parentProbs = currBlocks[k][0].getPosteriorMean();
 								final double[] probs = image.getFeatureProbs(row, col);
 								for (int d=0; d<probs.length; d++) {
-									logLikes[k] += (parentProbs[d]*HDP_ALPHA - 1) * Math.log(LOG_INSURANCE + probs[d]);
+									logLikes[k] += (parentProbs[d]*HDP_ALPHA - 1) * LogMathUtils.fastLog(LOG_INSURANCE + probs[d]);
 								}
 							}
 							{
 								final double[] parentProbs = currBlocks[k][1].getPosteriorMean();
 								final double[] probs = image.getFeatureProbs(row, col+_featureShift);
 								for (int d=0; d<probs.length; d++) {
-									logLikes[k] += (parentProbs[d]*HDP_ALPHA - 1) * Math.log(LOG_INSURANCE + probs[d]);
+									logLikes[k] += (parentProbs[d]*HDP_ALPHA - 1) * LogMathUtils.fastLog(LOG_INSURANCE + probs[d]);
 								}
 							}
 							{
 								final double[] parentProbs = currBlocks[k][2].getPosteriorMean();
 								final double[] probs = image.getFeatureProbs(row+_featureShift, col);
 								for (int d=0; d<probs.length; d++) {
-									logLikes[k] += (parentProbs[d]*HDP_ALPHA - 1) * Math.log(LOG_INSURANCE + probs[d]);
+									logLikes[k] += (parentProbs[d]*HDP_ALPHA - 1) * LogMathUtils.fastLog(LOG_INSURANCE + probs[d]);
 								}
 							}
 							{
 								final double[] parentProbs = currBlocks[k][3].getPosteriorMean();
 								final double[] probs = image.getFeatureProbs(row+_featureShift, col+_featureShift);
 								for (int d=0; d<probs.length; d++) {
-									logLikes[k] += (parentProbs[d]*HDP_ALPHA - 1) * Math.log(LOG_INSURANCE + probs[d]);
+									logLikes[k] += (parentProbs[d]*HDP_ALPHA - 1) * LogMathUtils.fastLog(LOG_INSURANCE + probs[d]);
 								}
 							}
 						}
 						
-						// add to current log likelihood
-						currLogLike += StatsUtils.logSumExp(logLikes);
-
+						// add to current log likelihood, and
 						// normalize probabilities of features
-						StatsUtils.logLikesToProbsInPlace(logLikes);
+						currLogLike += LogMathUtils.softmaxInPlace(logLikes);
 						
 						// save feature probs to feature image
 						double[] featureProbs = featureImage.getFeatureProbs(row, col);
@@ -13,6 +13,10 @@ public class Program {
 			"ARGUMENTS:\n" + 
 			"   -inputDir string               : Directory containing input text files\n" +
 			"   -outputDir string              : Directory where to save output files\n" +
+			" [ -corpusFile string           ] : Binary corpus file, built from input files if it doesn't exist,\n" +
+			"                                    otherwise reused instead of parsing input files (default none)\n" +
+			" [ -checkpointFile string       ] : Burn in checkpoint file, saved after each temperature step,\n" +
+			"                                    and resumed from if it exists (default none)\n" +
 			"   -topicsConfigFile string       : Path to the topics configuration file\n" +
 			" [ -topicOutputStemsCount int   ] : Number of stems to output for each topic (default 100)\n" +
 			" [ -stopWordsFile string        ] : File with stop words to ignore (default none)\n" +
@@ -25,6 +29,8 @@ public class Program {
 
 		String  inputDir = null;
 		String  outputDir = null;
+		String  corpusFile = null;
+		String  checkpointFile = null;
 		String  topicsConfigFile = null;
 		Integer topicOutputStemsCount = 100;
 		String  stopWordsFile = null;
@@ -50,6 +56,16 @@ public class Program {
 							outputDir = StringUtils.unquote(args[i+1]);
 							i++;
 						}
+					} else if ("-corpusFile".equals(args[i])) {
+						if (i+1 < args.length) {
+							corpusFile = StringUtils.unquote(args[i+1]);
+							i++;
+						}
+					} else if ("-checkpointFile".equals(args[i])) {
+						if (i+1 < args.length) {
+							checkpointFile = StringUtils.unquote(args[i+1]);
+							i++;
+						}
 					} else if ("-topicsConfigFile".equals(args[i])) {
 						if (i+1 < args.length) {
 							topicsConfigFile = StringUtils.unquote(args[i+1]);
@@ -99,7 +115,7 @@ public class Program {
 				}
 			}
 	
-			if (inputDir == null) {
+			if (inputDir == null && corpusFile == null) {
 				throw new IllegalArgumentException("Input directory not specified");
 			}
 			if (outputDir == null) {
@@ -126,6 +142,8 @@ public class Program {
 		ProgramOptions options = new ProgramOptions(
 				inputDir,
 				outputDir,
+				corpusFile,
+				checkpointFile,
 				topicsConfigFile,
 				topicOutputStemsCount,
 				stopWordsFile,
@@ -3,8 +3,6 @@ package me.akuz.nlp.run.lda;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import me.akuz.core.FileUtils;
@@ -16,15 +14,20 @@ import me.akuz.core.logs.LocalMonitor;
 import me.akuz.core.logs.ManualResetLogManager;
 import me.akuz.core.logs.Monitor;
 import me.akuz.core.math.MatrixUtils;
-import me.akuz.nlp.corpus.Corpus;
-import me.akuz.nlp.corpus.CorpusDoc;
-import me.akuz.nlp.corpus.CorpusPlace;
-import me.akuz.nlp.detect.WordsDetector;
+import me.akuz.nlp.corpus.CorpusFileWriter;
+import me.akuz.nlp.corpus.CorpusView;
+import me.akuz.nlp.corpus.MappedCorpus;
+import me.akuz.nlp.corpus.PackedCorpus;
+import me.akuz.nlp.detect.WordsTokenBuffer;
+import me.akuz.nlp.detect.WordsTokenizer;
 import me.akuz.nlp.porter.PorterStemmer;
 import me.akuz.nlp.porter.PorterStopWords;
 import me.akuz.nlp.topics.LDAGibbs;
 import me.akuz.nlp.topics.LDAGibbsAlpha;
 import me.akuz.nlp.topics.LDAGibbsBeta;
+import me.akuz.nlp.topics.LDAGibbsCheckpoint;
+import me.akuz.nlp.topics.LDAGibbsCountsDense;
+import me.akuz.nlp.topics.LDAGibbsCountsLayout;
 import me.akuz.nlp.topics.LDAGibbsSave;
 import me.akuz.nlp.topics.LDAGibbsTopic;
 import me.akuz.nlp.topics.LDAGibbsUnstemmer;
@@ -39,13 +42,8 @@ public final class ProgramLogic {
 		
 		final LocalMonitor monitor = new LocalMonitor(this.getClass().getSimpleName(), parentMonitor);
 		
-		monitor.write("Checking input dir...");
-		if (!FileUtils.isDirExists(options.getInputDir())) {
-			throw new IOException("Specified input dir does not exist: " + options.getInputDir());
-		}
-
 		monitor.write("Creating stemmer...");
-		PorterStemmer porterStemmer = new PorterStemmer("_");
+		PorterStemmer porterStemmer = new PorterStemmer("_", PorterStemmer.DEFAULT_CACHE_CAPACITY);
 
 		Set<String> stopStems = null;
 		if (options.getStopWordsFile() != null) {
@@ -58,14 +56,144 @@ public final class ProgramLogic {
 		monitor.write("Checking output dir...");
 		FileUtils.isDirExistsOrCreate(options.getOutputDir());
 		
-		monitor.write("Creating words detector...");
-		WordsDetector wordsDetector = new WordsDetector(porterStemmer);
+		final String corpusFile = options.getCorpusFile();
+		final CorpusView corpus;
+		if (corpusFile != null && FileUtils.isFileExists(corpusFile)) {
+			
+			monitor.write("Opening corpus file...");
+			corpus = new MappedCorpus(corpusFile);
+			
+		} else {
+			
+			monitor.write("Checking input dir...");
+			if (options.getInputDir() == null || !FileUtils.isDirExists(options.getInputDir())) {
+				throw new IOException("Specified input dir does not exist: " + options.getInputDir());
+			}
+			
+			if (corpusFile != null) {
+				monitor.write("Building corpus file...");
+				CorpusFileWriter writer = new CorpusFileWriter(corpusFile);
+				try {
+					loadInputFiles(monitor, options.getInputDir(), porterStemmer, stopStems, 
+							writer.getStemsIndex(), writer.getWordsIndex(), writer, null);
+				} catch (Exception ex) {
+					writer.abort();
+					throw ex;
+				}
+				writer.close();
+				corpus = new MappedCorpus(corpusFile);
+			} else {
+				monitor.write("Loading corpus...");
+				Index<String> stemsIndex = new HashIndex<>();
+				Index<String> wordsIndex = new HashIndex<>();
+				PackedCorpus packedCorpus = new PackedCorpus(stemsIndex, wordsIndex);
+				loadInputFiles(monitor, options.getInputDir(), porterStemmer, stopStems, 
+						stemsIndex, wordsIndex, null, packedCorpus);
+				packedCorpus.trimToSize();
+				corpus = packedCorpus;
+			}
+		}
+		try {
+			
+			monitor.write("Corpus: " + corpus.getDocCount() + " docs, " + corpus.getPlaceCount() + " places.");
+			final Index<String> stemsIndex = corpus.getStemsIndex();
+			
+			monitor.write("Configuring topics...");
+			List<LDAGibbsTopic> topics = TopicConfigLoader.load(options.getTopicsConfigFile(), porterStemmer, stemsIndex);
+			monitor.write("Configured " + topics.size() + " topics.");
+			LDAGibbsAlpha alpha = new LDAGibbsAlpha(corpus, topics);
+			LDAGibbsBeta beta = new LDAGibbsBeta(corpus, topics);
+			
+			final String checkpointFile = options.getCheckpointFile();
+			LDAGibbsCheckpoint checkpoint = null;
+			if (checkpointFile != null && FileUtils.isFileExists(checkpointFile)) {
+				monitor.write("Loading checkpoint...");
+				checkpoint = LDAGibbsCheckpoint.load(checkpointFile);
+			}
+			
+			monitor.write("Configuring LDA...");
+			final LDAGibbsUnstemmer unstemmer = new LDAGibbsUnstemmer(corpus);
+			final LDAGibbs lda = new LDAGibbs(parentMonitor, corpus, topics, alpha, beta, options.getThreadCount(),
+					new LDAGibbsCountsDense(corpus.getDocCount(), topics.size(), stemsIndex.size(), LDAGibbsCountsLayout.DocMajor),
+					checkpoint);
+
+			monitor.write("Adding shutdown handler...");
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+			    public void run() {
+			    	try {
+						lda.terminate();
+			    	} finally {
+			    		ManualResetLogManager.resetFinally();
+			    	}
+			    }
+			});
+			
+			monitor.write("Burning in Gibbs sampler...");
+			int iter = 1;
+			double temperature = options.getBurnInStartTemp();
+			if (checkpoint != null) {
+				iter = checkpoint.getIteration();
+				temperature = checkpoint.getTemperature();
+				monitor.write("Resuming from iteration " + iter + " at temperature " + temperature + "...");
+			}
+			while (temperature > options.getBurnInEndTemp()) {
+				alpha.setTemperature(temperature);
+				beta.setTemperature(temperature);
+				iter = lda.run(iter, options.getBurnInTempIter());
+				temperature *= options.getBurnInTempDecay();
+				if (checkpointFile != null) {
+					lda.saveCheckpoint(checkpointFile, iter, temperature);
+				}
+			}
+			
+			monitor.write("Sampling from Gibbs sampler...");
+			Matrix mTopic = new Matrix(topics.size(), 1);
+			Matrix mStemTopic = new Matrix(stemsIndex.size(), topics.size());
+			alpha.setTemperature(options.getBurnInEndTemp());
+			beta.setTemperature(options.getBurnInEndTemp());
+			for (int i=0; i<options.getSamplingIter(); i++) {
+				iter = lda.run(iter, 1);
+				lda.sampleTopic(mTopic);
+				lda.sampleStemTopic(mStemTopic);
+				unstemmer.sample();
+			}
+			unstemmer.optimize();
+			lda.terminate();
+			
+			monitor.write("Saving results...");
+			FileUtils.writeList(StringUtils.concatPath(options.getOutputDir(), "stems.txt"), stemsIndex.getList());
+			MatrixUtils.writeMatrix(StringUtils.concatPath(options.getOutputDir(), "mTopic.csv"), mTopic);
+			MatrixUtils.writeMatrix(StringUtils.concatPath(options.getOutputDir(), "mStemTopic.csv"), mStemTopic);
+			new LDAGibbsSave(parentMonitor, corpus, topics, mTopic, mStemTopic, unstemmer, options.getTopicOutputStemsCount(), 
+					StringUtils.concatPath(options.getOutputDir(), "topics.txt"));
+			
+		} finally {
+			if (corpus instanceof MappedCorpus) {
+				((MappedCorpus)corpus).close();
+			}
+		}
+		
+		monitor.write("DONE.");
+	}
+	
+	/**
+	 * Parse input text files into documents, which are streamed
+	 * either into a corpus file writer, or into a packed corpus.
+	 */
+	private static void loadInputFiles(
+			LocalMonitor monitor,
+			String inputDir,
+			PorterStemmer porterStemmer,
+			Set<String> stopStems,
+			Index<String> stemsIndex,
+			Index<String> wordsIndex,
+			CorpusFileWriter writer,
+			PackedCorpus packedCorpus) throws IOException {
+		
+		WordsTokenizer wordsTokenizer = new WordsTokenizer(porterStemmer, stopStems, stemsIndex, wordsIndex);
+		WordsTokenBuffer tokens = new WordsTokenBuffer();
 		
-		monitor.write("Loading corpus...");
-		Index<String> stemsIndex = new HashIndex<>();
-		Index<String> wordsIndex = new HashIndex<>();
-		Corpus corpus = new Corpus(stemsIndex, wordsIndex);
-		List<File> inputFiles = FileUtils.getFiles(options.getInputDir());
+		List<File> inputFiles = FileUtils.getFiles(inputDir);
 		for (int i=0; i<inputFiles.size(); i++) {
 			
 			File file = inputFiles.get(i);
@@ -80,93 +208,33 @@ public final class ProgramLogic {
 			}
 
 			String str = FileUtils.readEntireFile(file);
-			Map<String, List<Hit>> hitsByStem = wordsDetector.extractHitsByStem(str, new Hit(0, str.length()));
+			tokens.clear();
+			wordsTokenizer.tokenize(str, new Hit(0, str.length()), tokens);
 			
-			if (hitsByStem != null && hitsByStem.size() > 0) {
+			if (tokens.size() > 0) {
 				
-				CorpusDoc doc = new CorpusDoc();
-				
-				for (Entry<String, List<Hit>> entry : hitsByStem.entrySet()) {
-					
-					String stem = entry.getKey();
-					if (stopStems != null && stopStems.contains(stem)) {
-						continue;
-					}
+				for (int t=0; t<tokens.size(); t++) {
 					
-					List<Hit> hits = entry.getValue();
+					int stemIndex = tokens.getStemId(t);
+					int wordIndex = tokens.getWordId(t);
 					
-					int stemIndex = stemsIndex.ensure(stem);
-					for (int h=0; h<hits.size(); h++) {
-						
-						Hit hit = hits.get(h);
-						String word = str.substring(hit.start(), hit.end());
-						int wordIndex = wordsIndex.ensure(word);
-						
-						CorpusPlace place = new CorpusPlace(stemIndex, wordIndex);
-						doc.addPlace(place);
+					if (writer != null) {
+						writer.addPlace(stemIndex, wordIndex);
+					} else {
+						packedCorpus.addPlace(stemIndex, wordIndex);
 					}
 				}
 				
-				corpus.addDoc(doc);
+				if (writer != null) {
+					writer.endDoc();
+				} else {
+					packedCorpus.endDoc();
+				}
 			}
 			
 			if ((i+1) % 10 == 0) {
 				monitor.write("Parsed " + (i+1) + " files.");
 			}
 		}
-		
-		monitor.write("Configuring topics...");
-		List<LDAGibbsTopic> topics = TopicConfigLoader.load(options.getTopicsConfigFile(), porterStemmer, stemsIndex);
-		monitor.write("Configured " + topics.size() + " topics.");
-		LDAGibbsAlpha alpha = new LDAGibbsAlpha(corpus, topics);
-		LDAGibbsBeta beta = new LDAGibbsBeta(corpus, topics);
-		
-		monitor.write("Configuring LDA...");
-		final LDAGibbsUnstemmer unstemmer = new LDAGibbsUnstemmer(corpus);
-		final LDAGibbs lda = new LDAGibbs(parentMonitor, corpus, topics, alpha, beta, options.getThreadCount());
-
-		monitor.write("Adding shutdown handler...");
-		Runtime.getRuntime().addShutdownHook(new Thread() {
-		    public void run() {
-		    	try {
-					lda.terminate();
-		    	} finally {
-		    		ManualResetLogManager.resetFinally();
-		    	}
-		    }
-		});
-		
-		monitor.write("Burning in Gibbs sampler...");
-		int iter = 1;
-		double temperature = options.getBurnInStartTemp();
-		while (temperature > options.getBurnInEndTemp()) {
-			alpha.setTemperature(temperature);
-			beta.setTemperature(temperature);
-			iter = lda.run(iter, options.getBurnInTempIter());
-			temperature *= options.getBurnInTempDecay();
-		}
-		
-		monitor.write("Sampling from Gibbs sampler...");
-		Matrix mTopic = new Matrix(topics.size(), 1);
-		Matrix mStemTopic = new Matrix(stemsIndex.size(), topics.size());
-		alpha.setTemperature(options.getBurnInEndTemp());
-		beta.setTemperature(options.getBurnInEndTemp());
-		for (int i=0; i<options.getSamplingIter(); i++) {
-			iter = lda.run(iter, 1);
-			lda.sampleTopic(mTopic);
-			lda.sampleStemTopic(mStemTopic);
-			unstemmer.sample();
-		}
-		unstemmer.optimize();
-		lda.terminate();
-		
-		monitor.write("Saving results...");
-		FileUtils.writeList(StringUtils.concatPath(options.getOutputDir(), "stems.txt"), stemsIndex.getList());
-		MatrixUtils.writeMatrix(StringUtils.concatPath(options.getOutputDir(), "mTopic.csv"), mTopic);
-		MatrixUtils.writeMatrix(StringUtils.concatPath(options.getOutputDir(), "mStemTopic.csv"), mStemTopic);
-		new LDAGibbsSave(parentMonitor, corpus, topics, mTopic, mStemTopic, unstemmer, options.getTopicOutputStemsCount(), 
-				StringUtils.concatPath(options.getOutputDir(), "topics.txt"));
-		
-		monitor.write("DONE.");
 	}
 }
@@ -7,6 +7,8 @@ public final class ProgramOptions extends Dbo {
 
 	private static final String _inputDir               = "inputDir";
 	private static final String _outputDir              = "outputDir";
+	private static final String _corpusFile             = "corpusFile";
+	private static final String _checkpointFile         = "checkpointFile";
 	private static final String _topicsConfigFile       = "topicsConfigFile";
 	private static final String _topicOutputStemsCount  = "topicOutputStemsCount";
 	private static final String _stopWordsFile          = "stopWordsFile";
@@ -20,6 +22,8 @@ public final class ProgramOptions extends Dbo {
 	public ProgramOptions(
 			String inputDir,
 			String outputDir,
+			String corpusFile,
+			String checkpointFile,
 			String topicsConfigFile,
 			Integer topicOutputStemsCount,
 			String stopWordsFile,
@@ -32,6 +36,8 @@ public final class ProgramOptions extends Dbo {
 		
 		set(_inputDir, inputDir);
 		set(_outputDir, outputDir);
+		set(_corpusFile, corpusFile);
+		set(_checkpointFile, checkpointFile);
 		set(_topicsConfigFile, topicsConfigFile);
 		set(_topicOutputStemsCount, topicOutputStemsCount);
 		set(_stopWordsFile, stopWordsFile);
@@ -49,6 +55,12 @@ public final class ProgramOptions extends Dbo {
 	public String getOutputDir() {
 		return getString(_outputDir);
 	}
+	public String getCorpusFile() {
+		return getString(_corpusFile);
+	}
+	public String getCheckpointFile() {
+		return getString(_checkpointFile);
+	}
 	public String getTopicsConfigFile() {
 		return getString(_topicsConfigFile);
 	}
@@ -0,0 +1,199 @@
+package me.akuz.nlp.corpus;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+
+import me.akuz.core.HashIndex;
+import me.akuz.core.Index;
+
+/**
+ * Streaming writer of the binary corpus file, which can be 
+ * opened by {@link MappedCorpus}; places are written to disk
+ * as they are added, only the dictionaries and doc offsets
+ * are kept in memory. The file is written to a temporary file
+ * first, which is renamed when the writer is closed.
+ *
+ */
+public final class CorpusFileWriter implements Closeable {
+	
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	private final File _file;
+	private final File _tempFile;
+	private final Index<String> _stemsIndex;
+	private final Index<String> _wordsIndex;
+	private DataOutputStream _out;
+	private int _docCount;
+	private int[] _docStarts;
+	private int _placeCount;
+	
+	public CorpusFileWriter(String fileName) throws IOException {
+		this(fileName, new HashIndex<String>(), new HashIndex<String>());
+	}
+	
+	/**
+	 * Create a writer, which adds the stems and words to the given indices.
+	 */
+	public CorpusFileWriter(String fileName, Index<String> stemsIndex, Index<String> wordsIndex) throws IOException {
+		_file = new File(fileName);
+		_tempFile = new File(fileName + ".tmp");
+		_stemsIndex = stemsIndex;
+		_wordsIndex = wordsIndex;
+		_out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(_tempFile), BUFFER_SIZE));
+		_out.write(new byte[MappedCorpus.HEADER_SIZE]);
+		_docStarts = new int[1024];
+	}
+	
+	/**
+	 * Write a corpus view into a corpus file.
+	 */
+	public static void write(CorpusView corpus, String fileName) throws IOException {
+		CorpusFileWriter writer = new CorpusFileWriter(fileName, corpus.getStemsIndex(), corpus.getWordsIndex());
+		try {
+			for (int docIndex=0; docIndex<corpus.getDocCount(); docIndex++) {
+				final int docEnd = corpus.getDocEnd(docIndex);
+				for (int placeIndex=corpus.getDocStart(docIndex); placeIndex<docEnd; placeIndex++) {
+					writer.addPlace(corpus.getStemIndex(placeIndex), corpus.getWordIndex(placeIndex));
+				}
+				writer.endDoc();
+			}
+		} catch (IOException | RuntimeException ex) {
+			writer.abort();
+			throw ex;
+		}
+		writer.close();
+	}
+	
+	public Index<String> getStemsIndex() {
+		return _stemsIndex;
+	}
+	
+	public Index<String> getWordsIndex() {
+		return _wordsIndex;
+	}
+	
+	public int getDocCount() {
+		return _docCount;
+	}
+	
+	public int getPlaceCount() {
+		return _placeCount;
+	}
+	
+	/**
+	 * Add a place to the current document.
+	 */
+	public void addPlace(String stem, String word) throws IOException {
+		addPlace(_stemsIndex.ensure(stem), _wordsIndex.ensure(word));
+	}
+	
+	/**
+	 * Add a place to the current document, with stem and 
+	 * word indices from the indices of this writer.
+	 */
+	public void addPlace(int stemIndex, int wordIndex) throws IOException {
+		if (_out == null) {
+			throw new IllegalStateException("Writer is closed");
+		}
+		if (_placeCount == Integer.MAX_VALUE) {
+			throw new IllegalStateException("Too many places for a corpus file");
+		}
+		_out.writeInt(stemIndex);
+		_out.writeInt(wordIndex);
+		_placeCount++;
+	}
+	
+	/**
+	 * Finish the current document, which contains
+	 * all the places added since the previous call.
+	 */
+	public void endDoc() {
+		if (_out == null) {
+			throw new IllegalStateException("Writer is closed");
+		}
+		if (_docCount + 2 > _docStarts.length) {
+			_docStarts = Arrays.copyOf(_docStarts, _docStarts.length * 2);
+		}
+		_docCount++;
+		_docStarts[_docCount] = _placeCount;
+	}
+	
+	/**
+	 * Finish writing the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (_out == null) {
+			return;
+		}
+		if (_docStarts[_docCount] != _placeCount) {
+			abort();
+			throw new IllegalStateException("Last document has not been ended (call endDoc())");
+		}
+		
+		final long docsOffset = MappedCorpus.HEADER_SIZE + 8L * _placeCount;
+		final long stemsOffset = docsOffset + 4L * (_docCount + 1);
+		final long wordsOffset;
+		try {
+			for (int docIndex=0; docIndex<=_docCount; docIndex++) {
+				_out.writeInt(_docStarts[docIndex]);
+			}
+			final long stemsLength = writeIndex(_out, _stemsIndex.getList());
+			wordsOffset = stemsOffset + stemsLength;
+			writeIndex(_out, _wordsIndex.getList());
+		} finally {
+			_out.close();
+			_out = null;
+		}
+		
+		RandomAccessFile header = new RandomAccessFile(_tempFile, "rw");
+		try {
+			header.writeInt(MappedCorpus.MAGIC);
+			header.writeInt(MappedCorpus.VERSION);
+			header.writeInt(_docCount);
+			header.writeInt(_placeCount);
+			header.writeInt(_stemsIndex.size());
+			header.writeInt(_wordsIndex.size());
+			header.writeLong(docsOffset);
+			header.writeLong(stemsOffset);
+			header.writeLong(wordsOffset);
+		} finally {
+			header.close();
+		}
+		
+		Files.move(_tempFile.toPath(), _file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	/**
+	 * Stop writing and delete the temporary file.
+	 */
+	public void abort() throws IOException {
+		if (_out != null) {
+			_out.close();
+			_out = null;
+		}
+		Files.deleteIfExists(_tempFile.toPath());
+	}
+	
+	private static long writeIndex(DataOutputStream out, List<String> values) throws IOException {
+		long length = 0;
+		for (int i=0; i<values.size(); i++) {
+			final byte[] bytes = values.get(i).getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+			length += 4 + bytes.length;
+		}
+		return length;
+	}
+
+}
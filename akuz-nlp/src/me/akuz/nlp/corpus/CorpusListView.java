@@ -0,0 +1,126 @@
+package me.akuz.nlp.corpus;
+
+import java.util.List;
+
+import me.akuz.core.Index;
+
+/**
+ * Adapter of the list-based {@link Corpus} to {@link CorpusView};
+ * the place state slots are stored in int[] tags of the places.
+ * The view contains the documents added to the corpus before 
+ * the view was created.
+ *
+ */
+public final class CorpusListView implements CorpusView {
+	
+	private final Corpus _corpus;
+	private final int[] _docStarts;
+	private final CorpusPlace[] _places;
+	
+	public CorpusListView(Corpus corpus) {
+		_corpus = corpus;
+		List<CorpusDoc> docs = corpus.getDocs();
+		_docStarts = new int[docs.size() + 1];
+		_places = new CorpusPlace[corpus.getPlaceCount()];
+		int placeIndex = 0;
+		for (int docIndex=0; docIndex<docs.size(); docIndex++) {
+			_docStarts[docIndex] = placeIndex;
+			List<CorpusPlace> places = docs.get(docIndex).getPlaces();
+			for (int i=0; i<places.size(); i++) {
+				_places[placeIndex++] = places.get(i);
+			}
+		}
+		_docStarts[docs.size()] = placeIndex;
+	}
+	
+	public Corpus getCorpus() {
+		return _corpus;
+	}
+
+	@Override
+	public Index<String> getStemsIndex() {
+		return _corpus.getStemsIndex();
+	}
+
+	@Override
+	public Index<String> getWordsIndex() {
+		return _corpus.getWordsIndex();
+	}
+
+	@Override
+	public int getDocCount() {
+		return _docStarts.length - 1;
+	}
+
+	@Override
+	public int getPlaceCount() {
+		return _places.length;
+	}
+
+	@Override
+	public int getDocStart(int docIndex) {
+		return _docStarts[docIndex];
+	}
+
+	@Override
+	public int getDocEnd(int docIndex) {
+		return _docStarts[docIndex+1];
+	}
+
+	@Override
+	public int getStemIndex(int placeIndex) {
+		return _places[placeIndex].getStemIndex();
+	}
+
+	@Override
+	public int getWordIndex(int placeIndex) {
+		return _places[placeIndex].getWordIndex();
+	}
+	
+	private static int[] getStateTag(CorpusPlace place) {
+		final Object tag = place.getTag();
+		if (tag == null) {
+			return null;
+		}
+		if (!(tag instanceof int[])) {
+			throw new IllegalStateException(
+					"Corpus word place contains invalid tag of type: " + 
+					tag.getClass().getSimpleName());
+		}
+		final int[] state = (int[])tag;
+		if (state.length != PLACE_STATE_SLOTS) {
+			throw new IllegalStateException(
+					"Corpus word place contains invalid tag " + 
+					"(array of wrong length " + state.length + ")");
+		}
+		return state;
+	}
+
+	@Override
+	public int getPlaceState(int placeIndex, int slot) {
+		final int[] state = getStateTag(_places[placeIndex]);
+		return state != null ? state[slot] : -1;
+	}
+
+	@Override
+	public void setPlaceState(int placeIndex, int slot, int value) {
+		final CorpusPlace place = _places[placeIndex];
+		int[] state = getStateTag(place);
+		if (state == null) {
+			state = new int[PLACE_STATE_SLOTS];
+			for (int i=0; i<state.length; i++) {
+				state[i] = -1;
+			}
+			place.setTag(state);
+		}
+		state[slot] = value;
+	}
+
+	@Override
+	public void clearPlaceStates() {
+		for (int i=0; i<_places.length; i++) {
+			_places[i].setTag(null);
+		}
+	}
+
+}
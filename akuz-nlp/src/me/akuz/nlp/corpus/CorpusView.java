@@ -0,0 +1,60 @@
+package me.akuz.nlp.corpus;
+
+import me.akuz.core.Index;
+
+/**
+ * Flat view of a corpus, in which all word-places are numbered 
+ * consecutively by document, and each place has a few int slots
+ * of state, which can be used by an algorithm (such as LDA)
+ * to attach extra information to the place.
+ * 
+ * Implemented by {@link PackedCorpus}, which keeps all the places 
+ * in flat int arrays, and by {@link CorpusListView}, which adapts
+ * the list-based {@link Corpus}.
+ *
+ */
+public interface CorpusView {
+	
+	/**
+	 * Number of int state slots of each place.
+	 */
+	public static final int PLACE_STATE_SLOTS = 2;
+	
+	Index<String> getStemsIndex();
+	
+	Index<String> getWordsIndex();
+	
+	int getDocCount();
+	
+	int getPlaceCount();
+	
+	/**
+	 * Index of the first place of the document.
+	 */
+	int getDocStart(int docIndex);
+	
+	/**
+	 * Index after the last place of the document.
+	 */
+	int getDocEnd(int docIndex);
+	
+	int getStemIndex(int placeIndex);
+	
+	int getWordIndex(int placeIndex);
+	
+	/**
+	 * Get value of a place state slot, -1 if not set.
+	 */
+	int getPlaceState(int placeIndex, int slot);
+	
+	/**
+	 * Set value of a place state slot.
+	 */
+	void setPlaceState(int placeIndex, int slot, int value);
+	
+	/**
+	 * Reset all place state slots to -1.
+	 */
+	void clearPlaceStates();
+
+}
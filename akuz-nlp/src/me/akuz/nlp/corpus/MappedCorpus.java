@@ -0,0 +1,244 @@
+package me.akuz.nlp.corpus;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import me.akuz.core.HashIndex;
+import me.akuz.core.Index;
+
+/**
+ * Corpus opened from a binary corpus file (written by {@link CorpusFileWriter}),
+ * with the word-places memory-mapped, so they are not loaded into the heap;
+ * the place state slots are kept in a temporary memory-mapped file (deleted 
+ * on close), and only the stems and words dictionaries and the document 
+ * offsets are kept in memory.
+ * 
+ * File layout (big-endian): header of HEADER_SIZE bytes (magic, version,
+ * doc count, place count, stem count, word count, and offsets of the
+ * doc starts, stems and words sections), followed by (stem index, 
+ * word index) int pairs of all places, doc starts (doc count + 1 ints),
+ * and the stems and words as length-prefixed UTF-8 strings.
+ *
+ */
+public final class MappedCorpus implements CorpusView, Closeable {
+	
+	static final int MAGIC = 0x414B4350;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 64;
+	
+	// places per mapped segment (each mapping is limited to 2GB)
+	private static final int SEGMENT_SHIFT = 27;
+	private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+	
+	private final RandomAccessFile _file;
+	private final Index<String> _stemsIndex;
+	private final Index<String> _wordsIndex;
+	private final int _docCount;
+	private final int[] _docStarts;
+	private final int _placeCount;
+	private final IntBuffer[] _segments;
+	private File _statesFile;
+	private RandomAccessFile _statesRaf;
+	private final IntBuffer[] _stateSegments;
+	
+	public MappedCorpus(String fileName) throws IOException {
+		this(fileName, null);
+	}
+	
+	/**
+	 * Open the corpus file, creating the temporary file for the
+	 * place states in the given directory (null for the default 
+	 * temporary directory).
+	 */
+	public MappedCorpus(String fileName, File statesDir) throws IOException {
+		
+		_file = new RandomAccessFile(fileName, "r");
+		try {
+			final FileChannel channel = _file.getChannel();
+			
+			final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			final int magic = header.getInt();
+			if (magic != MAGIC) {
+				throw new IOException("Not a corpus file: " + fileName);
+			}
+			final int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported corpus file version " + version + ": " + fileName);
+			}
+			_docCount = header.getInt();
+			_placeCount = header.getInt();
+			final int stemCount = header.getInt();
+			final int wordCount = header.getInt();
+			final long docsOffset = header.getLong();
+			final long stemsOffset = header.getLong();
+			final long wordsOffset = header.getLong();
+			final long fileLength = channel.size();
+			if (_docCount < 0 || _placeCount < 0 ||
+				docsOffset != HEADER_SIZE + 8L * _placeCount ||
+				stemsOffset != docsOffset + 4L * (_docCount + 1) ||
+				wordsOffset < stemsOffset ||
+				fileLength < wordsOffset) {
+				throw new IOException("Corpus file is corrupt or incomplete: " + fileName);
+			}
+			
+			// map places in segments
+			final int segmentCount = (_placeCount + SEGMENT_MASK) >>> SEGMENT_SHIFT;
+			_segments = new IntBuffer[segmentCount];
+			for (int i=0; i<segmentCount; i++) {
+				final long segmentStart = (long)i << SEGMENT_SHIFT;
+				final long segmentPlaces = Math.min(1L << SEGMENT_SHIFT, _placeCount - segmentStart);
+				final MappedByteBuffer mapped = channel.map(
+						FileChannel.MapMode.READ_ONLY, 
+						HEADER_SIZE + 8L * segmentStart, 
+						8L * segmentPlaces);
+				_segments[i] = mapped.asIntBuffer();
+			}
+			
+			// load doc starts
+			_docStarts = new int[_docCount + 1];
+			channel.map(FileChannel.MapMode.READ_ONLY, docsOffset, 4L * (_docCount + 1))
+				.asIntBuffer().get(_docStarts);
+			
+			// load dictionaries
+			_stemsIndex = readIndex(channel, stemsOffset, wordsOffset - stemsOffset, stemCount);
+			_wordsIndex = readIndex(channel, wordsOffset, fileLength - wordsOffset, wordCount);
+			
+			// map place states in segments of a temporary file
+			_statesFile = File.createTempFile("corpus-states", ".tmp", statesDir);
+			_statesFile.deleteOnExit();
+			_statesRaf = new RandomAccessFile(_statesFile, "rw");
+			final long statesLength = 4L * PLACE_STATE_SLOTS * _placeCount;
+			_statesRaf.setLength(statesLength);
+			final FileChannel statesChannel = _statesRaf.getChannel();
+			_stateSegments = new IntBuffer[segmentCount];
+			for (int i=0; i<segmentCount; i++) {
+				final long segmentStart = (long)i << SEGMENT_SHIFT;
+				final long segmentPlaces = Math.min(1L << SEGMENT_SHIFT, _placeCount - segmentStart);
+				final MappedByteBuffer mapped = statesChannel.map(
+						FileChannel.MapMode.READ_WRITE, 
+						4L * PLACE_STATE_SLOTS * segmentStart, 
+						4L * PLACE_STATE_SLOTS * segmentPlaces);
+				_stateSegments[i] = mapped.order(ByteOrder.nativeOrder()).asIntBuffer();
+			}
+			
+		} catch (IOException | RuntimeException ex) {
+			close();
+			throw ex;
+		}
+		
+		clearPlaceStates();
+	}
+	
+	private static Index<String> readIndex(FileChannel channel, long offset, long length, int count) throws IOException {
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("Corpus file dictionary is too large");
+		}
+		final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+		final Index<String> index = new HashIndex<>();
+		byte[] bytes = new byte[64];
+		for (int i=0; i<count; i++) {
+			final int byteCount = buffer.getInt();
+			if (bytes.length < byteCount) {
+				bytes = new byte[Math.max(byteCount, bytes.length * 2)];
+			}
+			buffer.get(bytes, 0, byteCount);
+			final String value = new String(bytes, 0, byteCount, StandardCharsets.UTF_8);
+			if (index.ensure(value) != i) {
+				throw new IOException("Corpus file dictionary contains duplicate: " + value);
+			}
+		}
+		return index;
+	}
+
+	@Override
+	public Index<String> getStemsIndex() {
+		return _stemsIndex;
+	}
+
+	@Override
+	public Index<String> getWordsIndex() {
+		return _wordsIndex;
+	}
+
+	@Override
+	public int getDocCount() {
+		return _docCount;
+	}
+
+	@Override
+	public int getPlaceCount() {
+		return _placeCount;
+	}
+
+	@Override
+	public int getDocStart(int docIndex) {
+		return _docStarts[docIndex];
+	}
+
+	@Override
+	public int getDocEnd(int docIndex) {
+		return _docStarts[docIndex+1];
+	}
+
+	@Override
+	public int getStemIndex(int placeIndex) {
+		return _segments[placeIndex >>> SEGMENT_SHIFT].get((placeIndex & SEGMENT_MASK) << 1);
+	}
+
+	@Override
+	public int getWordIndex(int placeIndex) {
+		return _segments[placeIndex >>> SEGMENT_SHIFT].get(((placeIndex & SEGMENT_MASK) << 1) + 1);
+	}
+
+	@Override
+	public int getPlaceState(int placeIndex, int slot) {
+		return _stateSegments[placeIndex >>> SEGMENT_SHIFT].get((placeIndex & SEGMENT_MASK) * PLACE_STATE_SLOTS + slot);
+	}
+
+	@Override
+	public void setPlaceState(int placeIndex, int slot, int value) {
+		_stateSegments[placeIndex >>> SEGMENT_SHIFT].put((placeIndex & SEGMENT_MASK) * PLACE_STATE_SLOTS + slot, value);
+	}
+
+	@Override
+	public void clearPlaceStates() {
+		final int[] fill = new int[4096];
+		Arrays.fill(fill, -1);
+		for (int i=0; i<_stateSegments.length; i++) {
+			final IntBuffer segment = _stateSegments[i].duplicate();
+			while (segment.hasRemaining()) {
+				segment.put(fill, 0, Math.min(fill.length, segment.remaining()));
+			}
+		}
+	}
+
+	/**
+	 * Close the files and delete the place states file; the
+	 * mapped places remain readable until garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			_file.close();
+			if (_statesRaf != null) {
+				_statesRaf.close();
+			}
+		} finally {
+			if (_statesFile != null) {
+				// can fail while mapped on some platforms,
+				// then the file is deleted on exit
+				_statesFile.delete();
+			}
+		}
+	}
+
+}
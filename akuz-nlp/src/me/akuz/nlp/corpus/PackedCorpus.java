@@ -0,0 +1,170 @@
+package me.akuz.nlp.corpus;
+
+import java.util.Arrays;
+import java.util.List;
+
+import me.akuz.core.Index;
+
+/**
+ * A corpus, which keeps stem indices, word indices and
+ * the state slots of all word-places in flat int arrays, 
+ * with document boundaries given by place offsets; this 
+ * avoids creating objects for each word-place.
+ * 
+ * Documents are added by calling addPlace() for each
+ * place of the document, followed by endDoc().
+ *
+ */
+public final class PackedCorpus implements CorpusView {
+	
+	private static final int DEFAULT_DOC_CAPACITY = 16;
+	private static final int DEFAULT_PLACE_CAPACITY = 1024;
+	
+	private final Index<String> _stemsIndex;
+	private final Index<String> _wordsIndex;
+	private int _docCount;
+	private int[] _docStarts;
+	private int _placeCount;
+	private int[] _stems;
+	private int[] _words;
+	private int[] _states;
+	
+	public PackedCorpus(Index<String> stemsIndex, Index<String> wordsIndex) {
+		this(stemsIndex, wordsIndex, DEFAULT_DOC_CAPACITY, DEFAULT_PLACE_CAPACITY);
+	}
+	
+	public PackedCorpus(Index<String> stemsIndex, Index<String> wordsIndex, int docCapacity, int placeCapacity) {
+		_stemsIndex = stemsIndex;
+		_wordsIndex = wordsIndex;
+		_docStarts = new int[Math.max(1, docCapacity) + 1];
+		_stems = new int[Math.max(1, placeCapacity)];
+		_words = new int[_stems.length];
+		_states = new int[_stems.length * PLACE_STATE_SLOTS];
+		Arrays.fill(_states, -1);
+	}
+	
+	/**
+	 * Create a packed copy of a list-based corpus (without tags).
+	 */
+	public static PackedCorpus pack(Corpus corpus) {
+		PackedCorpus packed = new PackedCorpus(
+				corpus.getStemsIndex(), 
+				corpus.getWordsIndex(), 
+				corpus.getDocCount(), 
+				corpus.getPlaceCount());
+		List<CorpusDoc> docs = corpus.getDocs();
+		for (int docIndex=0; docIndex<docs.size(); docIndex++) {
+			List<CorpusPlace> places = docs.get(docIndex).getPlaces();
+			for (int i=0; i<places.size(); i++) {
+				CorpusPlace place = places.get(i);
+				packed.addPlace(place.getStemIndex(), place.getWordIndex());
+			}
+			packed.endDoc();
+		}
+		return packed;
+	}
+
+	@Override
+	public Index<String> getStemsIndex() {
+		return _stemsIndex;
+	}
+
+	@Override
+	public Index<String> getWordsIndex() {
+		return _wordsIndex;
+	}
+
+	@Override
+	public int getDocCount() {
+		return _docCount;
+	}
+
+	/**
+	 * Number of places in the finished documents 
+	 * (places of the document not yet ended are
+	 * not counted).
+	 */
+	@Override
+	public int getPlaceCount() {
+		return _docStarts[_docCount];
+	}
+
+	@Override
+	public int getDocStart(int docIndex) {
+		return _docStarts[docIndex];
+	}
+
+	@Override
+	public int getDocEnd(int docIndex) {
+		return _docStarts[docIndex+1];
+	}
+
+	@Override
+	public int getStemIndex(int placeIndex) {
+		return _stems[placeIndex];
+	}
+
+	@Override
+	public int getWordIndex(int placeIndex) {
+		return _words[placeIndex];
+	}
+
+	@Override
+	public int getPlaceState(int placeIndex, int slot) {
+		return _states[placeIndex * PLACE_STATE_SLOTS + slot];
+	}
+
+	@Override
+	public void setPlaceState(int placeIndex, int slot, int value) {
+		_states[placeIndex * PLACE_STATE_SLOTS + slot] = value;
+	}
+
+	@Override
+	public void clearPlaceStates() {
+		Arrays.fill(_states, -1);
+	}
+	
+	/**
+	 * Add a place to the current document.
+	 */
+	public void addPlace(int stemIndex, int wordIndex) {
+		if (_placeCount == _stems.length) {
+			// capacity can be zero after trimToSize()
+			final int newCapacity = Math.max(1, _stems.length * 2);
+			if (newCapacity < 0 || (long)newCapacity * PLACE_STATE_SLOTS > Integer.MAX_VALUE) {
+				throw new IllegalStateException("Too many places for a packed corpus");
+			}
+			_stems = Arrays.copyOf(_stems, newCapacity);
+			_words = Arrays.copyOf(_words, newCapacity);
+			final int oldStatesLength = _states.length;
+			_states = Arrays.copyOf(_states, newCapacity * PLACE_STATE_SLOTS);
+			Arrays.fill(_states, oldStatesLength, _states.length, -1);
+		}
+		_stems[_placeCount] = stemIndex;
+		_words[_placeCount] = wordIndex;
+		_placeCount++;
+	}
+	
+	/**
+	 * Finish the current document, which contains
+	 * all the places added since the previous call.
+	 */
+	public void endDoc() {
+		if (_docCount + 1 == _docStarts.length) {
+			_docStarts = Arrays.copyOf(_docStarts, _docStarts.length * 2);
+		}
+		_docCount++;
+		_docStarts[_docCount] = _placeCount;
+	}
+	
+	/**
+	 * Release unused capacity of the internal arrays.
+	 */
+	public void trimToSize() {
+		_docStarts = Arrays.copyOf(_docStarts, _docCount + 1);
+		_stems = Arrays.copyOf(_stems, _placeCount);
+		_words = Arrays.copyOf(_words, _placeCount);
+		_states = Arrays.copyOf(_states, _placeCount * PLACE_STATE_SLOTS);
+	}
+
+}
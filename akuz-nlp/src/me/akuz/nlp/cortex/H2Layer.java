@@ -9,6 +9,7 @@ import java.util.concurrent.ThreadLocalRandom;
 
 import me.akuz.core.logs.LocalMonitor;
 import me.akuz.core.logs.Monitor;
+import me.akuz.core.math.LogMathUtils;
 import me.akuz.core.math.StatsUtils;
 
 public final class H2Layer {
@@ -271,7 +272,7 @@ public final class H2Layer {
 							for (int d=0; d<leftLegObservation.getDim(); d++) {
 								featureLogLikes[k] 
 										+= (leftLegFeatureProbs[d]*HDP_ALPHA - 1) 
-										* Math.log(LOG_INSURANCE + leftLegObservation.getProb(d));
+										* LogMathUtils.fastLog(LOG_INSURANCE + leftLegObservation.getProb(d));
 							}
 						}
 						{
@@ -280,16 +281,14 @@ public final class H2Layer {
 							for (int d=0; d<rightLegObservation.getDim(); d++) {
 								featureLogLikes[k] 
 										+= (rightLegFeatureProbs[d]*HDP_ALPHA - 1) 
-										* Math.log(LOG_INSURANCE + rightLegObservation.getProb(d));
+										* LogMathUtils.fastLog(LOG_INSURANCE + rightLegObservation.getProb(d));
 							}
 						}
 					}
 					
-					// add to current log likelihood
-					currLogLike += StatsUtils.logSumExp(featureLogLikes);
-
+					// add to current log likelihood, and
 					// normalize probabilities of features
-					StatsUtils.logLikesToProbsInPlace(featureLogLikes);
+					currLogLike += LogMathUtils.softmaxInPlace(featureLogLikes);
 					
 					// save feature probs to feature image
 					PChar featureProbs = wordFeatures.getChar(i);
@@ -0,0 +1,214 @@
+package me.akuz.nlp.detect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick automaton over literal entity stems,
+ * reporting the matches that are surrounded by
+ * non-word characters (same as \W in regex).
+ *
+ */
+final class EntitiesAutomaton {
+
+	private static final int ROOT = 0;
+
+	private final boolean _caseInsensitive;
+	private final int[] _childOffsets;
+	private final char[] _childLabels;
+	private final int[] _childNodes;
+	private final int[] _fail;
+	private final int[] _outEntity;
+	private final int[] _outLength;
+	private final int[] _outLink;
+
+	/**
+	 * Build the automaton; if several stems are the same
+	 * (after case folding), the lowest entity index wins,
+	 * same as for the first matching regex alternative.
+	 */
+	public EntitiesAutomaton(List<String> stems, List<Integer> entityIndices, boolean caseInsensitive) {
+
+		_caseInsensitive = caseInsensitive;
+
+		// build the trie
+		Map<Long, Integer> edges = new HashMap<>();
+		List<Integer> edgeParents = new ArrayList<>();
+		List<Character> edgeLabels = new ArrayList<>();
+		int nodeCount = 1;
+		int[] outEntity = new int[16];
+		int[] outLength = new int[16];
+		Arrays.fill(outEntity, -1);
+		for (int i=0; i<stems.size(); i++) {
+			final String stem = stems.get(i);
+			if (stem.length() == 0) {
+				throw new IllegalArgumentException("Entity stem must not be empty");
+			}
+			int node = ROOT;
+			for (int k=0; k<stem.length(); k++) {
+				final char c = fold(stem.charAt(k));
+				final long key = ((long)node << 16) | c;
+				Integer child = edges.get(key);
+				if (child == null) {
+					child = nodeCount++;
+					edges.put(key, child);
+					edgeParents.add(node);
+					edgeLabels.add(c);
+					if (outEntity.length < nodeCount) {
+						final int oldLength = outEntity.length;
+						outEntity = Arrays.copyOf(outEntity, oldLength * 2);
+						outLength = Arrays.copyOf(outLength, oldLength * 2);
+						Arrays.fill(outEntity, oldLength, outEntity.length, -1);
+					}
+				}
+				node = child;
+			}
+			final int entityIndex = entityIndices.get(i);
+			if (outEntity[node] < 0 || outEntity[node] > entityIndex) {
+				outEntity[node] = entityIndex;
+				outLength[node] = stem.length();
+			}
+		}
+		_outEntity = Arrays.copyOf(outEntity, nodeCount);
+		_outLength = Arrays.copyOf(outLength, nodeCount);
+
+		// children of each node, sorted by label
+		final int edgeCount = nodeCount - 1;
+		final long[] sortKeys = new long[edgeCount];
+		for (int e=0; e<edgeCount; e++) {
+			// child node index is e+1
+			sortKeys[e] = ((long)edgeParents.get(e) << 32) | ((long)edgeLabels.get(e) << 16);
+		}
+		final Integer[] order = new Integer[edgeCount];
+		for (int e=0; e<edgeCount; e++) {
+			order[e] = e;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(sortKeys[a], sortKeys[b]));
+		_childOffsets = new int[nodeCount + 1];
+		_childLabels = new char[edgeCount];
+		_childNodes = new int[edgeCount];
+		for (int e=0; e<edgeCount; e++) {
+			_childOffsets[edgeParents.get(e) + 1]++;
+		}
+		for (int node=0; node<nodeCount; node++) {
+			_childOffsets[node + 1] += _childOffsets[node];
+		}
+		for (int pos=0; pos<edgeCount; pos++) {
+			final int e = order[pos];
+			_childLabels[pos] = edgeLabels.get(e);
+			_childNodes[pos] = e + 1;
+		}
+
+		// failure and output links, breadth first
+		_fail = new int[nodeCount];
+		_outLink = new int[nodeCount];
+		_outLink[ROOT] = -1;
+		final int[] queue = new int[nodeCount];
+		int queueHead = 0;
+		int queueTail = 0;
+		queue[queueTail++] = ROOT;
+		while (queueHead < queueTail) {
+			final int node = queue[queueHead++];
+			for (int pos=_childOffsets[node]; pos<_childOffsets[node+1]; pos++) {
+				final char c = _childLabels[pos];
+				final int child = _childNodes[pos];
+				int fail = ROOT;
+				if (node != ROOT) {
+					fail = step(_fail[node], c);
+				}
+				_fail[child] = fail;
+				_outLink[child] = _outEntity[fail] >= 0 ? fail : _outLink[fail];
+				queue[queueTail++] = child;
+			}
+		}
+	}
+
+	/**
+	 * Word characters, same as [a-zA-Z_0-9] matched by \w in regex.
+	 */
+	public static boolean isWordChar(char c) {
+		return
+			(c >= 'a' && c <= 'z') ||
+			(c >= 'A' && c <= 'Z') ||
+			(c >= '0' && c <= '9') ||
+			c == '_';
+	}
+
+	private char fold(char c) {
+		// same as CASE_INSENSITIVE in regex, which only folds US-ASCII
+		if (_caseInsensitive && c >= 'A' && c <= 'Z') {
+			return (char)(c + ('a' - 'A'));
+		}
+		return c;
+	}
+
+	private int child(int node, char c) {
+		int lo = _childOffsets[node];
+		int hi = _childOffsets[node+1] - 1;
+		while (lo <= hi) {
+			final int mid = (lo + hi) >>> 1;
+			final char label = _childLabels[mid];
+			if (label < c) {
+				lo = mid + 1;
+			} else if (label > c) {
+				hi = mid - 1;
+			} else {
+				return _childNodes[mid];
+			}
+		}
+		return -1;
+	}
+
+	private int step(int node, char c) {
+		while (true) {
+			final int child = child(node, c);
+			if (child >= 0) {
+				return child;
+			}
+			if (node == ROOT) {
+				return ROOT;
+			}
+			node = _fail[node];
+		}
+	}
+
+	/**
+	 * Scan the region [start, end) of the string and, for each start
+	 * position (relative to the region start), record the lowest entity
+	 * index (or -1) and the end of its match; only the matches preceded
+	 * and followed by a non-word character (or region bound) are recorded.
+	 */
+	public void scan(String str, int start, int end, int[] startEntity, int[] startEnd) {
+
+		Arrays.fill(startEntity, 0, end - start, -1);
+
+		int node = ROOT;
+		for (int i=start; i<end; i++) {
+
+			node = step(node, fold(str.charAt(i)));
+
+			final int matchEnd = i + 1;
+			if (matchEnd < end && isWordChar(str.charAt(matchEnd))) {
+				continue;
+			}
+
+			int out = _outEntity[node] >= 0 ? node : _outLink[node];
+			while (out >= 0) {
+				final int matchStart = matchEnd - _outLength[out];
+				if (matchStart == start || isWordChar(str.charAt(matchStart - 1)) == false) {
+					final int entityIndex = _outEntity[out];
+					final int offset = matchStart - start;
+					if (startEntity[offset] < 0 || startEntity[offset] > entityIndex) {
+						startEntity[offset] = entityIndex;
+						startEnd[offset] = matchEnd;
+					}
+				}
+				out = _outLink[out];
+			}
+		}
+	}
+
+}
@@ -1,6 +1,7 @@
 package me.akuz.nlp.detect;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -21,6 +22,13 @@ import me.akuz.nlp.ontology.EntityModel;
 
 /**
  * Detects occurrences of entities.
+ * 
+ * Entities are matched left to right, each match must be surrounded
+ * by non-word characters, and at each position the first entity (in
+ * the order of the model) wins; the {@link EntitiesDetectorEngine}
+ * only affects the speed of matching, not the hits.
+ * 
+ * Not thread-safe, use a separate detector per thread.
  *
  */
 public final class EntitiesDetector {
@@ -30,46 +38,68 @@ public final class EntitiesDetector {
 	private final List<Pair<Integer, Integer>> _entityCounts;
 	private int _totalDetectedEntitiesCount;
 	private int _nextOptimizationDetectedEntitiesCount;
+	private final EntitiesDetectorEngine _engine;
 	private final Pattern _entitiesRegex;
+	private final int[] _regexEntityIndices;
+	private final EntitiesAutomaton _automaton;
+	private int[] _startEntity;
+	private int[] _startEnd;
 	
 	public EntitiesDetector(Monitor parentMonitor, EntityModel entityModel) {
 		this(parentMonitor, entityModel, false);
 	}
 
 	public EntitiesDetector(Monitor parentMonitor, EntityModel entityModel, boolean caseInsensitive) {
+		this(parentMonitor, entityModel, caseInsensitive, EntitiesDetectorEngine.Regex);
+	}
+
+	public EntitiesDetector(Monitor parentMonitor, EntityModel entityModel, boolean caseInsensitive, EntitiesDetectorEngine engine) {
 		
+		if (engine == null) {
+			throw new NullPointerException("engine");
+		}
 		_monitor = parentMonitor != null ? new LocalMonitor(this.getClass().getSimpleName(), parentMonitor) : null;
+		_engine = engine;
 		_entities = entityModel.getEntities();
 		_entityCounts = new ArrayList<Pair<Integer,Integer>>();
 		_nextOptimizationDetectedEntitiesCount = 100;
 		_totalDetectedEntitiesCount = 0;
 		
+		// entities matched by the automaton
+		List<String> literalStems = new ArrayList<>();
+		List<Integer> literalEntityIndices = new ArrayList<>();
+		
+		// entities matched by the regex
+		List<Integer> regexEntityIndices = new ArrayList<>();
+		
 		StringBuilder sb = new StringBuilder();
 		for (int entityIndex=0; entityIndex<_entities.size(); entityIndex++) {
 
 			Entity entity = _entities.get(entityIndex);
+			String entityStem = entity.getStem();
+			JsonArray regx = entity.getRegx();
 			
-			// after non-letter or at start
-			sb.append("(?<=(?:\\W|^))(?:");
+			if (engine == EntitiesDetectorEngine.AhoCorasick && regx == null && isLiteral(entityStem)) {
+				literalStems.add(entityStem);
+				literalEntityIndices.add(entityIndex);
+				continue;
+			}
 
-			_entityCounts.add(new Pair<Integer, Integer>(entityIndex, 0));
-			_entities.add(entity);
-			entityIndex++;
+			_entityCounts.add(new Pair<Integer, Integer>(regexEntityIndices.size(), 0));
+			regexEntityIndices.add(entityIndex);
 
-			if (entityIndex > 0) {
+			if (sb.length() > 0) {
 				sb.append("|");
 			}
 			
 			sb.append("(");
 
-			String entityStem = entity.getStem();
 			String entityStemRegex = entityStem.replaceAll("/", "\\/");
 			sb.append("(?:");
 			sb.append(entityStemRegex);
 			sb.append(")");
 			
 			// check if entity has patterns
-			JsonArray regx = entity.getRegx();
 			if (regx != null) {
 				for (int k=0; k<regx.size(); k++) {
 					sb.append("|");
@@ -84,11 +114,21 @@ public final class EntitiesDetector {
 			}
 			
 			sb.append(")");
+		}
+		if (sb.length() > 0) {
+			
+			if (engine == EntitiesDetectorEngine.Regex) {
+				// after non-letter or at start
+				sb.insert(0, "(?<=(?:\\W|^))(?:");
+			} else {
+				// matched only at the start of the region,
+				// non-letter before is checked by the caller
+				sb.insert(0, "(?:");
+			}
 			
 			// followed by non-letter or end
 			sb.append(")(?=(?:\\W|$))");
-		}
-		if (sb.length() > 0) {
+			
 			int flags = 0;
 			if (caseInsensitive) {
 				flags |= Pattern.CASE_INSENSITIVE;
@@ -97,6 +137,37 @@ public final class EntitiesDetector {
 		} else {
 			_entitiesRegex = null;
 		}
+		_regexEntityIndices = new int[regexEntityIndices.size()];
+		for (int i=0; i<_regexEntityIndices.length; i++) {
+			_regexEntityIndices[i] = regexEntityIndices.get(i);
+		}
+		
+		if (literalStems.size() > 0) {
+			_automaton = new EntitiesAutomaton(literalStems, literalEntityIndices, caseInsensitive);
+		} else {
+			_automaton = null;
+		}
+		_startEntity = new int[0];
+		_startEnd = new int[0];
+	}
+	
+	/**
+	 * Check if the stem matches only itself as a regex.
+	 */
+	private static boolean isLiteral(String stem) {
+		if (stem.length() == 0) {
+			return false;
+		}
+		for (int i=0; i<stem.length(); i++) {
+			if ("\\^$.|?*+()[]{}".indexOf(stem.charAt(i)) >= 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	public EntitiesDetectorEngine getEngine() {
+		return _engine;
 	}
 	
 	public Entity getEntity(int index) {
@@ -104,18 +175,25 @@ public final class EntitiesDetector {
 	}
 
 	public Map<Integer, List<Hit>> extractHitsByEntityIndex(String str, Hit bounds) {
+		
+		if (str == null) {
+			return null;
+		}
+		if (_engine == EntitiesDetectorEngine.AhoCorasick) {
+			return extractHitsWithAutomaton(str, bounds);
+		}
 
 		Map<Integer, List<Hit>> hitsByEntityIndex = null;
 		
-		if (_entitiesRegex != null && str != null) {
+		if (_entitiesRegex != null) {
 
 			Matcher matcher = _entitiesRegex.matcher(str);
 			matcher.region(bounds.start(), bounds.end());
 			while (matcher.find()) {
 				
-				int entityIndex = getMatchedPatternEntityIndex(matcher);
-				int matchStart = matcher.start(entityIndex+1);
-				int matchEnd = matcher.end(entityIndex+1);
+				int regexIndex = getMatchedPatternEntityIndex(matcher);
+				int matchStart = matcher.start(regexIndex+1);
+				int matchEnd = matcher.end(regexIndex+1);
 				
 				if (matchStart >= matchEnd) {
 					// can't match empty strings
@@ -124,20 +202,87 @@ public final class EntitiesDetector {
 					continue;
 				}
 
-				Hit hit = new Hit(matchStart, matchEnd);
-
-				// register the hit
-				if (hitsByEntityIndex == null) {
-					hitsByEntityIndex = new HashMap<Integer, List<Hit>>();
-				}
-				List<Hit> hits = hitsByEntityIndex.get(entityIndex);
-				if (hits == null) {
-					hits = new ArrayList<Hit>();
-					hitsByEntityIndex.put(entityIndex, hits);
+				hitsByEntityIndex = addHit(hitsByEntityIndex, _regexEntityIndices[regexIndex], matchStart, matchEnd);
+			}
+		}
+		
+		return hitsByEntityIndex;
+	}
+	
+	private Map<Integer, List<Hit>> extractHitsWithAutomaton(String str, Hit bounds) {
+		
+		Map<Integer, List<Hit>> hitsByEntityIndex = null;
+		
+		final int start = bounds.start();
+		final int end = bounds.end();
+		final int length = end - start;
+		if (_startEntity.length < length) {
+			final int newLength = Math.max(length, _startEntity.length * 2);
+			_startEntity = new int[newLength];
+			_startEnd = new int[newLength];
+		}
+		if (_automaton != null) {
+			_automaton.scan(str, start, end, _startEntity, _startEnd);
+		} else {
+			Arrays.fill(_startEntity, 0, length, -1);
+		}
+		
+		Matcher matcher = _entitiesRegex != null ? _entitiesRegex.matcher(str) : null;
+		
+		int pos = start;
+		while (pos < end) {
+			
+			// after non-letter or at start
+			if (pos > start && EntitiesAutomaton.isWordChar(str.charAt(pos-1))) {
+				pos++;
+				continue;
+			}
+			
+			int entityIndex = _startEntity[pos - start];
+			int matchEnd = entityIndex >= 0 ? _startEnd[pos - start] : pos;
+			
+			if (matcher != null) {
+				matcher.region(pos, end);
+				if (matcher.lookingAt()) {
+					int regexIndex = getMatchedPatternEntityIndex(matcher);
+					int regexEntityIndex = _regexEntityIndices[regexIndex];
+					if (entityIndex < 0 || regexEntityIndex < entityIndex) {
+						// earlier entity in the model wins, 
+						// same as with one alternation regex
+						entityIndex = regexEntityIndex;
+						matchEnd = matcher.end(regexIndex+1);
+					}
 				}
-				hits.add(hit);
 			}
+			
+			if (entityIndex >= 0 && matchEnd > pos) {
+				hitsByEntityIndex = addHit(hitsByEntityIndex, entityIndex, pos, matchEnd);
+				pos = matchEnd;
+			} else {
+				// can't match empty strings
+				// possibly bad pattern
+				// for entity
+				pos++;
+			}
+		}
+		
+		return hitsByEntityIndex;
+	}
+	
+	private static Map<Integer, List<Hit>> addHit(Map<Integer, List<Hit>> hitsByEntityIndex, int entityIndex, int matchStart, int matchEnd) {
+		
+		Hit hit = new Hit(matchStart, matchEnd);
+
+		// register the hit
+		if (hitsByEntityIndex == null) {
+			hitsByEntityIndex = new HashMap<Integer, List<Hit>>();
+		}
+		List<Hit> hits = hitsByEntityIndex.get(entityIndex);
+		if (hits == null) {
+			hits = new ArrayList<Hit>();
+			hitsByEntityIndex.put(entityIndex, hits);
 		}
+		hits.add(hit);
 		
 		return hitsByEntityIndex;
 	}
@@ -167,7 +312,7 @@ public final class EntitiesDetector {
 							Pair<Integer,Integer> pair2 = _entityCounts.get(k);
 							Integer index2 = pair2.v1();
 							Integer count2 = pair2.v2();
-							Entity entity = _entities.get(index2);
+							Entity entity = _entities.get(_regexEntityIndices[index2]);
 							_monitor.write("" + count2 + "\t" + entity.getStem());
 						}
 						_monitor.write("--------------------------");
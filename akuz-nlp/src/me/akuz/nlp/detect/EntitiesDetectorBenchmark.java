@@ -0,0 +1,140 @@
+package me.akuz.nlp.detect;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import me.akuz.core.Hit;
+import me.akuz.core.Rounding;
+import me.akuz.nlp.ontology.EntityModel;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Manual benchmark of the Regex and AhoCorasick engines
+ * of the EntitiesDetector on random entities and texts;
+ * arguments (optional): entity count, text count, repeats.
+ *
+ */
+public final class EntitiesDetectorBenchmark {
+
+	private static final int REGX_ENTITY_COUNT = 5;
+	private static final int TEXT_WORD_COUNT = 100;
+
+	private static JsonObject createEntity(String stem, String... regx) {
+		JsonObject entity = new JsonObject();
+		entity.addProperty("name", stem);
+		entity.addProperty("stem", stem);
+		if (regx.length > 0) {
+			JsonArray arr = new JsonArray();
+			for (String pattern : regx) {
+				arr.add(new JsonPrimitive(pattern));
+			}
+			entity.add("regx", arr);
+		}
+		return entity;
+	}
+
+	private static long extractAll(EntitiesDetector detector, String[] texts) {
+		final long startMs = System.currentTimeMillis();
+		for (String text : texts) {
+			detector.extractHitsByEntityIndex(text, new Hit(text));
+		}
+		return System.currentTimeMillis() - startMs;
+	}
+
+	public static void main(String[] args) {
+
+		final int entityCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		final int textCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		final int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		Random rnd = new Random(1);
+
+		// random entity stems of one or two words
+		JsonArray entities = new JsonArray();
+		String[] words = new String[entityCount];
+		for (int i=0; i<words.length; i++) {
+			StringBuilder sb = new StringBuilder();
+			final int length = 3 + rnd.nextInt(6);
+			for (int k=0; k<length; k++) {
+				sb.append((char)('a' + rnd.nextInt(26)));
+			}
+			words[i] = sb.toString();
+		}
+		Set<String> stems = new HashSet<>();
+		for (int i=0; i<entityCount; i++) {
+			String stem = words[i];
+			if (i % 3 == 1) {
+				stem = stem + " " + words[rnd.nextInt(words.length)];
+			}
+			if (stems.add(stem) == false) {
+				continue;
+			}
+			if (i < REGX_ENTITY_COUNT) {
+				entities.add(createEntity(stem, stem + "\\d+"));
+			} else {
+				entities.add(createEntity(stem));
+			}
+		}
+
+		// texts made of entity words and noise
+		String[] texts = new String[textCount];
+		for (int t=0; t<texts.length; t++) {
+			StringBuilder sb = new StringBuilder();
+			for (int w=0; w<TEXT_WORD_COUNT; w++) {
+				if (w > 0) {
+					sb.append(rnd.nextInt(10) == 0 ? ", " : " ");
+				}
+				if (rnd.nextInt(3) == 0) {
+					sb.append("noise" + rnd.nextInt(100));
+				} else {
+					sb.append(words[rnd.nextInt(words.length)]);
+				}
+			}
+			texts[t] = sb.toString();
+		}
+
+		EntityModel entityModel = new EntityModel();
+		entityModel.addEntities(entities);
+
+		long ms = System.currentTimeMillis();
+		EntitiesDetector regexDetector = new EntitiesDetector(null, entityModel, true, EntitiesDetectorEngine.Regex);
+		final long regexBuildMs = System.currentTimeMillis() - ms;
+
+		ms = System.currentTimeMillis();
+		EntitiesDetector trieDetector = new EntitiesDetector(null, entityModel, true, EntitiesDetectorEngine.AhoCorasick);
+		final long trieBuildMs = System.currentTimeMillis() - ms;
+
+		// check same hits, and warm up
+		int hitCount = 0;
+		for (String text : texts) {
+			Map<Integer, List<Hit>> expected = regexDetector.extractHitsByEntityIndex(text, new Hit(text));
+			Map<Integer, List<Hit>> actual = trieDetector.extractHitsByEntityIndex(text, new Hit(text));
+			if (expected == null ? actual != null : expected.equals(actual) == false) {
+				throw new IllegalStateException("Hits differ for \"" + text + "\": " + expected + " vs " + actual);
+			}
+			if (actual != null) {
+				for (List<Hit> list : actual.values()) {
+					hitCount += list.size();
+				}
+			}
+		}
+
+		long regexMs = Long.MAX_VALUE;
+		long trieMs = Long.MAX_VALUE;
+		for (int k=0; k<repeats; k++) {
+			regexMs = Math.min(regexMs, extractAll(regexDetector, texts));
+			trieMs = Math.min(trieMs, extractAll(trieDetector, texts));
+		}
+
+		System.out.println("Best of " + repeats + " on " + entities.size() + " entities, " + texts.length + " texts, " + hitCount + " hits:");
+		System.out.println("        Regex: " + Rounding.round((double)regexMs / texts.length, 3) + " ms per text (build " + regexBuildMs + " ms)");
+		System.out.println("  AhoCorasick: " + Rounding.round((double)trieMs / texts.length, 3) + " ms per text (build " + trieBuildMs + " ms)");
+	}
+
+}
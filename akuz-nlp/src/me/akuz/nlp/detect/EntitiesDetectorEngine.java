@@ -0,0 +1,23 @@
+package me.akuz.nlp.detect;
+
+/**
+ * Matching engine used by {@link EntitiesDetector}.
+ *
+ */
+public enum EntitiesDetectorEngine {
+
+	/**
+	 * All entity stems and patterns are compiled into one
+	 * alternation regex; the cost of matching grows with
+	 * the number of entities.
+	 */
+	Regex,
+
+	/**
+	 * Literal entity stems are matched in one pass with
+	 * an Aho-Corasick automaton; only the entities that
+	 * declare patterns (or have non-literal stems) are
+	 * matched with a (much smaller) alternation regex.
+	 */
+	AhoCorasick
+}
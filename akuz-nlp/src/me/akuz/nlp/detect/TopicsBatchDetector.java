@@ -0,0 +1,123 @@
+package me.akuz.nlp.detect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import me.akuz.nlp.corpus.CorpusDoc;
+import me.akuz.nlp.corpus.CorpusView;
+
+/**
+ * Calculates topic probabilities for batches of documents 
+ * on a fixed thread pool, using a shared {@link TopicsDetector};
+ * the threads take the next document from the batch as they 
+ * finish the previous one, so long documents don't hold up
+ * the other threads. Call terminate() when no longer needed.
+ *
+ */
+public final class TopicsBatchDetector {
+	
+	private final TopicsDetector _detector;
+	private final int _threadCount;
+	private final ExecutorService _executorService;
+	
+	public TopicsBatchDetector(TopicsDetector detector, int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("Thread count must be positive (requested " + threadCount + ")");
+		}
+		_detector = detector;
+		_threadCount = threadCount;
+		_executorService = threadCount > 1 ? Executors.newFixedThreadPool(threadCount) : null;
+	}
+	
+	public TopicsDetector getDetector() {
+		return _detector;
+	}
+	
+	/**
+	 * Calculate topic probs for all documents, with the output 
+	 * in tags, as in {@link TopicsDetector#execute(CorpusDoc)}.
+	 */
+	public void execute(final List<CorpusDoc> docs) {
+		run(docs.size(), new DocTask() {
+			@Override
+			public void execute(int index) {
+				_detector.execute(docs.get(index));
+			}
+		});
+	}
+	
+	/**
+	 * Calculate topic probs for the documents [docStart, docEnd) of the
+	 * corpus view, as in {@link TopicsDetector#execute(CorpusView, int)};
+	 * returns topic probs of each document.
+	 */
+	public double[][] execute(final CorpusView corpus, final int docStart, final int docEnd) {
+		final double[][] result = new double[docEnd - docStart][];
+		run(result.length, new DocTask() {
+			@Override
+			public void execute(int index) {
+				result[index] = _detector.execute(corpus, docStart + index);
+			}
+		});
+		return result;
+	}
+	
+	private void run(final int docCount, final DocTask task) {
+		
+		if (_executorService == null || docCount <= 1) {
+			for (int i=0; i<docCount; i++) {
+				task.execute(i);
+			}
+			return;
+		}
+		
+		final AtomicInteger nextIndex = new AtomicInteger();
+		final int taskCount = Math.min(_threadCount, docCount);
+		List<Future<Boolean>> futures = new ArrayList<>(taskCount);
+		for (int t=0; t<taskCount; t++) {
+			futures.add(_executorService.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					int index;
+					while ((index = nextIndex.getAndIncrement()) < docCount) {
+						task.execute(index);
+					}
+					return null;
+				}
+			}));
+		}
+		
+		try {
+			for (int t=0; t<futures.size(); t++) {
+				futures.get(t).get();
+			}
+		} catch (InterruptedException e) {
+			throw new IllegalStateException("Interrupted while waiting for batch completion");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Could not complete batch execution: " + e.getCause().getMessage(), e.getCause());
+		}
+	}
+	
+	public void terminate() {
+		if (_executorService != null && !_executorService.isShutdown()) {
+			_executorService.shutdownNow();
+			try {
+				_executorService.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	private interface DocTask {
+		void execute(int index);
+	}
+
+}
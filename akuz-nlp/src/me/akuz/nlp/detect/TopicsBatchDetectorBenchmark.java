@@ -0,0 +1,125 @@
+package me.akuz.nlp.detect;
+
+import java.util.Random;
+
+import me.akuz.core.HashIndex;
+import me.akuz.core.Index;
+import me.akuz.core.Rounding;
+import me.akuz.nlp.corpus.Corpus;
+import me.akuz.nlp.corpus.CorpusDoc;
+import me.akuz.nlp.corpus.CorpusPlace;
+import me.akuz.nlp.corpus.PackedCorpus;
+import me.akuz.nlp.ontology.TopicModel;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Manual benchmark of the TopicsBatchDetector against calling
+ * the TopicsDetector for each doc, on a synthetic corpus;
+ * arguments (optional): thread count, doc count, repeats.
+ *
+ */
+public final class TopicsBatchDetectorBenchmark {
+
+	private static final int DOC_LENGTH = 100;
+	private static final int STEM_COUNT = 2000;
+	private static final int TOPIC_COUNT = 50;
+	private static final int TOPIC_WORD_COUNT = 100;
+	private static final double ALPHA = 1.1;
+	private static final int MAX_ITERATIONS = 20;
+	private static final double STOP_DELTA_LOG_LIKE = 0.0001;
+
+	private static Corpus createCorpus(Random rnd, int docCount) {
+
+		Index<String> stemsIndex = new HashIndex<>();
+		Index<String> wordsIndex = new HashIndex<>();
+		for (int stemIndex=0; stemIndex<STEM_COUNT; stemIndex++) {
+			stemsIndex.ensure("s" + stemIndex);
+			wordsIndex.ensure("w" + stemIndex);
+		}
+
+		Corpus corpus = new Corpus(stemsIndex, wordsIndex);
+		for (int docIndex=0; docIndex<docCount; docIndex++) {
+			CorpusDoc doc = new CorpusDoc();
+			for (int p=0; p<DOC_LENGTH; p++) {
+				// skewed stem frequencies, roughly like natural text
+				int stemIndex = (int)(STEM_COUNT * Math.pow(rnd.nextDouble(), 3));
+				doc.addPlace(new CorpusPlace(stemIndex, stemIndex));
+			}
+			corpus.addDoc(doc);
+		}
+		return corpus;
+	}
+
+	private static TopicModel createTopicModel(Random rnd) {
+		JsonArray topicList = new JsonArray();
+		for (int topicIndex=0; topicIndex<TOPIC_COUNT; topicIndex++) {
+			JsonObject topic = new JsonObject();
+			topic.addProperty("stem", "t" + topicIndex);
+			topic.addProperty("prob", 0.5 + rnd.nextDouble());
+			JsonArray words = new JsonArray();
+			for (int w=0; w<TOPIC_WORD_COUNT; w++) {
+				// only part of corpus stems are in the model
+				int stemIndex = rnd.nextInt(STEM_COUNT * 3 / 4);
+				JsonObject word = new JsonObject();
+				word.addProperty("word", "w" + stemIndex);
+				word.addProperty("stem", "s" + stemIndex);
+				word.addProperty("prob", rnd.nextDouble());
+				words.add(word);
+			}
+			topic.add("words", words);
+			topicList.add(topic);
+		}
+		return new TopicModel(topicList);
+	}
+
+	public static void main(String[] args) {
+
+		final int threadCount = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+		final int docCount = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		final int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		Random rnd = new Random(1);
+		Corpus corpus = createCorpus(rnd, docCount);
+		PackedCorpus packed = PackedCorpus.pack(corpus);
+		TopicModel model = createTopicModel(rnd);
+		TopicsDetector detector = new TopicsDetector(null, corpus.getStemsIndex(), model, ALPHA, MAX_ITERATIONS, STOP_DELTA_LOG_LIKE, 5);
+		TopicsBatchDetector batchDetector = new TopicsBatchDetector(detector, threadCount);
+
+		// keep the results, so that the runs are not optimized out
+		double check = 0;
+
+		long perDocMs = Long.MAX_VALUE;
+		long batchMs = Long.MAX_VALUE;
+		try {
+
+			// first round is a warm up
+			for (int k=0; k<=repeats; k++) {
+
+				long startMs = System.currentTimeMillis();
+				for (int docIndex=0; docIndex<docCount; docIndex++) {
+					check += detector.execute(packed, docIndex)[0];
+				}
+				final long perDoc = System.currentTimeMillis() - startMs;
+
+				startMs = System.currentTimeMillis();
+				check += batchDetector.execute(packed, 0, docCount)[0][0];
+				final long batch = System.currentTimeMillis() - startMs;
+
+				if (k > 0) {
+					perDocMs = Math.min(perDocMs, perDoc);
+					batchMs = Math.min(batchMs, batch);
+				}
+			}
+
+		} finally {
+			batchDetector.terminate();
+		}
+
+		System.out.println("Best of " + repeats + " on " + docCount + " docs, " + TOPIC_COUNT + " topics (check " + check + "):");
+		System.out.println("      Per doc: " + Rounding.round((double)perDocMs / docCount, 4) + " ms per doc");
+		System.out.println("  Batch (" + threadCount + "): " + Rounding.round((double)batchMs / docCount, 4) + " ms per doc");
+	}
+
+}
@@ -8,11 +8,13 @@ import me.akuz.core.Pair;
 import me.akuz.core.SortOrder;
 import me.akuz.core.logs.LocalMonitor;
 import me.akuz.core.logs.Monitor;
+import me.akuz.core.math.LogMathUtils;
 import me.akuz.core.math.MatrixUtils;
 import me.akuz.core.math.StatsUtils;
-import me.akuz.core.sort.SelectK;
+import me.akuz.core.sort.SelectKIntDouble;
 import me.akuz.nlp.corpus.CorpusDoc;
 import me.akuz.nlp.corpus.CorpusPlace;
+import me.akuz.nlp.corpus.CorpusView;
 import me.akuz.nlp.ontology.TopicModel;
 import Jama.Matrix;
 
@@ -20,6 +22,11 @@ import Jama.Matrix;
  * Provides functionality to calculate topic probabilities
  * for a document (and each word-place within the document).
  * 
+ * The log probabilities of the topic model are cached when the
+ * detector is created (so the model must not be changed after),
+ * and the scratch buffers are kept per thread, so the detector
+ * can be used from multiple threads (see {@link TopicsBatchDetector}).
+ * 
  */
 public final class TopicsDetector {
 
@@ -31,6 +38,11 @@ public final class TopicsDetector {
 	private final int _maxIterations;
 	private final double _stopDeltaLogLike;
 	private final int _topProbsCount;
+	private final int _topicCount;
+	private final double[] _initTopicProb;
+	private final double[] _logStemTopicProb;
+	private volatile int[] _docStemCache;
+	private final ThreadLocal<Scratch> _scratch;
 
 	public TopicsDetector(
 			Monitor parentMonitor,
@@ -59,6 +71,24 @@ public final class TopicsDetector {
 		_maxIterations = maxIterations;
 		_stopDeltaLogLike = stopDeltaLogLike;
 		_topProbsCount = topProbsCount;
+		
+		_topicCount = topicModel.getTopicCount();
+		_initTopicProb = MatrixUtils.columnToArray(topicModel.getTopicProb(), 0);
+		final Matrix mStemTopicProb = topicModel.getStemTopicProb();
+		final int stemCount = mStemTopicProb.getRowDimension();
+		_logStemTopicProb = new double[stemCount * _topicCount];
+		for (int stemIndex=0; stemIndex<stemCount; stemIndex++) {
+			for (int topicIndex=0; topicIndex<_topicCount; topicIndex++) {
+				_logStemTopicProb[stemIndex*_topicCount + topicIndex] = Math.log(mStemTopicProb.get(stemIndex, topicIndex));
+			}
+		}
+		_docStemCache = new int[docsStemsIndex.size()];
+		_scratch = new ThreadLocal<Scratch>() {
+			@Override
+			protected Scratch initialValue() {
+				return new Scratch(_topicCount, _topProbsCount);
+			}
+		};
 	}
 	
 	public TopicModel getTopicModel() {
@@ -72,18 +102,140 @@ public final class TopicsDetector {
 	 */
 	public void execute(final CorpusDoc doc) {
 		
-		// init expectation optimization
-		double prevLogLike = Double.NaN;
-		final Matrix mStemTopicProb = _topicModel.getStemTopicProb();
-		double[] mTopicProb = MatrixUtils.columnToArray(_topicModel.getTopicProb(), 0);
-		doc.setTag(mTopicProb);
-		
 		// prepare doc
 		doc.clearTags();
 
 		// get doc places to iterate over
 		List<CorpusPlace> places = doc.getPlaces();
 		
+		final Scratch scratch = _scratch.get();
+		scratch.ensurePlaceCount(places.size());
+		final int[] modelStemIndices = scratch._modelStemIndices;
+		for (int j=0; j<places.size(); j++) {
+			modelStemIndices[j] = getModelStemIndex(places.get(j).getStemIndex());
+		}
+		
+		final int topicCount = _topicCount;
+		final double[] placeTopicProbs = scratch._placeTopicProbs;
+		final double[] mTopicProb = infer(places.size(), modelStemIndices, placeTopicProbs, scratch._logTopicProb);
+		
+		// collect doc top topic probs
+		final SelectKIntDouble selectTopTopics = scratch._selectTopTopics;
+		for (int topicIndex=0; topicIndex<mTopicProb.length; topicIndex++) {
+			selectTopTopics.add(topicIndex, mTopicProb[topicIndex]);
+		}
+		List<Pair<Integer, Double>> topicProbs = selectTopTopics.get();
+		doc.setTag(topicProbs);
+		
+		// collect places top topic probs
+		for (int i=0; i<places.size(); i++) {
+			
+			if (modelStemIndices[i] >= 0) {
+				
+				final int offset = i * topicCount;
+
+				// collect place top topic probs
+				for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+					selectTopTopics.add(topicIndex, placeTopicProbs[offset + topicIndex]);
+				}
+				
+				List<Pair<Integer, Double>> placeTopicProbList = selectTopTopics.get();
+				places.get(i).setTag(placeTopicProbList);
+			}
+		}
+	}
+	
+	/**
+	 * Calculate topic probs for a document of a corpus view (such as PackedCorpus),
+	 * without creating objects for the word-places; returns topic probs of the whole
+	 * document, and sets the most probable topic of each word-place into the place 
+	 * state slot 0 (-1 for the places with stems unknown to the topic model).
+	 */
+	public double[] execute(final CorpusView corpus, final int docIndex) {
+		
+		final int docStart = corpus.getDocStart(docIndex);
+		final int docEnd = corpus.getDocEnd(docIndex);
+		
+		final int placeCount = docEnd - docStart;
+		
+		final Scratch scratch = _scratch.get();
+		scratch.ensurePlaceCount(placeCount);
+		final int[] modelStemIndices = scratch._modelStemIndices;
+		for (int j=0; j<placeCount; j++) {
+			modelStemIndices[j] = getModelStemIndex(corpus.getStemIndex(docStart + j));
+		}
+		
+		final int topicCount = _topicCount;
+		final double[] placeTopicProbs = scratch._placeTopicProbs;
+		final double[] mTopicProb = infer(placeCount, modelStemIndices, placeTopicProbs, scratch._logTopicProb);
+		
+		for (int j=0; j<placeCount; j++) {
+			int topTopicIndex = -1;
+			if (modelStemIndices[j] >= 0) {
+				final int offset = j * topicCount;
+				for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+					if (topTopicIndex < 0 || placeTopicProbs[offset + topTopicIndex] < placeTopicProbs[offset + topicIndex]) {
+						topTopicIndex = topicIndex;
+					}
+				}
+			}
+			corpus.setPlaceState(docStart + j, 0, topTopicIndex);
+		}
+		
+		return mTopicProb;
+	}
+	
+	/**
+	 * Get model stem index of the docs stem index (-1 if the stem is
+	 * not in the model); resolved stems are cached by docs stem index
+	 * (as model stem index + 2, with 0 meaning not resolved yet).
+	 */
+	private int getModelStemIndex(final int docStemIndex) {
+		if (docStemIndex < 0) {
+			return -1;
+		}
+		int[] cache = _docStemCache;
+		if (docStemIndex < cache.length) {
+			final int cached = cache[docStemIndex];
+			if (cached != 0) {
+				return cached - 2;
+			}
+		}
+		String stem = _docsStemsIndex.getValue(docStemIndex);
+		Integer modelStemIndex = _topicModel.getStemsIndex().getIndex(stem);
+		final int result = modelStemIndex != null ? modelStemIndex.intValue() : -1;
+		if (docStemIndex >= cache.length) {
+			cache = growDocStemCache(docStemIndex + 1);
+		}
+		cache[docStemIndex] = result + 2;
+		return result;
+	}
+	
+	private synchronized int[] growDocStemCache(final int minLength) {
+		int[] cache = _docStemCache;
+		if (cache.length < minLength) {
+			cache = Arrays.copyOf(cache, Math.max(minLength, cache.length * 2));
+			_docStemCache = cache;
+		}
+		return cache;
+	}
+	
+	/**
+	 * Expectation-maximization of the document topic probs; place topic probs
+	 * are written into a flat array (topic count values per place), only for
+	 * the places with known model stem indices (not negative).
+	 */
+	private double[] infer(
+			final int placeCount, 
+			final int[] modelStemIndices, 
+			final double[] placeTopicProbs,
+			final double[] logTopicProb) {
+		
+		// init expectation optimization
+		double prevLogLike = Double.NaN;
+		final double[] mTopicProb = Arrays.copyOf(_initTopicProb, _initTopicProb.length);
+		final int topicCount = _topicCount;
+		
 		int iter = 0;
 		while (true) {
 
@@ -91,38 +243,25 @@ public final class TopicsDetector {
 
 			// expectation
 			double currLogLike = 0;
-			for (int topicIndex=0; topicIndex<mTopicProb.length; topicIndex++) {
-				currLogLike += _alphaMinus1 * Math.log(mTopicProb[topicIndex]);
+			for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+				logTopicProb[topicIndex] = Math.log(mTopicProb[topicIndex]);
+				currLogLike += _alphaMinus1 * logTopicProb[topicIndex];
 			}
 			
-			for (int j=0; j<places.size(); j++) {
+			for (int j=0; j<placeCount; j++) {
 				
-				CorpusPlace place = places.get(j);
-				int docStemIndex = place.getStemIndex();
-				if (docStemIndex < 0) {
-					continue;
-				}
-
-				String stem = _docsStemsIndex.getValue(docStemIndex);
-				Integer modelStemIndex = _topicModel.getStemsIndex().getIndex(stem);
-				if (modelStemIndex == null) {
+				final int modelStemIndex = modelStemIndices[j];
+				if (modelStemIndex < 0) {
 					continue;
 				}
 
-				double[] placeTopicProb = (double[])place.getTag();
-				if (placeTopicProb == null) {
-					placeTopicProb = new double[_topicModel.getTopicCount()];
-					place.setTag(placeTopicProb);
+				final int offset = j * topicCount;
+				final int stemOffset = modelStemIndex * topicCount;
+				for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+					placeTopicProbs[offset + topicIndex] = logTopicProb[topicIndex] + _logStemTopicProb[stemOffset + topicIndex];
 				}
 				
-				for (int topicIndex=0; topicIndex<placeTopicProb.length; topicIndex++) {
-					double topicProb = mTopicProb[topicIndex];
-					double stemTopicProb = mStemTopicProb.get(modelStemIndex, topicIndex);
-					placeTopicProb[topicIndex] = Math.log(topicProb) + Math.log(stemTopicProb);
-				}
-				
-				currLogLike += StatsUtils.logSumExp(placeTopicProb);
-				StatsUtils.logLikesToProbsInPlace(placeTopicProb);
+				currLogLike += LogMathUtils.softmaxInPlace(placeTopicProbs, offset, topicCount);
 			}
 			
 			if (_monitor != null) {
@@ -154,15 +293,13 @@ public final class TopicsDetector {
 			
 			// maximization
 			Arrays.fill(mTopicProb, _alpha);
-			for (int i=0; i<places.size(); i++) {
+			for (int i=0; i<placeCount; i++) {
 				
-				CorpusPlace place = places.get(i);
-				double[] placeTopicProb = (double[])place.getTag();
-
-				if (placeTopicProb != null) {
+				if (modelStemIndices[i] >= 0) {
 					
-					for (int topicIndex=0; topicIndex<placeTopicProb.length; topicIndex++) {
-						mTopicProb[topicIndex] += placeTopicProb[topicIndex];
+					final int offset = i * topicCount;
+					for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+						mTopicProb[topicIndex] += placeTopicProbs[offset + topicIndex];
 					}
 				}
 			}
@@ -171,30 +308,33 @@ public final class TopicsDetector {
 			prevLogLike = currLogLike;
 		}
 		
-		// collect doc top topic probs
-		SelectK<Integer, Double> selectDocTopTopics = new SelectK<>(SortOrder.Desc, _topProbsCount);
-		for (int topicIndex=0; topicIndex<mTopicProb.length; topicIndex++) {
-			selectDocTopTopics.add(new Pair<Integer, Double>(topicIndex, mTopicProb[topicIndex]));
+		return mTopicProb;
+	}
+	
+	/**
+	 * Per-thread buffers, grown to the longest document seen.
+	 */
+	private static final class Scratch {
+		
+		private final int _topicCount;
+		private int[] _modelStemIndices;
+		private double[] _placeTopicProbs;
+		private final double[] _logTopicProb;
+		private final SelectKIntDouble _selectTopTopics;
+		
+		public Scratch(int topicCount, int topProbsCount) {
+			_topicCount = topicCount;
+			_modelStemIndices = new int[0];
+			_placeTopicProbs = new double[0];
+			_logTopicProb = new double[topicCount];
+			_selectTopTopics = new SelectKIntDouble(SortOrder.Desc, topProbsCount);
 		}
-		List<Pair<Integer, Double>> topicProbs = selectDocTopTopics.get();
-		doc.setTag(topicProbs);
 		
-		// collect places top topic probs
-		for (int i=0; i<places.size(); i++) {
-			
-			CorpusPlace place = places.get(i);
-			double[] placeTopicProb = (double[])place.getTag();
-
-			if (placeTopicProb != null) {
-
-				// collect place top topic probs
-				SelectK<Integer, Double> selectPlaceTopTopics = new SelectK<>(SortOrder.Desc, _topProbsCount);
-				for (int topicIndex=0; topicIndex<placeTopicProb.length; topicIndex++) {
-					selectPlaceTopTopics.add(new Pair<Integer, Double>(topicIndex, placeTopicProb[topicIndex]));
-				}
-				
-				List<Pair<Integer, Double>> placeTopicProbs = selectPlaceTopTopics.get();
-				place.setTag(placeTopicProbs);
+		public void ensurePlaceCount(int placeCount) {
+			if (_modelStemIndices.length < placeCount) {
+				final int newLength = Math.max(placeCount, _modelStemIndices.length * 2);
+				_modelStemIndices = new int[newLength];
+				_placeTopicProbs = new double[newLength * _topicCount];
 			}
 		}
 	}
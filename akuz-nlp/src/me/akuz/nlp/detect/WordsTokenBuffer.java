@@ -0,0 +1,79 @@
+package me.akuz.nlp.detect;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffer of tokens found by {@link WordsTokenizer},
+ * keeping the start, end, stem index and word index of each
+ * token in flat int arrays, in the order of the text.
+ *
+ */
+public final class WordsTokenBuffer {
+
+	private static final int DEFAULT_CAPACITY = 256;
+
+	private int _size;
+	private int[] _starts;
+	private int[] _ends;
+	private int[] _stemIds;
+	private int[] _wordIds;
+
+	public WordsTokenBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public WordsTokenBuffer(int capacity) {
+		capacity = Math.max(1, capacity);
+		_starts = new int[capacity];
+		_ends = new int[capacity];
+		_stemIds = new int[capacity];
+		_wordIds = new int[capacity];
+	}
+
+	/**
+	 * Remove all tokens, keeping the capacity.
+	 */
+	public void clear() {
+		_size = 0;
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	public int getStart(int tokenIndex) {
+		return _starts[tokenIndex];
+	}
+
+	public int getEnd(int tokenIndex) {
+		return _ends[tokenIndex];
+	}
+
+	public int getStemId(int tokenIndex) {
+		return _stemIds[tokenIndex];
+	}
+
+	/**
+	 * Get the word index of the token, or -1,
+	 * if the tokenizer has no words index.
+	 */
+	public int getWordId(int tokenIndex) {
+		return _wordIds[tokenIndex];
+	}
+
+	void add(int start, int end, int stemId, int wordId) {
+		if (_size == _starts.length) {
+			final int newCapacity = _starts.length * 2;
+			_starts = Arrays.copyOf(_starts, newCapacity);
+			_ends = Arrays.copyOf(_ends, newCapacity);
+			_stemIds = Arrays.copyOf(_stemIds, newCapacity);
+			_wordIds = Arrays.copyOf(_wordIds, newCapacity);
+		}
+		_starts[_size] = start;
+		_ends[_size] = end;
+		_stemIds[_size] = stemId;
+		_wordIds[_size] = wordId;
+		_size++;
+	}
+
+}
@@ -0,0 +1,367 @@
+package me.akuz.nlp.detect;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import me.akuz.core.Hit;
+import me.akuz.core.Index;
+import me.akuz.nlp.porter.PorterStemmer;
+
+/**
+ * Single-pass tokenizer, finding the same words as the regular
+ * expressions originally used in {@link WordsDetector}:
+ *
+ * the text is split into blocks of up to 50 non-space characters,
+ * and each block, with any leading and trailing non-word characters
+ * stripped, is checked to be either a simple word (two to 21 word
+ * characters, starting or ending with a letter), a composite word
+ * (two simple words joined with a dash) or an abbreviation (like
+ * "U.S." or "web2.0"); simple and composite words can be followed
+ * by suffixes 's, 'd and 'll, and abbreviations by 's.
+ *
+ * Tokens are emitted into a {@link WordsTokenBuffer}, with stems and
+ * words resolved to indices through a cache keyed by the characters
+ * of the token, so that repeated words are not stemmed again, and no
+ * objects are created for them. Not thread-safe, use a separate
+ * tokenizer per thread.
+ *
+ */
+public final class WordsTokenizer {
+
+	private static final int MAX_BLOCK_LENGTH = 50;
+	private static final int MAX_WORD_LENGTH = 21;
+	private static final int MAX_CACHED_WORDS = 1 << 20;
+	private static final int INITIAL_TABLE_SIZE = 1024;
+
+	private final PorterStemmer _porterStemmer;
+	private final Set<String> _stopStems;
+	private final Index<String> _stemsIndex;
+	private final Index<String> _wordsIndex;
+
+	// cache of token characters to stem and word indices
+	private int[] _cacheTable;
+	private int _cacheSize;
+	private char[] _cacheChars;
+	private int _cacheCharsSize;
+	private int[] _cacheOffsets;
+	private int[] _cacheLengths;
+	private int[] _cacheHashes;
+	private int[] _cacheStemIds;
+	private int[] _cacheWordIds;
+
+	public WordsTokenizer(PorterStemmer porterStemmer, Set<String> stopStems, Index<String> stemsIndex) {
+		this(porterStemmer, stopStems, stemsIndex, null);
+	}
+
+	/**
+	 * Create a tokenizer, which adds the stems of found tokens to the
+	 * stems index and (if not null) their words to the words index;
+	 * tokens with stems from stop stems (if not null) are skipped.
+	 */
+	public WordsTokenizer(PorterStemmer porterStemmer, Set<String> stopStems, Index<String> stemsIndex, Index<String> wordsIndex) {
+		if (porterStemmer == null) {
+			throw new NullPointerException("porterStemmer");
+		}
+		if (stemsIndex == null) {
+			throw new NullPointerException("stemsIndex");
+		}
+		_porterStemmer = porterStemmer;
+		_stopStems = stopStems;
+		_stemsIndex = stemsIndex;
+		_wordsIndex = wordsIndex;
+		clearCache();
+	}
+
+	public Index<String> getStemsIndex() {
+		return _stemsIndex;
+	}
+
+	public Index<String> getWordsIndex() {
+		return _wordsIndex;
+	}
+
+	/**
+	 * Number of distinct tokens currently cached.
+	 */
+	public int getCacheSize() {
+		return _cacheSize;
+	}
+
+	/**
+	 * Clear the cache of tokens (indices stay unchanged).
+	 */
+	public void clearCache() {
+		_cacheTable = new int[INITIAL_TABLE_SIZE];
+		_cacheSize = 0;
+		_cacheChars = new char[INITIAL_TABLE_SIZE * 8];
+		_cacheCharsSize = 0;
+		_cacheOffsets = new int[INITIAL_TABLE_SIZE / 2];
+		_cacheLengths = new int[INITIAL_TABLE_SIZE / 2];
+		_cacheHashes = new int[INITIAL_TABLE_SIZE / 2];
+		_cacheStemIds = new int[INITIAL_TABLE_SIZE / 2];
+		_cacheWordIds = new int[INITIAL_TABLE_SIZE / 2];
+	}
+
+	/**
+	 * Find tokens within the bounds of the string (or the
+	 * whole string, if bounds are null), and append them
+	 * to the buffer, in the order of the text.
+	 */
+	public void tokenize(String str, Hit bounds, WordsTokenBuffer tokens) {
+
+		final int start = bounds != null ? bounds.start() : 0;
+		final int end = bounds != null ? bounds.end() : str.length();
+
+		int pos = start;
+		while (pos < end) {
+
+			if (isSpace(str.charAt(pos))) {
+				pos++;
+				continue;
+			}
+
+			// next block of non-space characters
+			int blockEnd = pos;
+			int blockLength = 0;
+			while (blockEnd < end && blockLength < MAX_BLOCK_LENGTH) {
+				final char c = str.charAt(blockEnd);
+				if (isSpace(c)) {
+					break;
+				}
+				if (Character.isHighSurrogate(c) && blockEnd + 1 < end && Character.isLowSurrogate(str.charAt(blockEnd + 1))) {
+					blockEnd += 2;
+				} else {
+					blockEnd++;
+				}
+				blockLength++;
+			}
+
+			tokenizeBlock(str, pos, blockEnd, tokens);
+			pos = blockEnd;
+		}
+	}
+
+	private void tokenizeBlock(String str, int blockStart, int blockEnd, WordsTokenBuffer tokens) {
+
+		// skip leading non-word characters
+		int pos = blockStart;
+		while (pos < blockEnd && isWordChar(str.charAt(pos)) == false) {
+			pos++;
+		}
+		if (pos == blockEnd) {
+			return;
+		}
+
+		// first run of word characters
+		final int start1 = pos;
+		while (pos < blockEnd && isWordChar(str.charAt(pos))) {
+			pos++;
+		}
+		final int end1 = pos;
+		final boolean simple1 = isSimpleWord(str, start1, end1);
+
+		// simple word
+		if (simple1 && isTail(str, end1, blockEnd, true)) {
+			addToken(str, start1, end1, false, tokens);
+			return;
+		}
+
+		// composite word
+		if (simple1 && end1 < blockEnd && str.charAt(end1) == '-') {
+			final int start2 = end1 + 1;
+			pos = start2;
+			while (pos < blockEnd && isWordChar(str.charAt(pos))) {
+				pos++;
+			}
+			final int end2 = pos;
+			if (isSimpleWord(str, start2, end2) && isTail(str, end2, blockEnd, true)) {
+				addToken(str, start1, end1, false, tokens);
+				addToken(str, start2, end2, false, tokens);
+				return;
+			}
+		}
+
+		// abbreviation: word characters with single dots
+		// in between, possibly ending with a dot
+		if (isLetter(str.charAt(start1)) &&
+			end1 - start1 <= MAX_WORD_LENGTH &&
+			end1 + 1 < blockEnd &&
+			str.charAt(end1) == '.' &&
+			isWordChar(str.charAt(end1 + 1))) {
+
+			pos = end1 + 1;
+			while (true) {
+				while (pos < blockEnd && isWordChar(str.charAt(pos))) {
+					pos++;
+				}
+				if (pos < blockEnd && str.charAt(pos) == '.') {
+					pos++;
+					if (pos < blockEnd && isWordChar(str.charAt(pos))) {
+						continue;
+					}
+				}
+				break;
+			}
+			if (isTail(str, pos, blockEnd, false)) {
+				addToken(str, start1, pos, true, tokens);
+			}
+		}
+	}
+
+	private void addToken(String str, int start, int end, boolean isAbbrev, WordsTokenBuffer tokens) {
+
+		final int length = end - start;
+		int hash = 0;
+		for (int i=start; i<end; i++) {
+			hash = 31 * hash + str.charAt(i);
+		}
+		hash ^= (hash >>> 16);
+
+		// look up the cache
+		final int mask = _cacheTable.length - 1;
+		int slot = hash & mask;
+		while (true) {
+			final int entry = _cacheTable[slot] - 1;
+			if (entry < 0) {
+				break;
+			}
+			if (_cacheHashes[entry] == hash && _cacheLengths[entry] == length && sameChars(str, start, entry)) {
+				if (_cacheStemIds[entry] >= 0) {
+					tokens.add(start, end, _cacheStemIds[entry], _cacheWordIds[entry]);
+				}
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		// stem the new word
+		final String word = str.substring(start, end);
+		final String stem = isAbbrev ? word.toLowerCase() : _porterStemmer.stem(word);
+		int stemId = -1;
+		int wordId = -1;
+		if (_stopStems == null || _stopStems.contains(stem) == false) {
+			stemId = _stemsIndex.ensure(stem);
+			if (_wordsIndex != null) {
+				wordId = _wordsIndex.ensure(word);
+			}
+		}
+		if (stemId >= 0) {
+			tokens.add(start, end, stemId, wordId);
+		}
+
+		// add to the cache
+		if (_cacheSize >= MAX_CACHED_WORDS) {
+			clearCache();
+		}
+		if (_cacheSize * 2 >= _cacheTable.length) {
+			growCache();
+		}
+		if (_cacheCharsSize + length > _cacheChars.length) {
+			_cacheChars = Arrays.copyOf(_cacheChars, Math.max(_cacheCharsSize + length, _cacheChars.length * 2));
+		}
+		str.getChars(start, end, _cacheChars, _cacheCharsSize);
+		final int entry = _cacheSize++;
+		_cacheOffsets[entry] = _cacheCharsSize;
+		_cacheLengths[entry] = length;
+		_cacheHashes[entry] = hash;
+		_cacheStemIds[entry] = stemId;
+		_cacheWordIds[entry] = wordId;
+		_cacheCharsSize += length;
+		insertCacheEntry(entry);
+	}
+
+	private boolean sameChars(String str, int start, int entry) {
+		final int offset = _cacheOffsets[entry];
+		final int length = _cacheLengths[entry];
+		for (int i=0; i<length; i++) {
+			if (_cacheChars[offset + i] != str.charAt(start + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void insertCacheEntry(int entry) {
+		final int mask = _cacheTable.length - 1;
+		int slot = _cacheHashes[entry] & mask;
+		while (_cacheTable[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		_cacheTable[slot] = entry + 1;
+	}
+
+	private void growCache() {
+		final int newEntryCapacity = _cacheTable.length;
+		_cacheTable = new int[_cacheTable.length * 2];
+		_cacheOffsets = Arrays.copyOf(_cacheOffsets, newEntryCapacity);
+		_cacheLengths = Arrays.copyOf(_cacheLengths, newEntryCapacity);
+		_cacheHashes = Arrays.copyOf(_cacheHashes, newEntryCapacity);
+		_cacheStemIds = Arrays.copyOf(_cacheStemIds, newEntryCapacity);
+		_cacheWordIds = Arrays.copyOf(_cacheWordIds, newEntryCapacity);
+		for (int entry=0; entry<_cacheSize; entry++) {
+			insertCacheEntry(entry);
+		}
+	}
+
+	/**
+	 * Check that the rest of the block consists of suffixes
+	 * ('s, and also 'd and 'll, if all suffixes are allowed),
+	 * followed by non-word characters.
+	 */
+	private static boolean isTail(String str, int pos, int blockEnd, boolean allSuffixes) {
+
+		while (pos + 1 < blockEnd && isApostrophe(str.charAt(pos))) {
+			final char c = str.charAt(pos + 1);
+			if (c == 's') {
+				pos += 2;
+			} else if (allSuffixes && c == 'd') {
+				pos += 2;
+			} else if (allSuffixes && c == 'l' && pos + 2 < blockEnd && str.charAt(pos + 2) == 'l') {
+				pos += 3;
+			} else {
+				break;
+			}
+		}
+		while (pos < blockEnd) {
+			if (isWordChar(str.charAt(pos))) {
+				return false;
+			}
+			pos++;
+		}
+		return true;
+	}
+
+	private static boolean isSimpleWord(String str, int start, int end) {
+		final int length = end - start;
+		return
+			length >= 2 &&
+			length <= MAX_WORD_LENGTH &&
+			(isLetter(str.charAt(start)) || isLetter(str.charAt(end - 1)));
+	}
+
+	private static boolean isApostrophe(char c) {
+		return c == '\'' || c == '\u2019';
+	}
+
+	/**
+	 * Same as \s in regex.
+	 */
+	private static boolean isSpace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * Same as [a-zA-Z] in regex.
+	 */
+	private static boolean isLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	/**
+	 * Same as \w in regex.
+	 */
+	private static boolean isWordChar(char c) {
+		return isLetter(c) || (c >= '0' && c <= '9') || c == '_';
+	}
+
+}
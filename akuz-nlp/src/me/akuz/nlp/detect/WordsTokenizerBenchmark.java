@@ -0,0 +1,141 @@
+package me.akuz.nlp.detect;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import me.akuz.core.HashIndex;
+import me.akuz.core.Hit;
+import me.akuz.core.Rounding;
+import me.akuz.nlp.porter.PorterStemmer;
+
+/**
+ * Manual benchmark of the WordsTokenizer against the regular
+ * expressions previously used by WordsDetector, on random texts;
+ * arguments (optional): text count, words per text, repeats.
+ *
+ */
+public final class WordsTokenizerBenchmark {
+
+	private static final int VOCAB_SIZE = 5000;
+
+	// the regular expressions previously used by WordsDetector
+	private static final String _simpleWord = "(?:(?:[a-zA-Z]\\w{1,20})|(?:\\w{1,20}[a-zA-Z]))";
+	private static final String _wordSuffixS = "(?:['\u2019]s)";
+	private static final String _wordSuffixAll = "(?:['\u2019](?:s|d|ll))";
+	private static final Pattern _patternWordCandidate = Pattern.compile("\\S{1,50}");
+	private static final Pattern _patternWordSimple = Pattern.compile(
+			"^(\\W*)(" + _simpleWord + ")(" + _wordSuffixAll + "*\\W*)$");
+	private static final Pattern _patternWordComposite = Pattern.compile(
+			"^(\\W*)(" + _simpleWord + ")-(" + _simpleWord + ")(" + _wordSuffixAll + "*\\W*)$");
+	private static final Pattern _patternAbbrev = Pattern.compile(
+			"^(\\W*)([a-zA-Z]\\w{0,20}[.](?:\\w{1,20}[.]?)+)(" + _wordSuffixS + "*\\W*)$");
+
+	/**
+	 * Regex-based tokenization, returns the number of tokens.
+	 */
+	private static int tokenizeWithRegex(PorterStemmer porterStemmer, Set<String> stopStems, String str) {
+		int count = 0;
+		Matcher blockMatcher = _patternWordCandidate.matcher(str);
+		while (blockMatcher.find()) {
+			String block = blockMatcher.group();
+			Matcher matcher = _patternWordSimple.matcher(block);
+			if (matcher.find()) {
+				if (stopStems.contains(porterStemmer.stem(matcher.group(2))) == false) {
+					count++;
+				}
+				continue;
+			}
+			matcher = _patternWordComposite.matcher(block);
+			if (matcher.find()) {
+				if (stopStems.contains(porterStemmer.stem(matcher.group(2))) == false) {
+					count++;
+				}
+				if (stopStems.contains(porterStemmer.stem(matcher.group(3))) == false) {
+					count++;
+				}
+				continue;
+			}
+			matcher = _patternAbbrev.matcher(block);
+			if (matcher.find()) {
+				if (stopStems.contains(matcher.group(2).toLowerCase()) == false) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	public static void main(String[] args) {
+
+		final int textCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		final int textWordCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		final int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		PorterStemmer porterStemmer = new PorterStemmer();
+		Set<String> stopStems = new HashSet<>();
+
+		// zipfian-like vocabulary
+		Random rnd = new Random(1);
+		String[] vocab = new String[VOCAB_SIZE];
+		for (int i=0; i<vocab.length; i++) {
+			StringBuilder sb = new StringBuilder();
+			final int length = 2 + rnd.nextInt(9);
+			for (int k=0; k<length; k++) {
+				sb.append((char)('a' + rnd.nextInt(26)));
+			}
+			vocab[i] = sb.toString();
+		}
+		String[] texts = new String[textCount];
+		for (int t=0; t<texts.length; t++) {
+			StringBuilder sb = new StringBuilder();
+			for (int w=0; w<textWordCount; w++) {
+				if (w > 0) {
+					sb.append(rnd.nextInt(10) == 0 ? ". " : " ");
+				}
+				final int index = (int)Math.floor(vocab.length * Math.pow(rnd.nextDouble(), 3));
+				sb.append(vocab[index]);
+			}
+			texts[t] = sb.toString();
+		}
+
+		WordsTokenizer tokenizer = new WordsTokenizer(porterStemmer, stopStems, new HashIndex<String>(), new HashIndex<String>());
+		WordsTokenBuffer tokens = new WordsTokenBuffer();
+
+		// keep the results, so that the loops are not optimized out
+		long check = 0;
+
+		long regexMs = Long.MAX_VALUE;
+		long tokenizerMs = Long.MAX_VALUE;
+
+		// first round is a warm up
+		for (int k=0; k<=repeats; k++) {
+
+			long startMs = System.currentTimeMillis();
+			for (String text : texts) {
+				check += tokenizeWithRegex(porterStemmer, stopStems, text);
+			}
+			final long regex = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			for (String text : texts) {
+				tokens.clear();
+				tokenizer.tokenize(text, new Hit(text), tokens);
+				check += tokens.size();
+			}
+			final long tokenize = System.currentTimeMillis() - startMs;
+
+			if (k > 0) {
+				regexMs = Math.min(regexMs, regex);
+				tokenizerMs = Math.min(tokenizerMs, tokenize);
+			}
+		}
+
+		System.out.println("Best of " + repeats + " on " + texts.length + " texts, " + textWordCount + " words each (check " + check + "):");
+		System.out.println("      Regex: " + Rounding.round((double)regexMs / texts.length, 3) + " ms per text");
+		System.out.println("  Tokenizer: " + Rounding.round((double)tokenizerMs / texts.length, 3) + " ms per text");
+	}
+
+}
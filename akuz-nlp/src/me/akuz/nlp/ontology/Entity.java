@@ -3,6 +3,7 @@ package me.akuz.nlp.ontology;
 import me.akuz.core.gson.GsonSerializers;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 /**
@@ -33,8 +34,15 @@ public final class Entity {
 		_obj.addProperty(StemField, stem);
 	}
 	
+	/**
+	 * Get the patterns of this entity, or null if it doesn't declare any.
+	 */
 	public JsonArray getRegx() {
-		return _obj.get(RegxField).getAsJsonArray();
+		JsonElement regx = _obj.get(RegxField);
+		if (regx == null || regx.isJsonNull()) {
+			return null;
+		}
+		return regx.getAsJsonArray();
 	}
 
 	@Override
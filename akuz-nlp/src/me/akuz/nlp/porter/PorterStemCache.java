@@ -0,0 +1,115 @@
+package me.akuz.nlp.porter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded concurrent cache of word stems, used by {@link PorterStemmer}.
+ *
+ * Entries are kept in two generations: new entries go into the young
+ * generation, and when it fills up, it becomes the old generation,
+ * while the previous old generation is evicted; entries found in the
+ * old generation are moved back into the young one, so that frequent
+ * words stay cached (an approximation of LRU without locking reads).
+ *
+ */
+public final class PorterStemCache {
+
+	private final int _generationCapacity;
+	private volatile ConcurrentHashMap<String, String> _young;
+	private volatile ConcurrentHashMap<String, String> _old;
+	private final LongAdder _hitCount;
+	private final LongAdder _missCount;
+	private final LongAdder _evictionCount;
+
+	/**
+	 * Create a cache, which keeps at most approximately
+	 * the given number of entries (at least two).
+	 */
+	public PorterStemCache(int capacity) {
+		if (capacity < 2) {
+			throw new IllegalArgumentException("Stem cache capacity must be at least 2 (requested " + capacity + ")");
+		}
+		_generationCapacity = capacity / 2;
+		_young = new ConcurrentHashMap<>();
+		_old = new ConcurrentHashMap<>();
+		_hitCount = new LongAdder();
+		_missCount = new LongAdder();
+		_evictionCount = new LongAdder();
+	}
+
+	/**
+	 * Get cached stem of the word, or null if not cached.
+	 */
+	public String get(String word) {
+		String stem = _young.get(word);
+		if (stem == null) {
+			stem = _old.get(word);
+			if (stem != null) {
+				put(word, stem);
+			}
+		}
+		if (stem != null) {
+			_hitCount.increment();
+		} else {
+			_missCount.increment();
+		}
+		return stem;
+	}
+
+	/**
+	 * Cache the stem of the word.
+	 */
+	public void put(String word, String stem) {
+		ConcurrentHashMap<String, String> young = _young;
+		young.put(word, stem);
+		if (young.size() >= _generationCapacity) {
+			rotate(young);
+		}
+	}
+
+	private synchronized void rotate(ConcurrentHashMap<String, String> young) {
+		if (_young == young) {
+			_evictionCount.add(_old.size());
+			_old = young;
+			_young = new ConcurrentHashMap<>();
+		}
+	}
+
+	/**
+	 * Remove all entries (the counters are not reset).
+	 */
+	public synchronized void clear() {
+		_young = new ConcurrentHashMap<>();
+		_old = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Approximate number of cached entries.
+	 */
+	public int size() {
+		return _young.size() + _old.size();
+	}
+
+	public long getHitCount() {
+		return _hitCount.sum();
+	}
+
+	public long getMissCount() {
+		return _missCount.sum();
+	}
+
+	public long getEvictionCount() {
+		return _evictionCount.sum();
+	}
+
+	/**
+	 * Share of lookups that were found in the cache.
+	 */
+	public double getHitRate() {
+		final long hitCount = _hitCount.sum();
+		final long totalCount = hitCount + _missCount.sum();
+		return totalCount > 0 ? (double)hitCount / totalCount : 0.0;
+	}
+
+}
@@ -1,25 +1,60 @@
 package me.akuz.nlp.porter;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Set;
 
 /**
  * Porter stemmer wrapper around the original implementation.
  * Allows appending a specified suffix to all stems, if needed.
+ * 
+ * Thread-safe: each thread uses its own instance of the original
+ * implementation (which has mutable buffers); optionally, stems are
+ * memoized in a {@link PorterStemCache} shared by all threads.
  *
  */
 public final class PorterStemmer {
 	
+	public static final int DEFAULT_CACHE_CAPACITY = 1 << 16;
+	
 	private final String _suffix;
-	private final PorterStemmerOrig _ps;
+	private final ThreadLocal<PorterStemmerOrig> _ps;
+	private final PorterStemCache _cache;
 	
 	public PorterStemmer() {
 		this(null);
 	}
 
 	public PorterStemmer(String suffix) {
+		this(suffix, 0);
+	}
+	
+	/**
+	 * Create a stemmer with a cache of the given capacity
+	 * (or without a cache, if capacity is zero).
+	 * 
+	 */
+	public PorterStemmer(String suffix, int cacheCapacity) {
+		if (cacheCapacity < 0) {
+			throw new IllegalArgumentException("Stem cache capacity must not be negative (requested " + cacheCapacity + ")");
+		}
 		_suffix = suffix;
-		_ps = new PorterStemmerOrig();
+		_ps = new ThreadLocal<PorterStemmerOrig>() {
+			@Override
+			protected PorterStemmerOrig initialValue() {
+				return new PorterStemmerOrig();
+			}
+		};
+		_cache = cacheCapacity > 0 ? new PorterStemCache(cacheCapacity) : null;
+	}
+	
+	/**
+	 * Get the stem cache (with hit-rate metrics),
+	 * or null, if this stemmer has no cache.
+	 * 
+	 */
+	public PorterStemCache getCache() {
+		return _cache;
 	}
 	
 	/**
@@ -27,7 +62,15 @@ public final class PorterStemmer {
 	 * 
 	 */
 	public String stem(String word) {
-		return PorterStemmerOrigUtils.stem(_ps, word, _suffix);
+		if (_cache == null) {
+			return PorterStemmerOrigUtils.stem(_ps.get(), word, _suffix);
+		}
+		String stem = _cache.get(word);
+		if (stem == null) {
+			stem = PorterStemmerOrigUtils.stem(_ps.get(), word, _suffix);
+			_cache.put(word, stem);
+		}
+		return stem;
 	}
 	
 	/**
@@ -35,7 +78,11 @@ public final class PorterStemmer {
 	 * 
 	 */
 	public Set<String> stemAll(Collection<String> words) {
-		return PorterStemmerOrigUtils.stemAll(_ps, words, _suffix);
+		Set<String> stems = new HashSet<String>(words.size());
+		for (String word : words) {
+			stems.add(stem(word));
+		}
+		return stems;
 	}
 
 }
@@ -2,21 +2,22 @@ package me.akuz.nlp.topics;
 
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 import me.akuz.core.Rounding;
 import me.akuz.core.logs.LocalMonitor;
 import me.akuz.core.logs.Monitor;
+import me.akuz.core.math.FastRandoms;
 import me.akuz.nlp.corpus.Corpus;
-import me.akuz.nlp.corpus.CorpusDoc;
-import me.akuz.nlp.corpus.CorpusPlace;
+import me.akuz.nlp.corpus.CorpusListView;
+import me.akuz.nlp.corpus.CorpusView;
 
 import org.apache.commons.lang3.time.StopWatch;
 
@@ -27,6 +28,9 @@ import Jama.Matrix;
  * This implementation also includes the following optimizations: 
  * 1) Multi-threading for faster inference on multi-processor machines
  * 2) Simulated annealing for faster convergence of Gibbs sampling
+ * 3) Allocation counts in primitive int tables (see {@link LDAGibbsCounts})
+ * 4) Pluggable topic sampling strategy (see {@link LDAGibbsSampler})
+ * 5) Optional asynchronous mode (see {@link #setAsync(boolean)})
  *
  */
 public final class LDAGibbs {
@@ -41,20 +45,37 @@ public final class LDAGibbs {
 	private final List<StemTopicProbsBatch> _stemTopicProbsBatches;
 	private final List<Future<Boolean>> _batchFutures;
 	private final ExecutorService _executorService;
+	private ExecutorService _checkpointExecutor;
+	private Future<Boolean> _checkpointFuture;
 	
 	private int _iterCount;
 	private final StopWatch _stopWatch = new StopWatch();
+	private double _iterPrepareAvgMs;
 	private double _iterAllocateAvgMs;
 	private double _iterAcceptAvgMs;
 	private double _iterTotalAvgMs;
 	
+	private static final int DEFAULT_ASYNC_MERGE_FREQUENCY = 1024;
+	private static final int STEM_LOCK_STRIPES = 256;
+	private boolean _async;
+	private int _asyncMergeFrequency = DEFAULT_ASYNC_MERGE_FREQUENCY;
+	private final Object[] _stemLocks;
+	private final Object _topicLock;
+	private int    _asyncIterCount;
+	private double _asyncPrepareAvgMs;
+	private double _asyncSampleAvgMs;
+	private double _asyncMergeAvgMs;
+	private double _asyncIdleAvgMs;
+	private double _asyncTotalAvgMs;
+	
 	private int    _sampleTopicCount;
 	private int    _sampleStemTopicCount;
 	private double _sampleStemTopicAvgMs;
 	private int    _sampleTopicDocCount;
 	private double _sampleTopicDocAvgMs;
 	
-	private final List<CorpusDoc> _docs;
+	private final CorpusView _corpus;
+	private final int _docCount;
 	private final int _placeCount;
 	private final int _topicCount;
 	private final int _stemCount;
@@ -62,9 +83,8 @@ public final class LDAGibbs {
 	private final LDAGibbsAlpha _alpha;
 	private final LDAGibbsBeta _beta;
 	
-	private final Matrix _countDocTopic;
-	private final Matrix _countTopicStem;
-	private final double[] _countTopic;
+	private final LDAGibbsCounts _counts;
+	private LDAGibbsSampler _sampler;
 	
 	public LDAGibbs(
 			Monitor parentMonitor,
@@ -74,6 +94,79 @@ public final class LDAGibbs {
 			LDAGibbsBeta beta,
 			int threadCount) {
 		
+		this(parentMonitor, new CorpusListView(corpus), topics, alpha, beta, threadCount);
+	}
+	
+	/**
+	 * Create LDA Gibbs sampler using the provided (empty) count tables,
+	 * which will be filled from the topic allocations in the corpus.
+	 */
+	public LDAGibbs(
+			Monitor parentMonitor,
+			Corpus corpus,
+			List<LDAGibbsTopic> topics,
+			LDAGibbsAlpha alpha,
+			LDAGibbsBeta beta,
+			int threadCount,
+			LDAGibbsCounts counts) {
+		
+		this(parentMonitor, new CorpusListView(corpus), topics, alpha, beta, threadCount, counts);
+	}
+	
+	/**
+	 * Create LDA Gibbs sampler on a corpus view (such as PackedCorpus);
+	 * the topic allocations are kept in the place state slots 0 (current) 
+	 * and 1 (next) of the corpus view.
+	 */
+	public LDAGibbs(
+			Monitor parentMonitor,
+			CorpusView corpus,
+			List<LDAGibbsTopic> topics,
+			LDAGibbsAlpha alpha,
+			LDAGibbsBeta beta,
+			int threadCount) {
+		
+		this(parentMonitor, corpus, topics, alpha, beta, threadCount,
+			new LDAGibbsCountsDense(
+				corpus.getDocCount(), 
+				topics.size(), 
+				corpus.getStemsIndex().size(), 
+				LDAGibbsCountsLayout.DocMajor));
+	}
+	
+	/**
+	 * Create LDA Gibbs sampler on a corpus view using the provided (empty) 
+	 * count tables, which will be filled from the topic allocations 
+	 * in the corpus.
+	 */
+	public LDAGibbs(
+			Monitor parentMonitor,
+			CorpusView corpus,
+			List<LDAGibbsTopic> topics,
+			LDAGibbsAlpha alpha,
+			LDAGibbsBeta beta,
+			int threadCount,
+			LDAGibbsCounts counts) {
+		
+		this(parentMonitor, corpus, topics, alpha, beta, threadCount, counts, null);
+	}
+	
+	/**
+	 * Create LDA Gibbs sampler on a corpus view using the provided (empty) 
+	 * count tables, resuming from a checkpoint (if not null), from which 
+	 * the topic allocations and the counts are restored; the caller
+	 * should continue from the checkpoint iteration and temperature.
+	 */
+	public LDAGibbs(
+			Monitor parentMonitor,
+			CorpusView corpus,
+			List<LDAGibbsTopic> topics,
+			LDAGibbsAlpha alpha,
+			LDAGibbsBeta beta,
+			int threadCount,
+			LDAGibbsCounts counts,
+			LDAGibbsCheckpoint checkpoint) {
+		
 		_monitor = parentMonitor == null ? null : new LocalMonitor(this.getClass().getSimpleName(), parentMonitor);
 		
 		if (topics.size() < 2) {
@@ -87,79 +180,59 @@ public final class LDAGibbs {
 		}
 		_threadCount = threadCount;
 		
-		_docs = corpus.getDocs();
+		_corpus = corpus;
+		_docCount = corpus.getDocCount();
 		_placeCount = corpus.getPlaceCount();
 		_topicCount = topics.size();
 		_stemCount = corpus.getStemsIndex().size();
 		
+		if (counts == null) {
+			throw new NullPointerException("counts");
+		}
+		if (counts.getDocCount() != _docCount ||
+			counts.getTopicCount() != _topicCount ||
+			counts.getStemCount() != _stemCount) {
+			throw new IllegalArgumentException(
+					"Count tables dimensions (" + counts.getDocCount() + ", " + counts.getTopicCount() + ", " + counts.getStemCount() + ") " + 
+					"don't match the corpus (" + _docCount + ", " + _topicCount + ", " + _stemCount + ")");
+		}
 		if (_monitor != null) {
-			_monitor.write("Allocating matrices...");
+			_monitor.write("Using counts: " + counts.getClass().getSimpleName());
 		}
-		_countDocTopic = new Matrix(_docs.size(), _topicCount);
-		_countTopicStem = new Matrix(_topicCount, _stemCount);
-		_countTopic = new double[_topicCount];
+		_counts = counts;
 		
-		if (_monitor != null) {
-			_monitor.write("Initializing counts...");
-		}
-		for (int docIndex=0; docIndex<_docs.size(); docIndex++) {
-			final CorpusDoc doc = _docs.get(docIndex);
-			final List<CorpusPlace> places = doc.getPlaces();
-			for (int j=0; j<places.size(); j++) {
-				final CorpusPlace place = places.get(j);
-				final int stemIndex = place.getStemIndex();
-				if (stemIndex < 0) {
-					continue;
-				}
-				if (stemIndex >= _stemCount) {
-					throw new IllegalStateException(
-							"Corpus word place is invalid " + 
-							"(stem index " + stemIndex + " is outside " + 
-							"of stems index length " + _stemCount + ")");
-				}
-				final int[] topicAlloc;
-				try {
-					topicAlloc = (int[])place.getTag();
-				} catch (Exception ex) {
-					throw new IllegalStateException(
-							"Corpus word place contains invalid tag of type: " + 
-							place.getTag().getClass().getSimpleName());
-				}
-				if (topicAlloc != null) {
-					if (topicAlloc.length != 2) {
-						throw new IllegalStateException(
-								"Corpus word place contains invalid tag " + 
-								"(array of wrong length " + topicAlloc.length + ")");
-					}
-					final int topicIndex = topicAlloc[0];
-					if (topicIndex >= 0) {
-						if (topicIndex >= _topicCount) {
-							throw new IllegalStateException(
-									"Corpus word place contains invalid tag " + 
-									"(topic index " + topicIndex + " is outside " + 
-									"of topics list length " + _topicCount + ")");
-						}
-						_countDocTopic.set(docIndex, topicIndex, _countDocTopic.get(docIndex, topicIndex) + 1);
-						_countTopicStem.set(topicIndex, stemIndex, _countTopicStem.get(topicIndex, stemIndex) + 1);
-						_countTopic[topicIndex] += 1;
-					}
-				}
+		if (checkpoint != null) {
+			if (_monitor != null) {
+				_monitor.write("Restoring checkpoint of iteration " + checkpoint.getIteration() + "...");
+			}
+			checkpoint.restore(corpus, counts);
+		} else {
+			if (_monitor != null) {
+				_monitor.write("Initializing counts...");
 			}
+			initCounts();
 		}
 		
 		_alpha = alpha;
 		_beta = beta;
+		_sampler = new LDAGibbsSamplerDense();
+		_stemLocks = new Object[STEM_LOCK_STRIPES];
+		for (int i=0; i<_stemLocks.length; i++) {
+			_stemLocks[i] = new Object();
+		}
+		_topicLock = new Object();
 
 		// initialize threads
-		if (_docs.size() < _threadCount) {
-			throw new IllegalStateException("Document count (" + _docs.size() + ") must be > thread count (" + _threadCount + ")");
+		if (_docCount < _threadCount) {
+			throw new IllegalStateException("Document count (" + _docCount + ") must be > thread count (" + _threadCount + ")");
 		}
 		_topicAllocationBatches = new ArrayList<>(_threadCount);
 		_topicDocProbsBatches = new ArrayList<>(_threadCount);
 		_stemTopicProbsBatches = new ArrayList<>(_threadCount);
 		_batchFutures = new ArrayList<>();
-		final int threadDocCount = _docs.size() / _threadCount;
+		final int threadDocCount = _docCount / _threadCount;
 		final int threadStemCount = _stemCount / _threadCount;
+		final FastRandoms rnd = new FastRandoms();
 		if (_monitor != null) {
 			_monitor.write("Creating batches...");
 		}
@@ -176,10 +249,10 @@ public final class LDAGibbs {
 					threadDocIndexEnd = threadDocIndexStart + threadDocCount;
 				} else {
 					// last thread
-					threadDocIndexEnd = _docs.size();
+					threadDocIndexEnd = _docCount;
 				}
 				
-				TopicAllocationBatch batch = new TopicAllocationBatch(_topicCount, threadDocIndexStart, threadDocIndexEnd);
+				TopicAllocationBatch batch = new TopicAllocationBatch(rnd.split(), _sampler.createWorker(_topicCount), _topicCount, threadDocIndexStart, threadDocIndexEnd);
 				_topicAllocationBatches.add(batch);
 				
 				if (_monitor != null) {
@@ -198,10 +271,10 @@ public final class LDAGibbs {
 					threadDocIndexEnd = threadDocIndexStart + threadDocCount;
 				} else {
 					// last thread
-					threadDocIndexEnd = _docs.size();
+					threadDocIndexEnd = _docCount;
 				}
 				
-				TopicDocProbsBatch batch = new TopicDocProbsBatch(threadDocIndexStart, threadDocIndexEnd);
+				TopicDocProbsBatch batch = new TopicDocProbsBatch(_topicCount, threadDocIndexStart, threadDocIndexEnd);
 				_topicDocProbsBatches.add(batch);
 				if (_monitor != null) {
 					_monitor.write("Thread #" + (i+1) + ": " + batch.getClass().getSimpleName() + ": " + batch.getDocCount() + " docs [" + batch._docIndexStart + ", " + batch._docIndexEnd + ")");
@@ -244,8 +317,51 @@ public final class LDAGibbs {
 		}
 	}
 	
+	private void initCounts() {
+		for (int docIndex=0; docIndex<_docCount; docIndex++) {
+			final int docEnd = _corpus.getDocEnd(docIndex);
+			for (int placeIndex=_corpus.getDocStart(docIndex); placeIndex<docEnd; placeIndex++) {
+				final int stemIndex = _corpus.getStemIndex(placeIndex);
+				if (stemIndex < 0) {
+					continue;
+				}
+				if (stemIndex >= _stemCount) {
+					throw new IllegalStateException(
+							"Corpus word place is invalid " + 
+							"(stem index " + stemIndex + " is outside " + 
+							"of stems index length " + _stemCount + ")");
+				}
+				final int topicIndex = _corpus.getPlaceState(placeIndex, 0);
+				if (topicIndex >= 0) {
+					if (topicIndex >= _topicCount) {
+						throw new IllegalStateException(
+								"Corpus word place contains invalid tag " + 
+								"(topic index " + topicIndex + " is outside " + 
+								"of topics list length " + _topicCount + ")");
+					}
+					_counts.addDocTopic(docIndex, topicIndex, 1);
+					_counts.addTopicStem(topicIndex, stemIndex, 1);
+					_counts.addTopic(topicIndex, 1);
+				}
+			}
+		}
+	}
+	
 	public void terminate() {
-		if (!_executorService.isShutdown()) {
+		if (_checkpointExecutor != null && !_checkpointExecutor.isShutdown()) {
+			if (_monitor != null) {
+				_monitor.write("Waiting for checkpoint...");
+			}
+			try {
+				waitCheckpoint();
+			} catch (IllegalStateException ex) {
+				if (_monitor != null) {
+					_monitor.write("Could not save checkpoint.", ex);
+				}
+			}
+			_checkpointExecutor.shutdown();
+		}
+		if (_executorService != null && !_executorService.isShutdown()) {
 			if (_monitor != null) {
 				_monitor.write("Terminating executors...");
 			}
@@ -267,6 +383,130 @@ public final class LDAGibbs {
 		return _topicCount;
 	}
 	
+	/**
+	 * Take a snapshot of the topic allocations and counts 
+	 * (must be called between the calls to run()).
+	 */
+	public LDAGibbsCheckpoint createCheckpoint(int iteration, double temperature) {
+		return LDAGibbsCheckpoint.create(iteration, temperature, _corpus, _counts);
+	}
+	
+	/**
+	 * Save a checkpoint (must be called between the calls to run()); the 
+	 * snapshot is taken on the caller thread, and written to the file on 
+	 * a background thread, so that the sampling can continue meanwhile.
+	 */
+	public void saveCheckpoint(final String fileName, int iteration, double temperature) {
+		
+		waitCheckpoint();
+		
+		_stopWatch.reset();
+		_stopWatch.start();
+		final LDAGibbsCheckpoint checkpoint = createCheckpoint(iteration, temperature);
+		_stopWatch.stop();
+		if (_monitor != null) {
+			_monitor.write("Checkpoint of iteration " + iteration + " taken in " + _stopWatch.getTime() + " ms, saving...");
+		}
+		
+		if (_checkpointExecutor == null) {
+			_checkpointExecutor = Executors.newSingleThreadExecutor();
+		}
+		_checkpointFuture = _checkpointExecutor.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				checkpoint.save(fileName);
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * Wait until the checkpoint started by saveCheckpoint() is written.
+	 */
+	public void waitCheckpoint() {
+		if (_checkpointFuture != null) {
+			try {
+				_checkpointFuture.get();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException("Interrupted while waiting for checkpoint");
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Could not save checkpoint: " + e.getCause().getMessage(), e.getCause());
+			} finally {
+				_checkpointFuture = null;
+			}
+		}
+	}
+	
+	public LDAGibbsSampler getSampler() {
+		return _sampler;
+	}
+	
+	/**
+	 * Set the strategy for generating next topic allocations
+	 * (by default, {@link LDAGibbsSamplerDense} is used).
+	 */
+	public void setSampler(LDAGibbsSampler sampler) {
+		if (sampler == null) {
+			throw new NullPointerException("sampler");
+		}
+		_sampler = sampler;
+		for (int i=0; i<_topicAllocationBatches.size(); i++) {
+			_topicAllocationBatches.get(i).setWorker(sampler.createWorker(_topicCount));
+		}
+		if (_monitor != null) {
+			_monitor.write("Using sampler: " + sampler.getClass().getSimpleName());
+		}
+	}
+	
+	/**
+	 * Seed the random number streams of the threads, so that the
+	 * sampling is reproducible for the same thread count (except
+	 * in asynchronous mode, which depends on thread timing).
+	 */
+	public void setSeed(long seed) {
+		final FastRandoms rnd = new FastRandoms(seed);
+		for (int i=0; i<_topicAllocationBatches.size(); i++) {
+			_topicAllocationBatches.get(i).setRandom(rnd.split());
+		}
+	}
+	
+	public boolean isAsync() {
+		return _async;
+	}
+	
+	/**
+	 * Set asynchronous mode (AD-LDA, Newman et al., 2009): each thread 
+	 * updates the counts of its own documents immediately, and merges
+	 * its topic-stem and topic count changes into the shared counts
+	 * under striped locks every few places (see setAsyncMergeFrequency)
+	 * and at the end of each iteration, so there is no serial accept pass;
+	 * the threads only see each other's changes after they have been 
+	 * merged, which makes the sampling approximate. The threads wait
+	 * for each other at the end of each iteration, where the sampler
+	 * is prepared again from the fully merged counts.
+	 */
+	public void setAsync(boolean async) {
+		_async = async;
+		if (_monitor != null) {
+			_monitor.write("Asynchronous mode: " + async);
+		}
+	}
+	
+	public int getAsyncMergeFrequency() {
+		return _asyncMergeFrequency;
+	}
+	
+	/**
+	 * Set number of places, after which a thread in asynchronous
+	 * mode merges its count changes into the shared counts.
+	 */
+	public void setAsyncMergeFrequency(int placeCount) {
+		if (placeCount < 1) {
+			throw new IllegalArgumentException("Merge frequency must be positive");
+		}
+		_asyncMergeFrequency = placeCount;
+	}
+	
 	public int getLogIterationFrequency() {
 		return _logIterationFrequency;
 	}
@@ -279,6 +519,10 @@ public final class LDAGibbs {
 	}
 
 	public int run(int startIterationNumber, int iterationCount) {
+		
+		if (_async) {
+			return runAsync(startIterationNumber, iterationCount);
+		}
 
 		int iteration;
 		for (iteration=startIterationNumber; iteration<startIterationNumber+iterationCount; iteration++) {
@@ -289,39 +533,13 @@ public final class LDAGibbs {
 
 			_stopWatch.reset();
 			_stopWatch.start();
-			if (_topicAllocationBatches.size() == 1) {
-
-				// single thread
-				_topicAllocationBatches.get(0).call();
-			
-			} else if (_topicAllocationBatches.size() > 0) {
-			
-				// clear futures
-				_batchFutures.clear();
+			_sampler.prepare(_counts, _alpha, _beta);
+			_stopWatch.stop();
+			long iterationPrepareMs = _stopWatch.getTime();
 
-				// execute on multiple threads
-				for (int i=0; i<_topicAllocationBatches.size(); i++) {
-					TopicAllocationBatch batch = _topicAllocationBatches.get(i);
-					_batchFutures.add(_executorService.submit(batch));
-				}
-				
-				// wait for completion of all batches
-				try {
-					for (int i=0; i<_batchFutures.size(); i++) {
-						_batchFutures.get(i).get();
-					}
-				} catch (InterruptedException e) {
-					e.printStackTrace();
-					throw new IllegalStateException("Interrupted while waiting for batch completion");
-				} catch (ExecutionException e) {
-					e.printStackTrace();
-					throw new IllegalStateException("Could not complete batch execution: " + e.getMessage());
-				}
-				
-			} else {
-				
-				throw new IllegalStateException("No batches to execute topic allocation with");
-			}
+			_stopWatch.reset();
+			_stopWatch.start();
+			executeTopicAllocationBatches();
 			_stopWatch.stop();
 			long iterationAllocateMs = _stopWatch.getTime();
 			
@@ -331,15 +549,17 @@ public final class LDAGibbs {
 			_stopWatch.stop();
 			long iterationAcceptMs = _stopWatch.getTime();
 			
-			long iterationTotalMs = iterationAllocateMs + iterationAcceptMs;
+			long iterationTotalMs = iterationPrepareMs + iterationAllocateMs + iterationAcceptMs;
 			
 			_iterCount += 1;
+			_iterPrepareAvgMs  = _iterPrepareAvgMs  / (_iterCount) * (_iterCount-1) + (double)iterationPrepareMs  / (_iterCount);
 			_iterAllocateAvgMs = (double)_iterAllocateAvgMs / (_iterCount) * (_iterCount-1) + (double)iterationAllocateMs / (_iterCount);
 			_iterAcceptAvgMs   = (double)_iterAcceptAvgMs   / (_iterCount) * (_iterCount-1) + (double)iterationAcceptMs   / (_iterCount);
 			_iterTotalAvgMs    = (double)_iterTotalAvgMs    / (_iterCount) * (_iterCount-1) + (double)iterationTotalMs    / (_iterCount);
 
 			if (_monitor != null && iteration % _logIterationFrequency == 0) {
 				_monitor.write("Stats: iteration " + iteration + "...");
+				_monitor.write("Stats: iterPrepare  ms: " + Rounding.round(_iterPrepareAvgMs, _msLogDigits));
 				_monitor.write("Stats: iterAllocate ms: " + Rounding.round(_iterAllocateAvgMs, _msLogDigits));
 				_monitor.write("Stats: iterAccept   ms: " + Rounding.round(_iterAcceptAvgMs, _msLogDigits));
 				_monitor.write("Stats: iterTotal    ms: " + Rounding.round(_iterTotalAvgMs, _msLogDigits));
@@ -348,112 +568,155 @@ public final class LDAGibbs {
 		return iteration;
 	}
 	
+	private int runAsync(int startIterationNumber, int iterationCount) {
+		
+		int iteration;
+		for (iteration=startIterationNumber; iteration<startIterationNumber+iterationCount; iteration++) {
+			
+			if (_monitor != null && iteration % _logIterationFrequency == 0) {
+				_monitor.write("Iteration (async): " + iteration + "...");
+			}
+			
+			// all changes are merged at this point, so the sampler 
+			// is prepared from the current counts, which include
+			// the own topic of each place sampled in this iteration
+			_stopWatch.reset();
+			_stopWatch.start();
+			_sampler.prepare(_counts, _alpha, _beta);
+			_stopWatch.stop();
+			long iterationPrepareMs = _stopWatch.getTime();
+			
+			_stopWatch.reset();
+			_stopWatch.start();
+			executeTopicAllocationBatches();
+			_stopWatch.stop();
+			long iterationAllocateMs = _stopWatch.getTime();
+			
+			// average thread times over the batches
+			double iterationMergeMs = 0;
+			double iterationBusyMs = 0;
+			for (int i=0; i<_topicAllocationBatches.size(); i++) {
+				TopicAllocationBatch batch = _topicAllocationBatches.get(i);
+				iterationMergeMs += batch._asyncMergeNanos / 1000000.0 / _topicAllocationBatches.size();
+				iterationBusyMs  += batch._asyncBusyNanos  / 1000000.0 / _topicAllocationBatches.size();
+			}
+			double iterationSampleMs = iterationBusyMs - iterationMergeMs;
+			double iterationIdleMs = Math.max(0.0, iterationAllocateMs - iterationBusyMs);
+			long iterationTotalMs = iterationPrepareMs + iterationAllocateMs;
+			
+			_asyncIterCount += 1;
+			_asyncPrepareAvgMs = _asyncPrepareAvgMs / (_asyncIterCount) * (_asyncIterCount-1) + (double)iterationPrepareMs / (_asyncIterCount);
+			_asyncSampleAvgMs  = _asyncSampleAvgMs  / (_asyncIterCount) * (_asyncIterCount-1) + iterationSampleMs          / (_asyncIterCount);
+			_asyncMergeAvgMs   = _asyncMergeAvgMs   / (_asyncIterCount) * (_asyncIterCount-1) + iterationMergeMs           / (_asyncIterCount);
+			_asyncIdleAvgMs    = _asyncIdleAvgMs    / (_asyncIterCount) * (_asyncIterCount-1) + iterationIdleMs            / (_asyncIterCount);
+			_asyncTotalAvgMs   = _asyncTotalAvgMs   / (_asyncIterCount) * (_asyncIterCount-1) + (double)iterationTotalMs   / (_asyncIterCount);
+			
+			if (_monitor != null && iteration % _logIterationFrequency == 0) {
+				_monitor.write("Stats: iteration " + iteration + " (async)...");
+				_monitor.write("Stats: iterPrepare  ms: " + Rounding.round(_asyncPrepareAvgMs, _msLogDigits));
+				_monitor.write("Stats: iterSample   ms: " + Rounding.round(_asyncSampleAvgMs, _msLogDigits));
+				_monitor.write("Stats: iterMerge    ms: " + Rounding.round(_asyncMergeAvgMs, _msLogDigits));
+				_monitor.write("Stats: iterIdle     ms: " + Rounding.round(_asyncIdleAvgMs, _msLogDigits));
+				_monitor.write("Stats: iterTotal    ms: " + Rounding.round(_asyncTotalAvgMs, _msLogDigits));
+			}
+		}
+		return iteration;
+	}
+	
+	private void executeTopicAllocationBatches() {
+		
+		if (_topicAllocationBatches.size() == 1) {
+
+			// single thread
+			_topicAllocationBatches.get(0).call();
+		
+		} else if (_topicAllocationBatches.size() > 0) {
+		
+			// clear futures
+			_batchFutures.clear();
+
+			// execute on multiple threads
+			for (int i=0; i<_topicAllocationBatches.size(); i++) {
+				TopicAllocationBatch batch = _topicAllocationBatches.get(i);
+				_batchFutures.add(_executorService.submit(batch));
+			}
+			
+			// wait for completion of all batches
+			try {
+				for (int i=0; i<_batchFutures.size(); i++) {
+					_batchFutures.get(i).get();
+				}
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+				throw new IllegalStateException("Interrupted while waiting for batch completion");
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+				throw new IllegalStateException("Could not complete batch execution: " + e.getMessage());
+			}
+			
+		} else {
+			
+			throw new IllegalStateException("No batches to execute topic allocation with");
+		}
+	}
+	
 	private final void acceptNextTopicAllocations() {
 		
-		for (int docIndex=0; docIndex<_docs.size(); docIndex++) {
+		for (int docIndex=0; docIndex<_docCount; docIndex++) {
 			
-			CorpusDoc doc = _docs.get(docIndex);
-			List<CorpusPlace> places = doc.getPlaces();
+			final int docEnd = _corpus.getDocEnd(docIndex);
 			
 			// for every word place in a document
-			for (int placeIndex=0; placeIndex<places.size(); placeIndex++) {
+			for (int placeIndex=_corpus.getDocStart(docIndex); placeIndex<docEnd; placeIndex++) {
 				
 				// get word place
-				final CorpusPlace place = places.get(placeIndex);
-				final int stemIndex = place.getStemIndex();
+				final int stemIndex = _corpus.getStemIndex(placeIndex);
 				if (stemIndex < 0) {
 					continue;
 				}
 				
 				// get current topic allocations
-				int[] topicAlloc = (int[])place.getTag();
-				if (topicAlloc == null) {
+				int currTopicIndex = _corpus.getPlaceState(placeIndex, 0);
+				int nextTopicIndex = _corpus.getPlaceState(placeIndex, 1);
+				if (nextTopicIndex < 0) {
 					throw new IllegalStateException("Topic allocations should have already been initialized");
 				}
-				int currTopicIndex = topicAlloc[0];
-				int nextTopicIndex = topicAlloc[1];
 				
 				// update statistics
 				if (currTopicIndex != nextTopicIndex) {
 					
 					// set next topic as current
-					topicAlloc[0] = nextTopicIndex;
+					_corpus.setPlaceState(placeIndex, 0, nextTopicIndex);
 					
 					// forget the old topic allocation
 					// if not the first iteration 
 					if (currTopicIndex >= 0) {
-						double count;
-						
-						count = getCountDocTopic(docIndex, currTopicIndex, currTopicIndex);
-						_countDocTopic.set(docIndex, currTopicIndex, count);
-						
-						count = getCountTopicStem(currTopicIndex, stemIndex, currTopicIndex);
-						_countTopicStem.set(currTopicIndex, stemIndex, count);
-						
-						count = getCountTopic(currTopicIndex, currTopicIndex);
-						_countTopic[currTopicIndex] = count;
+						_counts.addDocTopic(docIndex, currTopicIndex, -1);
+						_counts.addTopicStem(currTopicIndex, stemIndex, -1);
+						_counts.addTopic(currTopicIndex, -1);
 					}
 					
 					// remember new topic
-					_countDocTopic.set(docIndex, nextTopicIndex, _countDocTopic.get(docIndex, nextTopicIndex) + 1);
-					_countTopicStem.set(nextTopicIndex, stemIndex, _countTopicStem.get(nextTopicIndex, stemIndex) + 1);
-					_countTopic[nextTopicIndex] = _countTopic[nextTopicIndex] + 1;
+					_counts.addDocTopic(docIndex, nextTopicIndex, 1);
+					_counts.addTopicStem(nextTopicIndex, stemIndex, 1);
+					_counts.addTopic(nextTopicIndex, 1);
 				}
 			}
 		}
 	}
 	
-	private final int generateNextTopicIndex(ThreadLocalRandom rnd, double[] reusedTopicCDF, int docIndex, int stemIndex, int prevTopicIndex) {
-		
-		int nextTopicIndex = -1;
-		
-		double cdf = 0.0;
-		for (int topicIndex=0; topicIndex<_topicCount; topicIndex++) {
-			cdf = cdf 
-				+ (getCountDocTopic(docIndex, topicIndex, prevTopicIndex) + _alpha.getTopicDocAlpha(topicIndex, docIndex))
-				* (getCountTopicStem(topicIndex, stemIndex, prevTopicIndex) + _beta.getStemTopicBeta(stemIndex, topicIndex))
-				/ (getCountTopic(topicIndex, prevTopicIndex) + _beta.getSumTopicBeta(topicIndex));
-			reusedTopicCDF[topicIndex] = cdf;
-		}
-		
-		double u = rnd.nextDouble();
-		for (int topicIndex=0; topicIndex<_topicCount; topicIndex++) {
-			if (u < reusedTopicCDF[topicIndex]/cdf) {
-				nextTopicIndex = topicIndex;
-				break;
-			}
-		}
-		
-		if (nextTopicIndex < 0) {
-			throw new IllegalStateException("Internal error: Something's wrong with the CDF calculation");
-		}
-		
-		return nextTopicIndex;
-	}
-	
-	private final double getCountDocTopic(int docIndex, int topicIndex, int prevTopicIndex) {
-		double result = _countDocTopic.get(docIndex, topicIndex);
+	private final int getCountTopicStem(int topicIndex, int stemIndex, int prevTopicIndex) {
+		int result = _counts.getTopicStem(topicIndex, stemIndex);
 		if (prevTopicIndex == topicIndex) {
 			result -= 1;
 		}
 		return result;
 	}
 	
-	private final double getCountTopicStem(int topicIndex, int stemIndex, int prevTopicIndex) {
-		double result = _countTopicStem.get(topicIndex, stemIndex);
+	private final int getCountTopic(int topicIndex, int prevTopicIndex) {
+		int result = _counts.getTopic(topicIndex);
 		if (prevTopicIndex == topicIndex) {
 			result -= 1;
-		}
-		return result;
-	}
-	
-	private final double getCountTopic(int topicIndex, int prevTopicIndex) {
-		double result = _countTopic[topicIndex];
-		if (prevTopicIndex == topicIndex) {
-			result -= 1;
-			if (Math.abs(result) < 0.0000001) {
-				result = 0.0;
-			}
 			if (result < 0) {
 				throw new IllegalStateException("Invalid count: " + result);
 			}
@@ -597,55 +860,197 @@ public final class LDAGibbs {
 	 */
 	private final class TopicAllocationBatch implements Callable<Boolean> {
 		
-		private final ThreadLocalRandom _rnd;
-		private final double[] _reusedTopicCDF;
+		private FastRandoms _rnd;
+		private LDAGibbsSamplerWorker _worker;
+		private final int[] _reusedDocTopicCounts;
 		private final int _docIndexStart;
 		private final int _docIndexEnd;
 		
-		public TopicAllocationBatch(int topicCount, int docIndexStart, int docIndexEnd) {
-			_rnd = ThreadLocalRandom.current();
-			_reusedTopicCDF = new double[topicCount];
+		// asynchronous mode state
+		private long _asyncBusyNanos;
+		private long _asyncMergeNanos;
+		private final int[] _deltaTopicCounts;
+		private int[] _deltaTopics;
+		private int[] _deltaStems;
+		private int[] _deltaValues;
+		private int _deltaCount;
+		private int _deltaPlaceCount;
+		private final int[] _reusedStripeOffsets;
+		private int[] _reusedStripeOrder;
+		
+		public TopicAllocationBatch(FastRandoms rnd, LDAGibbsSamplerWorker worker, int topicCount, int docIndexStart, int docIndexEnd) {
+			_rnd = rnd;
+			_worker = worker;
+			_reusedDocTopicCounts = new int[topicCount];
 			_docIndexStart = docIndexStart;
 			_docIndexEnd = docIndexEnd;
+			_deltaTopicCounts = new int[topicCount];
+			_deltaTopics = new int[0];
+			_deltaStems = new int[0];
+			_deltaValues = new int[0];
+			_reusedStripeOffsets = new int[STEM_LOCK_STRIPES+1];
+			_reusedStripeOrder = new int[0];
 		}
 		
 		public int getDocCount() {
 			return _docIndexEnd - _docIndexStart;
 		}
-
+		
+		public void setWorker(LDAGibbsSamplerWorker worker) {
+			_worker = worker;
+		}
+		
+		public void setRandom(FastRandoms rnd) {
+			_rnd = rnd;
+		}
+		
 		@Override
 		public Boolean call() {
+			if (_async) {
+				callAsync();
+			} else {
+				callSync();
+			}
+			return null;
+		}
+
+		private void callSync() {
 			
 			for (int docIndex=_docIndexStart; docIndex<_docIndexEnd; docIndex++) {
 				
-				CorpusDoc doc = _docs.get(docIndex);
-				List<CorpusPlace> places = doc.getPlaces();
+				final int docEnd = _corpus.getDocEnd(docIndex);
+				
+				// doc-topic counts don't change until accepted,
+				// so read them once for the whole document
+				_counts.getDocTopicRow(docIndex, _reusedDocTopicCounts);
+				_worker.startDoc(docIndex, _reusedDocTopicCounts);
 				
 				// for every word place in a document
-				for (int placeIndex=0; placeIndex<places.size(); placeIndex++) {
+				for (int placeIndex=_corpus.getDocStart(docIndex); placeIndex<docEnd; placeIndex++) {
 					
-					// get word place
-					final CorpusPlace place = places.get(placeIndex);
+					// get word index (doesn't change)
+					final int stemIndex = _corpus.getStemIndex(placeIndex);
+					if (stemIndex < 0) {
+						continue;
+					}
+					
+					// generate next topic allocation
+					final int currTopicIndex = _corpus.getPlaceState(placeIndex, 0);
+					_corpus.setPlaceState(placeIndex, 1, _worker.nextTopicIndex(_rnd, stemIndex, currTopicIndex));
+				}
+			}
+		}
+		
+		private void callAsync() {
+			
+			final long startNanos = System.nanoTime();
+			_asyncMergeNanos = 0;
+			
+			final int maxDeltaCount = 2 * _asyncMergeFrequency;
+			if (_deltaTopics.length < maxDeltaCount) {
+				_deltaTopics = new int[maxDeltaCount];
+				_deltaStems = new int[maxDeltaCount];
+				_deltaValues = new int[maxDeltaCount];
+				_reusedStripeOrder = new int[maxDeltaCount];
+			}
+			
+			for (int docIndex=_docIndexStart; docIndex<_docIndexEnd; docIndex++) {
+				
+				final int docEnd = _corpus.getDocEnd(docIndex);
+				
+				// doc-topic counts are only changed by this thread
+				_counts.getDocTopicRow(docIndex, _reusedDocTopicCounts);
+				_worker.startDoc(docIndex, _reusedDocTopicCounts);
+				
+				// for every word place in a document
+				for (int placeIndex=_corpus.getDocStart(docIndex); placeIndex<docEnd; placeIndex++) {
 					
 					// get word index (doesn't change)
-					final int stemIndex = place.getStemIndex();
+					final int stemIndex = _corpus.getStemIndex(placeIndex);
 					if (stemIndex < 0) {
 						continue;
 					}
 					
-					// get current topic allocations
-					int[] topicAlloc = (int[])place.getTag();
-					if (topicAlloc == null) {
-						topicAlloc = new int[2];
-						topicAlloc[0] = -1; // current topic index
-						place.setTag(topicAlloc);
+					// generate and immediately accept next topic
+					final int currTopicIndex = _corpus.getPlaceState(placeIndex, 0);
+					final int nextTopicIndex = _worker.nextTopicIndex(_rnd, stemIndex, currTopicIndex);
+					_corpus.setPlaceState(placeIndex, 0, nextTopicIndex);
+					_corpus.setPlaceState(placeIndex, 1, nextTopicIndex);
+					
+					if (currTopicIndex != nextTopicIndex) {
+						if (currTopicIndex >= 0) {
+							_reusedDocTopicCounts[currTopicIndex] -= 1;
+							_counts.addDocTopic(docIndex, currTopicIndex, -1);
+							addDelta(currTopicIndex, stemIndex, -1);
+						}
+						_reusedDocTopicCounts[nextTopicIndex] += 1;
+						_counts.addDocTopic(docIndex, nextTopicIndex, 1);
+						addDelta(nextTopicIndex, stemIndex, 1);
+						_worker.updateDoc(currTopicIndex, nextTopicIndex);
 					}
 					
-					// generate next topic allocation
-					topicAlloc[1] = generateNextTopicIndex(_rnd, _reusedTopicCDF, docIndex, stemIndex, topicAlloc[0]);
+					_deltaPlaceCount++;
+					if (_deltaPlaceCount >= _asyncMergeFrequency) {
+						mergeDeltas();
+					}
 				}
 			}
-			return null;
+			mergeDeltas();
+			
+			_asyncBusyNanos = System.nanoTime() - startNanos;
+		}
+		
+		private void addDelta(int topicIndex, int stemIndex, int delta) {
+			_deltaTopics[_deltaCount] = topicIndex;
+			_deltaStems[_deltaCount] = stemIndex;
+			_deltaValues[_deltaCount] = delta;
+			_deltaCount++;
+			_deltaTopicCounts[topicIndex] += delta;
+		}
+		
+		private void mergeDeltas() {
+			
+			final long startNanos = System.nanoTime();
+			
+			// order the changes by lock stripe
+			final int stripeMask = STEM_LOCK_STRIPES - 1;
+			Arrays.fill(_reusedStripeOffsets, 0);
+			for (int i=0; i<_deltaCount; i++) {
+				_reusedStripeOffsets[(_deltaStems[i] & stripeMask) + 1]++;
+			}
+			for (int s=0; s<STEM_LOCK_STRIPES; s++) {
+				_reusedStripeOffsets[s+1] += _reusedStripeOffsets[s];
+			}
+			for (int i=0; i<_deltaCount; i++) {
+				final int stripe = _deltaStems[i] & stripeMask;
+				_reusedStripeOrder[_reusedStripeOffsets[stripe]++] = i;
+			}
+			
+			// apply changes, locking each stripe once
+			int pos = 0;
+			for (int s=0; s<STEM_LOCK_STRIPES; s++) {
+				final int end = _reusedStripeOffsets[s];
+				if (pos < end) {
+					synchronized (_stemLocks[s]) {
+						for (; pos<end; pos++) {
+							final int i = _reusedStripeOrder[pos];
+							_counts.addTopicStem(_deltaTopics[i], _deltaStems[i], _deltaValues[i]);
+						}
+					}
+				}
+			}
+			synchronized (_topicLock) {
+				for (int topicIndex=0; topicIndex<_topicCount; topicIndex++) {
+					if (_deltaTopicCounts[topicIndex] != 0) {
+						_counts.addTopic(topicIndex, _deltaTopicCounts[topicIndex]);
+						_deltaTopicCounts[topicIndex] = 0;
+					}
+				}
+			}
+			_deltaCount = 0;
+			_deltaPlaceCount = 0;
+			
+			_asyncMergeNanos += System.nanoTime() - startNanos;
 		}
 	}
 	
@@ -710,11 +1115,13 @@ public final class LDAGibbs {
 	 */
 	private final class TopicDocProbsBatch implements Callable<Boolean> {
 		
+		private final int[] _reusedDocTopicCounts;
 		private final int _docIndexStart;
 		private final int _docIndexEnd;
 		private Matrix _mTopicDoc;
 		
-		public TopicDocProbsBatch(int docIndexStart, int docIndexEnd) {
+		public TopicDocProbsBatch(int topicCount, int docIndexStart, int docIndexEnd) {
+			_reusedDocTopicCounts = new int[topicCount];
 			_docIndexStart = docIndexStart;
 			_docIndexEnd = docIndexEnd;
 		}
@@ -736,19 +1143,19 @@ public final class LDAGibbs {
 			if (_mTopicDoc.getRowDimension() != _topicCount) {
 				throw new InvalidParameterException("Out matrix row count should be " + _topicCount);
 			}
-			if (_mTopicDoc.getColumnDimension() != _docs.size()) {
-				throw new InvalidParameterException("Out matrix col count should be " + _docs.size());
+			if (_mTopicDoc.getColumnDimension() != _docCount) {
+				throw new InvalidParameterException("Out matrix col count should be " + _docCount);
 			}
 			
 			for (int docIndex=_docIndexStart; docIndex<_docIndexEnd; docIndex++) {
 				
-				CorpusDoc doc = _docs.get(docIndex);
-				int docPlaceCount = doc.getPlaceCount();
+				int docPlaceCount = _corpus.getDocEnd(docIndex) - _corpus.getDocStart(docIndex);
+				_counts.getDocTopicRow(docIndex, _reusedDocTopicCounts);
 
 				for (int topicIndex=0; topicIndex<_topicCount; topicIndex++) {
 					
 					double value 
-						= (getCountDocTopic(docIndex, topicIndex, -1) + _alpha.getTopicDocAlpha(topicIndex, docIndex))
+						= (_reusedDocTopicCounts[topicIndex] + _alpha.getTopicDocAlpha(topicIndex, docIndex))
 						/ (docPlaceCount + _alpha.getSumDocAlpha(docIndex));
 					
 					double avgValue 
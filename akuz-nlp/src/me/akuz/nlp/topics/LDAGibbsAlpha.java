@@ -4,7 +4,8 @@ import java.util.Arrays;
 import java.util.List;
 
 import me.akuz.nlp.corpus.Corpus;
-import me.akuz.nlp.corpus.CorpusDoc;
+import me.akuz.nlp.corpus.CorpusListView;
+import me.akuz.nlp.corpus.CorpusView;
 
 import Jama.Matrix;
 
@@ -23,14 +24,19 @@ public final class LDAGibbsAlpha {
 			Corpus corpus,
 			List<LDAGibbsTopic> topics) {
 		
+		this(new CorpusListView(corpus), topics);
+	}
+	
+	public LDAGibbsAlpha(
+			CorpusView corpus,
+			List<LDAGibbsTopic> topics) {
+		
 		_topics = topics;
 		_docLengths = new int[corpus.getDocCount()];
 		
-		List<CorpusDoc> docs = corpus.getDocs();
-		for (int docIndex=0; docIndex<docs.size(); docIndex++) {
+		for (int docIndex=0; docIndex<_docLengths.length; docIndex++) {
 			
-			CorpusDoc doc = docs.get(docIndex);
-			int docLength = doc.getPlaceCount();
+			int docLength = corpus.getDocEnd(docIndex) - corpus.getDocStart(docIndex);
 			_docLengths[docIndex] = docLength;
 		}
 	}
@@ -0,0 +1,151 @@
+package me.akuz.nlp.topics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import me.akuz.core.HashIndex;
+import me.akuz.core.Index;
+import me.akuz.core.Rounding;
+import me.akuz.nlp.corpus.Corpus;
+import me.akuz.nlp.corpus.CorpusDoc;
+import me.akuz.nlp.corpus.CorpusPlace;
+
+/**
+ * Manual benchmark of LDAGibbs iterations per second for each
+ * count storage and each sampler, on a synthetic corpus;
+ * arguments (optional): thread count, rounds.
+ *
+ * Each configuration is measured once per round, in a rotating
+ * order, and the median over the rounds is reported, so that
+ * JIT warm-up and GC do not favour any one configuration.
+ *
+ */
+public final class LDAGibbsBenchmark {
+
+	private static final int DOC_COUNT = 2000;
+	private static final int DOC_LENGTH = 100;
+	private static final int STEM_COUNT = 2000;
+	private static final int TOPIC_COUNT = 50;
+	private static final int WARMUP_ITER = 2;
+	private static final int TIMED_ITER = 5;
+
+	private static final String[] NAMES = {
+		"Matrix",
+		"DocMajor",
+		"TopicMajor",
+		"Sparse",
+		"DocMajor + Sparse sampler",
+		"DocMajor + Alias sampler",
+	};
+
+	public static void main(String[] args) {
+
+		final int threadCount = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+		final int roundCount = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		final Corpus corpus = createCorpus(new Random(1));
+		final List<LDAGibbsTopic> topics = new ArrayList<>();
+		for (int topicIndex=0; topicIndex<TOPIC_COUNT; topicIndex++) {
+			topics.add(new LDAGibbsTopic("t" + topicIndex, 1.0 / TOPIC_COUNT));
+		}
+
+		final double[][] results = new double[NAMES.length][roundCount];
+		for (int round=0; round<roundCount; round++) {
+			for (int i=0; i<NAMES.length; i++) {
+				final int config = (round + i) % NAMES.length;
+				results[config][round] = measureItersPerSec(corpus, topics, config, threadCount);
+			}
+		}
+
+		System.out.println("LDAGibbs iterations per second (" +
+				DOC_COUNT + " docs, " + TOPIC_COUNT + " topics, " +
+				threadCount + " threads, median of " + roundCount + " rounds):");
+		for (int config=0; config<NAMES.length; config++) {
+			final double[] values = results[config].clone();
+			java.util.Arrays.sort(values);
+			final double median = values[values.length / 2];
+			System.out.println(String.format("%27s: %s (min %s, max %s)", NAMES[config],
+					Rounding.round(median, 2),
+					Rounding.round(values[0], 2),
+					Rounding.round(values[values.length-1], 2)));
+		}
+	}
+
+	private static Corpus createCorpus(Random rnd) {
+
+		Index<String> stemsIndex = new HashIndex<>();
+		Index<String> wordsIndex = new HashIndex<>();
+		for (int stemIndex=0; stemIndex<STEM_COUNT; stemIndex++) {
+			stemsIndex.ensure("s" + stemIndex);
+			wordsIndex.ensure("w" + stemIndex);
+		}
+
+		Corpus corpus = new Corpus(stemsIndex, wordsIndex);
+		for (int docIndex=0; docIndex<DOC_COUNT; docIndex++) {
+			CorpusDoc doc = new CorpusDoc();
+			for (int p=0; p<DOC_LENGTH; p++) {
+				// skewed stem frequencies, roughly like natural text
+				int stemIndex = (int)(STEM_COUNT * Math.pow(rnd.nextDouble(), 3));
+				doc.addPlace(new CorpusPlace(stemIndex, stemIndex));
+			}
+			corpus.addDoc(doc);
+		}
+		return corpus;
+	}
+
+	private static double measureItersPerSec(Corpus corpus, List<LDAGibbsTopic> topics, int config, int threadCount) {
+
+		final int docCount = corpus.getDocCount();
+		final int stemCount = corpus.getStemsIndex().size();
+
+		LDAGibbsCounts counts;
+		LDAGibbsSampler sampler = new LDAGibbsSamplerDense();
+		switch (config) {
+		case 0:
+			counts = new LDAGibbsCountsMatrix(docCount, TOPIC_COUNT, stemCount);
+			break;
+		case 1:
+			counts = new LDAGibbsCountsDense(docCount, TOPIC_COUNT, stemCount, LDAGibbsCountsLayout.DocMajor);
+			break;
+		case 2:
+			counts = new LDAGibbsCountsDense(docCount, TOPIC_COUNT, stemCount, LDAGibbsCountsLayout.TopicMajor);
+			break;
+		case 3:
+			counts = new LDAGibbsCountsSparse(docCount, TOPIC_COUNT, stemCount);
+			break;
+		case 4:
+			counts = new LDAGibbsCountsDense(docCount, TOPIC_COUNT, stemCount, LDAGibbsCountsLayout.DocMajor);
+			sampler = new LDAGibbsSamplerSparse();
+			break;
+		case 5:
+			counts = new LDAGibbsCountsDense(docCount, TOPIC_COUNT, stemCount, LDAGibbsCountsLayout.DocMajor);
+			sampler = new LDAGibbsSamplerAlias();
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown configuration " + config);
+		}
+
+		for (CorpusDoc doc : corpus.getDocs()) {
+			doc.clearTags();
+		}
+
+		LDAGibbsAlpha alpha = new LDAGibbsAlpha(corpus, topics);
+		LDAGibbsBeta beta = new LDAGibbsBeta(corpus, topics);
+		alpha.setTemperature(1.0);
+		beta.setTemperature(1.0);
+
+		LDAGibbs lda = new LDAGibbs(null, corpus, topics, alpha, beta, threadCount, counts);
+		lda.setSampler(sampler);
+		try {
+			int iter = lda.run(0, WARMUP_ITER);
+			long ms = System.currentTimeMillis();
+			lda.run(iter, TIMED_ITER);
+			long elapsedMs = Math.max(1, System.currentTimeMillis() - ms);
+			return TIMED_ITER * 1000.0 / elapsedMs;
+		} finally {
+			lda.terminate();
+		}
+	}
+
+}
@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import me.akuz.nlp.corpus.Corpus;
+import me.akuz.nlp.corpus.CorpusView;
 
 import Jama.Matrix;
 
@@ -19,6 +20,8 @@ public final class LDAGibbsBeta {
 	private final int _corpusPlaceCount;
 	private Matrix _mStemTopicBeta;
 	private double[] _mSumTopicBeta;
+	private double[] _mTopicBaseBeta;
+	private int[][] _stemSpecialTopics;
 
 	public LDAGibbsBeta(
 			Corpus corpus,
@@ -29,6 +32,15 @@ public final class LDAGibbsBeta {
 		_corpusPlaceCount = corpus.getPlaceCount();
 	}
 
+	public LDAGibbsBeta(
+			CorpusView corpus,
+			List<LDAGibbsTopic> topics) {
+		
+		_topics = topics;
+		_corpusStemCount = corpus.getStemsIndex().size();
+		_corpusPlaceCount = corpus.getPlaceCount();
+	}
+
 	public double getStemTopicBeta(int stemIndex, int topicIndex) {
 		if (_mStemTopicBeta == null) {
 			throw new IllegalStateException(this.getClass().getSimpleName() + " not initialized, call setTemperature() first");
@@ -43,15 +55,44 @@ public final class LDAGibbsBeta {
 		return _mSumTopicBeta[topicIndex];
 	}
 
+	/**
+	 * Get the beta of the topic, which applies to all stems,
+	 * except the ones returned by getStemSpecialTopics().
+	 */
+	public double getTopicBaseBeta(int topicIndex) {
+		if (_mTopicBaseBeta == null) {
+			throw new IllegalStateException(this.getClass().getSimpleName() + " not initialized, call setTemperature() first");
+		}
+		return _mTopicBaseBeta[topicIndex];
+	}
+
+	/**
+	 * Get indices of the topics, for which the beta of the stem 
+	 * is different from the topic base beta (priority or excluded
+	 * stems); the returned array must not be modified.
+	 */
+	public int[] getStemSpecialTopics(int stemIndex) {
+		if (_stemSpecialTopics == null) {
+			throw new IllegalStateException(this.getClass().getSimpleName() + " not initialized, call setTemperature() first");
+		}
+		return _stemSpecialTopics[stemIndex];
+	}
+
 	public void setTemperature(double temperature) {
 		
 		if (_mStemTopicBeta == null) {
 			_mStemTopicBeta = new Matrix(_corpusStemCount, _topics.size());
 			_mSumTopicBeta = new double[_topics.size()];
+			_mTopicBaseBeta = new double[_topics.size()];
 		} else {
 			Arrays.fill(_mSumTopicBeta, 0);
 		}
 		
+		// collect special topics of each stem
+		final int[] emptyTopics = new int[0];
+		final int[] stemSpecialCounts = new int[_corpusStemCount];
+		final int[][] stemSpecialTopics = new int[_corpusStemCount][];
+		
 		for (int topicIndex=0; topicIndex<_topics.size(); topicIndex++) {
 			
 			LDAGibbsTopic topic = _topics.get(topicIndex);
@@ -81,6 +122,8 @@ public final class LDAGibbsBeta {
 				remainingStemMass = topicPriorMass / _corpusStemCount;
 			}
 			
+			_mTopicBaseBeta[topicIndex] = remainingStemMass;
+			
 			// distribute prior mass to stems
 			for (Integer stemIndex=0; stemIndex<_corpusStemCount; stemIndex++) {
 				
@@ -97,8 +140,29 @@ public final class LDAGibbsBeta {
 				}
 				_mStemTopicBeta.set(stemIndex, topicIndex, stemPriorMass);
 				_mSumTopicBeta[topicIndex] += stemPriorMass;
+				
+				if (stemPriorMass != remainingStemMass) {
+					int[] specialTopics = stemSpecialTopics[stemIndex];
+					if (specialTopics == null) {
+						specialTopics = new int[2];
+						stemSpecialTopics[stemIndex] = specialTopics;
+					} else if (specialTopics.length == stemSpecialCounts[stemIndex]) {
+						specialTopics = Arrays.copyOf(specialTopics, specialTopics.length * 2);
+						stemSpecialTopics[stemIndex] = specialTopics;
+					}
+					specialTopics[stemSpecialCounts[stemIndex]++] = topicIndex;
+				}
+			}
+		}
+		
+		for (int stemIndex=0; stemIndex<_corpusStemCount; stemIndex++) {
+			if (stemSpecialTopics[stemIndex] == null) {
+				stemSpecialTopics[stemIndex] = emptyTopics;
+			} else if (stemSpecialTopics[stemIndex].length != stemSpecialCounts[stemIndex]) {
+				stemSpecialTopics[stemIndex] = Arrays.copyOf(stemSpecialTopics[stemIndex], stemSpecialCounts[stemIndex]);
 			}
 		}
+		_stemSpecialTopics = stemSpecialTopics;
 	}
 
 }
@@ -0,0 +1,335 @@
+package me.akuz.nlp.topics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import me.akuz.nlp.corpus.CorpusView;
+
+/**
+ * Snapshot of the LDA Gibbs sampler state: topic allocations of all places,
+ * count tables (stored sparsely), iteration number and annealing temperature;
+ * created by LDAGibbs.createCheckpoint(), and passed to the LDAGibbs constructor
+ * to resume sampling from it.
+ *
+ */
+public final class LDAGibbsCheckpoint {
+	
+	private static final int MAGIC = 0x414B434B;
+	private static final int VERSION = 1;
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	private final int _iteration;
+	private final double _temperature;
+	private final int _docCount;
+	private final int _topicCount;
+	private final int _stemCount;
+	private final int[] _placeTopics;
+	private final int[] _topicCounts;
+	private final int[] _docTopicOffsets;
+	private final int[] _docTopicTopics;
+	private final int[] _docTopicCounts;
+	private final int[] _stemTopicOffsets;
+	private final int[] _stemTopicTopics;
+	private final int[] _stemTopicCounts;
+	
+	private LDAGibbsCheckpoint(
+			int iteration,
+			double temperature,
+			int docCount,
+			int topicCount,
+			int stemCount,
+			int[] placeTopics,
+			int[] topicCounts,
+			int[] docTopicOffsets,
+			int[] docTopicTopics,
+			int[] docTopicCounts,
+			int[] stemTopicOffsets,
+			int[] stemTopicTopics,
+			int[] stemTopicCounts) {
+		
+		_iteration = iteration;
+		_temperature = temperature;
+		_docCount = docCount;
+		_topicCount = topicCount;
+		_stemCount = stemCount;
+		_placeTopics = placeTopics;
+		_topicCounts = topicCounts;
+		_docTopicOffsets = docTopicOffsets;
+		_docTopicTopics = docTopicTopics;
+		_docTopicCounts = docTopicCounts;
+		_stemTopicOffsets = stemTopicOffsets;
+		_stemTopicTopics = stemTopicTopics;
+		_stemTopicCounts = stemTopicCounts;
+	}
+	
+	/**
+	 * Take a snapshot of the allocations (place state slot 0) and counts.
+	 */
+	static LDAGibbsCheckpoint create(int iteration, double temperature, CorpusView corpus, LDAGibbsCounts counts) {
+		
+		final int docCount = counts.getDocCount();
+		final int topicCount = counts.getTopicCount();
+		final int stemCount = counts.getStemCount();
+		
+		final int[] placeTopics = new int[corpus.getPlaceCount()];
+		for (int placeIndex=0; placeIndex<placeTopics.length; placeIndex++) {
+			placeTopics[placeIndex] = corpus.getPlaceState(placeIndex, 0);
+		}
+		
+		final int[] topicCounts = new int[topicCount];
+		for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+			topicCounts[topicIndex] = counts.getTopic(topicIndex);
+		}
+		
+		final int[] docTopicOffsets = new int[docCount + 1];
+		int[] docTopicTopics = new int[Math.max(16, docCount)];
+		int[] docTopicCounts = new int[docTopicTopics.length];
+		final int[] docRow = new int[topicCount];
+		int pos = 0;
+		for (int docIndex=0; docIndex<docCount; docIndex++) {
+			docTopicOffsets[docIndex] = pos;
+			counts.getDocTopicRow(docIndex, docRow);
+			for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+				if (docRow[topicIndex] != 0) {
+					if (pos == docTopicTopics.length) {
+						docTopicTopics = Arrays.copyOf(docTopicTopics, pos * 2);
+						docTopicCounts = Arrays.copyOf(docTopicCounts, pos * 2);
+					}
+					docTopicTopics[pos] = topicIndex;
+					docTopicCounts[pos] = docRow[topicIndex];
+					pos++;
+				}
+			}
+		}
+		docTopicOffsets[docCount] = pos;
+		
+		final int docTopicLength = pos;
+		
+		final int[] stemTopicOffsets = new int[stemCount + 1];
+		int[] stemTopicTopics = new int[Math.max(16, stemCount)];
+		int[] stemTopicCounts = new int[stemTopicTopics.length];
+		final int[] stemRow = new int[topicCount];
+		pos = 0;
+		for (int stemIndex=0; stemIndex<stemCount; stemIndex++) {
+			stemTopicOffsets[stemIndex] = pos;
+			counts.getTopicStemRow(stemIndex, stemRow);
+			for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+				if (stemRow[topicIndex] != 0) {
+					if (pos == stemTopicTopics.length) {
+						stemTopicTopics = Arrays.copyOf(stemTopicTopics, pos * 2);
+						stemTopicCounts = Arrays.copyOf(stemTopicCounts, pos * 2);
+					}
+					stemTopicTopics[pos] = topicIndex;
+					stemTopicCounts[pos] = stemRow[topicIndex];
+					pos++;
+				}
+			}
+		}
+		stemTopicOffsets[stemCount] = pos;
+		
+		return new LDAGibbsCheckpoint(
+				iteration, 
+				temperature, 
+				docCount, 
+				topicCount, 
+				stemCount, 
+				placeTopics, 
+				topicCounts, 
+				docTopicOffsets, 
+				Arrays.copyOf(docTopicTopics, docTopicLength), 
+				Arrays.copyOf(docTopicCounts, docTopicLength), 
+				stemTopicOffsets, 
+				Arrays.copyOf(stemTopicTopics, pos), 
+				Arrays.copyOf(stemTopicCounts, pos));
+	}
+	
+	/**
+	 * Iteration number to continue sampling from.
+	 */
+	public int getIteration() {
+		return _iteration;
+	}
+	
+	/**
+	 * Annealing temperature to continue sampling with.
+	 */
+	public double getTemperature() {
+		return _temperature;
+	}
+	
+	public int getDocCount() {
+		return _docCount;
+	}
+	
+	public int getTopicCount() {
+		return _topicCount;
+	}
+	
+	public int getStemCount() {
+		return _stemCount;
+	}
+	
+	public int getPlaceCount() {
+		return _placeTopics.length;
+	}
+	
+	/**
+	 * Restore allocations into the corpus place states, 
+	 * and counts into the provided (empty) count tables.
+	 */
+	void restore(CorpusView corpus, LDAGibbsCounts counts) {
+		
+		if (corpus.getDocCount() != _docCount ||
+			corpus.getPlaceCount() != _placeTopics.length ||
+			counts.getTopicCount() != _topicCount ||
+			counts.getStemCount() != _stemCount) {
+			throw new IllegalArgumentException(
+					"Checkpoint dimensions (" + _docCount + " docs, " + _placeTopics.length + " places, " + _topicCount + " topics, " + _stemCount + " stems) " +
+					"don't match the corpus (" + corpus.getDocCount() + " docs, " + corpus.getPlaceCount() + " places, " + 
+					counts.getTopicCount() + " topics, " + counts.getStemCount() + " stems)");
+		}
+		
+		for (int placeIndex=0; placeIndex<_placeTopics.length; placeIndex++) {
+			final int topicIndex = _placeTopics[placeIndex];
+			if (topicIndex >= _topicCount) {
+				throw new IllegalStateException("Checkpoint contains invalid topic index " + topicIndex);
+			}
+			corpus.setPlaceState(placeIndex, 0, topicIndex);
+			corpus.setPlaceState(placeIndex, 1, topicIndex);
+		}
+		
+		for (int topicIndex=0; topicIndex<_topicCount; topicIndex++) {
+			counts.addTopic(topicIndex, _topicCounts[topicIndex]);
+		}
+		for (int docIndex=0; docIndex<_docCount; docIndex++) {
+			for (int pos=_docTopicOffsets[docIndex]; pos<_docTopicOffsets[docIndex+1]; pos++) {
+				counts.addDocTopic(docIndex, _docTopicTopics[pos], _docTopicCounts[pos]);
+			}
+		}
+		for (int stemIndex=0; stemIndex<_stemCount; stemIndex++) {
+			for (int pos=_stemTopicOffsets[stemIndex]; pos<_stemTopicOffsets[stemIndex+1]; pos++) {
+				counts.addTopicStem(_stemTopicTopics[pos], stemIndex, _stemTopicCounts[pos]);
+			}
+		}
+	}
+	
+	/**
+	 * Save checkpoint to a binary file; the file is written 
+	 * to a temporary file first, which is then renamed, so 
+	 * the previous checkpoint is kept if writing fails.
+	 */
+	public void save(String fileName) throws IOException {
+		
+		final File file = new File(fileName);
+		final File tempFile = new File(fileName + ".tmp");
+		
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(_iteration);
+			out.writeDouble(_temperature);
+			out.writeInt(_docCount);
+			out.writeInt(_topicCount);
+			out.writeInt(_stemCount);
+			writeArray(out, _placeTopics);
+			writeArray(out, _topicCounts);
+			writeArray(out, _docTopicOffsets);
+			writeArray(out, _docTopicTopics);
+			writeArray(out, _docTopicCounts);
+			writeArray(out, _stemTopicOffsets);
+			writeArray(out, _stemTopicTopics);
+			writeArray(out, _stemTopicCounts);
+		} finally {
+			out.close();
+		}
+		
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	/**
+	 * Load checkpoint from a binary file.
+	 */
+	public static LDAGibbsCheckpoint load(String fileName) throws IOException {
+		
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName), BUFFER_SIZE));
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not an LDA checkpoint file: " + fileName);
+			}
+			final int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported LDA checkpoint version " + version + ": " + fileName);
+			}
+			final int iteration = in.readInt();
+			final double temperature = in.readDouble();
+			final int docCount = in.readInt();
+			final int topicCount = in.readInt();
+			final int stemCount = in.readInt();
+			final int[] placeTopics = readArray(in);
+			final int[] topicCounts = readArray(in);
+			final int[] docTopicOffsets = readArray(in);
+			final int[] docTopicTopics = readArray(in);
+			final int[] docTopicCounts = readArray(in);
+			final int[] stemTopicOffsets = readArray(in);
+			final int[] stemTopicTopics = readArray(in);
+			final int[] stemTopicCounts = readArray(in);
+			
+			if (topicCounts.length != topicCount ||
+				docTopicOffsets.length != docCount + 1 ||
+				docTopicOffsets[docCount] != docTopicTopics.length ||
+				docTopicTopics.length != docTopicCounts.length ||
+				stemTopicOffsets.length != stemCount + 1 ||
+				stemTopicOffsets[stemCount] != stemTopicTopics.length ||
+				stemTopicTopics.length != stemTopicCounts.length) {
+				throw new IOException("LDA checkpoint file is corrupt: " + fileName);
+			}
+			
+			return new LDAGibbsCheckpoint(
+					iteration, 
+					temperature, 
+					docCount, 
+					topicCount, 
+					stemCount, 
+					placeTopics, 
+					topicCounts, 
+					docTopicOffsets, 
+					docTopicTopics, 
+					docTopicCounts, 
+					stemTopicOffsets, 
+					stemTopicTopics, 
+					stemTopicCounts);
+		} finally {
+			in.close();
+		}
+	}
+	
+	private static void writeArray(DataOutputStream out, int[] arr) throws IOException {
+		out.writeInt(arr.length);
+		for (int i=0; i<arr.length; i++) {
+			out.writeInt(arr[i]);
+		}
+	}
+	
+	private static int[] readArray(DataInputStream in) throws IOException {
+		final int length = in.readInt();
+		if (length < 0) {
+			throw new IOException("Invalid array length " + length);
+		}
+		final int[] arr = new int[length];
+		for (int i=0; i<length; i++) {
+			arr[i] = in.readInt();
+		}
+		return arr;
+	}
+
+}
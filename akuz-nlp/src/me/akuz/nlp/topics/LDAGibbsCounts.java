@@ -0,0 +1,79 @@
+package me.akuz.nlp.topics;
+
+/**
+ * Storage of the allocation counts used by the LDA Gibbs sampler:
+ * number of places in each document allocated to each topic,
+ * number of places of each stem allocated to each topic,
+ * and total number of places allocated to each topic.
+ * 
+ * Implementations are not thread-safe for updates, but
+ * must allow concurrent reads while no updates are made.
+ *
+ */
+public interface LDAGibbsCounts {
+	
+	/**
+	 * Number of documents in the count tables.
+	 */
+	int getDocCount();
+	
+	/**
+	 * Number of topics in the count tables.
+	 */
+	int getTopicCount();
+	
+	/**
+	 * Number of stems in the count tables.
+	 */
+	int getStemCount();
+	
+	/**
+	 * Get number of places in the document allocated to the topic.
+	 */
+	int getDocTopic(int docIndex, int topicIndex);
+	
+	/**
+	 * Copy all topic counts of the document into 
+	 * the provided array of length getTopicCount().
+	 */
+	void getDocTopicRow(int docIndex, int[] outTopicCounts);
+	
+	/**
+	 * Change number of places in the document allocated to the topic.
+	 */
+	void addDocTopic(int docIndex, int topicIndex, int delta);
+	
+	/**
+	 * Get number of places of the stem allocated to the topic.
+	 */
+	int getTopicStem(int topicIndex, int stemIndex);
+	
+	/**
+	 * Copy all topic counts of the stem into 
+	 * the provided array of length getTopicCount().
+	 */
+	void getTopicStemRow(int stemIndex, int[] outTopicCounts);
+	
+	/**
+	 * Change number of places of the stem allocated to the topic.
+	 */
+	void addTopicStem(int topicIndex, int stemIndex, int delta);
+	
+	/**
+	 * Get version of the topic counts of the stem, which changes 
+	 * on each addTopicStem() for the stem; tables derived from 
+	 * the counts can use it to rebuild only the changed rows.
+	 */
+	int getStemVersion(int stemIndex);
+	
+	/**
+	 * Get total number of places allocated to the topic.
+	 */
+	int getTopic(int topicIndex);
+	
+	/**
+	 * Change total number of places allocated to the topic.
+	 */
+	void addTopic(int topicIndex, int delta);
+
+}
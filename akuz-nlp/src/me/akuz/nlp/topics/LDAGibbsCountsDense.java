@@ -0,0 +1,133 @@
+package me.akuz.nlp.topics;
+
+/**
+ * Allocation counts stored in flat int arrays,
+ * using either doc-major or topic-major layout
+ * (see {@link LDAGibbsCountsLayout}).
+ *
+ */
+public final class LDAGibbsCountsDense implements LDAGibbsCounts {
+	
+	private final LDAGibbsCountsLayout _layout;
+	private final int _docCount;
+	private final int _topicCount;
+	private final int _stemCount;
+	private final int[] _countDocTopic;
+	private final int[] _countTopicStem;
+	private final int[] _countTopic;
+	private final int[] _stemVersions;
+	
+	public LDAGibbsCountsDense(int docCount, int topicCount, int stemCount, LDAGibbsCountsLayout layout) {
+		if (layout == null) {
+			throw new NullPointerException("layout");
+		}
+		if ((long)docCount * topicCount > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Doc-topic table is too large for a flat array (" + docCount + " x " + topicCount + ")");
+		}
+		if ((long)stemCount * topicCount > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Topic-stem table is too large for a flat array (" + topicCount + " x " + stemCount + ")");
+		}
+		_layout = layout;
+		_docCount = docCount;
+		_topicCount = topicCount;
+		_stemCount = stemCount;
+		_countDocTopic = new int[docCount * topicCount];
+		_countTopicStem = new int[stemCount * topicCount];
+		_countTopic = new int[topicCount];
+		_stemVersions = new int[stemCount];
+	}
+	
+	public LDAGibbsCountsLayout getLayout() {
+		return _layout;
+	}
+
+	@Override
+	public int getDocCount() {
+		return _docCount;
+	}
+
+	@Override
+	public int getTopicCount() {
+		return _topicCount;
+	}
+
+	@Override
+	public int getStemCount() {
+		return _stemCount;
+	}
+	
+	private int docTopicPos(int docIndex, int topicIndex) {
+		if (_layout == LDAGibbsCountsLayout.DocMajor) {
+			return docIndex * _topicCount + topicIndex;
+		} else {
+			return topicIndex * _docCount + docIndex;
+		}
+	}
+	
+	private int topicStemPos(int topicIndex, int stemIndex) {
+		if (_layout == LDAGibbsCountsLayout.DocMajor) {
+			return stemIndex * _topicCount + topicIndex;
+		} else {
+			return topicIndex * _stemCount + stemIndex;
+		}
+	}
+
+	@Override
+	public int getDocTopic(int docIndex, int topicIndex) {
+		return _countDocTopic[docTopicPos(docIndex, topicIndex)];
+	}
+
+	@Override
+	public void getDocTopicRow(int docIndex, int[] outTopicCounts) {
+		if (_layout == LDAGibbsCountsLayout.DocMajor) {
+			System.arraycopy(_countDocTopic, docIndex * _topicCount, outTopicCounts, 0, _topicCount);
+		} else {
+			for (int topicIndex=0, pos=docIndex; topicIndex<_topicCount; topicIndex++, pos+=_docCount) {
+				outTopicCounts[topicIndex] = _countDocTopic[pos];
+			}
+		}
+	}
+
+	@Override
+	public void addDocTopic(int docIndex, int topicIndex, int delta) {
+		_countDocTopic[docTopicPos(docIndex, topicIndex)] += delta;
+	}
+
+	@Override
+	public int getTopicStem(int topicIndex, int stemIndex) {
+		return _countTopicStem[topicStemPos(topicIndex, stemIndex)];
+	}
+
+	@Override
+	public void getTopicStemRow(int stemIndex, int[] outTopicCounts) {
+		if (_layout == LDAGibbsCountsLayout.DocMajor) {
+			System.arraycopy(_countTopicStem, stemIndex * _topicCount, outTopicCounts, 0, _topicCount);
+		} else {
+			for (int topicIndex=0, pos=stemIndex; topicIndex<_topicCount; topicIndex++, pos+=_stemCount) {
+				outTopicCounts[topicIndex] = _countTopicStem[pos];
+			}
+		}
+	}
+
+	@Override
+	public void addTopicStem(int topicIndex, int stemIndex, int delta) {
+		_countTopicStem[topicStemPos(topicIndex, stemIndex)] += delta;
+		_stemVersions[stemIndex]++;
+	}
+
+	@Override
+	public int getStemVersion(int stemIndex) {
+		return _stemVersions[stemIndex];
+	}
+
+	@Override
+	public int getTopic(int topicIndex) {
+		return _countTopic[topicIndex];
+	}
+
+	@Override
+	public void addTopic(int topicIndex, int delta) {
+		_countTopic[topicIndex] += delta;
+	}
+
+}
@@ -0,0 +1,22 @@
+package me.akuz.nlp.topics;
+
+/**
+ * Memory layout of the flat count tables in {@link LDAGibbsCountsDense}.
+ *
+ */
+public enum LDAGibbsCountsLayout {
+	
+	/**
+	 * One row per document (and per stem), with the counts 
+	 * for all topics stored next to each other; this keeps 
+	 * the topic loop of the sampler within one cache line run.
+	 */
+	DocMajor,
+	
+	/**
+	 * One row per topic, with the counts for all documents 
+	 * (and all stems) stored next to each other; this is 
+	 * the layout of the original matrix-based counts.
+	 */
+	TopicMajor
+}
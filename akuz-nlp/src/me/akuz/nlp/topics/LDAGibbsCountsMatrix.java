@@ -0,0 +1,90 @@
+package me.akuz.nlp.topics;
+
+import Jama.Matrix;
+
+/**
+ * Allocation counts stored in Jama matrices of doubles;
+ * this is the original storage of the LDA Gibbs sampler,
+ * kept for comparison with the int-based tables.
+ *
+ */
+public final class LDAGibbsCountsMatrix implements LDAGibbsCounts {
+	
+	private final Matrix _countDocTopic;
+	private final Matrix _countTopicStem;
+	private final double[] _countTopic;
+	private final int[] _stemVersions;
+	
+	public LDAGibbsCountsMatrix(int docCount, int topicCount, int stemCount) {
+		_countDocTopic = new Matrix(docCount, topicCount);
+		_countTopicStem = new Matrix(topicCount, stemCount);
+		_countTopic = new double[topicCount];
+		_stemVersions = new int[stemCount];
+	}
+
+	@Override
+	public int getDocCount() {
+		return _countDocTopic.getRowDimension();
+	}
+
+	@Override
+	public int getTopicCount() {
+		return _countTopic.length;
+	}
+
+	@Override
+	public int getStemCount() {
+		return _countTopicStem.getColumnDimension();
+	}
+
+	@Override
+	public int getDocTopic(int docIndex, int topicIndex) {
+		return (int)_countDocTopic.get(docIndex, topicIndex);
+	}
+
+	@Override
+	public void getDocTopicRow(int docIndex, int[] outTopicCounts) {
+		for (int topicIndex=0; topicIndex<_countTopic.length; topicIndex++) {
+			outTopicCounts[topicIndex] = (int)_countDocTopic.get(docIndex, topicIndex);
+		}
+	}
+
+	@Override
+	public void addDocTopic(int docIndex, int topicIndex, int delta) {
+		_countDocTopic.set(docIndex, topicIndex, _countDocTopic.get(docIndex, topicIndex) + delta);
+	}
+
+	@Override
+	public int getTopicStem(int topicIndex, int stemIndex) {
+		return (int)_countTopicStem.get(topicIndex, stemIndex);
+	}
+
+	@Override
+	public void getTopicStemRow(int stemIndex, int[] outTopicCounts) {
+		for (int topicIndex=0; topicIndex<_countTopic.length; topicIndex++) {
+			outTopicCounts[topicIndex] = (int)_countTopicStem.get(topicIndex, stemIndex);
+		}
+	}
+
+	@Override
+	public void addTopicStem(int topicIndex, int stemIndex, int delta) {
+		_countTopicStem.set(topicIndex, stemIndex, _countTopicStem.get(topicIndex, stemIndex) + delta);
+		_stemVersions[stemIndex]++;
+	}
+
+	@Override
+	public int getStemVersion(int stemIndex) {
+		return _stemVersions[stemIndex];
+	}
+
+	@Override
+	public int getTopic(int topicIndex) {
+		return (int)_countTopic[topicIndex];
+	}
+
+	@Override
+	public void addTopic(int topicIndex, int delta) {
+		_countTopic[topicIndex] += delta;
+	}
+
+}
@@ -0,0 +1,163 @@
+package me.akuz.nlp.topics;
+
+import java.util.Arrays;
+
+/**
+ * Allocation counts with sparse doc-topic storage: each
+ * document only keeps the topics it has places allocated to,
+ * which is much smaller than the dense table when there are 
+ * many short documents and many topics; the topic-stem counts
+ * are kept in a flat int array with topics of a stem together.
+ *
+ */
+public final class LDAGibbsCountsSparse implements LDAGibbsCounts {
+	
+	private static final int INITIAL_DOC_CAPACITY = 4;
+	
+	private final int _docCount;
+	private final int _topicCount;
+	private final int _stemCount;
+	private final int[][] _docTopics;
+	private final int[][] _docTopicCounts;
+	private final int[] _docTopicSizes;
+	private final int[] _countTopicStem;
+	private final int[] _countTopic;
+	private final int[] _stemVersions;
+	
+	public LDAGibbsCountsSparse(int docCount, int topicCount, int stemCount) {
+		if ((long)stemCount * topicCount > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Topic-stem table is too large for a flat array (" + topicCount + " x " + stemCount + ")");
+		}
+		_docCount = docCount;
+		_topicCount = topicCount;
+		_stemCount = stemCount;
+		_docTopics = new int[docCount][];
+		_docTopicCounts = new int[docCount][];
+		_docTopicSizes = new int[docCount];
+		_countTopicStem = new int[stemCount * topicCount];
+		_countTopic = new int[topicCount];
+		_stemVersions = new int[stemCount];
+	}
+
+	@Override
+	public int getDocCount() {
+		return _docCount;
+	}
+
+	@Override
+	public int getTopicCount() {
+		return _topicCount;
+	}
+
+	@Override
+	public int getStemCount() {
+		return _stemCount;
+	}
+	
+	/**
+	 * Number of topics with non-zero counts in the document.
+	 */
+	public int getDocNonZeroCount(int docIndex) {
+		return _docTopicSizes[docIndex];
+	}
+
+	@Override
+	public int getDocTopic(int docIndex, int topicIndex) {
+		final int[] topics = _docTopics[docIndex];
+		final int size = _docTopicSizes[docIndex];
+		for (int i=0; i<size; i++) {
+			if (topics[i] == topicIndex) {
+				return _docTopicCounts[docIndex][i];
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public void getDocTopicRow(int docIndex, int[] outTopicCounts) {
+		Arrays.fill(outTopicCounts, 0, _topicCount, 0);
+		final int[] topics = _docTopics[docIndex];
+		final int[] counts = _docTopicCounts[docIndex];
+		final int size = _docTopicSizes[docIndex];
+		for (int i=0; i<size; i++) {
+			outTopicCounts[topics[i]] = counts[i];
+		}
+	}
+
+	@Override
+	public void addDocTopic(int docIndex, int topicIndex, int delta) {
+		
+		int[] topics = _docTopics[docIndex];
+		int[] counts = _docTopicCounts[docIndex];
+		final int size = _docTopicSizes[docIndex];
+		
+		for (int i=0; i<size; i++) {
+			if (topics[i] == topicIndex) {
+				counts[i] += delta;
+				if (counts[i] == 0) {
+					// swap-remove the emptied topic
+					topics[i] = topics[size-1];
+					counts[i] = counts[size-1];
+					_docTopicSizes[docIndex] = size-1;
+				} else if (counts[i] < 0) {
+					throw new IllegalStateException("Negative doc-topic count " + counts[i] + " for doc " + docIndex + ", topic " + topicIndex);
+				}
+				return;
+			}
+		}
+		
+		if (delta < 0) {
+			throw new IllegalStateException("Negative doc-topic count " + delta + " for doc " + docIndex + ", topic " + topicIndex);
+		} else if (delta == 0) {
+			return;
+		}
+		
+		if (topics == null) {
+			topics = new int[Math.min(INITIAL_DOC_CAPACITY, _topicCount)];
+			counts = new int[topics.length];
+			_docTopics[docIndex] = topics;
+			_docTopicCounts[docIndex] = counts;
+		} else if (size == topics.length) {
+			final int newCapacity = Math.min(_topicCount, size * 2);
+			topics = Arrays.copyOf(topics, newCapacity);
+			counts = Arrays.copyOf(counts, newCapacity);
+			_docTopics[docIndex] = topics;
+			_docTopicCounts[docIndex] = counts;
+		}
+		topics[size] = topicIndex;
+		counts[size] = delta;
+		_docTopicSizes[docIndex] = size+1;
+	}
+
+	@Override
+	public int getTopicStem(int topicIndex, int stemIndex) {
+		return _countTopicStem[stemIndex * _topicCount + topicIndex];
+	}
+
+	@Override
+	public void getTopicStemRow(int stemIndex, int[] outTopicCounts) {
+		System.arraycopy(_countTopicStem, stemIndex * _topicCount, outTopicCounts, 0, _topicCount);
+	}
+
+	@Override
+	public void addTopicStem(int topicIndex, int stemIndex, int delta) {
+		_countTopicStem[stemIndex * _topicCount + topicIndex] += delta;
+		_stemVersions[stemIndex]++;
+	}
+
+	@Override
+	public int getStemVersion(int stemIndex) {
+		return _stemVersions[stemIndex];
+	}
+
+	@Override
+	public int getTopic(int topicIndex) {
+		return _countTopic[topicIndex];
+	}
+
+	@Override
+	public void addTopic(int topicIndex, int delta) {
+		_countTopic[topicIndex] += delta;
+	}
+
+}
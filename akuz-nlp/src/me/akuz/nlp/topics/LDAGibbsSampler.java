@@ -0,0 +1,25 @@
+package me.akuz.nlp.topics;
+
+/**
+ * Strategy for generating the next topic allocation of a word place
+ * in the LDA Gibbs sampler. A sampler can precompute anything it 
+ * needs from the counts in prepare(), which is called before each 
+ * iteration (after any change of the alpha and beta priors). The 
+ * counts are not changed during a synchronous iteration; in the
+ * asynchronous mode, they are changed by the merges of the threads,
+ * but always include the current topic of the place being sampled.
+ *
+ */
+public interface LDAGibbsSampler {
+	
+	/**
+	 * Prepare for the next iteration; called on a single thread.
+	 */
+	void prepare(LDAGibbsCounts counts, LDAGibbsAlpha alpha, LDAGibbsBeta beta);
+	
+	/**
+	 * Create a worker to be used by one sampling thread.
+	 */
+	LDAGibbsSamplerWorker createWorker(int topicCount);
+
+}
@@ -0,0 +1,207 @@
+package me.akuz.nlp.topics;
+
+import java.util.Random;
+
+import me.akuz.core.math.AliasTable;
+
+/**
+ * Metropolis-Hastings sampler with alias-table proposals,
+ * in the style of LightLDA (Yuan et al., 2015).
+ *
+ * Each place runs a short Metropolis-Hastings chain, alternating
+ * between the word proposal q(t) ~ (n_tw + beta_t) / D and the document
+ * proposal q(t) ~ n_dt + alpha_dt, where D = n_t + sum(beta). Both
+ * proposals are sampled in constant time from alias tables, which are
+ * built from the counts in prepare(), so the cost of each place does 
+ * not depend on the number of topics. The acceptance ratio uses the
+ * proposal probabilities of the tables, so the chain stays valid
+ * when the counts change after prepare() (asynchronous mode).
+ *
+ */
+public final class LDAGibbsSamplerAlias implements LDAGibbsSampler {
+
+	public static final int DEFAULT_MH_STEPS = 4;
+
+	private final int _mhSteps;
+	private final LDAGibbsStemTopics _stemTopics;
+	private final AliasTable _smoothingAlias;
+	private AliasTable[] _stemAlias;
+	private double[] _reusedWeights;
+	private LDAGibbsCounts _counts;
+	private LDAGibbsAlpha _alpha;
+	private LDAGibbsBeta _beta;
+	private double[] _topicDenomInv;
+	private double[] _topicBaseCoef;
+
+	public LDAGibbsSamplerAlias() {
+		this(DEFAULT_MH_STEPS);
+	}
+
+	public LDAGibbsSamplerAlias(int mhSteps) {
+		if (mhSteps < 1) {
+			throw new IllegalArgumentException("Number of Metropolis-Hastings steps must be positive (requested " + mhSteps + ")");
+		}
+		_mhSteps = mhSteps;
+		_stemTopics = new LDAGibbsStemTopics();
+		_smoothingAlias = new AliasTable();
+		_reusedWeights = new double[0];
+	}
+
+	public int getMHSteps() {
+		return _mhSteps;
+	}
+
+	@Override
+	public void prepare(LDAGibbsCounts counts, LDAGibbsAlpha alpha, LDAGibbsBeta beta) {
+
+		_counts = counts;
+		_alpha = alpha;
+		_beta = beta;
+
+		final int topicCount = counts.getTopicCount();
+		final int stemCount = counts.getStemCount();
+		if (_topicDenomInv == null || _topicDenomInv.length != topicCount) {
+			_topicDenomInv = new double[topicCount];
+			_topicBaseCoef = new double[topicCount];
+		}
+		for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+			final double denomInv = 1.0 / (counts.getTopic(topicIndex) + beta.getSumTopicBeta(topicIndex));
+			_topicDenomInv[topicIndex] = denomInv;
+			_topicBaseCoef[topicIndex] = beta.getTopicBaseBeta(topicIndex) * denomInv;
+		}
+		_smoothingAlias.build(_topicBaseCoef, topicCount);
+
+		// word proposal tables over the non-zero topics of each stem
+		_stemTopics.build(counts);
+		final int[] stemRowStarts = _stemTopics.getRowStarts();
+		final int[] stemRowEnds = _stemTopics.getRowEnds();
+		final int[] stemTopics = _stemTopics.getTopics();
+		final int[] stemCounts = _stemTopics.getCounts();
+		if (_stemAlias == null || _stemAlias.length != stemCount) {
+			_stemAlias = new AliasTable[stemCount];
+		}
+		for (int stemIndex=0; stemIndex<stemCount; stemIndex++) {
+
+			final int rowStart = stemRowStarts[stemIndex];
+			final int rowEnd = stemRowEnds[stemIndex];
+			final int rowLength = rowEnd - rowStart;
+			if (_reusedWeights.length < rowLength) {
+				_reusedWeights = new double[Math.max(rowLength, _reusedWeights.length * 2)];
+			}
+			for (int pos=rowStart; pos<rowEnd; pos++) {
+				_reusedWeights[pos-rowStart] = stemCounts[pos] * _topicDenomInv[stemTopics[pos]];
+			}
+
+			AliasTable stemAlias = _stemAlias[stemIndex];
+			if (stemAlias == null) {
+				stemAlias = new AliasTable(rowLength);
+				_stemAlias[stemIndex] = stemAlias;
+			}
+			stemAlias.build(_reusedWeights, rowLength);
+		}
+	}
+
+	@Override
+	public LDAGibbsSamplerWorker createWorker(int topicCount) {
+		return new Worker(topicCount);
+	}
+
+	private final class Worker implements LDAGibbsSamplerWorker {
+
+		private final int _topicCount;
+		private final double[] _docAlpha;
+		private final double[] _docWeights;
+		private final AliasTable _docAlias;
+		private int[] _docTopicCounts;
+
+		public Worker(int topicCount) {
+			_topicCount = topicCount;
+			_docAlpha = new double[topicCount];
+			_docWeights = new double[topicCount];
+			_docAlias = new AliasTable(topicCount);
+		}
+
+		@Override
+		public void startDoc(int docIndex, int[] docTopicCounts) {
+			_docTopicCounts = docTopicCounts;
+			for (int topicIndex=0; topicIndex<_topicCount; topicIndex++) {
+				final double alpha = _alpha.getTopicDocAlpha(topicIndex, docIndex);
+				_docAlpha[topicIndex] = alpha;
+				_docWeights[topicIndex] = docTopicCounts[topicIndex] + alpha;
+			}
+			_docAlias.build(_docWeights, _topicCount);
+		}
+
+		private double targetProb(int topicIndex, int stemIndex, int prevTopicIndex) {
+			final int self = topicIndex == prevTopicIndex ? 1 : 0;
+			return
+				(_docTopicCounts[topicIndex] - self + _docAlpha[topicIndex])
+				* (_counts.getTopicStem(topicIndex, stemIndex) - self + _beta.getStemTopicBeta(stemIndex, topicIndex))
+				/ (_counts.getTopic(topicIndex) - self + _beta.getSumTopicBeta(topicIndex));
+		}
+
+		private double wordProposalProb(int topicIndex, int stemIndex) {
+			// counts the alias tables were built with, which differ
+			// from the live counts in asynchronous mode
+			return (_stemTopics.getCount(stemIndex, topicIndex) + _beta.getTopicBaseBeta(topicIndex)) * _topicDenomInv[topicIndex];
+		}
+
+		private int sampleWordProposal(Random rnd, int stemIndex) {
+			final AliasTable stemAlias = _stemAlias[stemIndex];
+			final double stemSum = stemAlias.getSum();
+			final double u = rnd.nextDouble() * (stemSum + _smoothingAlias.getSum());
+			if (u < stemSum) {
+				final int pos = _stemTopics.getRowStarts()[stemIndex] + stemAlias.sample(rnd);
+				return _stemTopics.getTopics()[pos];
+			} else {
+				return _smoothingAlias.sample(rnd);
+			}
+		}
+
+		@Override
+		public int nextTopicIndex(Random rnd, int stemIndex, int prevTopicIndex) {
+
+			int currTopicIndex = prevTopicIndex >= 0 ? prevTopicIndex : _docAlias.sample(rnd);
+			double currProb = targetProb(currTopicIndex, stemIndex, prevTopicIndex);
+
+			for (int step=0; step<_mhSteps; step++) {
+
+				final int nextTopicIndex;
+				final double currProposalProb;
+				final double nextProposalProb;
+				if (step % 2 == 0) {
+					nextTopicIndex = sampleWordProposal(rnd, stemIndex);
+					if (nextTopicIndex == currTopicIndex) {
+						continue;
+					}
+					currProposalProb = wordProposalProb(currTopicIndex, stemIndex);
+					nextProposalProb = wordProposalProb(nextTopicIndex, stemIndex);
+				} else {
+					nextTopicIndex = _docAlias.sample(rnd);
+					if (nextTopicIndex == currTopicIndex) {
+						continue;
+					}
+					currProposalProb = _docWeights[currTopicIndex];
+					nextProposalProb = _docWeights[nextTopicIndex];
+				}
+
+				final double nextProb = targetProb(nextTopicIndex, stemIndex, prevTopicIndex);
+				final double acceptance = (nextProb * currProposalProb) / (currProb * nextProposalProb);
+				if (acceptance >= 1.0 || rnd.nextDouble() < acceptance) {
+					currTopicIndex = nextTopicIndex;
+					currProb = nextProb;
+				}
+			}
+
+			return currTopicIndex;
+		}
+
+		@Override
+		public void updateDoc(int prevTopicIndex, int nextTopicIndex) {
+			// the document proposal keeps sampling from the weights
+			// it was built with (as the acceptance ratio uses them),
+			// while the target reads the updated document row
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+package me.akuz.nlp.topics;
+
+import java.util.Random;
+
+/**
+ * Sampler calculating the full conditional probability 
+ * of every topic for every place; the cost of each place 
+ * is linear in the number of topics.
+ *
+ */
+public final class LDAGibbsSamplerDense implements LDAGibbsSampler {
+	
+	private LDAGibbsCounts _counts;
+	private LDAGibbsAlpha _alpha;
+	private LDAGibbsBeta _beta;
+
+	@Override
+	public void prepare(LDAGibbsCounts counts, LDAGibbsAlpha alpha, LDAGibbsBeta beta) {
+		_counts = counts;
+		_alpha = alpha;
+		_beta = beta;
+	}
+
+	@Override
+	public LDAGibbsSamplerWorker createWorker(int topicCount) {
+		return new Worker(topicCount);
+	}
+	
+	private final class Worker implements LDAGibbsSamplerWorker {
+		
+		private final double[] _reusedTopicCDF;
+		private int _docIndex;
+		private int[] _docTopicCounts;
+		
+		public Worker(int topicCount) {
+			_reusedTopicCDF = new double[topicCount];
+		}
+
+		@Override
+		public void startDoc(int docIndex, int[] docTopicCounts) {
+			_docIndex = docIndex;
+			_docTopicCounts = docTopicCounts;
+		}
+
+		@Override
+		public int nextTopicIndex(Random rnd, int stemIndex, int prevTopicIndex) {
+			
+			final int topicCount = _reusedTopicCDF.length;
+			int nextTopicIndex = -1;
+			
+			double cdf = 0.0;
+			for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+				int docTopicCount = _docTopicCounts[topicIndex];
+				int topicStemCount = _counts.getTopicStem(topicIndex, stemIndex);
+				int topicTotalCount = _counts.getTopic(topicIndex);
+				if (prevTopicIndex == topicIndex) {
+					docTopicCount -= 1;
+					topicStemCount -= 1;
+					topicTotalCount -= 1;
+					if (topicTotalCount < 0) {
+						throw new IllegalStateException("Invalid count: " + topicTotalCount);
+					}
+				}
+				cdf = cdf 
+					+ (docTopicCount + _alpha.getTopicDocAlpha(topicIndex, _docIndex))
+					* (topicStemCount + _beta.getStemTopicBeta(stemIndex, topicIndex))
+					/ (topicTotalCount + _beta.getSumTopicBeta(topicIndex));
+				_reusedTopicCDF[topicIndex] = cdf;
+			}
+			
+			double u = rnd.nextDouble();
+			for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+				if (u < _reusedTopicCDF[topicIndex]/cdf) {
+					nextTopicIndex = topicIndex;
+					break;
+				}
+			}
+			
+			if (nextTopicIndex < 0) {
+				throw new IllegalStateException("Internal error: Something's wrong with the CDF calculation");
+			}
+			
+			return nextTopicIndex;
+		}
+
+		@Override
+		public void updateDoc(int prevTopicIndex, int nextTopicIndex) {
+			// counts are read directly from the document row
+		}
+	}
+
+}
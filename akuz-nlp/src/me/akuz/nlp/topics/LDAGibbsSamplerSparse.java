@@ -0,0 +1,308 @@
+package me.akuz.nlp.topics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Bucketed sampler in the style of SparseLDA (Yao, Mimno, McCallum, 2009).
+ *
+ * The unnormalized conditional probability of a topic is split into
+ * three buckets: smoothing (alpha * beta / D), document (n_dt * beta / D)
+ * and topic-word ((n_dt + alpha) * n_tw / D), where D = n_t + sum(beta).
+ * The smoothing bucket is calculated once per document, the document
+ * bucket only iterates over the topics present in the document, and
+ * the topic-word bucket only over the topics present for the stem.
+ *
+ * The previous topic of the place, and the topics, for which the stem
+ * has a non-base beta (priority or excluded stems), are calculated
+ * exactly in a separate bucket and excluded from the other buckets.
+ *
+ */
+public final class LDAGibbsSamplerSparse implements LDAGibbsSampler {
+
+	private static final int MAX_SMOOTHING_REJECTIONS = 32;
+
+	private final LDAGibbsStemTopics _stemTopics;
+	private LDAGibbsCounts _counts;
+	private LDAGibbsAlpha _alpha;
+	private LDAGibbsBeta _beta;
+	private double[] _topicDenomInv;
+	private double[] _topicBaseCoef;
+
+	public LDAGibbsSamplerSparse() {
+		_stemTopics = new LDAGibbsStemTopics();
+	}
+
+	@Override
+	public void prepare(LDAGibbsCounts counts, LDAGibbsAlpha alpha, LDAGibbsBeta beta) {
+
+		_counts = counts;
+		_alpha = alpha;
+		_beta = beta;
+
+		final int topicCount = counts.getTopicCount();
+		if (_topicDenomInv == null || _topicDenomInv.length != topicCount) {
+			_topicDenomInv = new double[topicCount];
+			_topicBaseCoef = new double[topicCount];
+		}
+		for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+			final double denomInv = 1.0 / (counts.getTopic(topicIndex) + beta.getSumTopicBeta(topicIndex));
+			_topicDenomInv[topicIndex] = denomInv;
+			_topicBaseCoef[topicIndex] = beta.getTopicBaseBeta(topicIndex) * denomInv;
+		}
+
+		_stemTopics.build(counts);
+	}
+
+	@Override
+	public LDAGibbsSamplerWorker createWorker(int topicCount) {
+		return new Worker(topicCount);
+	}
+
+	private final class Worker implements LDAGibbsSamplerWorker {
+
+		private final int _topicCount;
+
+		// document state
+		private int[] _docTopicCounts;
+		private final double[] _docAlpha;
+		private final double[] _docSmoothingCDF;
+		private final int[] _docTopics;
+		private int _docTopicsSize;
+		private double _docSmoothingSum;
+		private double _docBucketSum;
+
+		// place state
+		private final int[] _exactMark;
+		private int _exactStamp;
+		private final int[] _exactTopics;
+		private final double[] _exactWeights;
+		private int _exactCount;
+		private double[] _wordWeights;
+
+		public Worker(int topicCount) {
+			_topicCount = topicCount;
+			_docAlpha = new double[topicCount];
+			_docSmoothingCDF = new double[topicCount];
+			_docTopics = new int[topicCount];
+			_exactMark = new int[topicCount];
+			_exactTopics = new int[topicCount];
+			_exactWeights = new double[topicCount];
+			_wordWeights = new double[topicCount];
+		}
+
+		@Override
+		public void startDoc(int docIndex, int[] docTopicCounts) {
+
+			_docTopicCounts = docTopicCounts;
+			_docTopicsSize = 0;
+
+			double smoothingSum = 0;
+			double docBucketSum = 0;
+			for (int topicIndex=0; topicIndex<_topicCount; topicIndex++) {
+
+				final double alpha = _alpha.getTopicDocAlpha(topicIndex, docIndex);
+				_docAlpha[topicIndex] = alpha;
+
+				smoothingSum += alpha * _topicBaseCoef[topicIndex];
+				_docSmoothingCDF[topicIndex] = smoothingSum;
+
+				final int docTopicCount = docTopicCounts[topicIndex];
+				if (docTopicCount > 0) {
+					_docTopics[_docTopicsSize++] = topicIndex;
+					docBucketSum += docTopicCount * _topicBaseCoef[topicIndex];
+				}
+			}
+			_docSmoothingSum = smoothingSum;
+			_docBucketSum = docBucketSum;
+		}
+
+		private void addExactTopic(int topicIndex) {
+			if (_exactMark[topicIndex] != _exactStamp) {
+				_exactMark[topicIndex] = _exactStamp;
+				_exactTopics[_exactCount++] = topicIndex;
+			}
+		}
+
+		@Override
+		public int nextTopicIndex(Random rnd, int stemIndex, int prevTopicIndex) {
+
+			// start a new set of exactly calculated topics
+			if (_exactStamp == Integer.MAX_VALUE) {
+				Arrays.fill(_exactMark, 0);
+				_exactStamp = 0;
+			}
+			_exactStamp++;
+			_exactCount = 0;
+			if (prevTopicIndex >= 0) {
+				addExactTopic(prevTopicIndex);
+			}
+			final int[] specialTopics = _beta.getStemSpecialTopics(stemIndex);
+			for (int i=0; i<specialTopics.length; i++) {
+				addExactTopic(specialTopics[i]);
+			}
+
+			// exact bucket, and its share of the other buckets
+			double exactSum = 0;
+			double smoothingExcluded = 0;
+			double docBucketExcluded = 0;
+			for (int i=0; i<_exactCount; i++) {
+
+				final int topicIndex = _exactTopics[i];
+				final int self = topicIndex == prevTopicIndex ? 1 : 0;
+				final int docTopicCount = _docTopicCounts[topicIndex];
+				final int topicTotalCount = _counts.getTopic(topicIndex) - self;
+				if (topicTotalCount < 0) {
+					throw new IllegalStateException("Invalid count: " + topicTotalCount);
+				}
+
+				final double weight
+					= (docTopicCount - self + _docAlpha[topicIndex])
+					* (_counts.getTopicStem(topicIndex, stemIndex) - self + _beta.getStemTopicBeta(stemIndex, topicIndex))
+					/ (topicTotalCount + _beta.getSumTopicBeta(topicIndex));
+
+				_exactWeights[i] = weight;
+				exactSum += weight;
+
+				smoothingExcluded += _docAlpha[topicIndex] * _topicBaseCoef[topicIndex];
+				docBucketExcluded += docTopicCount * _topicBaseCoef[topicIndex];
+			}
+			final double smoothingSum = Math.max(0.0, _docSmoothingSum - smoothingExcluded);
+			final double docBucketSum = Math.max(0.0, _docBucketSum - docBucketExcluded);
+
+			// topic-word bucket
+			final int[] stemTopics = _stemTopics.getTopics();
+			final int[] stemCounts = _stemTopics.getCounts();
+			final int rowStart = _stemTopics.getRowStarts()[stemIndex];
+			final int rowEnd = _stemTopics.getRowEnds()[stemIndex];
+			if (_wordWeights.length < rowEnd - rowStart) {
+				_wordWeights = new double[rowEnd - rowStart];
+			}
+			double wordBucketSum = 0;
+			for (int pos=rowStart; pos<rowEnd; pos++) {
+				final int topicIndex = stemTopics[pos];
+				double weight;
+				if (_exactMark[topicIndex] == _exactStamp) {
+					weight = 0;
+				} else {
+					weight
+						= (_docTopicCounts[topicIndex] + _docAlpha[topicIndex])
+						* stemCounts[pos] * _topicDenomInv[topicIndex];
+				}
+				_wordWeights[pos-rowStart] = weight;
+				wordBucketSum += weight;
+			}
+
+			double u = rnd.nextDouble() * (exactSum + wordBucketSum + docBucketSum + smoothingSum);
+
+			if (u < exactSum) {
+				for (int i=0; i<_exactCount; i++) {
+					u -= _exactWeights[i];
+					if (u < 0) {
+						return _exactTopics[i];
+					}
+				}
+				return _exactTopics[_exactCount-1];
+			}
+			u -= exactSum;
+
+			if (u < wordBucketSum) {
+				int lastTopicIndex = -1;
+				for (int pos=rowStart; pos<rowEnd; pos++) {
+					final double weight = _wordWeights[pos-rowStart];
+					if (weight > 0) {
+						lastTopicIndex = stemTopics[pos];
+						u -= weight;
+						if (u < 0) {
+							return lastTopicIndex;
+						}
+					}
+				}
+				if (lastTopicIndex >= 0) {
+					return lastTopicIndex;
+				}
+			}
+			u -= wordBucketSum;
+
+			if (u < docBucketSum) {
+				int lastTopicIndex = -1;
+				for (int i=0; i<_docTopicsSize; i++) {
+					final int topicIndex = _docTopics[i];
+					if (_exactMark[topicIndex] != _exactStamp) {
+						lastTopicIndex = topicIndex;
+						u -= _docTopicCounts[topicIndex] * _topicBaseCoef[topicIndex];
+						if (u < 0) {
+							return lastTopicIndex;
+						}
+					}
+				}
+				if (lastTopicIndex >= 0) {
+					return lastTopicIndex;
+				}
+			}
+
+			return sampleSmoothing(rnd, smoothingSum);
+		}
+
+		@Override
+		public void updateDoc(int prevTopicIndex, int nextTopicIndex) {
+			if (prevTopicIndex >= 0) {
+				_docBucketSum -= _topicBaseCoef[prevTopicIndex];
+				if (_docTopicCounts[prevTopicIndex] == 0) {
+					for (int i=0; i<_docTopicsSize; i++) {
+						if (_docTopics[i] == prevTopicIndex) {
+							_docTopics[i] = _docTopics[--_docTopicsSize];
+							break;
+						}
+					}
+				}
+			}
+			_docBucketSum += _topicBaseCoef[nextTopicIndex];
+			if (_docTopicCounts[nextTopicIndex] == 1) {
+				_docTopics[_docTopicsSize++] = nextTopicIndex;
+			}
+		}
+
+		private int sampleSmoothing(Random rnd, double smoothingSum) {
+
+			// sample from the precomputed document CDF,
+			// rejecting the exactly calculated topics
+			for (int r=0; r<MAX_SMOOTHING_REJECTIONS; r++) {
+				final double v = rnd.nextDouble() * _docSmoothingSum;
+				int lo = 0;
+				int hi = _topicCount - 1;
+				while (lo < hi) {
+					final int mid = (lo + hi) >>> 1;
+					if (_docSmoothingCDF[mid] > v) {
+						hi = mid;
+					} else {
+						lo = mid + 1;
+					}
+				}
+				if (_exactMark[lo] != _exactStamp) {
+					return lo;
+				}
+			}
+
+			// most of the smoothing mass is in the exact
+			// topics, fall back to a linear scan
+			double u = rnd.nextDouble() * smoothingSum;
+			int lastTopicIndex = -1;
+			for (int topicIndex=0; topicIndex<_topicCount; topicIndex++) {
+				if (_exactMark[topicIndex] != _exactStamp) {
+					lastTopicIndex = topicIndex;
+					u -= _docAlpha[topicIndex] * _topicBaseCoef[topicIndex];
+					if (u < 0) {
+						return topicIndex;
+					}
+				}
+			}
+			if (lastTopicIndex < 0) {
+				// all topics are exact, only rounding got us here
+				return _exactTopics[_exactCount-1];
+			}
+			return lastTopicIndex;
+		}
+	}
+
+}
@@ -0,0 +1,31 @@
+package me.akuz.nlp.topics;
+
+import java.util.Random;
+
+/**
+ * Single-threaded part of an {@link LDAGibbsSampler}, 
+ * holding the reusable buffers of one sampling thread.
+ *
+ */
+public interface LDAGibbsSamplerWorker {
+	
+	/**
+	 * Start generating topics for the places in the document;
+	 * docTopicCounts contains the current counts of the document.
+	 */
+	void startDoc(int docIndex, int[] docTopicCounts);
+	
+	/**
+	 * Generate next topic for a place of the current document,
+	 * excluding the place's own previous topic from the counts.
+	 */
+	int nextTopicIndex(Random rnd, int stemIndex, int prevTopicIndex);
+	
+	/**
+	 * Called in asynchronous mode after a place of the current document
+	 * has been moved between topics, and docTopicCounts passed to
+	 * startDoc() has already been updated (prevTopicIndex can be -1).
+	 */
+	void updateDoc(int prevTopicIndex, int nextTopicIndex);
+
+}
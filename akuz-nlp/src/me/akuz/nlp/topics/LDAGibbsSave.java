@@ -11,8 +11,10 @@ import me.akuz.core.SortOrder;
 import me.akuz.core.StringUtils;
 import me.akuz.core.logs.Monitor;
 import me.akuz.core.logs.LocalMonitor;
-import me.akuz.core.sort.SelectK;
+import me.akuz.core.sort.SelectKIntDouble;
 import me.akuz.nlp.corpus.Corpus;
+import me.akuz.nlp.corpus.CorpusListView;
+import me.akuz.nlp.corpus.CorpusView;
 import Jama.Matrix;
 
 public final class LDAGibbsSave {
@@ -29,6 +31,19 @@ public final class LDAGibbsSave {
 			int topicOutputStemsCount,
 			String outputFileName) throws Exception {
 		
+		this(parentMonitor, new CorpusListView(corpus), topics, mTopic, mStemTopic, unstemmer, topicOutputStemsCount, outputFileName);
+	}
+
+	public LDAGibbsSave(
+			Monitor parentMonitor,
+			CorpusView corpus,
+			List<LDAGibbsTopic> topics,
+			Matrix mTopic, 
+			Matrix mStemTopic,
+			LDAGibbsUnstemmer unstemmer,
+			int topicOutputStemsCount,
+			String outputFileName) throws Exception {
+		
 		LocalMonitor monitor = parentMonitor == null ? null : new LocalMonitor(this.getClass().getSimpleName(), parentMonitor);
 		
 		if (monitor != null) {
@@ -37,13 +52,13 @@ public final class LDAGibbsSave {
 		List<List<Pair<Integer, Double>>> topicsSortedStemsLists = new ArrayList<>();
 		{
 			// reusable SelectK algo for selecting top stems
-			SelectK<Integer, Double> selectK = new SelectK<>(SortOrder.Desc, topicOutputStemsCount);
+			SelectKIntDouble selectK = new SelectKIntDouble(SortOrder.Desc, topicOutputStemsCount);
+			final double[][] stemTopic = mStemTopic.getArray();
 			for (int topicIndex=0; topicIndex<topics.size(); topicIndex++) {
 	
 				// select top stems
-				for (int stemIndex=0; stemIndex<mStemTopic.getRowDimension(); stemIndex++) {
-					double prob = mStemTopic.get(stemIndex, topicIndex);
-					selectK.add(new Pair<Integer, Double>(stemIndex, prob));
+				for (int stemIndex=0; stemIndex<stemTopic.length; stemIndex++) {
+					selectK.add(stemIndex, stemTopic[stemIndex][topicIndex]);
 				}
 				List<Pair<Integer, Double>> sortedTopicStemsList = selectK.get();
 
@@ -152,7 +167,7 @@ public final class LDAGibbsSave {
 	private Pair<String, String> getStemAndWord(
 			Integer stemIndex,
 			Integer topicIndex,
-			Corpus corpus,
+			CorpusView corpus,
 			LDAGibbsUnstemmer unstemmer) {
 		
 		String word;
@@ -0,0 +1,164 @@
+package me.akuz.nlp.topics;
+
+import java.util.Arrays;
+
+/**
+ * Rows of the non-zero topic-stem counts, one row per stem,
+ * brought up to date with the counts before each iteration
+ * by the sparse samplers; only the rows of the stems, which
+ * have changed since the last build (see getStemVersion()),
+ * are rebuilt, so that a build does not scan all counts.
+ *
+ * The rows are kept in shared arrays, each row having some
+ * spare capacity; a row, which outgrows its capacity, is moved
+ * to the end, and the arrays are compacted when there are too
+ * many such gaps.
+ *
+ */
+final class LDAGibbsStemTopics {
+
+	private LDAGibbsCounts _builtCounts;
+	private int[] _builtVersions;
+	private int[] _rowStarts;
+	private int[] _rowEnds;
+	private int[] _rowCapacities;
+	private int[] _topics;
+	private int[] _counts;
+	private int _size;
+	private int _gapSize;
+	private int[] _reusedRow;
+
+	public LDAGibbsStemTopics() {
+		_topics = new int[0];
+		_counts = new int[0];
+	}
+
+	public void build(LDAGibbsCounts counts) {
+
+		final int stemCount = counts.getStemCount();
+		final int topicCount = counts.getTopicCount();
+
+		final boolean rebuildAll =
+				_builtCounts != counts ||
+				_rowStarts.length != stemCount ||
+				_reusedRow.length != topicCount;
+
+		if (rebuildAll) {
+			_builtCounts = counts;
+			_builtVersions = new int[stemCount];
+			_rowStarts = new int[stemCount];
+			_rowEnds = new int[stemCount];
+			_rowCapacities = new int[stemCount];
+			_reusedRow = new int[topicCount];
+			_size = 0;
+			_gapSize = 0;
+		}
+
+		for (int stemIndex=0; stemIndex<stemCount; stemIndex++) {
+			final int version = counts.getStemVersion(stemIndex);
+			if (rebuildAll || _builtVersions[stemIndex] != version) {
+				buildRow(counts, stemIndex);
+				_builtVersions[stemIndex] = version;
+			}
+		}
+
+		if (_gapSize > _size / 2) {
+			compact();
+		}
+	}
+
+	private void buildRow(LDAGibbsCounts counts, int stemIndex) {
+
+		final int topicCount = _reusedRow.length;
+		counts.getTopicStemRow(stemIndex, _reusedRow);
+
+		int rowLength = 0;
+		for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+			if (_reusedRow[topicIndex] > 0) {
+				rowLength++;
+			}
+		}
+
+		// move the row to the end, if it doesn't fit
+		if (rowLength > _rowCapacities[stemIndex]) {
+			final int capacity = rowLength + rowLength / 4 + 1;
+			ensureStorage(_size + capacity);
+			_gapSize += _rowCapacities[stemIndex];
+			_rowStarts[stemIndex] = _size;
+			_rowCapacities[stemIndex] = capacity;
+			_size += capacity;
+		}
+
+		int pos = _rowStarts[stemIndex];
+		for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+			final int count = _reusedRow[topicIndex];
+			if (count > 0) {
+				_topics[pos] = topicIndex;
+				_counts[pos] = count;
+				pos++;
+			}
+		}
+		_rowEnds[stemIndex] = pos;
+	}
+
+	private void ensureStorage(int capacity) {
+		if (_topics.length < capacity) {
+			final int newCapacity = Math.max(capacity, Math.max(16, _topics.length * 2));
+			_topics = Arrays.copyOf(_topics, newCapacity);
+			_counts = Arrays.copyOf(_counts, newCapacity);
+		}
+	}
+
+	private void compact() {
+
+		final int[] topics = new int[Math.max(16, _size - _gapSize)];
+		final int[] counts = new int[topics.length];
+
+		int pos = 0;
+		for (int stemIndex=0; stemIndex<_rowStarts.length; stemIndex++) {
+			final int rowStart = _rowStarts[stemIndex];
+			final int rowLength = _rowEnds[stemIndex] - rowStart;
+			System.arraycopy(_topics, rowStart, topics, pos, rowLength);
+			System.arraycopy(_counts, rowStart, counts, pos, rowLength);
+			_rowStarts[stemIndex] = pos;
+			_rowEnds[stemIndex] = pos + rowLength;
+			pos += _rowCapacities[stemIndex];
+		}
+		_topics = topics;
+		_counts = counts;
+		_size = pos;
+		_gapSize = 0;
+	}
+
+	/**
+	 * Row start positions in the topics and counts.
+	 */
+	public int[] getRowStarts() {
+		return _rowStarts;
+	}
+
+	/**
+	 * Row end positions (exclusive) in the topics and counts.
+	 */
+	public int[] getRowEnds() {
+		return _rowEnds;
+	}
+
+	public int[] getTopics() {
+		return _topics;
+	}
+
+	public int[] getCounts() {
+		return _counts;
+	}
+
+	/**
+	 * Count of the stem in the topic, as it was when
+	 * the rows were built (rows are sorted by topic).
+	 */
+	public int getCount(int stemIndex, int topicIndex) {
+		final int pos = Arrays.binarySearch(_topics, _rowStarts[stemIndex], _rowEnds[stemIndex], topicIndex);
+		return pos >= 0 ? _counts[pos] : 0;
+	}
+
+}
@@ -8,8 +8,8 @@ import java.util.Map;
 
 import me.akuz.core.Pair;
 import me.akuz.nlp.corpus.Corpus;
-import me.akuz.nlp.corpus.CorpusDoc;
-import me.akuz.nlp.corpus.CorpusPlace;
+import me.akuz.nlp.corpus.CorpusListView;
+import me.akuz.nlp.corpus.CorpusView;
 
 /**
  * Unstemmer for the LDA algo, for collecting topic-specific
@@ -18,39 +18,36 @@ import me.akuz.nlp.corpus.CorpusPlace;
  */
 public final class LDAGibbsUnstemmer {
 	
-	private final Corpus _corpus;
+	private final CorpusView _corpus;
 	private final Map<Integer, Map<Integer, List<Pair<Integer, Integer>>>> _topicStemWordCounts;
 	private Map<Integer, Map<Integer, Integer>> _optimizedTopicStemWord;
 	
 	public LDAGibbsUnstemmer(Corpus corpus) {
+		this(new CorpusListView(corpus));
+	}
+	
+	public LDAGibbsUnstemmer(CorpusView corpus) {
 		_corpus = corpus;
 		_topicStemWordCounts = new HashMap<Integer, Map<Integer,List<Pair<Integer,Integer>>>>();
 	}
 	
 	public void sample() {
 
-		List<CorpusDoc> docs = _corpus.getDocs();
-		
 		// gather original word counts by topic
-		for (int docIndex=0; docIndex<docs.size(); docIndex++) {
+		for (int docIndex=0; docIndex<_corpus.getDocCount(); docIndex++) {
 			
-			CorpusDoc doc = docs.get(docIndex);
-			List<CorpusPlace> places = doc.getPlaces();
+			final int docEnd = _corpus.getDocEnd(docIndex);
 			
-			for (int placeIndex=0; placeIndex<places.size(); placeIndex++) {
+			for (int placeIndex=_corpus.getDocStart(docIndex); placeIndex<docEnd; placeIndex++) {
 				
-				CorpusPlace place = places.get(placeIndex);
+				int stemIndex = _corpus.getStemIndex(placeIndex);
+				int wordIndex = _corpus.getWordIndex(placeIndex);
 				
-				int stemIndex = place.getStemIndex();
-				int wordIndex = place.getWordIndex();
-				
-				int[] tag = (int[])place.getTag();
-				if (tag == null) {
+				int topicIndex = _corpus.getPlaceState(placeIndex, 0);
+				if (topicIndex < 0) {
 					throw new IllegalStateException("No topic assigned to the corpus place, please iterate first");
 				}
 				
-				int topicIndex = tag[0];
-				
 				Map<Integer, List<Pair<Integer, Integer>>> stemWordCountsMap = 
 					_topicStemWordCounts.get(topicIndex);
 				
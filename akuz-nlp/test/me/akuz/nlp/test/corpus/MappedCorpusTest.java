@@ -0,0 +1,174 @@
+package me.akuz.nlp.test.corpus;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import me.akuz.nlp.corpus.CorpusFileWriter;
+import me.akuz.nlp.corpus.CorpusView;
+import me.akuz.nlp.corpus.MappedCorpus;
+import me.akuz.nlp.corpus.PackedCorpus;
+import me.akuz.nlp.test.topics.LDAGibbsTestCorpus;
+import me.akuz.nlp.topics.LDAGibbs;
+import me.akuz.nlp.topics.LDAGibbsAlpha;
+import me.akuz.nlp.topics.LDAGibbsBeta;
+import me.akuz.nlp.topics.LDAGibbsTopic;
+
+import org.junit.Test;
+
+public final class MappedCorpusTest {
+	
+	@Test
+	public void testWriteAndMap() throws IOException {
+		
+		PackedCorpus packed = PackedCorpus.pack(LDAGibbsTestCorpus.createCorpus(7));
+		
+		File file = File.createTempFile("corpus", ".bin");
+		try {
+			CorpusFileWriter.write(packed, file.getPath());
+			MappedCorpus mapped = new MappedCorpus(file.getPath());
+			try {
+				checkSame(packed, mapped);
+				
+				List<LDAGibbsTopic> topics = LDAGibbsTestCorpus.createTopics();
+				LDAGibbsAlpha alpha = new LDAGibbsAlpha(mapped, topics);
+				LDAGibbsBeta beta = new LDAGibbsBeta(mapped, topics);
+				alpha.setTemperature(0.5);
+				beta.setTemperature(0.5);
+				LDAGibbs lda = new LDAGibbs(null, mapped, topics, alpha, beta, 1);
+				lda.run(0, 2);
+				lda.terminate();
+				for (int placeIndex=0; placeIndex<mapped.getPlaceCount(); placeIndex++) {
+					if (mapped.getPlaceState(placeIndex, 0) < 0) {
+						throw new IllegalStateException("Place " + placeIndex + " has no topic");
+					}
+				}
+			} finally {
+				mapped.close();
+			}
+		} finally {
+			file.delete();
+		}
+	}
+	
+	@Test
+	public void testStreamingWriter() throws IOException {
+		
+		File file = File.createTempFile("corpus", ".bin");
+		try {
+			CorpusFileWriter writer = new CorpusFileWriter(file.getPath());
+			writer.addPlace("quick", "quick");
+			writer.addPlace("fox", "foxes");
+			writer.endDoc();
+			writer.endDoc();
+			writer.addPlace("fox", "fox");
+			writer.addPlace("été", "été");
+			writer.endDoc();
+			writer.close();
+			
+			MappedCorpus mapped = new MappedCorpus(file.getPath());
+			try {
+				if (mapped.getDocCount() != 3 || mapped.getPlaceCount() != 4) {
+					throw new IllegalStateException("Wrong corpus size");
+				}
+				if (mapped.getDocStart(1) != mapped.getDocEnd(1)) {
+					throw new IllegalStateException("Doc 1 should be empty");
+				}
+				if (mapped.getStemIndex(1) != mapped.getStemIndex(2) ||
+					mapped.getWordIndex(1) == mapped.getWordIndex(2)) {
+					throw new IllegalStateException("Wrong stem or word indices");
+				}
+				if (!"été".equals(mapped.getStemsIndex().getValue(mapped.getStemIndex(3)))) {
+					throw new IllegalStateException("Wrong stem");
+				}
+			} finally {
+				mapped.close();
+			}
+			
+			// unfinished document is an error
+			writer = new CorpusFileWriter(file.getPath());
+			writer.addPlace("fox", "fox");
+			try {
+				writer.close();
+				throw new IllegalStateException("Expected an exception");
+			} catch (IllegalStateException ex) {
+				if (ex.getMessage().startsWith("Expected")) {
+					throw ex;
+				}
+			}
+			if (!file.exists() || new File(file.getPath() + ".tmp").exists()) {
+				throw new IllegalStateException("Previous file should be kept, temporary file deleted");
+			}
+		} finally {
+			file.delete();
+		}
+	}
+	
+	@Test
+	public void testPlaceStatesFile() throws IOException {
+		
+		PackedCorpus packed = PackedCorpus.pack(LDAGibbsTestCorpus.createCorpus(8));
+		
+		File file = File.createTempFile("corpus", ".bin");
+		File statesDir = Files.createTempDirectory("corpus-states").toFile();
+		try {
+			CorpusFileWriter.write(packed, file.getPath());
+			MappedCorpus mapped = new MappedCorpus(file.getPath(), statesDir);
+			try {
+				if (statesDir.list().length != 1) {
+					throw new IllegalStateException("Place states file should be created");
+				}
+				final int placeCount = mapped.getPlaceCount();
+				for (int placeIndex=0; placeIndex<placeCount; placeIndex++) {
+					if (mapped.getPlaceState(placeIndex, 0) != -1 ||
+						mapped.getPlaceState(placeIndex, 1) != -1) {
+						throw new IllegalStateException("Place state should be initially -1");
+					}
+					mapped.setPlaceState(placeIndex, 0, placeIndex);
+					mapped.setPlaceState(placeIndex, 1, -placeIndex);
+				}
+				for (int placeIndex=0; placeIndex<placeCount; placeIndex++) {
+					if (mapped.getPlaceState(placeIndex, 0) != placeIndex ||
+						mapped.getPlaceState(placeIndex, 1) != -placeIndex) {
+						throw new IllegalStateException("Place " + placeIndex + " state mismatch");
+					}
+				}
+				mapped.clearPlaceStates();
+				if (mapped.getPlaceState(placeCount-1, 1) != -1) {
+					throw new IllegalStateException("Place state should be cleared");
+				}
+			} finally {
+				mapped.close();
+			}
+			if (statesDir.list().length != 0) {
+				throw new IllegalStateException("Place states file should be deleted on close");
+			}
+		} finally {
+			file.delete();
+			statesDir.delete();
+		}
+	}
+	
+	private static void checkSame(CorpusView expected, CorpusView actual) {
+		if (expected.getDocCount() != actual.getDocCount() ||
+			expected.getPlaceCount() != actual.getPlaceCount() ||
+			!expected.getStemsIndex().getList().equals(actual.getStemsIndex().getList()) ||
+			!expected.getWordsIndex().getList().equals(actual.getWordsIndex().getList())) {
+			throw new IllegalStateException("Corpus dimensions or dictionaries mismatch");
+		}
+		for (int docIndex=0; docIndex<expected.getDocCount(); docIndex++) {
+			if (expected.getDocStart(docIndex) != actual.getDocStart(docIndex) ||
+				expected.getDocEnd(docIndex) != actual.getDocEnd(docIndex)) {
+				throw new IllegalStateException("Doc " + docIndex + " offsets mismatch");
+			}
+		}
+		for (int placeIndex=0; placeIndex<expected.getPlaceCount(); placeIndex++) {
+			if (expected.getStemIndex(placeIndex) != actual.getStemIndex(placeIndex) ||
+				expected.getWordIndex(placeIndex) != actual.getWordIndex(placeIndex)) {
+				throw new IllegalStateException("Place " + placeIndex + " mismatch");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+package me.akuz.nlp.test.corpus;
+
+import java.util.List;
+
+import me.akuz.nlp.corpus.Corpus;
+import me.akuz.nlp.corpus.CorpusDoc;
+import me.akuz.nlp.corpus.CorpusPlace;
+import me.akuz.nlp.corpus.PackedCorpus;
+import me.akuz.nlp.test.topics.LDAGibbsTestCorpus;
+import me.akuz.nlp.topics.LDAGibbs;
+import me.akuz.nlp.topics.LDAGibbsAlpha;
+import me.akuz.nlp.topics.LDAGibbsBeta;
+import me.akuz.nlp.topics.LDAGibbsCounts;
+import me.akuz.nlp.topics.LDAGibbsCountsDense;
+import me.akuz.nlp.topics.LDAGibbsCountsLayout;
+import me.akuz.nlp.topics.LDAGibbsTopic;
+import me.akuz.nlp.topics.LDAGibbsUnstemmer;
+
+import org.junit.Test;
+
+public final class PackedCorpusTest {
+	
+	@Test
+	public void testPackLayout() {
+		
+		Corpus corpus = LDAGibbsTestCorpus.createCorpus(5);
+		PackedCorpus packed = PackedCorpus.pack(corpus);
+		
+		if (packed.getDocCount() != corpus.getDocCount()) {
+			throw new IllegalStateException("Doc count mismatch");
+		}
+		if (packed.getPlaceCount() != corpus.getPlaceCount()) {
+			throw new IllegalStateException("Place count mismatch");
+		}
+		for (int docIndex=0; docIndex<corpus.getDocCount(); docIndex++) {
+			List<CorpusPlace> places = corpus.getDocs().get(docIndex).getPlaces();
+			final int docStart = packed.getDocStart(docIndex);
+			if (packed.getDocEnd(docIndex) - docStart != places.size()) {
+				throw new IllegalStateException("Doc " + docIndex + " length mismatch");
+			}
+			for (int i=0; i<places.size(); i++) {
+				if (packed.getStemIndex(docStart + i) != places.get(i).getStemIndex() ||
+					packed.getWordIndex(docStart + i) != places.get(i).getWordIndex()) {
+					throw new IllegalStateException("Doc " + docIndex + " place " + i + " mismatch");
+				}
+				if (packed.getPlaceState(docStart + i, 0) != -1 ||
+					packed.getPlaceState(docStart + i, 1) != -1) {
+					throw new IllegalStateException("Place state should be initially -1");
+				}
+			}
+		}
+		
+		// empty documents are allowed
+		PackedCorpus small = new PackedCorpus(corpus.getStemsIndex(), corpus.getWordsIndex(), 1, 1);
+		small.endDoc();
+		small.addPlace(1, 2);
+		small.addPlace(3, 4);
+		small.endDoc();
+		small.trimToSize();
+		if (small.getDocCount() != 2 ||
+			small.getDocEnd(0) != 0 ||
+			small.getDocStart(1) != 0 ||
+			small.getDocEnd(1) != 2 ||
+			small.getWordIndex(1) != 4) {
+			throw new IllegalStateException("Small corpus layout mismatch");
+		}
+	}
+	
+	@Test
+	public void testAddAfterTrimEmpty() {
+		
+		Corpus corpus = LDAGibbsTestCorpus.createCorpus(5);
+		PackedCorpus empty = new PackedCorpus(corpus.getStemsIndex(), corpus.getWordsIndex());
+		empty.trimToSize();
+		empty.addPlace(1, 2);
+		empty.addPlace(3, 4);
+		empty.endDoc();
+		if (empty.getDocCount() != 1 ||
+			empty.getPlaceCount() != 2 ||
+			empty.getStemIndex(1) != 3 ||
+			empty.getPlaceState(1, 0) != -1) {
+			throw new IllegalStateException("Corpus layout mismatch after trimming an empty corpus");
+		}
+	}
+	
+	@Test
+	public void testLDAGibbsOnPackedCorpus() {
+		
+		Corpus corpus = LDAGibbsTestCorpus.createCorpus(6);
+		PackedCorpus packed = PackedCorpus.pack(corpus);
+		List<LDAGibbsTopic> topics = LDAGibbsTestCorpus.createTopics();
+		final int topicCount = topics.size();
+		final int stemCount = packed.getStemsIndex().size();
+		
+		LDAGibbsAlpha alpha = new LDAGibbsAlpha(packed, topics);
+		LDAGibbsBeta beta = new LDAGibbsBeta(packed, topics);
+		alpha.setTemperature(0.5);
+		beta.setTemperature(0.5);
+		
+		LDAGibbsCounts counts = new LDAGibbsCountsDense(packed.getDocCount(), topicCount, stemCount, LDAGibbsCountsLayout.DocMajor);
+		LDAGibbs lda = new LDAGibbs(null, packed, topics, alpha, beta, 2, counts);
+		lda.run(0, 3);
+		lda.terminate();
+		
+		LDAGibbsUnstemmer unstemmer = new LDAGibbsUnstemmer(packed);
+		unstemmer.sample();
+		unstemmer.optimize();
+		
+		// recalculate counts from the allocations
+		int[] topic = new int[topicCount];
+		for (int docIndex=0; docIndex<packed.getDocCount(); docIndex++) {
+			int[] docTopic = new int[topicCount];
+			for (int placeIndex=packed.getDocStart(docIndex); placeIndex<packed.getDocEnd(docIndex); placeIndex++) {
+				int topicIndex = packed.getPlaceState(placeIndex, 0);
+				docTopic[topicIndex]++;
+				topic[topicIndex]++;
+			}
+			for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+				if (docTopic[topicIndex] != counts.getDocTopic(docIndex, topicIndex)) {
+					throw new IllegalStateException("Doc " + docIndex + " topic " + topicIndex + " count mismatch");
+				}
+			}
+		}
+		for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+			if (topic[topicIndex] != counts.getTopic(topicIndex)) {
+				throw new IllegalStateException("Topic " + topicIndex + " count mismatch");
+			}
+		}
+		
+		// the list corpus is not touched by the packed sampling
+		for (CorpusDoc doc : corpus.getDocs()) {
+			for (CorpusPlace place : doc.getPlaces()) {
+				if (place.getTag() != null) {
+					throw new IllegalStateException("List corpus place should not have a tag");
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+package me.akuz.nlp.test.detect;
+
+import java.util.List;
+import java.util.Map;
+
+import me.akuz.core.Hit;
+import me.akuz.nlp.detect.EntitiesDetector;
+import me.akuz.nlp.detect.EntitiesDetectorEngine;
+import me.akuz.nlp.ontology.EntityModel;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+public final class EntitiesDetectorTest {
+
+	private static JsonObject createEntity(String stem, String... regx) {
+		JsonObject entity = new JsonObject();
+		entity.addProperty("name", stem);
+		entity.addProperty("stem", stem);
+		if (regx.length > 0) {
+			JsonArray arr = new JsonArray();
+			for (String pattern : regx) {
+				arr.add(new JsonPrimitive(pattern));
+			}
+			entity.add("regx", arr);
+		}
+		return entity;
+	}
+
+	private static EntityModel createSmallModel() {
+		JsonArray entities = new JsonArray();
+		entities.add(createEntity("new"));                        // 0
+		entities.add(createEntity("new york"));                   // 1
+		entities.add(createEntity("york city"));                  // 2
+		entities.add(createEntity("usd", "\\$\\s*\\d+", "(us )?dollars?")); // 3
+		entities.add(createEntity("u.s."));                       // 4
+		entities.add(createEntity("york"));                       // 5
+		entities.add(createEntity("c++"));                        // 6
+		entities.add(createEntity("new york city"));              // 7
+		EntityModel entityModel = new EntityModel();
+		entityModel.addEntities(entities);
+		return entityModel;
+	}
+
+	private static void checkSame(Map<Integer, List<Hit>> expected, Map<Integer, List<Hit>> actual, String str) {
+		if (expected == null || actual == null) {
+			if (expected != actual) {
+				throw new IllegalStateException("Hits differ for \"" + str + "\": " + expected + " vs " + actual);
+			}
+			return;
+		}
+		if (expected.equals(actual) == false) {
+			throw new IllegalStateException("Hits differ for \"" + str + "\": " + expected + " vs " + actual);
+		}
+	}
+
+	private static void checkHits(Map<Integer, List<Hit>> hits, int entityIndex, int... startEnd) {
+		List<Hit> list = hits != null ? hits.get(entityIndex) : null;
+		int count = list != null ? list.size() : 0;
+		if (count * 2 != startEnd.length) {
+			throw new IllegalStateException("Expected " + (startEnd.length / 2) + " hits for entity " + entityIndex + ", got " + list);
+		}
+		for (int i=0; i<count; i++) {
+			if (list.get(i).start() != startEnd[2*i] || list.get(i).end() != startEnd[2*i+1]) {
+				throw new IllegalStateException("Unexpected hit for entity " + entityIndex + ": " + list.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testSameHits() {
+
+		String[] strs = new String[] {
+			"new york city is in new york, not in newark",
+			"renew yorkshire; york city, new",
+			"I paid $ 100 and 5 US dollars, not usd.",
+			"the u.s. and U.S. and uxsx use c++ and c++x",
+			"NEW YORK CITY, New York",
+			"",
+			"no entities here",
+		};
+
+		for (int ci=0; ci<2; ci++) {
+
+			final boolean caseInsensitive = ci > 0;
+			EntitiesDetector regexDetector = new EntitiesDetector(null, createSmallModel(), caseInsensitive, EntitiesDetectorEngine.Regex);
+			EntitiesDetector trieDetector = new EntitiesDetector(null, createSmallModel(), caseInsensitive, EntitiesDetectorEngine.AhoCorasick);
+
+			for (String str : strs) {
+				checkSame(
+					regexDetector.extractHitsByEntityIndex(str, new Hit(str)),
+					trieDetector.extractHitsByEntityIndex(str, new Hit(str)),
+					str);
+
+				// sub-region bounds
+				if (str.length() > 6) {
+					Hit bounds = new Hit(3, str.length() - 3);
+					checkSame(
+						regexDetector.extractHitsByEntityIndex(str, bounds),
+						trieDetector.extractHitsByEntityIndex(str, bounds),
+						str);
+				}
+			}
+		}
+
+		EntitiesDetector detector = new EntitiesDetector(null, createSmallModel(), false, EntitiesDetectorEngine.AhoCorasick);
+
+		// earlier entity wins at the same start
+		String str = "new york city is in new york, not in newark";
+		Map<Integer, List<Hit>> hits = detector.extractHitsByEntityIndex(str, new Hit(str));
+		checkHits(hits, 0, 0, 3, 20, 23);
+		checkHits(hits, 1);
+		checkHits(hits, 2, 4, 13);
+		checkHits(hits, 5, 24, 28);
+		checkHits(hits, 7);
+
+		// regx entity and non-literal stems
+		str = "I paid $ 100 and 5 US dollars, not usd; the u.s. and uxsx";
+		hits = detector.extractHitsByEntityIndex(str, new Hit(str));
+		checkHits(hits, 3, 7, 12, 22, 29, 35, 38);
+		checkHits(hits, 4, 44, 48, 53, 57);
+	}
+
+}
@@ -0,0 +1,156 @@
+package me.akuz.nlp.test.detect;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import me.akuz.core.Pair;
+import me.akuz.core.math.MatrixUtils;
+import me.akuz.core.math.StatsUtils;
+import me.akuz.nlp.corpus.Corpus;
+import me.akuz.nlp.corpus.CorpusDoc;
+import me.akuz.nlp.corpus.CorpusPlace;
+import me.akuz.nlp.corpus.PackedCorpus;
+import me.akuz.nlp.detect.TopicsBatchDetector;
+import me.akuz.nlp.detect.TopicsDetector;
+import me.akuz.nlp.ontology.TopicModel;
+import me.akuz.nlp.test.topics.LDAGibbsTestCorpus;
+
+import org.junit.Test;
+
+import Jama.Matrix;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+public final class TopicsBatchDetectorTest {
+	
+	private static final int DOC_COUNT = 300;
+	private static final int TOPIC_COUNT = 50;
+	private static final int TOPIC_WORD_COUNT = 100;
+	private static final double ALPHA = 1.1;
+	private static final int MAX_ITERATIONS = 20;
+	private static final double STOP_DELTA_LOG_LIKE = 0.0001;
+	
+	private static TopicModel createTopicModel(long seed) {
+		Random rnd = new Random(seed);
+		JsonArray topicList = new JsonArray();
+		for (int topicIndex=0; topicIndex<TOPIC_COUNT; topicIndex++) {
+			JsonObject topic = new JsonObject();
+			topic.addProperty("stem", "t" + topicIndex);
+			topic.addProperty("prob", 0.5 + rnd.nextDouble());
+			JsonArray words = new JsonArray();
+			for (int w=0; w<TOPIC_WORD_COUNT; w++) {
+				// only part of corpus stems are in the model
+				int stemIndex = rnd.nextInt(1500);
+				JsonObject word = new JsonObject();
+				word.addProperty("word", "w" + stemIndex);
+				word.addProperty("stem", "s" + stemIndex);
+				word.addProperty("prob", rnd.nextDouble());
+				words.add(word);
+			}
+			topic.add("words", words);
+			topicList.add(topic);
+		}
+		return new TopicModel(topicList);
+	}
+	
+	/**
+	 * Straightforward EM, without caching, for checking the detector.
+	 */
+	private static double[] referenceDocTopicProbs(TopicModel model, Corpus corpus, CorpusDoc doc) {
+		Matrix mStemTopicProb = model.getStemTopicProb();
+		double[] mTopicProb = MatrixUtils.columnToArray(model.getTopicProb(), 0);
+		List<CorpusPlace> places = doc.getPlaces();
+		double[][] placeTopicProbs = new double[places.size()][];
+		double prevLogLike = Double.NaN;
+		for (int iter=1; ; iter++) {
+			double currLogLike = 0;
+			for (int topicIndex=0; topicIndex<TOPIC_COUNT; topicIndex++) {
+				currLogLike += (ALPHA - 1.0) * Math.log(mTopicProb[topicIndex]);
+			}
+			for (int j=0; j<places.size(); j++) {
+				String stem = corpus.getStemsIndex().getValue(places.get(j).getStemIndex());
+				Integer modelStemIndex = model.getStemsIndex().getIndex(stem);
+				if (modelStemIndex == null) {
+					continue;
+				}
+				double[] probs = new double[TOPIC_COUNT];
+				for (int topicIndex=0; topicIndex<TOPIC_COUNT; topicIndex++) {
+					probs[topicIndex] = Math.log(mTopicProb[topicIndex]) + Math.log(mStemTopicProb.get(modelStemIndex, topicIndex));
+				}
+				currLogLike += StatsUtils.logSumExp(probs);
+				StatsUtils.logLikesToProbsInPlace(probs);
+				placeTopicProbs[j] = probs;
+			}
+			if (Double.isInfinite(currLogLike) ||
+				(!Double.isNaN(prevLogLike) && (currLogLike < prevLogLike || Math.abs(currLogLike - prevLogLike) < STOP_DELTA_LOG_LIKE)) ||
+				iter >= MAX_ITERATIONS) {
+				break;
+			}
+			Arrays.fill(mTopicProb, ALPHA);
+			for (int j=0; j<places.size(); j++) {
+				if (placeTopicProbs[j] != null) {
+					for (int topicIndex=0; topicIndex<TOPIC_COUNT; topicIndex++) {
+						mTopicProb[topicIndex] += placeTopicProbs[j][topicIndex];
+					}
+				}
+			}
+			StatsUtils.normalizeInPlace(mTopicProb);
+			prevLogLike = currLogLike;
+		}
+		return mTopicProb;
+	}
+	
+	@Test
+	public void testBatchDetector() {
+		
+		Corpus fullCorpus = LDAGibbsTestCorpus.createCorpus(9);
+		Corpus corpus = new Corpus(fullCorpus.getStemsIndex(), fullCorpus.getWordsIndex());
+		for (int docIndex=0; docIndex<DOC_COUNT; docIndex++) {
+			corpus.addDoc(fullCorpus.getDocs().get(docIndex));
+		}
+		PackedCorpus packed = PackedCorpus.pack(corpus);
+		TopicModel model = createTopicModel(9);
+		TopicsDetector detector = new TopicsDetector(null, corpus.getStemsIndex(), model, ALPHA, MAX_ITERATIONS, STOP_DELTA_LOG_LIKE, 5);
+		
+		// same as the straightforward calculation
+		for (int docIndex=0; docIndex<20; docIndex++) {
+			double[] expected = referenceDocTopicProbs(model, corpus, corpus.getDocs().get(docIndex));
+			double[] actual = detector.execute(packed, docIndex);
+			for (int topicIndex=0; topicIndex<TOPIC_COUNT; topicIndex++) {
+				if (Math.abs(expected[topicIndex] - actual[topicIndex]) > 1e-12) {
+					throw new IllegalStateException("Doc " + docIndex + " topic " + topicIndex + " prob mismatch");
+				}
+			}
+		}
+		
+		// batch on several threads gives the same results
+		TopicsBatchDetector batchDetector = new TopicsBatchDetector(detector, 3);
+		try {
+			double[][] batchProbs = batchDetector.execute(packed, 0, packed.getDocCount());
+			for (int docIndex=0; docIndex<packed.getDocCount(); docIndex++) {
+				if (!Arrays.equals(batchProbs[docIndex], detector.execute(packed, docIndex))) {
+					throw new IllegalStateException("Doc " + docIndex + " batch probs mismatch");
+				}
+			}
+			
+			batchDetector.execute(corpus.getDocs());
+			for (int docIndex=0; docIndex<corpus.getDocCount(); docIndex++) {
+				List<CorpusPlace> places = corpus.getDocs().get(docIndex).getPlaces();
+				int docStart = packed.getDocStart(docIndex);
+				for (int j=0; j<places.size(); j++) {
+					@SuppressWarnings("unchecked")
+					List<Pair<Integer, Double>> placeTopics = (List<Pair<Integer, Double>>)places.get(j).getTag();
+					int expectedTopicIndex = placeTopics == null ? -1 : placeTopics.get(0).v1();
+					if (expectedTopicIndex != packed.getPlaceState(docStart + j, 0)) {
+						throw new IllegalStateException("Doc " + docIndex + " place " + j + " top topic mismatch");
+					}
+				}
+			}
+		} finally {
+			batchDetector.terminate();
+		}
+	}
+
+}
@@ -0,0 +1,133 @@
+package me.akuz.nlp.test.detect;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import me.akuz.core.HashIndex;
+import me.akuz.core.Hit;
+import me.akuz.core.Index;
+import me.akuz.nlp.detect.WordsTokenBuffer;
+import me.akuz.nlp.detect.WordsTokenizer;
+import me.akuz.nlp.porter.PorterStemmer;
+
+import org.junit.Test;
+
+public final class WordsTokenizerTest {
+
+	private static final String CHARS = "aAbBsdlxyzQ019_ .-'\u2019,;()#@\t\n\u00e9";
+	private static final int FUZZ_TEXT_COUNT = 3000;
+
+	// the regular expressions previously used by WordsDetector
+	private static final String _simpleWord = "(?:(?:[a-zA-Z]\\w{1,20})|(?:\\w{1,20}[a-zA-Z]))";
+	private static final String _wordSuffixS = "(?:['\u2019]s)";
+	private static final String _wordSuffixAll = "(?:['\u2019](?:s|d|ll))";
+	private static final Pattern _patternWordCandidate = Pattern.compile("\\S{1,50}");
+	private static final Pattern _patternWordSimple = Pattern.compile(
+			"^(\\W*)(" + _simpleWord + ")(" + _wordSuffixAll + "*\\W*)$");
+	private static final Pattern _patternWordComposite = Pattern.compile(
+			"^(\\W*)(" + _simpleWord + ")-(" + _simpleWord + ")(" + _wordSuffixAll + "*\\W*)$");
+	private static final Pattern _patternAbbrev = Pattern.compile(
+			"^(\\W*)([a-zA-Z]\\w{0,20}[.](?:\\w{1,20}[.]?)+)(" + _wordSuffixS + "*\\W*)$");
+
+	/**
+	 * Reference regex-based tokenization, returns "stem@start:end" strings.
+	 */
+	private static List<String> tokenizeWithRegex(PorterStemmer porterStemmer, Set<String> stopStems, String str, Hit bounds) {
+		List<String> result = new ArrayList<>();
+		Matcher blockMatcher = _patternWordCandidate.matcher(str);
+		blockMatcher.region(bounds.start(), bounds.end());
+		while (blockMatcher.find()) {
+			String block = blockMatcher.group();
+			final int offset = blockMatcher.start();
+			Matcher matcher = _patternWordSimple.matcher(block);
+			if (matcher.find()) {
+				addReference(result, stopStems, porterStemmer.stem(matcher.group(2)), offset + matcher.start(2), offset + matcher.end(2));
+				continue;
+			}
+			matcher = _patternWordComposite.matcher(block);
+			if (matcher.find()) {
+				addReference(result, stopStems, porterStemmer.stem(matcher.group(2)), offset + matcher.start(2), offset + matcher.end(2));
+				addReference(result, stopStems, porterStemmer.stem(matcher.group(3)), offset + matcher.start(3), offset + matcher.end(3));
+				continue;
+			}
+			matcher = _patternAbbrev.matcher(block);
+			if (matcher.find()) {
+				addReference(result, stopStems, matcher.group(2).toLowerCase(), offset + matcher.start(2), offset + matcher.end(2));
+			}
+		}
+		return result;
+	}
+
+	private static void addReference(List<String> result, Set<String> stopStems, String stem, int start, int end) {
+		if (stopStems.contains(stem) == false) {
+			result.add(stem + "@" + start + ":" + end);
+		}
+	}
+
+	private static List<String> tokenize(WordsTokenizer tokenizer, WordsTokenBuffer tokens, String str, Hit bounds) {
+		tokens.clear();
+		tokenizer.tokenize(str, bounds, tokens);
+		List<String> result = new ArrayList<>();
+		for (int i=0; i<tokens.size(); i++) {
+			String stem = tokenizer.getStemsIndex().getValue(tokens.getStemId(i));
+			String word = tokenizer.getWordsIndex().getValue(tokens.getWordId(i));
+			if (word.equals(str.substring(tokens.getStart(i), tokens.getEnd(i))) == false) {
+				throw new IllegalStateException("Word index doesn't match the token: " + word);
+			}
+			result.add(stem + "@" + tokens.getStart(i) + ":" + tokens.getEnd(i));
+		}
+		return result;
+	}
+
+	@Test
+	public void testSameAsRegex() {
+
+		PorterStemmer porterStemmer = new PorterStemmer();
+		Set<String> stopStems = new HashSet<>();
+		stopStems.add("the");
+		stopStems.add("ab");
+
+		Index<String> stemsIndex = new HashIndex<>();
+		Index<String> wordsIndex = new HashIndex<>();
+		WordsTokenizer tokenizer = new WordsTokenizer(porterStemmer, stopStems, stemsIndex, wordsIndex);
+		WordsTokenBuffer tokens = new WordsTokenBuffer(4);
+
+		List<String> strs = new ArrayList<>();
+		strs.add("Wow wowed self-made web2.0 www..2 127,199.00 www.readrz.com 2x-go #whatever_tag u.s. @to-them2 ((aa9--a0!!");
+		strs.add("We'd take the abstract view. John's dog, we'll see; it's U.S.'s e.g., a.b..c x.y'x");
+		strs.add("rock'n'roll state-of-the-art 1990s 1990 _foo a caf\u00e9 na\u00efve \u2019twas it\u2019s");
+		strs.add("aaaaaaaaaaaaaaaaaaaaa bbbbbbbbbbbbbbbbbbbbbb ccccccccccccccccccccccccccccccccccccccccccccccccccccccccccccccccccc");
+		strs.add("x\uD83D\uDE00yyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyyy ab the");
+
+		Random rnd = new Random(1);
+		for (int t=0; t<FUZZ_TEXT_COUNT; t++) {
+			final int length = rnd.nextInt(80);
+			StringBuilder sb = new StringBuilder();
+			for (int i=0; i<length; i++) {
+				sb.append(CHARS.charAt(rnd.nextInt(CHARS.length())));
+			}
+			strs.add(sb.toString());
+		}
+
+		for (String str : strs) {
+			List<Hit> boundsList = new ArrayList<>();
+			boundsList.add(new Hit(str));
+			if (str.length() > 10) {
+				boundsList.add(new Hit(3, str.length() - 4));
+			}
+			for (Hit bounds : boundsList) {
+				List<String> expected = tokenizeWithRegex(porterStemmer, stopStems, str, bounds);
+				List<String> actual = tokenize(tokenizer, tokens, str, bounds);
+				if (expected.equals(actual) == false) {
+					throw new IllegalStateException("Tokens differ for \"" + str + "\" " + bounds + ": " + expected + " vs " + actual);
+				}
+			}
+		}
+	}
+
+}
@@ -118,4 +118,25 @@ public final class WordsParserTest {
 			throw new IllegalStateException("Invalid words parsing 12 (" + out.size() + "): " + StringUtils.collectionToString(out.keySet(), ", "));
 		}
 	}
+	
+	@Test
+	public void testClear() {
+		
+		WordsDetector wp = new WordsDetector(new PorterStemmer());
+		
+		String str = "Wow wowed self-made web2.0";
+		Map<String, List<Hit>> out1 = wp.extractHitsByStem(str, null);
+		if (wp.getStemCount() != 4) {
+			throw new IllegalStateException("Invalid stem count before clear (" + wp.getStemCount() + ")");
+		}
+		
+		wp.clear();
+		if (wp.getStemCount() != 0) {
+			throw new IllegalStateException("Invalid stem count after clear (" + wp.getStemCount() + ")");
+		}
+		Map<String, List<Hit>> out2 = wp.extractHitsByStem(str, null);
+		if (out1.equals(out2) == false) {
+			throw new IllegalStateException("Hits differ after clear: " + out1 + " vs " + out2);
+		}
+	}
 }
@@ -0,0 +1,109 @@
+package me.akuz.nlp.test.porter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import me.akuz.nlp.porter.PorterStemCache;
+import me.akuz.nlp.porter.PorterStemmer;
+import me.akuz.nlp.porter.PorterStemmerOrig;
+import me.akuz.nlp.porter.PorterStemmerOrigUtils;
+
+import org.junit.Test;
+
+public final class PorterStemmerTest {
+
+	private static final int VOCAB_SIZE = 20000;
+	private static final int CACHE_CAPACITY = 2000;
+	private static final int THREAD_COUNT = 4;
+	private static final int WORDS_PER_THREAD = 50000;
+
+	private static String[] createVocab() {
+		Random rnd = new Random(1);
+		String[] vocab = new String[VOCAB_SIZE];
+		for (int i=0; i<vocab.length; i++) {
+			StringBuilder sb = new StringBuilder();
+			final int length = 3 + rnd.nextInt(8);
+			for (int k=0; k<length; k++) {
+				sb.append((char)('a' + rnd.nextInt(26)));
+			}
+			// common english endings
+			switch (rnd.nextInt(4)) {
+			case 0: sb.append("ing"); break;
+			case 1: sb.append("ed"); break;
+			case 2: sb.append("s"); break;
+			default: break;
+			}
+			vocab[i] = sb.toString();
+		}
+		return vocab;
+	}
+
+	@Test
+	public void testConcurrentCachedStemming() throws Exception {
+
+		final String[] vocab = createVocab();
+		final PorterStemmer porterStemmer = new PorterStemmer("_", CACHE_CAPACITY);
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t=0; t<THREAD_COUNT; t++) {
+				final long seed = t;
+				futures.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						// each thread checks against its own uncached stemmer
+						PorterStemmerOrig reference = new PorterStemmerOrig();
+						Random rnd = new Random(seed);
+						for (int i=0; i<WORDS_PER_THREAD; i++) {
+							// zipfian-like word frequencies
+							final int index = (int)Math.floor(vocab.length * Math.pow(rnd.nextDouble(), 8));
+							final String word = vocab[index];
+							final String expected = PorterStemmerOrigUtils.stem(reference, word, "_");
+							final String actual = porterStemmer.stem(word);
+							if (expected.equals(actual) == false) {
+								throw new IllegalStateException("Stem of " + word + " is " + actual + ", expected " + expected);
+							}
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		PorterStemCache cache = porterStemmer.getCache();
+		final long lookupCount = cache.getHitCount() + cache.getMissCount();
+		if (lookupCount != THREAD_COUNT * WORDS_PER_THREAD) {
+			throw new IllegalStateException("Unexpected number of lookups: " + lookupCount);
+		}
+		if (cache.getHitRate() < 0.5) {
+			throw new IllegalStateException("Hit rate is too low: " + cache.getHitRate());
+		}
+		if (cache.getEvictionCount() == 0) {
+			throw new IllegalStateException("Expected entries to be evicted");
+		}
+		if (cache.size() > CACHE_CAPACITY + THREAD_COUNT) {
+			throw new IllegalStateException("Cache is over capacity: " + cache.size());
+		}
+	}
+
+	@Test
+	public void testNoCache() {
+		PorterStemmer porterStemmer = new PorterStemmer();
+		if (porterStemmer.getCache() != null) {
+			throw new IllegalStateException("Expected no cache");
+		}
+		if ("run".equals(porterStemmer.stem("Running")) == false) {
+			throw new IllegalStateException("Invalid stem: " + porterStemmer.stem("Running"));
+		}
+	}
+
+}
@@ -0,0 +1,130 @@
+package me.akuz.nlp.test.topics;
+
+import java.util.List;
+
+import me.akuz.nlp.corpus.Corpus;
+import me.akuz.nlp.corpus.CorpusDoc;
+import me.akuz.nlp.corpus.CorpusPlace;
+import me.akuz.nlp.topics.LDAGibbs;
+import me.akuz.nlp.topics.LDAGibbsAlpha;
+import me.akuz.nlp.topics.LDAGibbsBeta;
+import me.akuz.nlp.topics.LDAGibbsCounts;
+import me.akuz.nlp.topics.LDAGibbsCountsDense;
+import me.akuz.nlp.topics.LDAGibbsCountsLayout;
+import me.akuz.nlp.topics.LDAGibbsCountsSparse;
+import me.akuz.nlp.topics.LDAGibbsSampler;
+import me.akuz.nlp.topics.LDAGibbsSamplerAlias;
+import me.akuz.nlp.topics.LDAGibbsSamplerDense;
+import me.akuz.nlp.topics.LDAGibbsSamplerSparse;
+import me.akuz.nlp.topics.LDAGibbsTopic;
+
+import org.junit.Test;
+
+public final class LDAGibbsAsyncTest {
+	
+	@Test
+	public void testAsyncCountsConsistent() {
+		
+		Corpus corpus = LDAGibbsTestCorpus.createCorpus(4);
+		List<LDAGibbsTopic> topics = LDAGibbsTestCorpus.createTopics();
+		final int topicCount = topics.size();
+		final int stemCount = corpus.getStemsIndex().size();
+		
+		LDAGibbsAlpha alpha = new LDAGibbsAlpha(corpus, topics);
+		LDAGibbsBeta beta = new LDAGibbsBeta(corpus, topics);
+		alpha.setTemperature(0.5);
+		beta.setTemperature(0.5);
+		
+		LDAGibbsCounts counts = new LDAGibbsCountsSparse(corpus.getDocCount(), topicCount, stemCount);
+		LDAGibbs lda = new LDAGibbs(null, corpus, topics, alpha, beta, 4, counts);
+		lda.setAsync(true);
+		lda.setAsyncMergeFrequency(100);
+		lda.run(0, 3);
+		lda.setSampler(new LDAGibbsSamplerSparse());
+		lda.run(3, 3);
+		
+		// switching back to synchronous mode must work too
+		lda.setAsync(false);
+		lda.run(6, 1);
+		lda.terminate();
+		
+		checkCounts(corpus, counts);
+	}
+	
+	@Test
+	public void testAsyncEachSampler() {
+		
+		LDAGibbsSampler[] samplers = new LDAGibbsSampler[] {
+			new LDAGibbsSamplerDense(),
+			new LDAGibbsSamplerSparse(),
+			new LDAGibbsSamplerAlias(),
+		};
+		for (LDAGibbsSampler sampler : samplers) {
+			
+			Corpus corpus = LDAGibbsTestCorpus.createCorpus(5);
+			List<LDAGibbsTopic> topics = LDAGibbsTestCorpus.createTopics();
+			
+			LDAGibbsAlpha alpha = new LDAGibbsAlpha(corpus, topics);
+			LDAGibbsBeta beta = new LDAGibbsBeta(corpus, topics);
+			alpha.setTemperature(0.5);
+			beta.setTemperature(0.5);
+			
+			LDAGibbsCounts counts = new LDAGibbsCountsDense(corpus.getDocCount(), topics.size(), corpus.getStemsIndex().size(), LDAGibbsCountsLayout.TopicMajor);
+			LDAGibbs lda = new LDAGibbs(null, corpus, topics, alpha, beta, 3, counts);
+			try {
+				lda.setSampler(sampler);
+				lda.setAsync(true);
+				lda.setAsyncMergeFrequency(7);
+				for (int iteration=0; iteration<3; iteration++) {
+					lda.run(iteration, 1);
+					checkCounts(corpus, counts);
+				}
+			} finally {
+				lda.terminate();
+			}
+		}
+	}
+	
+	private static void checkCounts(Corpus corpus, LDAGibbsCounts counts) {
+		
+		final int topicCount = counts.getTopicCount();
+		final int stemCount = counts.getStemCount();
+		
+		// recalculate counts from the allocations
+		int[][] docTopic = new int[corpus.getDocCount()][topicCount];
+		int[][] topicStem = new int[topicCount][stemCount];
+		int[] topic = new int[topicCount];
+		for (int docIndex=0; docIndex<corpus.getDocCount(); docIndex++) {
+			CorpusDoc doc = corpus.getDocs().get(docIndex);
+			for (CorpusPlace place : doc.getPlaces()) {
+				int topicIndex = ((int[])place.getTag())[0];
+				docTopic[docIndex][topicIndex]++;
+				topicStem[topicIndex][place.getStemIndex()]++;
+				topic[topicIndex]++;
+			}
+		}
+		
+		for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+			if (counts.getTopic(topicIndex) < 0) {
+				throw new IllegalStateException("Topic " + topicIndex + " count is negative");
+			}
+			if (topic[topicIndex] != counts.getTopic(topicIndex)) {
+				throw new IllegalStateException("Topic " + topicIndex + " count mismatch");
+			}
+			for (int stemIndex=0; stemIndex<stemCount; stemIndex++) {
+				if (counts.getTopicStem(topicIndex, stemIndex) < 0) {
+					throw new IllegalStateException("Topic " + topicIndex + " stem " + stemIndex + " count is negative");
+				}
+				if (topicStem[topicIndex][stemIndex] != counts.getTopicStem(topicIndex, stemIndex)) {
+					throw new IllegalStateException("Topic " + topicIndex + " stem " + stemIndex + " count mismatch");
+				}
+			}
+			for (int docIndex=0; docIndex<corpus.getDocCount(); docIndex++) {
+				if (docTopic[docIndex][topicIndex] != counts.getDocTopic(docIndex, topicIndex)) {
+					throw new IllegalStateException("Doc " + docIndex + " topic " + topicIndex + " count mismatch");
+				}
+			}
+		}
+	}
+
+}
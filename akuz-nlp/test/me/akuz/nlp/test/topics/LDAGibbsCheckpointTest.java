@@ -0,0 +1,86 @@
+package me.akuz.nlp.test.topics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import me.akuz.nlp.corpus.Corpus;
+import me.akuz.nlp.corpus.PackedCorpus;
+import me.akuz.nlp.topics.LDAGibbs;
+import me.akuz.nlp.topics.LDAGibbsAlpha;
+import me.akuz.nlp.topics.LDAGibbsBeta;
+import me.akuz.nlp.topics.LDAGibbsCheckpoint;
+import me.akuz.nlp.topics.LDAGibbsCounts;
+import me.akuz.nlp.topics.LDAGibbsCountsDense;
+import me.akuz.nlp.topics.LDAGibbsCountsLayout;
+import me.akuz.nlp.topics.LDAGibbsCountsSparse;
+import me.akuz.nlp.topics.LDAGibbsTopic;
+
+import org.junit.Test;
+
+public final class LDAGibbsCheckpointTest {
+	
+	@Test
+	public void testSaveAndResume() throws IOException {
+		
+		Corpus corpus = LDAGibbsTestCorpus.createCorpus(8);
+		List<LDAGibbsTopic> topics = LDAGibbsTestCorpus.createTopics();
+		final int topicCount = topics.size();
+		final int stemCount = corpus.getStemsIndex().size();
+		
+		PackedCorpus packed = PackedCorpus.pack(corpus);
+		LDAGibbsAlpha alpha = new LDAGibbsAlpha(packed, topics);
+		LDAGibbsBeta beta = new LDAGibbsBeta(packed, topics);
+		alpha.setTemperature(0.5);
+		beta.setTemperature(0.5);
+		
+		LDAGibbsCounts counts = new LDAGibbsCountsDense(packed.getDocCount(), topicCount, stemCount, LDAGibbsCountsLayout.DocMajor);
+		LDAGibbs lda = new LDAGibbs(null, packed, topics, alpha, beta, 2, counts);
+		int iter = lda.run(1, 2);
+		
+		File file = File.createTempFile("lda", ".checkpoint");
+		try {
+			lda.saveCheckpoint(file.getPath(), iter, 0.5);
+			lda.waitCheckpoint();
+			lda.terminate();
+			
+			LDAGibbsCheckpoint checkpoint = LDAGibbsCheckpoint.load(file.getPath());
+			if (checkpoint.getIteration() != iter || checkpoint.getTemperature() != 0.5) {
+				throw new IllegalStateException("Wrong checkpoint iteration or temperature");
+			}
+			
+			// resume on a fresh corpus, with different counts storage
+			PackedCorpus packed2 = PackedCorpus.pack(corpus);
+			LDAGibbsCounts counts2 = new LDAGibbsCountsSparse(packed2.getDocCount(), topicCount, stemCount);
+			LDAGibbs lda2 = new LDAGibbs(null, packed2, topics, alpha, beta, 2, counts2, checkpoint);
+			
+			for (int placeIndex=0; placeIndex<packed.getPlaceCount(); placeIndex++) {
+				if (packed.getPlaceState(placeIndex, 0) != packed2.getPlaceState(placeIndex, 0)) {
+					throw new IllegalStateException("Place " + placeIndex + " allocation mismatch");
+				}
+			}
+			for (int topicIndex=0; topicIndex<topicCount; topicIndex++) {
+				if (counts.getTopic(topicIndex) != counts2.getTopic(topicIndex)) {
+					throw new IllegalStateException("Topic " + topicIndex + " count mismatch");
+				}
+				for (int stemIndex=0; stemIndex<stemCount; stemIndex++) {
+					if (counts.getTopicStem(topicIndex, stemIndex) != counts2.getTopicStem(topicIndex, stemIndex)) {
+						throw new IllegalStateException("Topic " + topicIndex + " stem " + stemIndex + " count mismatch");
+					}
+				}
+				for (int docIndex=0; docIndex<packed.getDocCount(); docIndex++) {
+					if (counts.getDocTopic(docIndex, topicIndex) != counts2.getDocTopic(docIndex, topicIndex)) {
+						throw new IllegalStateException("Doc " + docIndex + " topic " + topicIndex + " count mismatch");
+					}
+				}
+			}
+			
+			lda2.run(checkpoint.getIteration(), 1);
+			lda2.terminate();
+			
+		} finally {
+			file.delete();
+		}
+	}
+
+}
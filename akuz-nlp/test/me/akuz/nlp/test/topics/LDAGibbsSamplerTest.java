@@ -0,0 +1,127 @@
+package me.akuz.nlp.test.topics;
+
+import java.util.List;
+import java.util.Random;
+
+import me.akuz.nlp.corpus.Corpus;
+import me.akuz.nlp.corpus.CorpusPlace;
+import me.akuz.nlp.topics.LDAGibbs;
+import me.akuz.nlp.topics.LDAGibbsAlpha;
+import me.akuz.nlp.topics.LDAGibbsBeta;
+import me.akuz.nlp.topics.LDAGibbsCounts;
+import me.akuz.nlp.topics.LDAGibbsCountsDense;
+import me.akuz.nlp.topics.LDAGibbsCountsLayout;
+import me.akuz.nlp.topics.LDAGibbsSampler;
+import me.akuz.nlp.topics.LDAGibbsSamplerAlias;
+import me.akuz.nlp.topics.LDAGibbsSamplerDense;
+import me.akuz.nlp.topics.LDAGibbsSamplerSparse;
+import me.akuz.nlp.topics.LDAGibbsSamplerWorker;
+import me.akuz.nlp.topics.LDAGibbsTopic;
+
+import org.junit.Test;
+
+public final class LDAGibbsSamplerTest {
+	
+	private static final int SAMPLE_COUNT = 200000;
+	private static final double MAX_PROB_DIFF = 0.01;
+	
+	private static double[] sampleFrequencies(
+			LDAGibbsSampler sampler, 
+			LDAGibbsCounts counts, 
+			LDAGibbsAlpha alpha, 
+			LDAGibbsBeta beta,
+			int docIndex,
+			int stemIndex,
+			int prevTopicIndex) {
+		
+		final int topicCount = counts.getTopicCount();
+		int[] docTopicCounts = new int[topicCount];
+		counts.getDocTopicRow(docIndex, docTopicCounts);
+		
+		sampler.prepare(counts, alpha, beta);
+		LDAGibbsSamplerWorker worker = sampler.createWorker(topicCount);
+		worker.startDoc(docIndex, docTopicCounts);
+		
+		Random rnd = new Random(1);
+		double[] freqs = new double[topicCount];
+		for (int i=0; i<SAMPLE_COUNT; i++) {
+			freqs[worker.nextTopicIndex(rnd, stemIndex, prevTopicIndex)] += 1.0 / SAMPLE_COUNT;
+		}
+		return freqs;
+	}
+	
+	@Test
+	public void testSparseMatchesDense() {
+		
+		Corpus corpus = LDAGibbsTestCorpus.createCorpus(2);
+		List<LDAGibbsTopic> topics = LDAGibbsTestCorpus.createTopics();
+		
+		// priority stem makes the beta non-uniform
+		topics.get(0).addPriorityStem(0);
+		topics.get(1).addExcludedStem(0);
+		
+		LDAGibbsAlpha alpha = new LDAGibbsAlpha(corpus, topics);
+		LDAGibbsBeta beta = new LDAGibbsBeta(corpus, topics);
+		alpha.setTemperature(0.1);
+		beta.setTemperature(0.1);
+		
+		LDAGibbsCounts counts = new LDAGibbsCountsDense(
+				corpus.getDocCount(), 
+				topics.size(), 
+				corpus.getStemsIndex().size(), 
+				LDAGibbsCountsLayout.DocMajor);
+		
+		LDAGibbs lda = new LDAGibbs(null, corpus, topics, alpha, beta, 1, counts);
+		lda.setSampler(new LDAGibbsSamplerSparse());
+		lda.run(0, 5);
+		lda.terminate();
+		
+		for (int placeIndex=0; placeIndex<3; placeIndex++) {
+			
+			CorpusPlace place = corpus.getDocs().get(0).getPlaces().get(placeIndex);
+			int stemIndex = placeIndex == 0 ? 0 : place.getStemIndex();
+			int prevTopicIndex = ((int[])place.getTag())[0];
+			
+			double[] dense = sampleFrequencies(new LDAGibbsSamplerDense(), counts, alpha, beta, 0, stemIndex, prevTopicIndex);
+			double[] sparse = sampleFrequencies(new LDAGibbsSamplerSparse(), counts, alpha, beta, 0, stemIndex, prevTopicIndex);
+			
+			for (int topicIndex=0; topicIndex<dense.length; topicIndex++) {
+				if (Math.abs(dense[topicIndex] - sparse[topicIndex]) > MAX_PROB_DIFF) {
+					throw new IllegalStateException(
+							"Sparse sampler topic " + topicIndex + " frequency " + sparse[topicIndex] + 
+							" is different from dense " + dense[topicIndex]);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testAliasRuns() {
+		
+		Corpus corpus = LDAGibbsTestCorpus.createCorpus(3);
+		List<LDAGibbsTopic> topics = LDAGibbsTestCorpus.createTopics();
+		
+		LDAGibbsAlpha alpha = new LDAGibbsAlpha(corpus, topics);
+		LDAGibbsBeta beta = new LDAGibbsBeta(corpus, topics);
+		
+		LDAGibbs lda = new LDAGibbs(null, corpus, topics, alpha, beta, 2);
+		lda.setSampler(new LDAGibbsSamplerAlias());
+		
+		// annealing changes the priors between runs
+		int iter = 0;
+		for (double temperature = 1.0; temperature > 0.1; temperature *= 0.5) {
+			alpha.setTemperature(temperature);
+			beta.setTemperature(temperature);
+			iter = lda.run(iter, 2);
+		}
+		lda.terminate();
+		
+		for (CorpusPlace place : corpus.getDocs().get(0).getPlaces()) {
+			int topicIndex = ((int[])place.getTag())[0];
+			if (topicIndex < 0 || topicIndex >= topics.size()) {
+				throw new IllegalStateException("Invalid topic allocation " + topicIndex);
+			}
+		}
+	}
+
+}
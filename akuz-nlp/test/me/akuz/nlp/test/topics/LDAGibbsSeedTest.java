@@ -0,0 +1,55 @@
+package me.akuz.nlp.test.topics;
+
+import java.util.List;
+
+import me.akuz.nlp.corpus.PackedCorpus;
+import me.akuz.nlp.topics.LDAGibbs;
+import me.akuz.nlp.topics.LDAGibbsAlpha;
+import me.akuz.nlp.topics.LDAGibbsBeta;
+import me.akuz.nlp.topics.LDAGibbsTopic;
+
+import org.junit.Test;
+
+public final class LDAGibbsSeedTest {
+
+	private static PackedCorpus sample(long seed) {
+
+		PackedCorpus packed = PackedCorpus.pack(LDAGibbsTestCorpus.createCorpus(9));
+		List<LDAGibbsTopic> topics = LDAGibbsTestCorpus.createTopics();
+		LDAGibbsAlpha alpha = new LDAGibbsAlpha(packed, topics);
+		LDAGibbsBeta beta = new LDAGibbsBeta(packed, topics);
+		alpha.setTemperature(0.5);
+		beta.setTemperature(0.5);
+
+		LDAGibbs lda = new LDAGibbs(null, packed, topics, alpha, beta, 2);
+		try {
+			lda.setSeed(seed);
+			lda.run(0, 3);
+		} finally {
+			lda.terminate();
+		}
+		return packed;
+	}
+
+	@Test
+	public void testSameSeedSameAllocations() {
+
+		PackedCorpus packed1 = sample(7);
+		PackedCorpus packed2 = sample(7);
+		PackedCorpus packed3 = sample(8);
+
+		int differentCount = 0;
+		for (int placeIndex=0; placeIndex<packed1.getPlaceCount(); placeIndex++) {
+			if (packed1.getPlaceState(placeIndex, 0) != packed2.getPlaceState(placeIndex, 0)) {
+				throw new IllegalStateException("Place " + placeIndex + " allocation differs for the same seed");
+			}
+			if (packed1.getPlaceState(placeIndex, 0) != packed3.getPlaceState(placeIndex, 0)) {
+				differentCount++;
+			}
+		}
+		if (differentCount == 0) {
+			throw new IllegalStateException("Allocations are the same for different seeds");
+		}
+	}
+
+}
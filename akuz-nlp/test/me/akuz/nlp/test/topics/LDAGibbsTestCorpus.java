@@ -0,0 +1,57 @@
+package me.akuz.nlp.test.topics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import me.akuz.core.HashIndex;
+import me.akuz.core.Index;
+import me.akuz.nlp.corpus.Corpus;
+import me.akuz.nlp.corpus.CorpusDoc;
+import me.akuz.nlp.corpus.CorpusPlace;
+import me.akuz.nlp.topics.LDAGibbsTopic;
+
+/**
+ * Synthetic corpus and topics shared by the LDA tests.
+ *
+ */
+public final class LDAGibbsTestCorpus {
+	
+	private static final int DOC_COUNT = 2000;
+	private static final int DOC_LENGTH = 100;
+	private static final int STEM_COUNT = 2000;
+	private static final int TOPIC_COUNT = 50;
+	
+	public static Corpus createCorpus(long seed) {
+		
+		Random rnd = new Random(seed);
+		
+		Index<String> stemsIndex = new HashIndex<>();
+		Index<String> wordsIndex = new HashIndex<>();
+		for (int stemIndex=0; stemIndex<STEM_COUNT; stemIndex++) {
+			stemsIndex.ensure("s" + stemIndex);
+			wordsIndex.ensure("w" + stemIndex);
+		}
+		
+		Corpus corpus = new Corpus(stemsIndex, wordsIndex);
+		for (int docIndex=0; docIndex<DOC_COUNT; docIndex++) {
+			CorpusDoc doc = new CorpusDoc();
+			for (int p=0; p<DOC_LENGTH; p++) {
+				// skewed stem frequencies, roughly like natural text
+				int stemIndex = (int)(STEM_COUNT * Math.pow(rnd.nextDouble(), 3));
+				doc.addPlace(new CorpusPlace(stemIndex, stemIndex));
+			}
+			corpus.addDoc(doc);
+		}
+		return corpus;
+	}
+	
+	public static List<LDAGibbsTopic> createTopics() {
+		List<LDAGibbsTopic> topics = new ArrayList<>();
+		for (int topicIndex=0; topicIndex<TOPIC_COUNT; topicIndex++) {
+			topics.add(new LDAGibbsTopic("t" + topicIndex, 1.0 / TOPIC_COUNT));
+		}
+		return topics;
+	}
+
+}
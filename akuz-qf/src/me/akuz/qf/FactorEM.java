@@ -6,6 +6,7 @@ import java.util.concurrent.ThreadLocalRandom;
 import me.akuz.core.math.DiagMatrix;
 import me.akuz.core.math.GaussianFunc;
 import me.akuz.core.math.MatrixUtils;
+import me.akuz.core.math.ParallelMatrixUtils;
 import me.akuz.core.math.StatsUtils;
 import Jama.Matrix;
 
@@ -129,7 +130,7 @@ public final class FactorEM {
 			{
 				double currLogLike = 0;
 				Matrix xMean = _pW.times(_pFactorBias).plus(_pVariableBias);
-				Matrix xCov = _pVariableKsi.plus(_pFactorPhi.timesOnLeft(_pW).times(_pW.transpose()));
+				Matrix xCov = _pVariableKsi.plus(ParallelMatrixUtils.timesTranspose(_pFactorPhi.timesOnLeft(_pW), _pW));
 				Matrix xInverseCov = StatsUtils.generalizedInverse(xCov);
 				
 				final double logPseudoNormalizer = GaussianFunc.calcLogPseudoNormalizer(xMean, xCov);
@@ -159,25 +160,26 @@ public final class FactorEM {
 				_pVariableBias.plusEquals(x_n.minus(_pW.times(_xExpectedFactor[n])).times(1.0/_sampleCount));
 			}
 			_pFactorPhi = new DiagMatrix(factorSampleCovariance.minus(_pFactorBias.times(_pFactorBias.transpose())));
-			final Matrix leftW = new Matrix(_variableCount, _factorCount);
+			final Matrix centered = new Matrix(_sampleCount, _variableCount);
+			final Matrix factors = new Matrix(_sampleCount, _factorCount);
 			final Matrix rightW = new Matrix(_factorCount, _factorCount);
-			final Matrix mS = new Matrix(_variableCount, _variableCount);
 			for (int n=_startRow; n<_endRow; n++) {
 				
-				Matrix x_n = MatrixUtils.getRows(_mX, n, n+1).transpose();
-				Matrix x_n_cen = x_n.minus(_pVariableBias);
-				leftW.plusEquals(x_n_cen.times(_xExpectedFactor[n].transpose()));
-				rightW.plusEquals(_xExpectedFactorFactor[n]);
-				
-				for (int i=0; i<mS.getRowDimension(); i++) {
-					for (int j=0; j<mS.getRowDimension(); j++) {
-						mS.set(i, j, mS.get(i, j) + x_n_cen.get(i, 0) * x_n_cen.get(j, 0) / _sampleCount);
-					}
+				final double[] centeredRow = centered.getArray()[n-_startRow];
+				for (int i=0; i<_variableCount; i++) {
+					centeredRow[i] = _mX.get(n, i) - _pVariableBias.get(i, 0);
 				}
+				final double[] factorsRow = factors.getArray()[n-_startRow];
+				for (int k=0; k<_factorCount; k++) {
+					factorsRow[k] = _xExpectedFactor[n].get(k, 0);
+				}
+				rightW.plusEquals(_xExpectedFactorFactor[n]);
 			}
+			final Matrix leftW = ParallelMatrixUtils.transposeTimes(centered, factors);
+			final Matrix mS = ParallelMatrixUtils.transposeTimes(centered, centered).timesEquals(1.0/_sampleCount);
 			_pW = leftW.times(rightW.inverse());
 			Matrix rightKsi = leftW.transpose().timesEquals(1.0/_sampleCount);
-			_pVariableKsi = new DiagMatrix(mS.minus(_pW.times(rightKsi)));
+			_pVariableKsi = new DiagMatrix(mS.minus(ParallelMatrixUtils.times(_pW, rightKsi)));
 			
 			updateC();
 		}
@@ -219,7 +221,7 @@ public final class FactorEM {
 	}
 	
 	private void updateC() {
-		_C = _pVariableKsi.plus(_pFactorPhi.timesOnLeft(_pW).times(_pW.transpose()));		
+		_C = _pVariableKsi.plus(ParallelMatrixUtils.timesTranspose(_pFactorPhi.timesOnLeft(_pW), _pW));		
 	}
 	
 	public Matrix getC() {
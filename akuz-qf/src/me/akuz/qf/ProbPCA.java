@@ -1,8 +1,9 @@
 package me.akuz.qf;
 
 import me.akuz.core.math.MatrixUtils;
+import me.akuz.core.math.ParallelMatrixUtils;
+import me.akuz.core.math.SymmetricEigen;
 import Jama.Matrix;
-import Jama.SingularValueDecomposition;
 
 /**
  * Probabilistic PCA (closed form solution).
@@ -60,35 +61,23 @@ public final class ProbPCA {
 		_factorCount = factorCount;
 		_myu = MatrixUtils.averageRows(X, startRow, endRow).transpose();
 		
-		_S = new Matrix(dataDim, dataDim);
-		for (int dataIndex=startRow; dataIndex<endRow; dataIndex++) {
-			
-			for (int i=0; i<dataDim; i++) {
-				
-				final double diff_i = X.get(dataIndex, i) - _myu.get(i, 0);
-				_S.set(i, i, _S.get(i, i) + diff_i*diff_i/dataCount);
-				
-				for (int j=i+1; j<dataDim; j++) {
-
-					final double diff_j = X.get(dataIndex, j) - _myu.get(j, 0);
-					final double add_ij = diff_i*diff_j/dataCount;
-					_S.set(i, j, _S.get(i, j) + add_ij);
-					_S.set(j, i, _S.get(j, i) + add_ij);
-				}
-			}
-		}
+		final Matrix centered = getCenteredRows();
+		_S = ParallelMatrixUtils.transposeTimes(centered, centered);
+		_S.timesEquals(1.0/dataCount);
 		
-		final SingularValueDecomposition svd = new SingularValueDecomposition(_S);
-		final Matrix svdS = svd.getS();
-		final Matrix U = MatrixUtils.getColumns(svd.getU(), 0, factorCount);
+		// S is symmetric positive semi-definite,
+		// so its SVD is the same as eigen decomposition
+		final SymmetricEigen eigen = new SymmetricEigen(_S);
+		final double[] eigenValues = eigen.getValues();
+		final Matrix U = MatrixUtils.getColumns(eigen.getV(), 0, factorCount);
 		final Matrix L = new Matrix(factorCount, factorCount);
 		for (int k=0; k<factorCount; k++) {
-			L.set(k, k, svdS.get(k, k));
+			L.set(k, k, Math.max(0.0, eigenValues[k]));
 		}
 		
 		double sigma = 0;
 		for (int k=factorCount; k<dataDim; k++) {
-			sigma += svdS.get(k, k);
+			sigma += Math.max(0.0, eigenValues[k]);
 		}
 		sigma /= (dataDim - factorCount);
 		final double sigmaSq = sigma*sigma;
@@ -97,14 +86,14 @@ public final class ProbPCA {
 		for (int k=0; k<factorCount; k++) {
 			rightW.set(k, k, Math.sqrt(L.get(k, k) - sigmaSq));
 		}
-		_W = U.times(rightW);
+		_W = ParallelMatrixUtils.times(U, rightW);
 
-		_C = _W.times(_W.transpose());
+		_C = ParallelMatrixUtils.timesTranspose(_W, _W);
 		for (int j=0; j<dataDim; j++) {
 			_C.set(j, j, _C.get(j, j) + sigmaSq);
 		}
 		
-		_M = _W.transpose().times(_W);
+		_M = ParallelMatrixUtils.transposeTimes(_W, _W);
 		for (int k=0; k<factorCount; k++) {
 			_M.set(k, k, _M.get(k, k) + sigmaSq);
 		}
@@ -113,6 +102,21 @@ public final class ProbPCA {
 		_invM_tranW = _invM.times(_W.transpose());
 	}
 
+	/**
+	 * Get rows startRow to endRow of X minus myu.
+	 */
+	private Matrix getCenteredRows() {
+		final Matrix centered = _X.getMatrix(_startRow, _endRow-1, 0, _X.getColumnDimension()-1);
+		final double[][] arr = centered.getArray();
+		for (int n=0; n<arr.length; n++) {
+			final double[] row = arr[n];
+			for (int i=0; i<row.length; i++) {
+				row[i] -= _myu.get(i, 0);
+			}
+		}
+		return centered;
+	}
+
 	public Matrix getMyu() {
 		return _myu;
 	}
@@ -131,16 +135,10 @@ public final class ProbPCA {
 	
 	public Matrix calcF() {
 		final Matrix F = new Matrix(_X.getRowDimension(), _factorCount);
-		for (int n=_startRow; n<_endRow; n++) {
-			
-			final Matrix x_n = MatrixUtils.getRows(_X, n, n+1).transpose();
-			MatrixUtils.subtractEachColumn_inPlace(x_n, _myu);
-			
-			final Matrix f_n = _invM_tranW.times(x_n);
-			for (int f=0; f<_factorCount; f++) {
-				F.set(n, f, f_n.get(f, 0));
-			}
-		}
+		
+		// f_n = invM * W^T * (x_n - myu), for all rows at once
+		final Matrix centeredF = ParallelMatrixUtils.timesTranspose(getCenteredRows(), _invM_tranW);
+		F.setMatrix(_startRow, _endRow-1, 0, _factorCount-1, centeredF);
 		return F;
 	}
 }
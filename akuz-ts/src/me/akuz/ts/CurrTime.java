@@ -6,6 +6,13 @@ package me.akuz.ts;
  */
 public final class CurrTime {
 	
+	/**
+	 * Value of a primitive (epoch millis) current 
+	 * time, which means that the time is not set.
+	 * 
+	 */
+	public static final long UNSET = Long.MIN_VALUE;
+	
 	/**
 	 * Throws exception if the current time is not set.
 	 * 
@@ -35,6 +42,35 @@ public final class CurrTime {
 		}
 	}
 	
+	/**
+	 * Throws exception if the primitive current time is not set.
+	 * 
+	 */
+	public static void checkSet(final long currTime) {
+		if (currTime == UNSET) {
+			throw new IllegalStateException("Current time is not set");
+		}
+	}
+	
+	/**
+	 * Throws exception if the new primitive current time is not
+	 * set, or if it is not in strict chronological order compared 
+	 * to the current time (if set).
+	 * 
+	 */
+	public static void checkNew(final long currTime, final long newCurrTime) {
+		if (newCurrTime == UNSET) {
+			throw new IllegalStateException("New current time is not set");
+		}
+		if (currTime != UNSET &&
+			currTime >= newCurrTime) {
+			throw new IllegalStateException(
+					"Current time (" + currTime + 
+					") must be < new current time (" + 
+					newCurrTime + ")");
+		}
+	}
+	
 	/**
 	 * Check current time and caller time are non-null and equal,
 	 * otherwise throw exception.
@@ -20,6 +20,8 @@ public final class Frame<K, T extends Comparable<T>> {
 	private final List<K> _keysReadOnly;
 	private final Map<K, Seq<T>> _map;
 	private final Map<K, Seq<T>> _mapReadOnly;
+	private SeqRetention<T> _retention;
+	private final Object _stagedLock;
 	
 	/**
 	 * Contain an empty frame.
@@ -29,6 +31,7 @@ public final class Frame<K, T extends Comparable<T>> {
 		_keysReadOnly = Collections.unmodifiableList(_keys);
 		_map = new HashMap<>();
 		_mapReadOnly = Collections.unmodifiableMap(_map);
+		_stagedLock = new Object();
 	}
 	
 	/**
@@ -59,6 +62,30 @@ public final class Frame<K, T extends Comparable<T>> {
 		}
 	}
 	
+	/**
+	 * Get retention policy for sequences, if any.
+	 */
+	public SeqRetention<T> getRetention() {
+		return _retention;
+	}
+	
+	/**
+	 * Set retention policy (null to keep all items)
+	 * for all existing and newly created sequences,
+	 * which puts the frame into streaming mode.
+	 * 
+	 * When a feed thread is staging items, while
+	 * another thread is accepting them, all keys
+	 * must be added before the feed starts, as
+	 * new sequences are not created thread-safely.
+	 */
+	public void setRetention(final SeqRetention<T> retention) {
+		_retention = retention;
+		for (Seq<T> seq: _map.values()) {
+			seq.setRetention(retention);
+		}
+	}
+	
 	/**
 	 * Add value to a sequence in this frame.
 	 * Sequence is created, if it doesn't exist.
@@ -74,7 +101,7 @@ public final class Frame<K, T extends Comparable<T>> {
 	public void add(final K key, final TItem<T> item) {
 		Seq<T> seq = _map.get(key);
 		if (seq == null) {
-			seq = new Seq<>();
+			seq = new Seq<>(_retention);
 			_keys.add(key);
 			_map.put(key, seq);
 		}
@@ -94,21 +121,37 @@ public final class Frame<K, T extends Comparable<T>> {
 	 * Sequence is created, if it doesn't exist.
 	 */
 	public void stage(final K key, final TItem<T> item) {
-		Seq<T> seq = _map.get(key);
-		if (seq == null) {
-			seq = new Seq<>();
-			_keys.add(key);
-			_map.put(key, seq);
+		synchronized (_stagedLock) {
+			Seq<T> seq = _map.get(key);
+			if (seq == null) {
+				seq = new Seq<>(_retention);
+				_keys.add(key);
+				_map.put(key, seq);
+			}
+			seq.stage(item);
 		}
-		seq.stage(item);
 	}
 	
 	/**
-	 * Accept staged items in all sequences.
+	 * Accept staged items in all sequences; the
+	 * items are taken from all sequences at once,
+	 * so that a feed thread staging concurrently
+	 * cannot get some of the sequences ahead.
 	 */
 	public void acceptStaged() {
-		for (Seq<T> seq: _map.values()) {
-			seq.acceptStaged();
+		final List<Seq<T>> seqs = new ArrayList<>();
+		final List<List<TItem<T>>> taken = new ArrayList<>();
+		synchronized (_stagedLock) {
+			for (Seq<T> seq: _map.values()) {
+				final List<TItem<T>> seqTaken = seq.takeStaged();
+				if (seqTaken != null) {
+					seqs.add(seq);
+					taken.add(seqTaken);
+				}
+			}
+		}
+		for (int i=0; i<seqs.size(); i++) {
+			seqs.get(i).acceptTaken(taken.get(i));
 		}
 	}
 	
@@ -116,8 +159,10 @@ public final class Frame<K, T extends Comparable<T>> {
 	 * Clear staged items in all sequences.
 	 */
 	public void clearStaged() {
-		for (Seq<T> seq: _map.values()) {
-			seq.clearStaged();
+		synchronized (_stagedLock) {
+			for (Seq<T> seq: _map.values()) {
+				seq.clearStaged();
+			}
 		}
 	}
 	
@@ -128,6 +173,9 @@ public final class Frame<K, T extends Comparable<T>> {
 		if (_map.containsKey(key)) {
 			throw new IllegalStateException("Sequence for key " + key + " already exists");
 		}
+		if (_retention != null) {
+			seq.setRetention(_retention);
+		}
 		_keys.add(key);
 		_map.put(key, seq);
 	}
@@ -166,6 +214,20 @@ public final class Frame<K, T extends Comparable<T>> {
 		return _mapReadOnly;
 	}
 	
+	/**
+	 * Get a frame of read-only slices of all sequences
+	 * with times within [fromTime, toTime), without
+	 * copying; null fromTime or toTime means no bound.
+	 */
+	public Frame<K, T> slice(final T fromTime, final T toTime) {
+		final Frame<K, T> result = new Frame<>();
+		for (int i=0; i<_keys.size(); i++) {
+			final K key = _keys.get(i);
+			result.addSeq(key, _map.get(key).slice(fromTime, toTime));
+		}
+		return result;
+	}
+	
 	/**
 	 * Returns iterator on this frame.
 	 */
@@ -173,6 +235,14 @@ public final class Frame<K, T extends Comparable<T>> {
 		return new FrameIterator<>(this);
 	}
 	
+	/**
+	 * Returns heap-ordered iterator on this frame,
+	 * which is faster for wide frames.
+	 */
+	public FrameHeapIterator<K, T> heapIterator() {
+		return new FrameHeapIterator<>(this);
+	}
+	
 	/**
 	 * Cumsum the frame, return a new frame with
 	 * the same keys but accumulated values.
@@ -31,6 +31,7 @@ implements FrameCursor<K, T> {
 	private TLog<T> _log;
 	private final Map<K, TItem<T>> _currItems;
 	private final Map<K, List<TItem<T>>> _movedItems;
+	private final Out<T> _seqNextTime;
 	private T _currTime;
 
 	public FrameFilter(final FrameCursor<K, T> frameCursor) {
@@ -47,6 +48,7 @@ implements FrameCursor<K, T> {
 		_keysIndex = new HashIndex<>();
 		_currItems = new HashMap<>();
 		_movedItems = new HashMap<>();
+		_seqNextTime = new Out<>();
 	}
 	
 	public FrameFilter<K, T> addFilters(final K key, final Collection<Filter<T>> filters) {
@@ -147,20 +149,18 @@ implements FrameCursor<K, T> {
 		
 		nextTime.setValue(null);
 		
-		final Out<T> seqNextTime = new Out<>();
-		
 		for (int i=0; i<_keysIndex.size(); i++) {
 			
 			final K key = _keysIndex.getValue(i);
 			
 			final SeqFilter<T> seqFilter = _seqFilters.get(key);
 			
-			if (seqFilter.getNextTime(seqNextTime)) {
+			if (seqFilter.getNextTime(_seqNextTime)) {
 				
 				if (nextTime.getValue() == null ||
-					nextTime.getValue().compareTo(seqNextTime.getValue()) > 0) {
+					nextTime.getValue().compareTo(_seqNextTime.getValue()) > 0) {
 					
-					nextTime.setValue(seqNextTime.getValue());
+					nextTime.setValue(_seqNextTime.getValue());
 				}
 			}
 		}
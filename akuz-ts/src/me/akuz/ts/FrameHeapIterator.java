@@ -0,0 +1,323 @@
+package me.akuz.ts;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import me.akuz.core.HashIndex;
+import me.akuz.core.Index;
+import me.akuz.core.Out;
+
+/**
+ * Iterator over frame, performing alignment
+ * of multiple sequences of items in time, same
+ * as {@link FrameIterator}, but keeping the
+ * sequences in a min-heap by their next time;
+ * so that each move only touches the sequences
+ * that actually advance, which is much faster
+ * for wide frames with sparse updates.
+ *
+ * The moved items map only contains the keys,
+ * which have moved during the last time move;
+ * getMovedItems(key) returns an empty list
+ * for the keys that have not moved.
+ *
+ * Sequences without next items are parked, and
+ * checked again on each getNextTime() and move,
+ * so that items added to them later (for example,
+ * when streaming) are not skipped.
+ *
+ */
+public final class FrameHeapIterator<K, T extends Comparable<T>>
+implements FrameCursor<K, T> {
+
+	private final Frame<K, T> _frame;
+	private final Index<K> _keysIndex;
+	private final List<SeqIterator<T>> _seqIters;
+	private final List<KeyCursor> _keyCursors;
+	private final List<T> _nextTimes;
+	private final int[] _heap;
+	private int _heapSize;
+	private final int[] _moved;
+	private int _movedCount;
+	private final int[] _parked;
+	private int _parkedCount;
+	private final Out<T> _seqNextTime;
+	private T _currTime;
+	private final Map<K, TItem<T>> _currItems;
+	private final Map<K, List<TItem<T>>> _movedItems;
+
+	/**
+	 * Create frame iterator for all keys.
+	 */
+	public FrameHeapIterator(final Frame<K, T> frame) {
+
+		this(frame, frame.getKeys());
+	}
+
+	/**
+	 * Create frame iterator for specific keys.
+	 */
+	public FrameHeapIterator(
+			final Frame<K, T> frame,
+			final Collection<K> keys) {
+
+		if (frame == null) {
+			throw new IllegalArgumentException("Frame cannot be null");
+		}
+		if (keys == null) {
+			throw new IllegalArgumentException("Keys cannot be null");
+		}
+
+		_frame = frame;
+		_keysIndex = new HashIndex<>(keys);
+		_seqIters = new ArrayList<>(_keysIndex.size());
+		_keyCursors = new ArrayList<>(_keysIndex.size());
+		_nextTimes = new ArrayList<>(_keysIndex.size());
+		_heap = new int[_keysIndex.size()];
+		_moved = new int[_keysIndex.size()];
+		_parked = new int[_keysIndex.size()];
+		_seqNextTime = new Out<>();
+		_currItems = new HashMap<>();
+		_movedItems = new HashMap<>();
+		for (int i=0; i<_keysIndex.size(); i++) {
+			final K key = _keysIndex.getValue(i);
+			final SeqIterator<T> seqIter = new SeqIterator<>(frame.getSeq(key));
+			_seqIters.add(seqIter);
+			_keyCursors.add(new KeyCursor(seqIter));
+			_nextTimes.add(null);
+			heapPushIfHasNext(i);
+		}
+	}
+
+	@Override
+	public Frame<K, T> getFrame() {
+		return _frame;
+	}
+
+	@Override
+	public SeqCursor<T> getSeqCursor(final K key) {
+		Integer index = _keysIndex.getIndex(key);
+		if (index == null) {
+			throw new IllegalArgumentException("Sequence for key '" + key + "' does not exist");
+		}
+		return _keyCursors.get(index);
+	}
+
+	@Override
+	public List<K> getKeys() {
+		return _keysIndex.getList();
+	}
+
+	@Override
+	public T getCurrTime() {
+		CurrTime.checkSet(_currTime);
+		return _currTime;
+	}
+
+	@Override
+	public Map<K, TItem<T>> getCurrItems() {
+		CurrTime.checkSet(_currTime);
+		return _currItems;
+	}
+
+	@Override
+	public TItem<T> getCurrItem(K key) {
+		CurrTime.checkSet(_currTime);
+		return _currItems.get(key);
+	}
+
+	@Override
+	public List<TItem<T>> getMovedItems(final K key) {
+		CurrTime.checkSet(_currTime);
+		final List<TItem<T>> movedItems = _movedItems.get(key);
+		return movedItems != null ? movedItems : Collections.<TItem<T>>emptyList();
+	}
+
+	@Override
+	public Map<K, List<TItem<T>>> getMovedItems() {
+		CurrTime.checkSet(_currTime);
+		return _movedItems;
+	}
+
+	@Override
+	public boolean getNextTime(final Out<T> nextTime) {
+		unparkGrown();
+		if (_heapSize > 0) {
+			nextTime.setValue(_nextTimes.get(_heap[0]));
+			return true;
+		} else {
+			nextTime.setValue(null);
+			return false;
+		}
+	}
+
+	@Override
+	public void moveToTime(final T time) {
+
+		CurrTime.checkNew(_currTime, time);
+		unparkGrown();
+
+		// forget the keys moved last time
+		for (int i=0; i<_movedCount; i++) {
+			final K key = _keysIndex.getValue(_moved[i]);
+			_currItems.remove(key);
+			_movedItems.remove(key);
+			_keyCursors.get(_moved[i])._moved = false;
+		}
+		_movedCount = 0;
+
+		// move the sequences, which
+		// have items up to this time
+		while (_heapSize > 0 && _nextTimes.get(_heap[0]).compareTo(time) <= 0) {
+
+			final int index = heapPop();
+			final K key = _keysIndex.getValue(index);
+			final SeqIterator<T> seqIter = _seqIters.get(index);
+
+			seqIter.moveToTime(time);
+
+			final TItem<T> currItem = seqIter.getCurrItem();
+			if (currItem != null) {
+				_currItems.put(key, currItem);
+			}
+			_movedItems.put(key, seqIter.getMovedItems());
+			_keyCursors.get(index)._moved = true;
+			_moved[_movedCount++] = index;
+		}
+
+		// put the moved sequences
+		// back into the heap
+		for (int i=0; i<_movedCount; i++) {
+			heapPushIfHasNext(_moved[i]);
+		}
+
+		_currTime = time;
+	}
+
+	/**
+	 * Put the parked sequences, which now
+	 * have next items, back into the heap.
+	 */
+	private void unparkGrown() {
+		int i = 0;
+		while (i < _parkedCount) {
+			final int index = _parked[i];
+			if (_seqIters.get(index).getNextTime(_seqNextTime)) {
+				_parked[i] = _parked[--_parkedCount];
+				heapPushIfHasNext(index);
+			} else {
+				i++;
+			}
+		}
+	}
+
+	private void heapPushIfHasNext(final int index) {
+		if (!_seqIters.get(index).getNextTime(_seqNextTime)) {
+			_nextTimes.set(index, null);
+			_parked[_parkedCount++] = index;
+			return;
+		}
+		final T nextTime = _seqNextTime.getValue();
+		_nextTimes.set(index, nextTime);
+
+		// sift up
+		int pos = _heapSize++;
+		while (pos > 0) {
+			final int parent = (pos - 1) >>> 1;
+			if (_nextTimes.get(_heap[parent]).compareTo(nextTime) <= 0) {
+				break;
+			}
+			_heap[pos] = _heap[parent];
+			pos = parent;
+		}
+		_heap[pos] = index;
+	}
+
+	private int heapPop() {
+		final int top = _heap[0];
+		final int last = _heap[--_heapSize];
+		if (_heapSize > 0) {
+			final T lastTime = _nextTimes.get(last);
+
+			// sift down
+			int pos = 0;
+			while (true) {
+				int child = 2*pos + 1;
+				if (child >= _heapSize) {
+					break;
+				}
+				if (child + 1 < _heapSize &&
+					_nextTimes.get(_heap[child + 1]).compareTo(_nextTimes.get(_heap[child])) < 0) {
+					child++;
+				}
+				if (lastTime.compareTo(_nextTimes.get(_heap[child])) <= 0) {
+					break;
+				}
+				_heap[pos] = _heap[child];
+				pos = child;
+			}
+			_heap[pos] = last;
+		}
+		return top;
+	}
+
+	/**
+	 * Sequence cursor, which reports the state of
+	 * the underlying sequence iterator, if it has
+	 * moved during the last move of the frame,
+	 * or no items at the current time otherwise.
+	 * It is moved only by the frame iterator.
+	 */
+	private final class KeyCursor implements SeqCursor<T> {
+
+		private final SeqIterator<T> _seqIter;
+		private boolean _moved;
+
+		public KeyCursor(final SeqIterator<T> seqIter) {
+			_seqIter = seqIter;
+		}
+
+		@Override
+		public T getCurrTime() {
+			return FrameHeapIterator.this.getCurrTime();
+		}
+
+		@Override
+		public boolean getNextTime(final Out<T> nextTime) {
+			return _seqIter.getNextTime(nextTime);
+		}
+
+		@Override
+		public void moveToTime(final T time) {
+			throw new IllegalStateException(
+					"Sequence cursor of a FrameHeapIterator can " +
+					"only be moved by moving the frame iterator");
+		}
+
+		@Override
+		public Seq<T> getSeq() {
+			return _seqIter.getSeq();
+		}
+
+		@Override
+		public int getNextCursor() {
+			return _seqIter.getNextCursor();
+		}
+
+		@Override
+		public TItem<T> getCurrItem() {
+			CurrTime.checkSet(_currTime);
+			return _moved ? _seqIter.getCurrItem() : null;
+		}
+
+		@Override
+		public List<TItem<T>> getMovedItems() {
+			CurrTime.checkSet(_currTime);
+			return _moved ? _seqIter.getMovedItems() : Collections.<TItem<T>>emptyList();
+		}
+	}
+}
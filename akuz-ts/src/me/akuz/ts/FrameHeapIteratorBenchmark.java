@@ -0,0 +1,65 @@
+package me.akuz.ts;
+
+import java.util.Random;
+
+/**
+ * Manual benchmark of the FrameSampler running on a FrameIterator
+ * against a FrameHeapIterator over a frame with sparse updates;
+ * arguments (optional): key count, time count, repeats.
+ *
+ */
+public final class FrameHeapIteratorBenchmark {
+
+	private static Frame<Integer, Integer> createFrame(final Random rnd, final int keyCount, final int timeCount) {
+		final Frame<Integer, Integer> frame = new Frame<>();
+		for (int k=0; k<keyCount; k++) {
+			// sparse updates, some keys are empty
+			final double prob = rnd.nextInt(10) == 0 ? 0.0 : 0.01 * rnd.nextDouble();
+			for (int t=0; t<timeCount; t++) {
+				if (rnd.nextDouble() < prob) {
+					frame.add(k, t, rnd.nextDouble());
+				}
+			}
+			if (frame.getSeq(k, false) == null) {
+				frame.addSeq(k, new Seq<Integer>());
+			}
+		}
+		return frame;
+	}
+
+	public static void main(String[] args) {
+
+		final int keyCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		final int timeCount = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		final int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		final Frame<Integer, Integer> frame = createFrame(new Random(3), keyCount, timeCount);
+
+		// keep the results, so that the runs are not optimized out
+		long check = 0;
+
+		long linearMs = Long.MAX_VALUE;
+		long heapMs = Long.MAX_VALUE;
+
+		// first round is a warm up
+		for (int k=0; k<=repeats; k++) {
+
+			long startMs = System.currentTimeMillis();
+			check += new FrameSampler<>(frame.iterator()).runToEnd().getKeys().size();
+			final long linear = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			check += new FrameSampler<>(frame.heapIterator()).runToEnd().getKeys().size();
+			final long heap = System.currentTimeMillis() - startMs;
+
+			if (k > 0) {
+				linearMs = Math.min(linearMs, linear);
+				heapMs = Math.min(heapMs, heap);
+			}
+		}
+
+		System.out.println("Best of " + repeats + " on " + keyCount + " keys, " + timeCount + " times (check " + check + "):");
+		System.out.println("FrameSampler: linear " + linearMs + " ms, heap " + heapMs + " ms");
+	}
+
+}
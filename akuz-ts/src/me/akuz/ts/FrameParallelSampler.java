@@ -0,0 +1,284 @@
+package me.akuz.ts;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import me.akuz.core.HashIndex;
+import me.akuz.core.Index;
+import me.akuz.core.Out;
+import me.akuz.ts.log.TAlert;
+import me.akuz.ts.log.TLog;
+
+/**
+ * Runs the same pipeline as a {@link FrameSampler} on
+ * a {@link FrameFilter} over the frame iterator, but
+ * with the keys partitioned across a fork-join pool;
+ * each partition is moved independently through all
+ * times of the filtered sequences, which gives exactly
+ * the same output as running all keys serially.
+ *
+ * As in the serial result, the keys of the result frame
+ * are in the order of their first items, and in the order
+ * in which the filters were added for the same first time;
+ * the log alerts from the partitions are merged in time
+ * order, and in the same key order at the same time.
+ *
+ */
+public final class FrameParallelSampler<K, T extends Comparable<T>> {
+
+	private static final int TASKS_PER_THREAD = 4;
+
+	private final Frame<K, T> _frame;
+	private final Index<K> _keysIndex;
+	private final Map<K, List<Filter<T>>> _filters;
+	private TLog<T> _log;
+	private int _minKeysPerTask;
+
+	public FrameParallelSampler(final Frame<K, T> frame) {
+		if (frame == null) {
+			throw new IllegalArgumentException("Frame cannot be null");
+		}
+		_frame = frame;
+		_keysIndex = new HashIndex<>();
+		_filters = new HashMap<>();
+		_minKeysPerTask = 1;
+	}
+
+	public FrameParallelSampler<K, T> addFilters(final K key, final Collection<Filter<T>> filters) {
+		for (final Filter<T> filter : filters) {
+			addFilter(key, filter);
+		}
+		return this;
+	}
+
+	public FrameParallelSampler<K, T> addFilters(final Collection<K> keys, final Collection<Filter<T>> filters) {
+		for (final K key : keys) {
+			for (final Filter<T> filter : filters) {
+				addFilter(key, filter);
+			}
+		}
+		return this;
+	}
+
+	public FrameParallelSampler<K, T> addFilter(final Collection<K> keys, final Filter<T> filter) {
+		for (final K key : keys) {
+			addFilter(key, filter);
+		}
+		return this;
+	}
+
+	public FrameParallelSampler<K, T> addFilter(final K key, final Filter<T> filter) {
+		_frame.getSeq(key);
+		List<Filter<T>> filters = _filters.get(key);
+		if (filters == null) {
+			filters = new ArrayList<>();
+			_filters.put(key, filters);
+			_keysIndex.ensure(key);
+		}
+		filters.add(filter.clone());
+		return this;
+	}
+
+	public FrameParallelSampler<K, T> setLog(final TLog<T> log) {
+		_log = log;
+		return this;
+	}
+
+	/**
+	 * Set minimum number of keys to be processed
+	 * by one task, to limit the overhead of tasks
+	 * when the filters are cheap (default 1).
+	 */
+	public FrameParallelSampler<K, T> setMinKeysPerTask(final int minKeysPerTask) {
+		if (minKeysPerTask < 1) {
+			throw new IllegalArgumentException("Min keys per task must be positive");
+		}
+		_minKeysPerTask = minKeysPerTask;
+		return this;
+	}
+
+	/**
+	 * Get keys with filters assigned.
+	 */
+	public List<K> getKeys() {
+		return _keysIndex.getList();
+	}
+
+	/**
+	 * Run the filters to the end on the
+	 * common fork-join pool.
+	 */
+	public Frame<K, T> runToEnd() {
+		return runToEnd(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Run the filters to the end on the
+	 * given fork-join pool.
+	 */
+	public Frame<K, T> runToEnd(final ForkJoinPool pool) {
+
+		if (_keysIndex.size() == 0) {
+			throw new IllegalStateException(
+					"FrameParallelSampler does not have any 1D filters assigned");
+		}
+
+		// all times, at which the
+		// serial filter would move
+		final List<T> times = new ArrayList<>();
+		final FrameHeapIterator<K, T> timesIter = new FrameHeapIterator<>(_frame, _keysIndex.getList());
+		final Out<T> nextTime = new Out<>();
+		while (timesIter.getNextTime(nextTime)) {
+			times.add(nextTime.getValue());
+			timesIter.moveToTime(nextTime.getValue());
+		}
+
+		final int keyCount = _keysIndex.size();
+		final int tasksKeyCount = Math.max(_minKeysPerTask,
+				keyCount / (TASKS_PER_THREAD * pool.getParallelism()));
+
+		final List<Seq<T>> seqs = new ArrayList<>(Collections.<Seq<T>>nCopies(keyCount, null));
+		final List<TLog<T>> logs = new ArrayList<>(Collections.<TLog<T>>nCopies(keyCount, null));
+
+		pool.invoke(new PartitionTask(times, 0, keyCount, tasksKeyCount, seqs, logs));
+
+		// merge in the order of first items, as the serial
+		// sampler adds keys when their first items appear
+		final List<Integer> keyIndices = new ArrayList<>(keyCount);
+		for (int i=0; i<keyCount; i++) {
+			if (seqs.get(i).getItems().size() > 0) {
+				keyIndices.add(i);
+			}
+		}
+		// stable, so keys stay in
+		// keys order at same time
+		Collections.sort(keyIndices, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				final T t1 = seqs.get(i1).getItems().get(0).getTime();
+				final T t2 = seqs.get(i2).getItems().get(0).getTime();
+				return t1.compareTo(t2);
+			}
+		});
+		final Frame<K, T> result = new Frame<>();
+		for (int i=0; i<keyIndices.size(); i++) {
+			final int keyIndex = keyIndices.get(i);
+			result.addSeq(_keysIndex.getValue(keyIndex), seqs.get(keyIndex));
+		}
+		if (_log != null) {
+			mergeLogs(logs, _log);
+		}
+		return result;
+	}
+
+	private static final <T extends Comparable<T>> void mergeLogs(final List<TLog<T>> logs, final TLog<T> log) {
+
+		final List<TItem<T>> items = new ArrayList<>();
+		for (int i=0; i<logs.size(); i++) {
+			final TLog<T> partitionLog = logs.get(i);
+			if (partitionLog != null) {
+				items.addAll(partitionLog.getInfosOrHigher().getItems());
+			}
+		}
+
+		// stable, so partitions stay
+		// in keys order at same time
+		Collections.sort(items, new Comparator<TItem<T>>() {
+			@Override
+			public int compare(TItem<T> o1, TItem<T> o2) {
+				return o1.getTime().compareTo(o2.getTime());
+			}
+		});
+
+		for (int i=0; i<items.size(); i++) {
+			final TItem<T> item = items.get(i);
+			final List<TAlert> alerts = item.get();
+			for (int j=0; j<alerts.size(); j++) {
+				log.add(item.getTime(), alerts.get(j));
+			}
+		}
+	}
+
+	/**
+	 * Runs a range of keys through all times,
+	 * splitting the range, if it's too large.
+	 */
+	private final class PartitionTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<T> _times;
+		private final int _keysFrom;
+		private final int _keysTo;
+		private final int _taskKeyCount;
+		private final List<Seq<T>> _seqs;
+		private final List<TLog<T>> _logs;
+
+		public PartitionTask(
+				final List<T> times,
+				final int keysFrom,
+				final int keysTo,
+				final int taskKeyCount,
+				final List<Seq<T>> seqs,
+				final List<TLog<T>> logs) {
+
+			_times = times;
+			_keysFrom = keysFrom;
+			_keysTo = keysTo;
+			_taskKeyCount = taskKeyCount;
+			_seqs = seqs;
+			_logs = logs;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (_keysTo - _keysFrom > _taskKeyCount) {
+				final int keysMid = (_keysFrom + _keysTo) >>> 1;
+				invokeAll(
+					new PartitionTask(_times, _keysFrom, keysMid, _taskKeyCount, _seqs, _logs),
+					new PartitionTask(_times, keysMid, _keysTo, _taskKeyCount, _seqs, _logs));
+				return;
+			}
+
+			final List<K> keys = _keysIndex.getList().subList(_keysFrom, _keysTo);
+			final TLog<T> log = _log != null ? new TLog<T>() : null;
+			final FrameFilter<K, T> frameFilter = new FrameFilter<>(new FrameHeapIterator<>(_frame, keys));
+			frameFilter.setLog(log);
+			for (int i=0; i<keys.size(); i++) {
+				final K key = keys.get(i);
+				frameFilter.addFilters(key, _filters.get(key));
+			}
+
+			final List<Seq<T>> seqs = new ArrayList<>(keys.size());
+			for (int i=0; i<keys.size(); i++) {
+				seqs.add(new Seq<T>());
+			}
+
+			for (int t=0; t<_times.size(); t++) {
+				frameFilter.moveToTime(_times.get(t));
+				for (int i=0; i<keys.size(); i++) {
+					final TItem<T> currItem = frameFilter.getCurrItem(keys.get(i));
+					if (currItem != null) {
+						seqs.get(i).add(currItem);
+					}
+				}
+			}
+
+			// each task writes to
+			// its own range of keys
+			for (int i=0; i<keys.size(); i++) {
+				_seqs.set(_keysFrom + i, seqs.get(i));
+			}
+			_logs.set(_keysFrom, log);
+		}
+	}
+
+}
@@ -79,6 +79,7 @@ implements TimeSchedule<T> {
 			_frameCursor.moveToTime(time);
 		}
 		
+		// in the order of the cursor keys
 		for (int i=0; i<_keys.size(); i++) {
 			
 			final K key = _keys.get(i);
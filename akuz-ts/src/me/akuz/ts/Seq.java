@@ -8,25 +8,184 @@ import me.akuz.ts.filters.stats.CumsumFilter;
 
 /**
  * Time series sequence of values.
+ * 
+ * In streaming mode, when a retention policy is set,
+ * the oldest items are trimmed as new items are added;
+ * positions of items (as used by cursors) are counted
+ * from the start of the sequence, including the items
+ * that have been trimmed.
+ * 
+ * Staging is thread-safe, so that a single producer 
+ * thread can stage items, while a consumer thread
+ * accepts them and moves cursors on the sequence.
+ * 
+ * A slice is a read-only view of a time range of
+ * another sequence, which doesn't copy the items.
  *
  * @param <T> - Time type.
  */
 public final class Seq<T extends Comparable<T>> {
 	
+	private final SeqItems<T> _ownItems;
 	private final List<TItem<T>> _items;
 	private final List<TItem<T>> _itemsReadOnly;
+	private int _trimmedCount;
+	private SeqRetention<T> _retention;
+	private final Object _stagedLock;
 	private List<TItem<T>> _staged;
 	private List<TItem<T>> _stagedReadOnly;
+	private List<TItem<T>> _accepting;
 	
 	public Seq() {
-		_items = new ArrayList<>();
+		_ownItems = new SeqItems<>();
+		_items = _ownItems;
 		_itemsReadOnly = Collections.unmodifiableList(_items);
+		_stagedLock = new Object();
 	}
 	
+	/**
+	 * Create a read-only slice of a range
+	 * of positions of another sequence.
+	 */
+	private Seq(final Seq<T> source, final int fromPosition, final int toPosition) {
+		_ownItems = null;
+		_items = new SeqSlice<>(source, fromPosition, toPosition);
+		_itemsReadOnly = Collections.unmodifiableList(_items);
+		_stagedLock = new Object();
+	}
+	
+	public Seq(final SeqRetention<T> retention) {
+		this();
+		setRetention(retention);
+	}
+	
+	/**
+	 * Get retained items; in streaming mode, item
+	 * at index i is at position getTrimmedCount()+i.
+	 */
 	public List<TItem<T>> getItems() {
 		return _itemsReadOnly;
 	}
 	
+	/**
+	 * Get number of items trimmed from 
+	 * the start of the sequence so far.
+	 */
+	public int getTrimmedCount() {
+		return _trimmedCount;
+	}
+	
+	/**
+	 * Get position after the last item, which is
+	 * the total number of items added, including 
+	 * the items that have been trimmed.
+	 */
+	public int getEndPosition() {
+		return _trimmedCount + _items.size();
+	}
+	
+	/**
+	 * Get item by position, which is counted from
+	 * the start of the sequence, including the items
+	 * that have been trimmed; throws exception, if 
+	 * the item at this position has been trimmed.
+	 */
+	public TItem<T> getItemAt(final int position) {
+		if (position < _trimmedCount) {
+			throw new IllegalStateException(
+					"Item at position " + position + " has been trimmed " +
+					"by retention policy " + _retention + ", first retained " +
+					"position is " + _trimmedCount);
+		}
+		return _items.get(position - _trimmedCount);
+	}
+	
+	public SeqRetention<T> getRetention() {
+		return _retention;
+	}
+	
+	/**
+	 * Set retention policy (null to keep all items),
+	 * which is applied immediately and on each add.
+	 */
+	public void setRetention(final SeqRetention<T> retention) {
+		checkNotSlice();
+		_retention = retention;
+		trim();
+	}
+	
+	private void trim() {
+		if (_retention != null) {
+			final TItem<T> lastItem = getLast();
+			while (_items.size() > 1 && 
+					_retention.canTrimFirst(_items.get(0), lastItem, _items.size())) {
+				_ownItems.removeFirst();
+				_trimmedCount++;
+			}
+		}
+	}
+	
+	private void checkNotSlice() {
+		if (_ownItems == null) {
+			throw new IllegalStateException("Sequence slice is read-only");
+		}
+	}
+	
+	/**
+	 * Check if this sequence is a read-only slice.
+	 */
+	public boolean isSlice() {
+		return _ownItems == null;
+	}
+	
+	/**
+	 * Find position of the first item with time
+	 * at or after the given time, or the end
+	 * position, if there is no such item;
+	 * uses binary search over retained items.
+	 */
+	public int findPosition(final T time) {
+		int lo = _trimmedCount;
+		int hi = getEndPosition();
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (_items.get(mid - _trimmedCount).getTime().compareTo(time) < 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+	
+	/**
+	 * Get item exactly at the given time,
+	 * or null, if there is no such item.
+	 */
+	public TItem<T> getItemAtTime(final T time) {
+		final int position = findPosition(time);
+		if (position < getEndPosition()) {
+			final TItem<T> item = _items.get(position - _trimmedCount);
+			if (item.getTime().compareTo(time) == 0) {
+				return item;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Get a read-only view of the items with times
+	 * within [fromTime, toTime), without copying;
+	 * null fromTime or toTime means no bound.
+	 * In streaming mode, the slice fails when its
+	 * items are trimmed from this sequence.
+	 */
+	public Seq<T> slice(final T fromTime, final T toTime) {
+		final int fromPosition = fromTime != null ? findPosition(fromTime) : _trimmedCount;
+		final int toPosition = toTime != null ? findPosition(toTime) : getEndPosition();
+		return new Seq<>(this, fromPosition, Math.max(fromPosition, toPosition));
+	}
+	
 	public TItem<T> getLast() {
 		if (_items.size() > 0) {
 			return _items.get(_items.size()-1);
@@ -40,6 +199,7 @@ public final class Seq<T extends Comparable<T>> {
 	}
 
 	public void add(final TItem<T> item) {
+		checkNotSlice();
 		int lastTimeCmp = -1;
 		TItem<T> lastItem = null;
 		if (_items.size() > 0) {
@@ -51,7 +211,8 @@ public final class Seq<T extends Comparable<T>> {
 											"previous item time '" + lastItem.getTime() + "', " + 
 											"added item time '" + item.getTime() + "'");
 		}
-		_items.add(item);
+		_ownItems.add(item);
+		trim();
 	}
 
 	public void stage(final T time, final Object value) {
@@ -59,35 +220,76 @@ public final class Seq<T extends Comparable<T>> {
 	}
 	
 	public void stage(final TItem<T> item) {
-		if (_staged == null) {
-			_staged = new ArrayList<>();
-			_stagedReadOnly = Collections.unmodifiableList(_staged);
+		checkNotSlice();
+		synchronized (_stagedLock) {
+			if (_staged == null) {
+				_staged = new ArrayList<>();
+				_stagedReadOnly = Collections.unmodifiableList(_staged);
+			}
+			_staged.add(item);
 		}
-		_staged.add(item);
 	}
 	
+	/**
+	 * Get staged items; the list must not be
+	 * accessed while another thread is staging.
+	 */
 	public List<TItem<T>> getStaged() {
-		return _stagedReadOnly;
+		synchronized (_stagedLock) {
+			return _stagedReadOnly;
+		}
 	}
 	
 	public void acceptStaged() {
-		if (_staged == null ||
-			_staged.size() == 0) {
-			return;
-		} else if (_staged.size() == 1) {
-			add(_staged.get(0));
+		final List<TItem<T>> accepting = takeStaged();
+		if (accepting != null) {
+			acceptTaken(accepting);
+		}
+	}
+	
+	/**
+	 * Swap the staged list, so that the producer
+	 * can continue staging; returns the list of
+	 * taken staged items, or null if none.
+	 */
+	List<TItem<T>> takeStaged() {
+		synchronized (_stagedLock) {
+			if (_staged == null ||
+				_staged.size() == 0) {
+				return null;
+			}
+			final List<TItem<T>> accepting = _staged;
+			_staged = _accepting != null ? _accepting : new ArrayList<TItem<T>>();
+			_stagedReadOnly = Collections.unmodifiableList(_staged);
+			_accepting = null;
+			return accepting;
+		}
+	}
+	
+	/**
+	 * Add the items taken by takeStaged().
+	 */
+	void acceptTaken(final List<TItem<T>> accepting) {
+		if (accepting.size() == 1) {
+			add(accepting.get(0));
 		} else {
-			Collections.sort(_staged);
-			for (int i=0; i<_staged.size(); i++) {
-				add(_staged.get(i));
+			Collections.sort(accepting);
+			for (int i=0; i<accepting.size(); i++) {
+				add(accepting.get(i));
 			}
 		}
-		_staged.clear();
+		accepting.clear();
+		
+		synchronized (_stagedLock) {
+			_accepting = accepting;
+		}
 	}
 	
 	public void clearStaged() {
-		if (_staged != null) {
-			_staged.clear();
+		synchronized (_stagedLock) {
+			if (_staged != null) {
+				_staged.clear();
+			}
 		}
 	}
 	
@@ -0,0 +1,72 @@
+package me.akuz.ts;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Growable ring buffer of sequence items, which
+ * allows to add items at the end and to remove 
+ * items from the start in constant time.
+ *
+ */
+final class SeqItems<T extends Comparable<T>> 
+extends AbstractList<TItem<T>> 
+implements RandomAccess {
+	
+	private static final int DEFAULT_CAPACITY = 10;
+	
+	private TItem<?>[] _data;
+	private int _head;
+	private int _size;
+	
+	public SeqItems() {
+		_data = new TItem<?>[DEFAULT_CAPACITY];
+	}
+	
+	@Override
+	public int size() {
+		return _size;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public TItem<T> get(final int index) {
+		if (index < 0 || index >= _size) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds, size " + _size);
+		}
+		final int pos = _head + index;
+		return (TItem<T>)_data[pos < _data.length ? pos : pos - _data.length];
+	}
+	
+	@Override
+	public boolean add(final TItem<T> item) {
+		if (_size == _data.length) {
+			final TItem<?>[] data = new TItem<?>[_data.length * 2];
+			final int headCount = Math.min(_size, _data.length - _head);
+			System.arraycopy(_data, _head, data, 0, headCount);
+			System.arraycopy(_data, 0, data, headCount, _size - headCount);
+			_data = data;
+			_head = 0;
+		}
+		final int pos = _head + _size;
+		_data[pos < _data.length ? pos : pos - _data.length] = item;
+		_size++;
+		modCount++;
+		return true;
+	}
+	
+	/**
+	 * Remove the first item, releasing 
+	 * the reference to it.
+	 */
+	public void removeFirst() {
+		if (_size == 0) {
+			throw new IllegalStateException("Cannot remove first item, the list is empty");
+		}
+		_data[_head] = null;
+		_head = _head + 1 < _data.length ? _head + 1 : 0;
+		_size--;
+		modCount++;
+	}
+
+}
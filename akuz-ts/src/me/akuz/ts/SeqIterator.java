@@ -6,7 +6,9 @@ import java.util.List;
 import me.akuz.core.Out;
 
 /**
- * {@link Seq} iterator.
+ * {@link Seq} iterator; the cursor is a position
+ * in the sequence, which stays valid when the 
+ * sequence trims old items in streaming mode.
  *
  */
 public final class SeqIterator<T extends Comparable<T>> 
@@ -23,6 +25,7 @@ implements SeqCursor<T>, Cloneable {
 			throw new IllegalArgumentException("Cannot iterate over null sequence");
 		}
 		_seq = seq;
+		_nextCursor = seq.getTrimmedCount();
 		_movedItems = new ArrayList<>();
 	}
 	
@@ -55,9 +58,8 @@ implements SeqCursor<T>, Cloneable {
 	@Override
 	public boolean getNextTime(final Out<T> nextTime) {
 		
-		final List<TItem<T>> items = _seq.getItems();
-		if (_nextCursor < items.size()) {
-			nextTime.setValue(items.get(_nextCursor).getTime());
+		if (_nextCursor < _seq.getEndPosition()) {
+			nextTime.setValue(_seq.getItemAt(_nextCursor).getTime());
 			return true;
 		} else {
 			nextTime.setValue(null);
@@ -73,13 +75,13 @@ implements SeqCursor<T>, Cloneable {
 		_currItem = null;
 		_movedItems.clear();
 		
-		final List<TItem<T>> items = _seq.getItems();
+		final int endPosition = _seq.getEndPosition();
 		
 		// move to new time
 		// item by item
 		while (true) {
 			
-			if (_nextCursor >= items.size()) {
+			if (_nextCursor >= endPosition) {
 				
 				// reached the end of 
 				// available items
@@ -88,7 +90,7 @@ implements SeqCursor<T>, Cloneable {
 			} else {
 				
 				// get next item info
-				final TItem<T> nextItem = items.get(_nextCursor);
+				final TItem<T> nextItem = _seq.getItemAt(_nextCursor);
 				final int cmp = nextItem.getTime().compareTo(time);
 
 				// check if next item
@@ -116,6 +118,36 @@ implements SeqCursor<T>, Cloneable {
 		_currTime = time;
 	}
 	
+	/**
+	 * Move to a new time by binary search, skipping
+	 * the items before it, instead of walking through
+	 * them; moved items only contain the item at
+	 * exactly this time, if any.
+	 */
+	public void seekToTime(final T time) {
+		
+		CurrTime.checkNew(_currTime, time);
+		
+		_currItem = null;
+		_movedItems.clear();
+		
+		final int position = Math.max(_nextCursor, _seq.findPosition(time));
+		if (position < _seq.getEndPosition()) {
+			final TItem<T> item = _seq.getItemAt(position);
+			if (item.getTime().compareTo(time) == 0) {
+				_currItem = item;
+				_movedItems.add(item);
+				_nextCursor = position + 1;
+			} else {
+				_nextCursor = position;
+			}
+		} else {
+			_nextCursor = position;
+		}
+		
+		_currTime = time;
+	}
+	
 	@Override
 	@SuppressWarnings("unchecked")
 	public SeqIterator<T> clone() {
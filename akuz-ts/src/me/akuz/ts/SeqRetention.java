@@ -0,0 +1,69 @@
+package me.akuz.ts;
+
+import me.akuz.core.TDateTime;
+import me.akuz.core.TPeriod;
+
+/**
+ * Retention policy of a streaming {@link Seq}, which
+ * determines when the oldest items can be trimmed.
+ *
+ * @param <T> - Time type.
+ */
+public abstract class SeqRetention<T extends Comparable<T>> {
+	
+	/**
+	 * Check if the first item of the sequence can 
+	 * be trimmed, given the last item and the size.
+	 */
+	public abstract boolean canTrimFirst(
+			final TItem<T> firstItem,
+			final TItem<T> lastItem,
+			final int size);
+	
+	/**
+	 * Retain at most maxCount last items.
+	 */
+	public static final <T extends Comparable<T>> SeqRetention<T> byCount(final int maxCount) {
+		if (maxCount < 1) {
+			throw new IllegalArgumentException("Retention max count must be positive");
+		}
+		return new SeqRetention<T>() {
+			@Override
+			public boolean canTrimFirst(
+					final TItem<T> firstItem,
+					final TItem<T> lastItem,
+					final int size) {
+				return size > maxCount;
+			}
+			@Override
+			public String toString() {
+				return "{maxCount: " + maxCount + "}";
+			}
+		};
+	}
+	
+	/**
+	 * Retain the items, which are within the
+	 * period before the time of the last item.
+	 */
+	public static final SeqRetention<TDateTime> byPeriod(final TPeriod period) {
+		if (period.getMs() < 0) {
+			throw new IllegalArgumentException("Retention period must not be negative");
+		}
+		final long periodMs = period.getMs();
+		return new SeqRetention<TDateTime>() {
+			@Override
+			public boolean canTrimFirst(
+					final TItem<TDateTime> firstItem,
+					final TItem<TDateTime> lastItem,
+					final int size) {
+				return firstItem.getTime().millisTo(lastItem.getTime()) > periodMs;
+			}
+			@Override
+			public String toString() {
+				return "{periodMs: " + periodMs + "}";
+			}
+		};
+	}
+
+}
@@ -0,0 +1,38 @@
+package me.akuz.ts;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only view of a range of positions 
+ * of another sequence, without copying.
+ *
+ */
+final class SeqSlice<T extends Comparable<T>> 
+extends AbstractList<TItem<T>> 
+implements RandomAccess {
+	
+	private final Seq<T> _source;
+	private final int _fromPosition;
+	private final int _toPosition;
+	
+	public SeqSlice(final Seq<T> source, final int fromPosition, final int toPosition) {
+		_source = source;
+		_fromPosition = fromPosition;
+		_toPosition = toPosition;
+	}
+
+	@Override
+	public int size() {
+		return _toPosition - _fromPosition;
+	}
+
+	@Override
+	public TItem<T> get(final int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds, size " + size());
+		}
+		return _source.getItemAt(_fromPosition + index);
+	}
+
+}
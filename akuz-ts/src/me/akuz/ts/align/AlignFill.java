@@ -0,0 +1,98 @@
+package me.akuz.ts.align;
+
+import me.akuz.core.TDate;
+import me.akuz.core.TDateTime;
+import me.akuz.core.TPeriod;
+
+import org.joda.time.Days;
+
+/**
+ * Policy of filling the times, at which a sequence
+ * has no value, when aligning a frame on the union
+ * of the times of all its sequences.
+ *
+ */
+public abstract class AlignFill<T extends Comparable<T>> {
+
+	/**
+	 * Check if the last value (at lastTime, lastRow)
+	 * should be repeated at a later time and row;
+	 * called with increasing times after each value,
+	 * until it returns false.
+	 */
+	public abstract boolean isAlive(T lastTime, int lastRow, T time, int row);
+
+	/**
+	 * Fill with NaN (don't repeat values).
+	 */
+	public static final <T extends Comparable<T>> AlignFill<T> nan() {
+		return new AlignFill<T>() {
+			@Override
+			public boolean isAlive(T lastTime, int lastRow, T time, int row) {
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Repeat the last value forever.
+	 */
+	public static final <T extends Comparable<T>> AlignFill<T> forward() {
+		return new AlignFill<T>() {
+			@Override
+			public boolean isAlive(T lastTime, int lastRow, T time, int row) {
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Repeat the last value for up to
+	 * the given number of rows.
+	 */
+	public static final <T extends Comparable<T>> AlignFill<T> forwardRows(final int maxRows) {
+		if (maxRows < 0) {
+			throw new IllegalArgumentException("Max rows cannot be negative");
+		}
+		return new AlignFill<T>() {
+			@Override
+			public boolean isAlive(T lastTime, int lastRow, T time, int row) {
+				return row - lastRow <= maxRows;
+			}
+		};
+	}
+
+	/**
+	 * Repeat the last value for up to the given
+	 * number of days (same as RepeatValueWithDateExpiry).
+	 */
+	public static final AlignFill<TDate> forwardDays(final Days aliveDays) {
+		if (aliveDays == null) {
+			throw new IllegalArgumentException("Alive days cannot be null");
+		}
+		final int maxDays = aliveDays.getDays();
+		return new AlignFill<TDate>() {
+			@Override
+			public boolean isAlive(TDate lastTime, int lastRow, TDate time, int row) {
+				return lastTime.daysTo(time) <= maxDays;
+			}
+		};
+	}
+
+	/**
+	 * Repeat the last value for up to the given period.
+	 */
+	public static final AlignFill<TDateTime> forwardPeriod(final TPeriod alivePeriod) {
+		if (alivePeriod == null) {
+			throw new IllegalArgumentException("Alive period cannot be null");
+		}
+		final long aliveMs = alivePeriod.getMs();
+		return new AlignFill<TDateTime>() {
+			@Override
+			public boolean isAlive(TDateTime lastTime, int lastRow, TDateTime time, int row) {
+				return lastTime.millisTo(time) <= aliveMs;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,276 @@
+package me.akuz.ts.align;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import me.akuz.ts.Frame;
+import me.akuz.ts.Seq;
+import me.akuz.ts.TItem;
+import Jama.Matrix;
+
+/**
+ * Aligns numeric sequences of a frame on the union of
+ * their times in bulk: the union time axis is computed
+ * once by merging the sorted times of the sequences,
+ * and then each column is filled in one pass over its
+ * sequence, without moving a frame iterator through
+ * every time.
+ *
+ * Rows are the union times, columns are the keys in
+ * the provided order; the times, at which a sequence
+ * has no value, are filled by its {@link AlignFill}
+ * (NaN by default).
+ *
+ */
+public final class FrameAligner<K, T extends Comparable<T>> {
+
+	private final Frame<K, T> _frame;
+	private final List<K> _keys;
+	private final Map<K, AlignFill<T>> _fills;
+	private AlignFill<T> _defaultFill;
+	private Object[] _times;
+	private List<T> _timesReadOnly;
+
+	/**
+	 * Create aligner for all keys of the frame.
+	 */
+	public FrameAligner(final Frame<K, T> frame) {
+		this(frame, frame.getKeys());
+	}
+
+	/**
+	 * Create aligner for the keys of the frame,
+	 * which become columns in the given order.
+	 */
+	public FrameAligner(final Frame<K, T> frame, final List<K> keys) {
+		if (frame == null) {
+			throw new IllegalArgumentException("Frame cannot be null");
+		}
+		if (keys == null) {
+			throw new IllegalArgumentException("Keys cannot be null");
+		}
+		_frame = frame;
+		_keys = new ArrayList<>(keys);
+		_fills = new HashMap<>();
+		_defaultFill = AlignFill.nan();
+	}
+
+	/**
+	 * Set fill policy for all keys, which
+	 * don't have a specific fill policy.
+	 */
+	public FrameAligner<K, T> setFill(final AlignFill<T> fill) {
+		if (fill == null) {
+			throw new IllegalArgumentException("Fill cannot be null");
+		}
+		_defaultFill = fill;
+		return this;
+	}
+
+	/**
+	 * Set fill policy for a specific key.
+	 */
+	public FrameAligner<K, T> setFill(final K key, final AlignFill<T> fill) {
+		if (fill == null) {
+			throw new IllegalArgumentException("Fill cannot be null");
+		}
+		_fills.put(key, fill);
+		return this;
+	}
+
+	public List<K> getKeys() {
+		return Collections.unmodifiableList(_keys);
+	}
+
+	/**
+	 * Get the union of the times of all
+	 * sequences (rows), computed once.
+	 */
+	public List<T> getTimes() {
+		ensureTimes();
+		return _timesReadOnly;
+	}
+
+	public int getRowCount() {
+		ensureTimes();
+		return _times.length;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void ensureTimes() {
+		if (_times != null) {
+			return;
+		}
+
+		// sorted times of each sequence
+		List<Object[]> runs = new ArrayList<>(_keys.size());
+		for (int j=0; j<_keys.size(); j++) {
+			final Seq<T> seq = _frame.getSeq(_keys.get(j), false);
+			if (seq == null) {
+				continue;
+			}
+			final List<TItem<T>> items = seq.getItems();
+			final Object[] run = new Object[items.size()];
+			for (int i=0; i<run.length; i++) {
+				run[i] = items.get(i).getTime();
+			}
+			runs.add(run);
+		}
+
+		// merge pairs of runs, until one left
+		while (runs.size() > 1) {
+			final List<Object[]> merged = new ArrayList<>((runs.size() + 1) / 2);
+			for (int r=0; r<runs.size(); r+=2) {
+				if (r + 1 < runs.size()) {
+					merged.add(mergeUnion(runs.get(r), runs.get(r + 1)));
+				} else {
+					merged.add(runs.get(r));
+				}
+			}
+			runs = merged;
+		}
+
+		_times = runs.size() > 0 ? runs.get(0) : new Object[0];
+		_timesReadOnly = Collections.unmodifiableList((List<T>)(List<?>)Arrays.asList(_times));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends Comparable<T>> Object[] mergeUnion(final Object[] a, final Object[] b) {
+		final Object[] result = new Object[a.length + b.length];
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		while (i < a.length && j < b.length) {
+			final int cmp = ((T)a[i]).compareTo((T)b[j]);
+			if (cmp < 0) {
+				result[k++] = a[i++];
+			} else if (cmp > 0) {
+				result[k++] = b[j++];
+			} else {
+				result[k++] = a[i++];
+				j++;
+			}
+		}
+		while (i < a.length) {
+			result[k++] = a[i++];
+		}
+		while (j < b.length) {
+			result[k++] = b[j++];
+		}
+		return k < result.length ? Arrays.copyOf(result, k) : result;
+	}
+
+	/**
+	 * Get aligned values of one key.
+	 */
+	public double[] getColumn(final K key) {
+		final double[] column = new double[getRowCount()];
+		fillColumn(key, column, 0);
+		return column;
+	}
+
+	/**
+	 * Fill aligned values of one key into the
+	 * array, starting at the offset.
+	 */
+	@SuppressWarnings("unchecked")
+	public void fillColumn(final K key, final double[] out, final int offset) {
+
+		ensureTimes();
+		final int rowCount = _times.length;
+		Arrays.fill(out, offset, offset + rowCount, Double.NaN);
+
+		final Seq<T> seq = _frame.getSeq(key, false);
+		if (seq == null) {
+			return;
+		}
+		AlignFill<T> fill = _fills.get(key);
+		if (fill == null) {
+			fill = _defaultFill;
+		}
+
+		final List<TItem<T>> items = seq.getItems();
+		int row = 0;
+		int lastRow = -1;
+		T lastTime = null;
+		double lastValue = Double.NaN;
+		for (int i=0; i<items.size(); i++) {
+
+			final TItem<T> item = items.get(i);
+			final T time = item.getTime();
+
+			// find row of the item, checking
+			// the next row first (dense keys)
+			if (row >= rowCount || ((T)_times[row]).compareTo(time) != 0) {
+				row = Arrays.binarySearch(_times, row, rowCount, time);
+				if (row < 0) {
+					throw new IllegalStateException("Time " + time + " of key " + key + " is not in the aligned times");
+				}
+			}
+
+			if (lastRow >= 0) {
+				fillForward(fill, lastTime, lastRow, lastValue, row, out, offset);
+			}
+
+			lastValue = item.getNumber().doubleValue();
+			out[offset + row] = lastValue;
+			lastTime = time;
+			lastRow = row;
+			row++;
+		}
+		if (lastRow >= 0) {
+			fillForward(fill, lastTime, lastRow, lastValue, rowCount, out, offset);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void fillForward(
+			final AlignFill<T> fill,
+			final T lastTime,
+			final int lastRow,
+			final double lastValue,
+			final int endRow,
+			final double[] out,
+			final int offset) {
+
+		for (int r=lastRow+1; r<endRow; r++) {
+			if (!fill.isAlive(lastTime, lastRow, (T)_times[r], r)) {
+				break;
+			}
+			out[offset + r] = lastValue;
+		}
+	}
+
+	/**
+	 * Get aligned values of all keys as a column-major
+	 * array: value of key j at row i is at j*rows + i.
+	 */
+	public double[] toColumnMajor() {
+		final long size = (long)getRowCount() * _keys.size();
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Aligned frame is too large for an array: " + size);
+		}
+		final double[] values = new double[(int)size];
+		for (int j=0; j<_keys.size(); j++) {
+			fillColumn(_keys.get(j), values, j * _times.length);
+		}
+		return values;
+	}
+
+	/**
+	 * Get aligned values of all keys as a Jama
+	 * matrix (rows are times, columns are keys).
+	 */
+	public Matrix toMatrix() {
+		final int rowCount = getRowCount();
+		if (rowCount == 0) {
+			return new Matrix(0, _keys.size());
+		}
+		return new Matrix(toColumnMajor(), rowCount);
+	}
+
+}
@@ -0,0 +1,94 @@
+package me.akuz.ts.align;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import me.akuz.core.HashIndex;
+import me.akuz.core.Index;
+import me.akuz.core.TDate;
+import me.akuz.ts.Filter;
+import me.akuz.ts.Frame;
+import me.akuz.ts.filters.RepeatValueWithDateExpiry;
+import me.akuz.ts.io.JAMA_IO;
+
+import org.joda.time.Days;
+
+/**
+ * Manual benchmark of converting a frame into a matrix with
+ * the FrameAligner against a FrameIterator (with filters);
+ * arguments (optional): key count, day count, repeats.
+ *
+ */
+public final class FrameAlignerBenchmark {
+
+	private static Frame<String, TDate> createRandomFrame(final Random rnd, final int keyCount, final int dayCount) {
+		final Frame<String, TDate> frame = new Frame<>();
+		TDate date = new TDate(2010, 1, 1);
+		for (int d=0; d<dayCount; d++) {
+			for (int k=0; k<keyCount; k++) {
+				// keys with different sparsity
+				if (rnd.nextInt(k % 5 + 1) == 0) {
+					frame.add("k" + k, date, rnd.nextGaussian());
+				}
+			}
+			date = date.plusDays(1 + rnd.nextInt(2));
+		}
+		return frame;
+	}
+
+	public static void main(String[] args) {
+
+		final int keyCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		final int dayCount = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+		final int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		final Frame<String, TDate> frame = createRandomFrame(new Random(1), keyCount, dayCount);
+		final Index<String> keysIndex = new HashIndex<>(frame.getKeys());
+		final List<Filter<TDate>> filters = new ArrayList<>();
+		filters.add(new RepeatValueWithDateExpiry(Days.days(3)));
+
+		// keep the results, so that the runs are not optimized out
+		long check = 0;
+
+		long iterMs = Long.MAX_VALUE;
+		long alignMs = Long.MAX_VALUE;
+		long iterFillMs = Long.MAX_VALUE;
+		long alignFillMs = Long.MAX_VALUE;
+
+		// first round is a warm up
+		for (int k=0; k<=repeats; k++) {
+
+			long startMs = System.currentTimeMillis();
+			check += JAMA_IO.intoMatrix(frame, keysIndex, null, null).getRowDimension();
+			final long iter = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			check += JAMA_IO.intoMatrix(frame, keysIndex).getRowDimension();
+			final long align = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			check += JAMA_IO.intoMatrix(frame, keysIndex, filters, null).getRowDimension();
+			final long iterFill = System.currentTimeMillis() - startMs;
+
+			startMs = System.currentTimeMillis();
+			check += new FrameAligner<>(frame, keysIndex.getList())
+					.setFill(AlignFill.forwardDays(Days.days(3)))
+					.toMatrix()
+					.getRowDimension();
+			final long alignFill = System.currentTimeMillis() - startMs;
+
+			if (k > 0) {
+				iterMs = Math.min(iterMs, iter);
+				alignMs = Math.min(alignMs, align);
+				iterFillMs = Math.min(iterFillMs, iterFill);
+				alignFillMs = Math.min(alignFillMs, alignFill);
+			}
+		}
+
+		System.out.println("Best of " + repeats + " on " + keyCount + " keys, " + dayCount + " days (check " + check + "):");
+		System.out.println("NaN fill: iterator " + iterMs + " ms, aligner " + alignMs + " ms");
+		System.out.println("Forward fill: iterator " + iterFillMs + " ms, aligner " + alignFillMs + " ms");
+	}
+
+}
@@ -31,8 +31,8 @@ public final class IsActive {
 			if (isActive) {
 				
 				// check if still on
-				final Days days = Days.daysBetween(prevDate.get(), date.get());
-				if (days.compareTo(offAfterDays) > 0) {
+				final int days = prevDate.daysTo(date);
+				if (days > offAfterDays.getDays()) {
 					
 					if (lastTurnOnDate != null) {
 						
@@ -61,8 +61,8 @@ public final class IsActive {
 				if (prevDate != null) {
 					
 					// check if there were no items for a long time
-					final Days days = Days.daysBetween(prevDate.get(), date.get());
-					if (days.compareTo(offAfterDays) > 0) {
+					final int days = prevDate.daysTo(date);
+					if (days > offAfterDays.getDays()) {
 						
 						// reset active stretch start
 						currActiveStartDate = date;
@@ -75,8 +75,8 @@ public final class IsActive {
 				}
 				
 				// check if time to turn on
-				final Days days = Days.daysBetween(currActiveStartDate.get(), date.get());
-				if (days.compareTo(onAfterDays) >= 0) {
+				final int days = currActiveStartDate.daysTo(date);
+				if (days >= onAfterDays.getDays()) {
 					
 					isActive = true;
 					lastTurnOnDate = date;
@@ -43,16 +43,16 @@ public final class RepeatValueWithDateExpiry extends Filter<TDate> {
 		// check if expired
 		if (_lastAvailableItem != null) {
 			
-			final Days diff = Days.daysBetween(_lastAvailableItem.getTime().get(), time.get());
+			final int diff = _lastAvailableItem.getTime().daysTo(time);
 			
-			if (diff.getDays() < 0) {
+			if (diff < 0) {
 				throw new IllegalStateException(
 						"Times are not in chronological order in \"" + getFieldName() + 
 						"\"; last known time: " + _lastAvailableItem.getTime() + "; new time: " + time);
 			}
 			
 			// set last item
-			if (diff.compareTo(_aliveDays) <= 0) {
+			if (diff <= _aliveDays.getDays()) {
 				_currItem = new TItem<TDate>(time, _lastAvailableItem.getObject());
 			} else if (_defaultValue != null) {
 				_currItem = new TItem<TDate>(time, _defaultValue);
@@ -11,6 +11,11 @@ import me.akuz.ts.log.TLog;
 
 /**
  * Accumulator filter (1D).
+ * 
+ * Each output is a new immutable TItem with a boxed value, as 
+ * are all items of sequences; to compute moving statistics on 
+ * numeric data without allocating on each move, run the 
+ * accumulators on a DoubleSeq with DoubleAccumulatorFilter.
  *
  */
 public class AccumulatorFilter<T extends Comparable<T>> extends Filter<T> {
@@ -8,6 +8,29 @@ public abstract class Accumulator<T extends Comparable<T>> implements Cloneable
 	
 	public abstract Object get();
 	
+	/**
+	 * Get the current value as a primitive double (NaN, where
+	 * get() returns null); numeric accumulators override this 
+	 * to avoid boxing, and box its result in get().
+	 */
+	public double getDouble() {
+		final Object value = get();
+		return value != null ? toDouble(value, getClass().getSimpleName()) : Double.NaN;
+	}
+	
+	/**
+	 * Get double from a numeric value, or throw 
+	 * exception, if the value is not numeric.
+	 */
+	protected static double toDouble(final Object value, final String statName) {
+		if (!(value instanceof Number)) {
+			throw new IllegalArgumentException(
+					"Cannot compute " + statName + " of non-numeric " + 
+					"value (" + value.getClass().getSimpleName() + ")");
+		}
+		return ((Number)value).doubleValue();
+	}
+	
 	@Override
 	@SuppressWarnings("unchecked")
 	public Accumulator<T> clone() {
@@ -1,6 +1,6 @@
 package me.akuz.ts.filters.stats.accs;
 
-public final class CumsumAccumulator<T extends Comparable<T>> extends Accumulator<T> {
+public final class CumsumAccumulator<T extends Comparable<T>> extends Accumulator<T> implements DoubleAccumulator {
 
 	private final double _startValue;
 	private double _currValue;
@@ -30,8 +30,19 @@ public final class CumsumAccumulator<T extends Comparable<T>> extends Accumulato
 		}
 	}
 	
+	@Override
+	public void addDouble(final double value) {
+		_currValue += value;
+	}
+	
+	@Override
 	public Object get() {
 		return _currValue;
 	}
+	
+	@Override
+	public double getDouble() {
+		return _currValue;
+	}
 
 }
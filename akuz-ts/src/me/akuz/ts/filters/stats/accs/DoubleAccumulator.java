@@ -0,0 +1,18 @@
+package me.akuz.ts.filters.stats.accs;
+
+/**
+ * Accumulator, which does not depend on the times of the values,
+ * and can be updated and read with primitive doubles; such 
+ * accumulators can run on {@link me.akuz.ts.num.DoubleSeq}s
+ * without boxing, see {@link me.akuz.ts.num.filters.DoubleAccumulatorFilter}.
+ *
+ */
+public interface DoubleAccumulator {
+	
+	void reset();
+	
+	void addDouble(final double value);
+	
+	double getDouble();
+
+}
@@ -0,0 +1,68 @@
+package me.akuz.ts.filters.stats.accs;
+
+/**
+ * Exponentially weighted moving average, starting
+ * from the first value; NaN until the first value.
+ *
+ */
+public final class EwmaAccumulator<T extends Comparable<T>> extends Accumulator<T> implements DoubleAccumulator {
+
+	private final double _alpha;
+	private boolean _hasValue;
+	private double _curr;
+	
+	/**
+	 * Create EWMA with the weight of the new value
+	 * alpha, which must be within (0, 1].
+	 */
+	public EwmaAccumulator(final double alpha) {
+		if (!(alpha > 0.0 && alpha <= 1.0)) {
+			throw new IllegalArgumentException("Alpha must be within (0, 1]");
+		}
+		_alpha = alpha;
+	}
+	
+	/**
+	 * Create EWMA, in which the weight of a
+	 * value halves after half life values.
+	 */
+	public static <T extends Comparable<T>> EwmaAccumulator<T> fromHalfLife(final double halfLife) {
+		if (!(halfLife > 0.0)) {
+			throw new IllegalArgumentException("Half life must be positive");
+		}
+		return new EwmaAccumulator<>(1.0 - Math.pow(0.5, 1.0 / halfLife));
+	}
+	
+	@Override
+	public void reset() {
+		_hasValue = false;
+		_curr = 0.0;
+	}
+
+	@Override
+	public void add(final T time, final Object value) {
+		if (value != null) {
+			addDouble(toDouble(value, "EWMA"));
+		}
+	}
+	
+	@Override
+	public void addDouble(final double value) {
+		if (_hasValue) {
+			_curr += _alpha * (value - _curr);
+		} else {
+			_curr = value;
+			_hasValue = true;
+		}
+	}
+
+	@Override
+	public Object get() {
+		return getDouble();
+	}
+	
+	@Override
+	public double getDouble() {
+		return _hasValue ? _curr : Double.NaN;
+	}
+}
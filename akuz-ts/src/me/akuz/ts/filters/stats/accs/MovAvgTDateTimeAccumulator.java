@@ -1,14 +1,14 @@
 package me.akuz.ts.filters.stats.accs;
 
-import me.akuz.core.CircularBuffer;
+import me.akuz.core.DoubleRingBuffer;
 import me.akuz.core.TDateTime;
 import me.akuz.core.TPeriod;
 import me.akuz.ts.CurrTime;
 
 public final class MovAvgTDateTimeAccumulator extends Accumulator<TDateTime> {
 
-	private CircularBuffer<Double> _buff;
-	private final TPeriod _gapOkDur;
+	private DoubleRingBuffer _buff;
+	private final long _gapOkMs;
 	private TDateTime _lastTime;
 	private double _curr;
 	
@@ -22,8 +22,8 @@ public final class MovAvgTDateTimeAccumulator extends Accumulator<TDateTime> {
 		if (gapOkDur.getMs() <= 0) {
 			throw new IllegalArgumentException("GapOK duration must be positive");
 		}
-		_buff = new CircularBuffer<>(sampleCount);
-		_gapOkDur = gapOkDur;
+		_buff = new DoubleRingBuffer(sampleCount);
+		_gapOkMs = gapOkDur.getMs();
 		_curr = 0.0;
 	}
 	
@@ -48,8 +48,8 @@ public final class MovAvgTDateTimeAccumulator extends Accumulator<TDateTime> {
 		
 		// reset if needed
 		if (_lastTime != null) {
-			final TPeriod dur = new TPeriod(_lastTime, time);
-			if (dur.compareTo(_gapOkDur) > 0) {
+			final long durMs = _lastTime.millisTo(time);
+			if (durMs > _gapOkMs) {
 				reset();
 			}
 		}
@@ -57,25 +57,21 @@ public final class MovAvgTDateTimeAccumulator extends Accumulator<TDateTime> {
 		// update current
 		if (value != null) {
 
-			final Double newValue = ((Number)value).doubleValue();
-			final int oldSize = _buff.getCurrSize();
-			final Double oldValue = _buff.add(newValue);
+			final double newValue = ((Number)value).doubleValue();
+			final boolean wasFull = _buff.isFull();
+			final double oldValue = wasFull ? _buff.getFirst() : 0.0;
+			_buff.add(newValue);
 			final int newSize = _buff.getCurrSize();
 			
-			if (oldValue != null) {
-				if (oldSize != newSize) {
-					throw new IllegalStateException(
-							"Curcular buffer error, it returned an old " + 
-							"value and its size have changed after adding");
-				}
-				_curr -= oldValue.doubleValue() / newSize;
-				_curr += newValue.doubleValue() / newSize;
+			if (wasFull) {
+				_curr -= oldValue / newSize;
+				_curr += newValue / newSize;
 			} else if (newSize == 1) {
-				_curr = newValue.doubleValue();
+				_curr = newValue;
 			} else {
 				_curr 
 					= _curr / newSize * (newSize - 1)
-					+ newValue.doubleValue() / newSize;
+					+ newValue / newSize;
 			}
 			
 			_lastTime = time;
@@ -84,6 +80,11 @@ public final class MovAvgTDateTimeAccumulator extends Accumulator<TDateTime> {
 
 	@Override
 	public Object get() {
+		return getDouble();
+	}
+	
+	@Override
+	public double getDouble() {
 		return _buff.isFull() ? _curr : Double.NaN;
 	}
 	
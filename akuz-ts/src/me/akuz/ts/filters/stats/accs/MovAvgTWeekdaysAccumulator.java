@@ -1,13 +1,13 @@
 package me.akuz.ts.filters.stats.accs;
 
-import me.akuz.core.CircularBuffer;
+import me.akuz.core.DoubleRingBuffer;
 import me.akuz.core.TDate;
 import me.akuz.core.TWeekdays;
 import me.akuz.ts.CurrTime;
 
 public final class MovAvgTWeekdaysAccumulator extends Accumulator<TDate> {
 
-	private CircularBuffer<Double> _buff;
+	private DoubleRingBuffer _buff;
 	private final int _gapOkWeekdays;
 	private TDate _lastTime;
 	private double _curr;
@@ -22,7 +22,7 @@ public final class MovAvgTWeekdaysAccumulator extends Accumulator<TDate> {
 		if (gapOkWeekdays <= 0) {
 			throw new IllegalArgumentException("GapOK weekdays must be positive");
 		}
-		_buff = new CircularBuffer<>(sampleCount);
+		_buff = new DoubleRingBuffer(sampleCount);
 		_gapOkWeekdays = gapOkWeekdays;
 		_curr = 0.0;
 	}
@@ -57,25 +57,21 @@ public final class MovAvgTWeekdaysAccumulator extends Accumulator<TDate> {
 		// update current
 		if (value != null) {
 
-			final Double newValue = ((Number)value).doubleValue();
-			final int oldSize = _buff.getCurrSize();
-			final Double oldValue = _buff.add(newValue);
+			final double newValue = ((Number)value).doubleValue();
+			final boolean wasFull = _buff.isFull();
+			final double oldValue = wasFull ? _buff.getFirst() : 0.0;
+			_buff.add(newValue);
 			final int newSize = _buff.getCurrSize();
 			
-			if (oldValue != null) {
-				if (oldSize != newSize) {
-					throw new IllegalStateException(
-							"Curcular buffer error, it returned an old " + 
-							"value and its size have changed after adding");
-				}
-				_curr -= oldValue.doubleValue() / newSize;
-				_curr += newValue.doubleValue() / newSize;
+			if (wasFull) {
+				_curr -= oldValue / newSize;
+				_curr += newValue / newSize;
 			} else if (newSize == 1) {
-				_curr = newValue.doubleValue();
+				_curr = newValue;
 			} else {
 				_curr 
 					= _curr / newSize * (newSize - 1)
-					+ newValue.doubleValue() / newSize;
+					+ newValue / newSize;
 			}
 			
 			_lastTime = time;
@@ -84,6 +80,11 @@ public final class MovAvgTWeekdaysAccumulator extends Accumulator<TDate> {
 
 	@Override
 	public Object get() {
+		return getDouble();
+	}
+	
+	@Override
+	public double getDouble() {
 		return _buff.isFull() ? _curr : Double.NaN;
 	}
 	
@@ -0,0 +1,115 @@
+package me.akuz.ts.filters.stats.accs;
+
+import me.akuz.core.DoubleRingBuffer;
+
+/**
+ * Means, variances and covariance of the last
+ * pairs of values in a moving window, updated
+ * in O(1) per pair (Welford with removal).
+ *
+ */
+final class MovCoMoments implements Cloneable {
+
+	private DoubleRingBuffer _xs;
+	private DoubleRingBuffer _ys;
+	private double _meanX;
+	private double _meanY;
+	private double _m2X;
+	private double _m2Y;
+	private double _cXY;
+
+	public MovCoMoments(final int sampleCount) {
+		if (sampleCount < 2) {
+			throw new IllegalArgumentException("Sample count must be >= 2");
+		}
+		_xs = new DoubleRingBuffer(sampleCount);
+		_ys = new DoubleRingBuffer(sampleCount);
+	}
+
+	public void clear() {
+		_xs.clear();
+		_ys.clear();
+		_meanX = 0.0;
+		_meanY = 0.0;
+		_m2X = 0.0;
+		_m2Y = 0.0;
+		_cXY = 0.0;
+	}
+
+	public void add(final double x, final double y) {
+		if (_xs.isFull()) {
+			remove(_xs.getFirst(), _ys.getFirst());
+		}
+		_xs.add(x);
+		_ys.add(y);
+		final int n = _xs.getCurrSize();
+		final double dx = x - _meanX;
+		final double dy = y - _meanY;
+		_meanX += dx / n;
+		_meanY += dy / n;
+		_m2X += dx * (x - _meanX);
+		_m2Y += dy * (y - _meanY);
+		_cXY += dx * (y - _meanY);
+	}
+
+	private void remove(final double x, final double y) {
+		final int n = _xs.getCurrSize() - 1;
+		if (n == 0) {
+			_meanX = 0.0;
+			_meanY = 0.0;
+			_m2X = 0.0;
+			_m2Y = 0.0;
+			_cXY = 0.0;
+			return;
+		}
+		final double oldMeanX = _meanX;
+		final double oldMeanY = _meanY;
+		_meanX -= (x - _meanX) / n;
+		_meanY -= (y - _meanY) / n;
+		_m2X -= (x - _meanX) * (x - oldMeanX);
+		_m2Y -= (y - _meanY) * (y - oldMeanY);
+		_cXY -= (x - _meanX) * (y - oldMeanY);
+		if (_m2X < 0.0) {
+			_m2X = 0.0;
+		}
+		if (_m2Y < 0.0) {
+			_m2Y = 0.0;
+		}
+	}
+
+	public boolean isFull() {
+		return _xs.isFull();
+	}
+
+	/**
+	 * Get sample covariance (n-1 denominator).
+	 */
+	public double getCovariance() {
+		final int n = _xs.getCurrSize();
+		return n > 1 ? _cXY / (n - 1) : Double.NaN;
+	}
+
+	/**
+	 * Get correlation, or NaN if
+	 * any of the variances is zero.
+	 */
+	public double getCorrelation() {
+		if (_m2X <= 0.0 || _m2Y <= 0.0) {
+			return Double.NaN;
+		}
+		final double corr = _cXY / Math.sqrt(_m2X * _m2Y);
+		return Math.max(-1.0, Math.min(1.0, corr));
+	}
+
+	@Override
+	public MovCoMoments clone() {
+		try {
+			final MovCoMoments copy = (MovCoMoments)super.clone();
+			copy._xs = _xs.clone();
+			copy._ys = _ys.clone();
+			return copy;
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException("Cloning error", e);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package me.akuz.ts.filters.stats.accs;
+
+import me.akuz.ts.Seq;
+
+/**
+ * Moving sample covariance between the values of the filtered
+ * sequence and the values of another sequence at
+ * the same times; only the times, at which both 
+ * have values, are included in the window; NaN 
+ * until the window of sample count is full.
+ *
+ */
+public final class MovCovAccumulator<T extends Comparable<T>> extends Accumulator<T> {
+
+	private SeqValueCursor<T> _other;
+	private MovCoMoments _moments;
+	
+	public MovCovAccumulator(final Seq<T> other, final int sampleCount) {
+		_other = new SeqValueCursor<>(other);
+		_moments = new MovCoMoments(sampleCount);
+	}
+	
+	@Override
+	public void reset() {
+		_other.reset();
+		_moments.clear();
+	}
+
+	@Override
+	public void add(final T time, final Object value) {
+		if (value != null) {
+			final Object otherValue = _other.getValueAt(time);
+			if (otherValue != null) {
+				_moments.add(
+					toDouble(value, "moving covariance"),
+					toDouble(otherValue, "moving covariance"));
+			}
+		}
+	}
+
+	@Override
+	public Object get() {
+		return getDouble();
+	}
+	
+	@Override
+	public double getDouble() {
+		return _moments.isFull() ? _moments.getCovariance() : Double.NaN;
+	}
+	
+	@Override
+	public Accumulator<T> clone() {
+		MovCovAccumulator<T> copy = (MovCovAccumulator<T>)super.clone();
+		copy._other = _other.clone();
+		copy._moments = _moments.clone();
+		return copy;
+	}
+}
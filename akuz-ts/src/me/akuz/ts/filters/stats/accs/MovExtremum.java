@@ -0,0 +1,80 @@
+package me.akuz.ts.filters.stats.accs;
+
+import me.akuz.core.DoubleRingBuffer;
+
+/**
+ * Minimum or maximum of the last values in a moving
+ * window, using a monotonic deque of the candidates,
+ * so that each value is added and removed once (O(1)
+ * amortized); values are ordered by Double.compare().
+ *
+ */
+final class MovExtremum implements Cloneable {
+
+	private final boolean _max;
+	private DoubleRingBuffer _buff;
+	private DoubleRingBuffer _deque;
+
+	public MovExtremum(final int sampleCount, final boolean max) {
+		if (sampleCount < 2) {
+			throw new IllegalArgumentException("Sample count must be >= 2");
+		}
+		_max = max;
+		_buff = new DoubleRingBuffer(sampleCount);
+		_deque = new DoubleRingBuffer(sampleCount);
+	}
+
+	public void clear() {
+		_buff.clear();
+		_deque.clear();
+	}
+
+	/**
+	 * Check if value a is a better candidate
+	 * than b (strictly greater for max).
+	 */
+	private boolean isBetter(final double a, final double b) {
+		final int cmp = Double.compare(a, b);
+		return _max ? cmp > 0 : cmp < 0;
+	}
+
+	public void add(final double value) {
+
+		// the window drops the first value,
+		// which is a candidate, if it's still
+		// at the front of the deque
+		if (_buff.isFull()) {
+			if (Double.compare(_buff.getFirst(), _deque.getFirst()) == 0) {
+				_deque.removeFirst();
+			}
+		}
+		_buff.add(value);
+
+		// values behind the new one
+		// can no longer be the extremum
+		while (!_deque.isEmpty() && isBetter(value, _deque.getLast())) {
+			_deque.removeLast();
+		}
+		_deque.add(value);
+	}
+
+	public boolean isFull() {
+		return _buff.isFull();
+	}
+
+	public double get() {
+		return _deque.getFirst();
+	}
+
+	@Override
+	public MovExtremum clone() {
+		try {
+			final MovExtremum copy = (MovExtremum)super.clone();
+			copy._buff = _buff.clone();
+			copy._deque = _deque.clone();
+			return copy;
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException("Cloning error", e);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package me.akuz.ts.filters.stats.accs;
+
+/**
+ * Moving maximum of the last values, NaN
+ * until the window of sample count is full.
+ *
+ */
+public final class MovMaxAccumulator<T extends Comparable<T>> extends Accumulator<T> implements DoubleAccumulator {
+
+	private MovExtremum _extremum;
+	
+	public MovMaxAccumulator(final int sampleCount) {
+		_extremum = new MovExtremum(sampleCount, true);
+	}
+	
+	@Override
+	public void reset() {
+		_extremum.clear();
+	}
+
+	@Override
+	public void add(final T time, final Object value) {
+		if (value != null) {
+			addDouble(toDouble(value, "moving maximum"));
+		}
+	}
+	
+	@Override
+	public void addDouble(final double value) {
+		_extremum.add(value);
+	}
+
+	@Override
+	public Object get() {
+		return getDouble();
+	}
+	
+	@Override
+	public double getDouble() {
+		return _extremum.isFull() ? _extremum.get() : Double.NaN;
+	}
+	
+	@Override
+	public Accumulator<T> clone() {
+		MovMaxAccumulator<T> copy = (MovMaxAccumulator<T>)super.clone();
+		copy._extremum = _extremum.clone();
+		return copy;
+	}
+}
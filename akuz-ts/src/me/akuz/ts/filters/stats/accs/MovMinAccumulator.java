@@ -0,0 +1,49 @@
+package me.akuz.ts.filters.stats.accs;
+
+/**
+ * Moving minimum of the last values, NaN
+ * until the window of sample count is full.
+ *
+ */
+public final class MovMinAccumulator<T extends Comparable<T>> extends Accumulator<T> implements DoubleAccumulator {
+
+	private MovExtremum _extremum;
+	
+	public MovMinAccumulator(final int sampleCount) {
+		_extremum = new MovExtremum(sampleCount, false);
+	}
+	
+	@Override
+	public void reset() {
+		_extremum.clear();
+	}
+
+	@Override
+	public void add(final T time, final Object value) {
+		if (value != null) {
+			addDouble(toDouble(value, "moving minimum"));
+		}
+	}
+	
+	@Override
+	public void addDouble(final double value) {
+		_extremum.add(value);
+	}
+
+	@Override
+	public Object get() {
+		return getDouble();
+	}
+	
+	@Override
+	public double getDouble() {
+		return _extremum.isFull() ? _extremum.get() : Double.NaN;
+	}
+	
+	@Override
+	public Accumulator<T> clone() {
+		MovMinAccumulator<T> copy = (MovMinAccumulator<T>)super.clone();
+		copy._extremum = _extremum.clone();
+		return copy;
+	}
+}
@@ -0,0 +1,86 @@
+package me.akuz.ts.filters.stats.accs;
+
+import me.akuz.core.DoubleRingBuffer;
+
+/**
+ * Mean and variance of the last values in
+ * a moving window, updated in O(1) per value
+ * using Welford's algorithm with removal.
+ *
+ */
+final class MovMoments implements Cloneable {
+
+	private DoubleRingBuffer _buff;
+	private double _mean;
+	private double _m2;
+
+	public MovMoments(final int sampleCount) {
+		if (sampleCount < 2) {
+			throw new IllegalArgumentException("Sample count must be >= 2");
+		}
+		_buff = new DoubleRingBuffer(sampleCount);
+	}
+
+	public void clear() {
+		_buff.clear();
+		_mean = 0.0;
+		_m2 = 0.0;
+	}
+
+	public void add(final double value) {
+		if (_buff.isFull()) {
+			remove(_buff.getFirst());
+		}
+		_buff.add(value);
+		final int n = _buff.getCurrSize();
+		final double delta = value - _mean;
+		_mean += delta / n;
+		_m2 += delta * (value - _mean);
+	}
+
+	private void remove(final double value) {
+		final int n = _buff.getCurrSize() - 1;
+		if (n == 0) {
+			_mean = 0.0;
+			_m2 = 0.0;
+			return;
+		}
+		final double oldMean = _mean;
+		_mean -= (value - _mean) / n;
+		_m2 -= (value - _mean) * (value - oldMean);
+		if (_m2 < 0.0) {
+			_m2 = 0.0;
+		}
+	}
+
+	public boolean isFull() {
+		return _buff.isFull();
+	}
+
+	public double getLast() {
+		return _buff.getLast();
+	}
+
+	public double getMean() {
+		return _mean;
+	}
+
+	/**
+	 * Get sample variance (n-1 denominator).
+	 */
+	public double getVariance() {
+		final int n = _buff.getCurrSize();
+		return n > 1 ? _m2 / (n - 1) : Double.NaN;
+	}
+
+	@Override
+	public MovMoments clone() {
+		try {
+			final MovMoments copy = (MovMoments)super.clone();
+			copy._buff = _buff.clone();
+			return copy;
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException("Cloning error", e);
+		}
+	}
+}
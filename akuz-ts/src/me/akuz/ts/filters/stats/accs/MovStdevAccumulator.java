@@ -0,0 +1,49 @@
+package me.akuz.ts.filters.stats.accs;
+
+/**
+ * Moving sample standard deviation of the last values,
+ * NaN until the window of sample count is full.
+ *
+ */
+public final class MovStdevAccumulator<T extends Comparable<T>> extends Accumulator<T> implements DoubleAccumulator {
+
+	private MovMoments _moments;
+	
+	public MovStdevAccumulator(final int sampleCount) {
+		_moments = new MovMoments(sampleCount);
+	}
+	
+	@Override
+	public void reset() {
+		_moments.clear();
+	}
+
+	@Override
+	public void add(final T time, final Object value) {
+		if (value != null) {
+			addDouble(toDouble(value, "moving standard deviation"));
+		}
+	}
+	
+	@Override
+	public void addDouble(final double value) {
+		_moments.add(value);
+	}
+
+	@Override
+	public Object get() {
+		return getDouble();
+	}
+	
+	@Override
+	public double getDouble() {
+		return _moments.isFull() ? Math.sqrt(_moments.getVariance()) : Double.NaN;
+	}
+	
+	@Override
+	public Accumulator<T> clone() {
+		MovStdevAccumulator<T> copy = (MovStdevAccumulator<T>)super.clone();
+		copy._moments = _moments.clone();
+		return copy;
+	}
+}
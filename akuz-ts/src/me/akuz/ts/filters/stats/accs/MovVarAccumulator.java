@@ -0,0 +1,49 @@
+package me.akuz.ts.filters.stats.accs;
+
+/**
+ * Moving sample variance of the last values, NaN
+ * until the window of sample count is full.
+ *
+ */
+public final class MovVarAccumulator<T extends Comparable<T>> extends Accumulator<T> implements DoubleAccumulator {
+
+	private MovMoments _moments;
+	
+	public MovVarAccumulator(final int sampleCount) {
+		_moments = new MovMoments(sampleCount);
+	}
+	
+	@Override
+	public void reset() {
+		_moments.clear();
+	}
+
+	@Override
+	public void add(final T time, final Object value) {
+		if (value != null) {
+			addDouble(toDouble(value, "moving variance"));
+		}
+	}
+	
+	@Override
+	public void addDouble(final double value) {
+		_moments.add(value);
+	}
+
+	@Override
+	public Object get() {
+		return getDouble();
+	}
+	
+	@Override
+	public double getDouble() {
+		return _moments.isFull() ? _moments.getVariance() : Double.NaN;
+	}
+	
+	@Override
+	public Accumulator<T> clone() {
+		MovVarAccumulator<T> copy = (MovVarAccumulator<T>)super.clone();
+		copy._moments = _moments.clone();
+		return copy;
+	}
+}
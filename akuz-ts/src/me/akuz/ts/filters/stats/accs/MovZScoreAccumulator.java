@@ -0,0 +1,54 @@
+package me.akuz.ts.filters.stats.accs;
+
+/**
+ * Z-score of the last value relative to the mean and
+ * standard deviation of the window of the last values
+ * (including it), NaN until the window is full.
+ *
+ */
+public final class MovZScoreAccumulator<T extends Comparable<T>> extends Accumulator<T> implements DoubleAccumulator {
+
+	private MovMoments _moments;
+	
+	public MovZScoreAccumulator(final int sampleCount) {
+		_moments = new MovMoments(sampleCount);
+	}
+	
+	@Override
+	public void reset() {
+		_moments.clear();
+	}
+
+	@Override
+	public void add(final T time, final Object value) {
+		if (value != null) {
+			addDouble(toDouble(value, "moving z-score"));
+		}
+	}
+	
+	@Override
+	public void addDouble(final double value) {
+		_moments.add(value);
+	}
+
+	@Override
+	public Object get() {
+		return getDouble();
+	}
+	
+	@Override
+	public double getDouble() {
+		if (!_moments.isFull()) {
+			return Double.NaN;
+		}
+		final double stdev = Math.sqrt(_moments.getVariance());
+		return stdev > 0.0 ? (_moments.getLast() - _moments.getMean()) / stdev : Double.NaN;
+	}
+	
+	@Override
+	public Accumulator<T> clone() {
+		MovZScoreAccumulator<T> copy = (MovZScoreAccumulator<T>)super.clone();
+		copy._moments = _moments.clone();
+		return copy;
+	}
+}
@@ -0,0 +1,60 @@
+package me.akuz.ts.filters.stats.accs;
+
+import me.akuz.ts.Seq;
+import me.akuz.ts.TItem;
+
+/**
+ * Looks up values of another sequence at
+ * non-decreasing times, moving a position
+ * forward, without allocating.
+ *
+ */
+final class SeqValueCursor<T extends Comparable<T>> implements Cloneable {
+
+	private final Seq<T> _seq;
+	private int _position;
+
+	public SeqValueCursor(final Seq<T> seq) {
+		if (seq == null) {
+			throw new IllegalArgumentException("Other sequence cannot be null");
+		}
+		_seq = seq;
+	}
+
+	public void reset() {
+		_position = 0;
+	}
+
+	/**
+	 * Get value of the sequence at exactly
+	 * this time, or null, if there is none.
+	 */
+	public Object getValueAt(final T time) {
+		if (_position < _seq.getTrimmedCount()) {
+			_position = _seq.getTrimmedCount();
+		}
+		final int endPosition = _seq.getEndPosition();
+		while (_position < endPosition) {
+			final TItem<T> item = _seq.getItemAt(_position);
+			final int cmp = item.getTime().compareTo(time);
+			if (cmp > 0) {
+				return null;
+			}
+			if (cmp == 0) {
+				return item.getObject();
+			}
+			_position++;
+		}
+		return null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public SeqValueCursor<T> clone() {
+		try {
+			return (SeqValueCursor<T>)super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException("Cloning error", e);
+		}
+	}
+}
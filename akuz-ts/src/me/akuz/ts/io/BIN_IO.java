@@ -0,0 +1,590 @@
+package me.akuz.ts.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import me.akuz.ts.Cube;
+import me.akuz.ts.Frame;
+import me.akuz.ts.Seq;
+import me.akuz.ts.TItem;
+
+/**
+ * Binary columnar time series IO functions.
+ *
+ * Each sequence is stored as a column of blocks of up
+ * to block size items; a block holds the times, delta
+ * encoded as var longs, followed by the values in the
+ * binary encoding of their {@link IOType}. The index
+ * at the end of the file holds the min and max time
+ * of each block, so reading a time range only maps
+ * and decodes the blocks, which overlap the range,
+ * of the columns, which are present in the IO map.
+ *
+ * A cube is stored as several frames (sections) in
+ * the same file, named by their level 1 keys; a frame
+ * is stored as one section with an empty name.
+ *
+ * All times in a file must be in the same time zone,
+ * which is stored in the index (for types with zones).
+ *
+ */
+public final class BIN_IO {
+
+	public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+	private static final int MAGIC = 0x414B5453; // AKTS
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 8;
+	private static final int FOOTER_SIZE = 12;
+	private static final String FRAME_SECTION_NAME = "";
+
+	/**
+	 * Write frame to a binary file according
+	 * to the IO map, with default block size.
+	 */
+	public static final <K, T extends Comparable<T>> void toBin(
+			final File file,
+			final Frame<K, T> frame,
+			final IOMap<K> ioMap) throws IOException {
+
+		toBin(file, frame, ioMap, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Write frame to a binary file according to the
+	 * IO map, with the provided number of items
+	 * per block (the granularity of time reads).
+	 */
+	public static final <K, T extends Comparable<T>> void toBin(
+			final File file,
+			final Frame<K, T> frame,
+			final IOMap<K> ioMap,
+			final int blockSize) throws IOException {
+
+		try (final Writer<T> writer = new Writer<>(file, ioMap, blockSize)) {
+			writer.writeSection(FRAME_SECTION_NAME, frame, ioMap);
+			writer.finish();
+		}
+	}
+
+	/**
+	 * Write cube to a binary file, each frame
+	 * as a section named by its level 1 key,
+	 * with default block size.
+	 */
+	public static final <K1, K2, T extends Comparable<T>> void toBin(
+			final File file,
+			final Cube<K1, K2, T> cube,
+			final IOMap<K2> ioMap) throws IOException {
+
+		toBin(file, cube, ioMap, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Write cube to a binary file, each frame
+	 * as a section named by its level 1 key.
+	 */
+	public static final <K1, K2, T extends Comparable<T>> void toBin(
+			final File file,
+			final Cube<K1, K2, T> cube,
+			final IOMap<K2> ioMap,
+			final int blockSize) throws IOException {
+
+		final Set<String> names = new HashSet<>();
+		try (final Writer<T> writer = new Writer<>(file, ioMap, blockSize)) {
+			final List<K1> keys = cube.getKeys();
+			for (int i=0; i<keys.size(); i++) {
+				final K1 key = keys.get(i);
+				final String name = key.toString();
+				if (!names.add(name)) {
+					throw new IllegalStateException("Cube contains more than one frame named '" + name + "'");
+				}
+				writer.writeSection(name, cube.getFrame(key), ioMap);
+			}
+			writer.finish();
+		}
+	}
+
+	/**
+	 * Read the fields of the IO map from a binary file.
+	 */
+	public static final <K, T extends Comparable<T>> Frame<K, T> fromBin(
+			final File file,
+			final IOMap<K> ioMap) throws IOException {
+
+		return fromBin(file, ioMap, null, null);
+	}
+
+	/**
+	 * Read the fields of the IO map from a binary file,
+	 * only the items with times within [fromTime, toTime);
+	 * null fromTime or toTime means no bound.
+	 */
+	public static final <K, T extends Comparable<T>> Frame<K, T> fromBin(
+			final File file,
+			final IOMap<K> ioMap,
+			final T fromTime,
+			final T toTime) throws IOException {
+
+		try (final Reader<T> reader = new Reader<>(file, ioMap, fromTime, toTime)) {
+			if (reader.getSectionCount() != 1 ||
+				!FRAME_SECTION_NAME.equals(reader.getSectionName(0))) {
+				throw new IOException("File " + file + " contains a cube, not a frame");
+			}
+			return reader.readSection(0, ioMap);
+		}
+	}
+
+	/**
+	 * Read the fields of the IO map from one frame of
+	 * a cube in binary file, only the items with times
+	 * within [fromTime, toTime); null fromTime or toTime
+	 * means no bound.
+	 */
+	public static final <K, T extends Comparable<T>> Frame<K, T> fromBin(
+			final File file,
+			final String frameName,
+			final IOMap<K> ioMap,
+			final T fromTime,
+			final T toTime) throws IOException {
+
+		try (final Reader<T> reader = new Reader<>(file, ioMap, fromTime, toTime)) {
+			for (int i=0; i<reader.getSectionCount(); i++) {
+				if (reader.getSectionName(i).equals(frameName)) {
+					return reader.readSection(i, ioMap);
+				}
+			}
+			throw new IOException("File " + file + " does not contain frame '" + frameName + "'");
+		}
+	}
+
+	/**
+	 * Read a cube from a binary file; frames
+	 * are keyed by their names in the file.
+	 */
+	public static final <K, T extends Comparable<T>> Cube<String, K, T> fromBinCube(
+			final File file,
+			final IOMap<K> ioMap) throws IOException {
+
+		return fromBinCube(file, ioMap, null, null);
+	}
+
+	/**
+	 * Read a cube from a binary file, only the items with
+	 * times within [fromTime, toTime); null fromTime or
+	 * toTime means no bound; frames are keyed by their
+	 * names in the file.
+	 */
+	public static final <K, T extends Comparable<T>> Cube<String, K, T> fromBinCube(
+			final File file,
+			final IOMap<K> ioMap,
+			final T fromTime,
+			final T toTime) throws IOException {
+
+		final Cube<String, K, T> cube = new Cube<>();
+		try (final Reader<T> reader = new Reader<>(file, ioMap, fromTime, toTime)) {
+			for (int i=0; i<reader.getSectionCount(); i++) {
+				cube.addFrame(reader.getSectionName(i), reader.<K>readSection(i, ioMap));
+			}
+		}
+		return cube;
+	}
+
+	private static final class BlockIndex {
+
+		public final long offset;
+		public final int length;
+		public final int count;
+		public final long minTime;
+		public final long maxTime;
+
+		public BlockIndex(
+				final long offset,
+				final int length,
+				final int count,
+				final long minTime,
+				final long maxTime) {
+
+			this.offset = offset;
+			this.length = length;
+			this.count = count;
+			this.minTime = minTime;
+			this.maxTime = maxTime;
+		}
+	}
+
+	private static final class ColumnIndex {
+
+		public final String fieldName;
+		public final String typeName;
+		public final List<BlockIndex> blocks;
+
+		public ColumnIndex(final String fieldName, final String typeName) {
+			this.fieldName = fieldName;
+			this.typeName = typeName;
+			this.blocks = new ArrayList<>();
+		}
+	}
+
+	private static final class SectionIndex {
+
+		public final String name;
+		public final List<ColumnIndex> columns;
+
+		public SectionIndex(final String name) {
+			this.name = name;
+			this.columns = new ArrayList<>();
+		}
+	}
+
+	private static final String typeName(final IOType type) {
+		return type.getClass().getName();
+	}
+
+	/**
+	 * Writes sections of columns into a file,
+	 * and then the index of their blocks.
+	 */
+	private static final class Writer<T extends Comparable<T>> implements AutoCloseable {
+
+		private final RandomAccessFile _raf;
+		private final FileChannel _channel;
+		private final String _timeFieldName;
+		private final IOType _timeType;
+		private final int _blockSize;
+		private final BinBuffer _buf;
+		private final List<SectionIndex> _sections;
+		private String _zoneId;
+		private boolean _hasTimes;
+
+		public Writer(final File file, final IOMap<?> ioMap, final int blockSize) throws IOException {
+			if (blockSize < 1) {
+				throw new IllegalArgumentException("Block size must be positive");
+			}
+			_timeFieldName = ioMap.getTimeFieldName();
+			_timeType = ioMap.getTimeDataType();
+			_blockSize = blockSize;
+			_buf = new BinBuffer();
+			_sections = new ArrayList<>();
+			_raf = new RandomAccessFile(file, "rw");
+			_raf.setLength(0);
+			_channel = _raf.getChannel();
+
+			_buf.putInt(MAGIC);
+			_buf.putInt(VERSION);
+			flushBuffer();
+		}
+
+		private long flushBuffer() throws IOException {
+			final ByteBuffer bytes = _buf.getByteBuffer();
+			bytes.flip();
+			long length = 0;
+			while (bytes.hasRemaining()) {
+				length += _channel.write(bytes);
+			}
+			_buf.clear();
+			return length;
+		}
+
+		public <K> void writeSection(final String name, final Frame<K, T> frame, final IOMap<K> ioMap) throws IOException {
+
+			final SectionIndex section = new SectionIndex(name);
+			final List<K> keys = ioMap.getKeys();
+			for (int i=0; i<keys.size(); i++) {
+				final K key = keys.get(i);
+				final Seq<T> seq = frame.getSeq(key, false);
+				if (seq == null) {
+					continue;
+				}
+				section.columns.add(writeColumn(
+						seq.getItems(),
+						ioMap.getFieldName(key),
+						ioMap.getDataType(key)));
+			}
+			_sections.add(section);
+		}
+
+		private ColumnIndex writeColumn(
+				final List<TItem<T>> items,
+				final String fieldName,
+				final IOType dataType) throws IOException {
+
+			final ColumnIndex column = new ColumnIndex(fieldName, typeName(dataType));
+
+			for (int blockStart=0; blockStart<items.size(); blockStart+=_blockSize) {
+
+				final int blockEnd = Math.min(items.size(), blockStart + _blockSize);
+
+				final long minTime = toTimeLong(items.get(blockStart).getTime());
+				long prevTime = minTime;
+				for (int j=blockStart; j<blockEnd; j++) {
+					final long time = j > blockStart ? toTimeLong(items.get(j).getTime()) : minTime;
+					if (j > blockStart && time <= prevTime) {
+						throw new IllegalStateException("Binary times of field '" + fieldName + "' are not increasing at " + items.get(j).getTime());
+					}
+					_buf.putVarLong(time - prevTime);
+					prevTime = time;
+				}
+				for (int j=blockStart; j<blockEnd; j++) {
+					dataType.toBinary(_buf, items.get(j).getObject());
+				}
+
+				final long offset = _channel.position();
+				final long length = flushBuffer();
+				column.blocks.add(new BlockIndex(offset, (int)length, blockEnd - blockStart, minTime, prevTime));
+			}
+			return column;
+		}
+
+		private long toTimeLong(final T time) {
+			final String zoneId = _timeType.getTimeZoneId(time);
+			if (!_hasTimes) {
+				_zoneId = zoneId;
+				_hasTimes = true;
+			} else if (zoneId != null && !zoneId.equals(_zoneId)) {
+				throw new IllegalStateException("All times in a binary file must be in the same time zone, " +
+						"found '" + _zoneId + "' and '" + zoneId + "' at " + time);
+			}
+			return _timeType.toTimeLong(time);
+		}
+
+		public void finish() throws IOException {
+
+			final long indexOffset = _channel.position();
+
+			_buf.putString(_timeFieldName);
+			_buf.putString(typeName(_timeType));
+			_buf.putString(_zoneId != null ? _zoneId : "");
+			_buf.putVarLong(_sections.size());
+			for (int i=0; i<_sections.size(); i++) {
+				final SectionIndex section = _sections.get(i);
+				_buf.putString(section.name);
+				_buf.putVarLong(section.columns.size());
+				for (int j=0; j<section.columns.size(); j++) {
+					final ColumnIndex column = section.columns.get(j);
+					_buf.putString(column.fieldName);
+					_buf.putString(column.typeName);
+					_buf.putVarLong(column.blocks.size());
+					for (int b=0; b<column.blocks.size(); b++) {
+						final BlockIndex block = column.blocks.get(b);
+						_buf.putLong(block.offset);
+						_buf.putInt(block.length);
+						_buf.putInt(block.count);
+						_buf.putLong(block.minTime);
+						_buf.putLong(block.maxTime);
+					}
+				}
+			}
+			_buf.putLong(indexOffset);
+			_buf.putInt(MAGIC);
+			flushBuffer();
+		}
+
+		@Override
+		public void close() throws IOException {
+			_raf.close();
+		}
+	}
+
+	/**
+	 * Reads the index of a file, and then
+	 * the blocks of the columns by mapping
+	 * the ranges, which overlap the times.
+	 */
+	private static final class Reader<T extends Comparable<T>> implements AutoCloseable {
+
+		private final File _file;
+		private final RandomAccessFile _raf;
+		private final FileChannel _channel;
+		private final IOType _timeType;
+		private final String _zoneId;
+		private final List<SectionIndex> _sections;
+		private final long _fromTime;
+		private final long _toTime;
+
+		public Reader(
+				final File file,
+				final IOMap<?> ioMap,
+				final T fromTime,
+				final T toTime) throws IOException {
+
+			_file = file;
+			_raf = new RandomAccessFile(file, "r");
+			try {
+				_channel = _raf.getChannel();
+				_timeType = ioMap.getTimeDataType();
+				_fromTime = fromTime != null ? _timeType.toTimeLong(fromTime) : Long.MIN_VALUE;
+				_toTime = toTime != null ? _timeType.toTimeLong(toTime) : Long.MAX_VALUE;
+
+				final long size = _channel.size();
+				if (size < HEADER_SIZE + FOOTER_SIZE) {
+					throw new IOException("File " + file + " is not a binary time series file");
+				}
+				final BinBuffer header = read(0, HEADER_SIZE);
+				if (header.getInt() != MAGIC) {
+					throw new IOException("File " + file + " is not a binary time series file");
+				}
+				final int version = header.getInt();
+				if (version != VERSION) {
+					throw new IOException("File " + file + " has unsupported version " + version);
+				}
+				final BinBuffer footer = read(size - FOOTER_SIZE, FOOTER_SIZE);
+				final long indexOffset = footer.getLong();
+				if (footer.getInt() != MAGIC || indexOffset < HEADER_SIZE || indexOffset > size - FOOTER_SIZE) {
+					throw new IOException("File " + file + " is incomplete or corrupted");
+				}
+
+				final BinBuffer index = read(indexOffset, (int)(size - FOOTER_SIZE - indexOffset));
+				final String timeFieldName = index.getString();
+				if (!timeFieldName.equals(ioMap.getTimeFieldName())) {
+					throw new IOException("File " + file + " has time field '" + timeFieldName + "', " +
+							"expected '" + ioMap.getTimeFieldName() + "'");
+				}
+				final String timeTypeName = index.getString();
+				if (!timeTypeName.equals(typeName(_timeType))) {
+					throw new IOException("File " + file + " has time type " + timeTypeName + ", " +
+							"expected " + typeName(_timeType));
+				}
+				final String zoneId = index.getString();
+				_zoneId = zoneId.length() > 0 ? zoneId : null;
+
+				final int sectionCount = (int)index.getVarLong();
+				_sections = new ArrayList<>(sectionCount);
+				for (int i=0; i<sectionCount; i++) {
+					final SectionIndex section = new SectionIndex(index.getString());
+					final int columnCount = (int)index.getVarLong();
+					for (int j=0; j<columnCount; j++) {
+						final ColumnIndex column = new ColumnIndex(index.getString(), index.getString());
+						final int blockCount = (int)index.getVarLong();
+						for (int b=0; b<blockCount; b++) {
+							column.blocks.add(new BlockIndex(
+									index.getLong(),
+									index.getInt(),
+									index.getInt(),
+									index.getLong(),
+									index.getLong()));
+						}
+						section.columns.add(column);
+					}
+					_sections.add(section);
+				}
+			} catch (IOException | RuntimeException e) {
+				_raf.close();
+				throw e;
+			}
+		}
+
+		private BinBuffer read(final long position, final int length) throws IOException {
+			final ByteBuffer bytes = ByteBuffer.allocate(length);
+			while (bytes.hasRemaining()) {
+				if (_channel.read(bytes, position + bytes.position()) < 0) {
+					throw new IOException("Unexpected end of file " + _file);
+				}
+			}
+			bytes.flip();
+			return new BinBuffer(bytes);
+		}
+
+		public int getSectionCount() {
+			return _sections.size();
+		}
+
+		public String getSectionName(final int index) {
+			return _sections.get(index).name;
+		}
+
+		public <K> Frame<K, T> readSection(final int index, final IOMap<K> ioMap) throws IOException {
+
+			final Frame<K, T> frame = new Frame<>();
+			final SectionIndex section = _sections.get(index);
+			for (int j=0; j<section.columns.size(); j++) {
+
+				final ColumnIndex column = section.columns.get(j);
+				final K key = ioMap.getKey(column.fieldName);
+				if (key == null) {
+					continue;
+				}
+				final IOType dataType = ioMap.getDataType(key);
+				if (!column.typeName.equals(typeName(dataType))) {
+					throw new IOException("Field '" + column.fieldName + "' in file " + _file +
+							" has type " + column.typeName + ", expected " + typeName(dataType));
+				}
+
+				final Seq<T> seq = readColumn(column, dataType);
+				if (seq.getItems().size() > 0) {
+					frame.addSeq(key, seq);
+				}
+			}
+			return frame;
+		}
+
+		private Seq<T> readColumn(final ColumnIndex column, final IOType dataType) throws IOException {
+
+			final Seq<T> seq = new Seq<>();
+			final List<BlockIndex> blocks = column.blocks;
+
+			// blocks overlapping the times
+			int blockFrom = 0;
+			while (blockFrom < blocks.size() && blocks.get(blockFrom).maxTime < _fromTime) {
+				blockFrom++;
+			}
+			int blockTo = blockFrom;
+			while (blockTo < blocks.size() && blocks.get(blockTo).minTime < _toTime) {
+				blockTo++;
+			}
+			if (blockFrom >= blockTo) {
+				return seq;
+			}
+
+			final long start = blocks.get(blockFrom).offset;
+			final BlockIndex last = blocks.get(blockTo - 1);
+			final long length = last.offset + last.length - start;
+			if (length > Integer.MAX_VALUE) {
+				throw new IOException("Column '" + column.fieldName + "' is too large to be mapped at once");
+			}
+			final MappedByteBuffer mapped = _channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+			final BinBuffer buf = new BinBuffer(mapped);
+
+			long[] times = new long[0];
+			for (int b=blockFrom; b<blockTo; b++) {
+
+				final BlockIndex block = blocks.get(b);
+				buf.position((int)(block.offset - start));
+
+				if (times.length < block.count) {
+					times = new long[block.count];
+				}
+				long time = block.minTime;
+				for (int i=0; i<block.count; i++) {
+					time += buf.getVarLong();
+					times[i] = time;
+				}
+
+				final boolean allInRange = block.minTime >= _fromTime && block.maxTime < _toTime;
+				for (int i=0; i<block.count; i++) {
+					final Object value = dataType.fromBinary(buf);
+					if (allInRange || (times[i] >= _fromTime && times[i] < _toTime)) {
+						@SuppressWarnings("unchecked")
+						final T itemTime = (T)_timeType.fromTimeLong(times[i], _zoneId);
+						seq.add(new TItem<T>(itemTime, value));
+					}
+				}
+			}
+			return seq;
+		}
+
+		@Override
+		public void close() throws IOException {
+			_raf.close();
+		}
+	}
+
+}
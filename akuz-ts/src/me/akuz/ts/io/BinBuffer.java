@@ -0,0 +1,171 @@
+package me.akuz.ts.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Byte buffer for the binary time series format,
+ * which grows when writing, and can also wrap
+ * an existing (e.g. memory-mapped) buffer for
+ * reading; numbers are stored big-endian, and
+ * variable length longs as 7-bit groups.
+ *
+ */
+public final class BinBuffer {
+
+	private static final int DEFAULT_CAPACITY = 1 << 12;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private ByteBuffer _buf;
+	private final boolean _growable;
+
+	/**
+	 * Create an empty growable buffer for writing.
+	 */
+	public BinBuffer() {
+		_buf = ByteBuffer.allocate(DEFAULT_CAPACITY);
+		_growable = true;
+	}
+
+	/**
+	 * Wrap a buffer for reading from
+	 * its current position to its limit.
+	 */
+	public BinBuffer(final ByteBuffer buf) {
+		if (buf == null) {
+			throw new IllegalArgumentException("Buffer cannot be null");
+		}
+		_buf = buf;
+		_growable = false;
+	}
+
+	/**
+	 * Get the underlying buffer; after writing,
+	 * flip() it to get the written bytes.
+	 */
+	public ByteBuffer getByteBuffer() {
+		return _buf;
+	}
+
+	public int position() {
+		return _buf.position();
+	}
+
+	public void position(final int position) {
+		_buf.position(position);
+	}
+
+	public boolean hasRemaining() {
+		return _buf.hasRemaining();
+	}
+
+	public void clear() {
+		_buf.clear();
+	}
+
+	private void ensure(final int count) {
+		if (_buf.remaining() >= count) {
+			return;
+		}
+		if (!_growable) {
+			throw new IllegalStateException("Buffer is not growable");
+		}
+		int capacity = _buf.capacity() * 2;
+		while (capacity - _buf.position() < count) {
+			capacity *= 2;
+		}
+		final ByteBuffer buf = ByteBuffer.allocate(capacity);
+		_buf.flip();
+		buf.put(_buf);
+		_buf = buf;
+	}
+
+	public void putByte(final byte value) {
+		ensure(1);
+		_buf.put(value);
+	}
+
+	public byte getByte() {
+		return _buf.get();
+	}
+
+	public void putInt(final int value) {
+		ensure(4);
+		_buf.putInt(value);
+	}
+
+	public int getInt() {
+		return _buf.getInt();
+	}
+
+	public void putLong(final long value) {
+		ensure(8);
+		_buf.putLong(value);
+	}
+
+	public long getLong() {
+		return _buf.getLong();
+	}
+
+	public void putDouble(final double value) {
+		ensure(8);
+		_buf.putDouble(value);
+	}
+
+	public double getDouble() {
+		return _buf.getDouble();
+	}
+
+	/**
+	 * Put a non-negative long in 1 to 9 bytes.
+	 */
+	public void putVarLong(long value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Var long cannot be negative: " + value);
+		}
+		ensure(9);
+		while (value >= 0x80) {
+			_buf.put((byte)(value | 0x80));
+			value >>>= 7;
+		}
+		_buf.put((byte)value);
+	}
+
+	public long getVarLong() {
+		long value = 0;
+		int shift = 0;
+		while (true) {
+			final byte b = _buf.get();
+			value |= (long)(b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+			shift += 7;
+		}
+	}
+
+	/**
+	 * Put a string as var length and UTF-8 bytes.
+	 */
+	public void putString(final String value) {
+		final byte[] bytes = value.getBytes(UTF8);
+		putVarLong(bytes.length);
+		ensure(bytes.length);
+		_buf.put(bytes);
+	}
+
+	public String getString() {
+		final int length = (int)getVarLong();
+		final String value;
+		if (_buf.hasArray()) {
+			value = new String(_buf.array(), _buf.arrayOffset() + _buf.position(), length, UTF8);
+			_buf.position(_buf.position() + length);
+		} else {
+			final byte[] bytes = new byte[length];
+			_buf.get(bytes);
+			value = new String(bytes, UTF8);
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,217 @@
+package me.akuz.ts.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Splits CSV lines into fields, reading characters
+ * into a reusable buffer; the fields are unescaped
+ * and trimmed in place, and are accessed as ranges
+ * of the buffer, without creating strings.
+ *
+ * Separator is a comma, which can be escaped
+ * with a backslash; empty lines are skipped.
+ *
+ */
+public final class CSVLineReader {
+
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+	private static final int DEFAULT_FIELD_CAPACITY = 16;
+	private static final char SEP = ',';
+	private static final char ESCAPE = '\\';
+
+	private final Reader _reader;
+	private char[] _buf;
+	private int _pos;
+	private int _limit;
+	private boolean _eof;
+	private boolean _skipLF;
+
+	private int _fieldCount;
+	private int[] _fieldStarts;
+	private int[] _fieldEnds;
+
+	/**
+	 * Create a reader of lines from a character stream.
+	 */
+	public CSVLineReader(final Reader reader) {
+		if (reader == null) {
+			throw new IllegalArgumentException("Reader cannot be null");
+		}
+		_reader = reader;
+		_buf = new char[DEFAULT_BUFFER_SIZE];
+		_fieldStarts = new int[DEFAULT_FIELD_CAPACITY];
+		_fieldEnds = new int[DEFAULT_FIELD_CAPACITY];
+	}
+
+	/**
+	 * Create a reader of lines from a range of
+	 * characters, which will be modified in place.
+	 */
+	public CSVLineReader(final char[] chars, final int start, final int end) {
+		_reader = null;
+		_buf = chars;
+		_pos = start;
+		_limit = end;
+		_eof = true;
+		_fieldStarts = new int[DEFAULT_FIELD_CAPACITY];
+		_fieldEnds = new int[DEFAULT_FIELD_CAPACITY];
+	}
+
+	/**
+	 * Read and split the next non-empty line;
+	 * returns false, if there are no more lines.
+	 */
+	public boolean nextLine() throws IOException {
+		while (true) {
+
+			// skip \n after \r
+			if (_skipLF) {
+				if (_pos >= _limit && !_eof) {
+					fill();
+				}
+				if (_pos < _limit && _buf[_pos] == '\n') {
+					_pos++;
+				}
+				_skipLF = false;
+			}
+
+			// find the end of the line
+			int lineEnd = indexOfNewLine(_pos);
+			while (lineEnd < 0 && !_eof) {
+				final int scanned = _limit - _pos;
+				fill();
+				lineEnd = indexOfNewLine(_pos + scanned);
+			}
+			if (lineEnd < 0) {
+				if (_pos >= _limit) {
+					_fieldCount = 0;
+					return false;
+				}
+				lineEnd = _limit;
+			}
+
+			final int lineStart = _pos;
+			if (lineEnd < _limit) {
+				_skipLF = _buf[lineEnd] == '\r';
+				_pos = lineEnd + 1;
+			} else {
+				_pos = lineEnd;
+			}
+
+			if (lineEnd > lineStart) {
+				split(lineStart, lineEnd);
+				return true;
+			}
+		}
+	}
+
+	private int indexOfNewLine(final int from) {
+		final char[] buf = _buf;
+		for (int i=from; i<_limit; i++) {
+			final char c = buf[i];
+			if (c == '\n' || c == '\r') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Read more characters, moving the current
+	 * line to the start of the buffer, and growing
+	 * the buffer, if the line doesn't fit in it.
+	 */
+	private void fill() throws IOException {
+		if (_pos > 0) {
+			System.arraycopy(_buf, _pos, _buf, 0, _limit - _pos);
+			_limit -= _pos;
+			_pos = 0;
+		}
+		if (_limit == _buf.length) {
+			_buf = Arrays.copyOf(_buf, _buf.length * 2);
+		}
+		final int count = _reader.read(_buf, _limit, _buf.length - _limit);
+		if (count < 0) {
+			_eof = true;
+		} else {
+			_limit += count;
+		}
+	}
+
+	private void split(final int lineStart, final int lineEnd) {
+
+		final char[] buf = _buf;
+		_fieldCount = 0;
+
+		int fieldStart = lineStart;
+		int write = lineStart;
+		int read = lineStart;
+		while (true) {
+			if (read >= lineEnd || buf[read] == SEP) {
+				addField(fieldStart, write);
+				if (read >= lineEnd) {
+					break;
+				}
+				read++;
+				fieldStart = read;
+				write = read;
+			} else if (buf[read] == ESCAPE && read + 1 < lineEnd && buf[read + 1] == SEP) {
+				buf[write++] = SEP;
+				read += 2;
+			} else {
+				buf[write++] = buf[read++];
+			}
+		}
+	}
+
+	private void addField(int start, int end) {
+		final char[] buf = _buf;
+		while (start < end && buf[start] <= ' ') {
+			start++;
+		}
+		while (end > start && buf[end - 1] <= ' ') {
+			end--;
+		}
+		if (_fieldCount == _fieldStarts.length) {
+			_fieldStarts = Arrays.copyOf(_fieldStarts, _fieldCount * 2);
+			_fieldEnds = Arrays.copyOf(_fieldEnds, _fieldCount * 2);
+		}
+		_fieldStarts[_fieldCount] = start;
+		_fieldEnds[_fieldCount] = end;
+		_fieldCount++;
+	}
+
+	/**
+	 * Get the buffer, which contains
+	 * the fields of the current line.
+	 */
+	public char[] getBuffer() {
+		return _buf;
+	}
+
+	/**
+	 * Get the number of fields in the current line.
+	 */
+	public int getFieldCount() {
+		return _fieldCount;
+	}
+
+	public int getFieldStart(final int index) {
+		return _fieldStarts[index];
+	}
+
+	public int getFieldEnd(final int index) {
+		return _fieldEnds[index];
+	}
+
+	public boolean isFieldEmpty(final int index) {
+		return _fieldStarts[index] == _fieldEnds[index];
+	}
+
+	public String getFieldString(final int index) {
+		return new String(_buf, _fieldStarts[index], _fieldEnds[index] - _fieldStarts[index]);
+	}
+
+}
@@ -7,18 +7,26 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import me.akuz.core.FileUtils;
 import me.akuz.core.Out;
 import me.akuz.ts.Frame;
-import me.akuz.ts.FrameIterator;
+import me.akuz.ts.FrameHeapIterator;
 import me.akuz.ts.TItem;
 
 /**
@@ -27,23 +35,25 @@ import me.akuz.ts.TItem;
  */
 public final class CSV_IO {
 	
-	private static final String SEP = ",";
-	private static final String SEP_REPLACEMENT = "\\\\,";
-	private static final String SEP_REGEX = ",";
-	private static final String SEP_REGEX_UNESCAPED = "(?<=(^|[^\\\\])),";
-	private static final String SEP_REGEX_ESCAPED = "\\\\,";
-	private static final String NEW_LINE = "\n";
+	private static final char SEP = ',';
+	private static final char ESCAPE = '\\';
+	private static final char NEW_LINE = '\n';
+	private static final int MIN_CHUNK_SIZE = 1 << 20;
+	private static final int MAX_CHUNK_SIZE = 1 << 26;
+	private static final int CHUNKS_PER_THREAD = 4;
 	
-	private static final String escape(final String str) {
-		return str.replaceAll(SEP_REGEX, SEP_REPLACEMENT);
-	}
-	
-	private static final String unescape(final String str) {
-		return str.replaceAll(SEP_REGEX_ESCAPED, SEP);
-	}
-	
-	private static final String[] split(final String str) {
-		return str.split(SEP_REGEX_UNESCAPED);
+	private static final void appendEscaped(final Writer writer, final String str) throws IOException {
+		if (str.indexOf(SEP) < 0) {
+			writer.append(str);
+			return;
+		}
+		for (int i=0; i<str.length(); i++) {
+			final char c = str.charAt(i);
+			if (c == SEP) {
+				writer.append(ESCAPE);
+			}
+			writer.append(c);
+		}
 	}
 
 	public static final <K, T extends Comparable<T>> void toCSV(
@@ -109,18 +119,24 @@ public final class CSV_IO {
 			final Frame<K, T> frame,
 			final IOMap<K> ioMap) throws IOException {
 
-		writer.append(escape(ioMap.getTimeFieldName()));
+		appendEscaped(writer, ioMap.getTimeFieldName());
 
 		List<K> keys = ioMap.getKeys();
 		for (int j=0; j<keys.size(); j++) {
 			
 			writer.append(SEP);
 			K key = keys.get(j);
-			writer.append(escape(ioMap.getFieldName(key)));
+			appendEscaped(writer, ioMap.getFieldName(key));
 		}
 		writer.append(NEW_LINE);
 		
-		final FrameIterator<K, T> frameIter = new FrameIterator<>(frame, keys);
+		final IOType timeDataType = ioMap.getTimeDataType();
+		final IOType[] dataTypes = new IOType[keys.size()];
+		for (int j=0; j<keys.size(); j++) {
+			dataTypes[j] = ioMap.getDataType(keys.get(j));
+		}
+		
+		final FrameHeapIterator<K, T> frameIter = new FrameHeapIterator<>(frame, keys);
 		final Out<T> nextTime = new Out<>();
 		while (frameIter.getNextTime(nextTime)) {
 			
@@ -128,14 +144,13 @@ public final class CSV_IO {
 			
 			final Map<K, TItem<T>> currKeyItems = frameIter.getCurrItems();
 			
-			writer.append(escape(ioMap.getTimeDataType().toString(frameIter.getCurrTime())));
+			appendEscaped(writer, timeDataType.toString(frameIter.getCurrTime()));
 			for (int j=0; j<keys.size(); j++) {
 				
 				writer.append(SEP);
-				K key = keys.get(j);
-				TItem<T> item = currKeyItems.get(key);
+				TItem<T> item = currKeyItems.get(keys.get(j));
 				if (item != null) {
-					writer.append(escape(ioMap.getDataType(key).toString(item.getObject())));
+					appendEscaped(writer, dataTypes[j].toString(item.getObject()));
 				}
 			}
 			writer.append(NEW_LINE);
@@ -168,79 +183,270 @@ public final class CSV_IO {
 			final Readable input,
 			final IOMap<K> ioMap) throws IOException {
 		
-		Frame<K, T> frame = new Frame<>();
+		final Reader reader;
+		if (input instanceof Reader) {
+			reader = (Reader)input;
+		} else {
+			reader = new Reader() {
+				@Override
+				public int read(char[] cbuf, int off, int len) throws IOException {
+					return input.read(CharBuffer.wrap(cbuf, off, len));
+				}
+				@Override
+				public void close() throws IOException {
+				}
+			};
+		}
+		
+		final CSVLineReader lineReader = new CSVLineReader(reader);
+		if (!lineReader.nextLine()) {
+			return new Frame<>();
+		}
+		final Header<K> header = new Header<>(lineReader, ioMap);
+		
+		final Columns<T> columns = new Columns<>(header);
+		int lineIndex = 1;
+		while (lineReader.nextLine()) {
+			columns.parseLine(lineReader, lineIndex);
+			lineIndex++;
+		}
+		
+		final Frame<K, T> frame = new Frame<>();
+		columns.stageTo(frame);
+		frame.acceptStaged();
+		return frame;
+	}
 
-		int lineIndex = 0;
-		try (final Scanner scanner = new Scanner(input)) {
-			
-			int timeFieldIdx = -1;
-			Map<Integer, K> fieldIdxToKey = null;
-			int fieldCount = -1;
-			
-			while (scanner.hasNextLine()) {
-				
-				String line = scanner.nextLine();
-				
-				if (lineIndex == 0) {
-					
-					// read the headers
-					final String[] parts = split(line);
-					fieldCount = parts.length;
-					fieldIdxToKey = new HashMap<>();
-					for (int i=0; i<parts.length; i++) {
-						final String fieldName = unescape(parts[i].trim());
-						if (fieldName.equalsIgnoreCase(ioMap.getTimeFieldName())) {
-							timeFieldIdx = i;
-						} else {
-							K key = ioMap.getKey(fieldName);
-							if (key != null) {
-								fieldIdxToKey.put(i, key);
-							}
-						}
-					}
-					if (timeFieldIdx < 0) {
-						throw new IOException("Could not find time field '" + ioMap.getTimeFieldName() + "' in the headers");
-					}
-					
-				} else {
-					
-					// read the data line
-					final String[] parts = split(line);
-					if (parts.length != fieldCount) {
-						throw new IOException(
-								"Number of fields (" + parts.length + ") at line index " + lineIndex + 
-								" does not match the number of fields (" + fieldCount + ") in the headers");
-					}
-					
-					final String timeStr = unescape(parts[timeFieldIdx].trim());
-					final T time;
-					try {
-						@SuppressWarnings("unchecked")
-						final T parsedTime = (T)ioMap.getTimeDataType().fromString(timeStr);
-						time = parsedTime;
-					} catch (Exception ex) {
-						throw new IOException("Could not parse time at line index " + lineIndex + ": '" + timeStr + "'");
+	/**
+	 * Read a large file in chunks in parallel on the
+	 * pool; the result is the same as when reading
+	 * the file sequentially.
+	 */
+	public static final <K, T extends Comparable<T>> Frame<K,T> fromCSV(
+			final File file,
+			final IOMap<K> ioMap,
+			final ForkJoinPool pool) throws IOException {
+		
+		final Charset charset = Charset.forName(FileUtils.UTF8);
+		final long fileLength = file.length();
+		
+		// read the headers
+		final Header<K> header;
+		final long dataStart;
+		try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			final long headerEnd = findLineStart(raf, 0, fileLength);
+			final byte[] headerBytes = new byte[(int)headerEnd];
+			raf.seek(0);
+			raf.readFully(headerBytes);
+			final char[] headerChars = new String(headerBytes, charset).toCharArray();
+			final CSVLineReader lineReader = new CSVLineReader(headerChars, 0, headerChars.length);
+			if (!lineReader.nextLine()) {
+				return new Frame<>();
+			}
+			header = new Header<>(lineReader, ioMap);
+			dataStart = headerEnd;
+		}
+		
+		// split the data into chunks at line starts; as
+		// \n is never a part of multi-byte UTF-8 chars,
+		// the chunks can be decoded independently
+		final long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE,
+				(fileLength - dataStart) / (CHUNKS_PER_THREAD * pool.getParallelism()) + 1));
+		final List<Long> chunkStarts = new ArrayList<>();
+		try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			long chunkStart = dataStart;
+			while (chunkStart < fileLength) {
+				chunkStarts.add(chunkStart);
+				chunkStart = findLineStart(raf, chunkStart + chunkSize, fileLength);
+			}
+			chunkStarts.add(fileLength);
+		}
+		
+		final List<Callable<Columns<T>>> tasks = new ArrayList<>();
+		for (int c=0; c<chunkStarts.size()-1; c++) {
+			final long chunkStart = chunkStarts.get(c);
+			final long chunkEnd = chunkStarts.get(c + 1);
+			tasks.add(new Callable<Columns<T>>() {
+				@Override
+				public Columns<T> call() throws IOException {
+					final byte[] bytes = new byte[(int)(chunkEnd - chunkStart)];
+					try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+						raf.seek(chunkStart);
+						raf.readFully(bytes);
 					}
-					
-					for (Integer fieldIdx : fieldIdxToKey.keySet()) {
-						
-						final String partStr = unescape(parts[fieldIdx].trim());
-						if (partStr.length() == 0) {
-							continue;
-						}
-						final K key = fieldIdxToKey.get(fieldIdx);
-						final Object value = ioMap.getDataType(key).fromString(partStr);
-						if (value != null) {
-							frame.stage(key, time, value);
+					final CharBuffer chars = charset.decode(ByteBuffer.wrap(bytes));
+					final CSVLineReader lineReader = new CSVLineReader(
+							chars.array(), 
+							chars.arrayOffset() + chars.position(), 
+							chars.arrayOffset() + chars.limit());
+					final Columns<T> columns = new Columns<>(header);
+					int lineIndex = 0;
+					while (lineReader.nextLine()) {
+						try {
+							columns.parseLine(lineReader, lineIndex);
+						} catch (IOException e) {
+							throw new IOException("Error in chunk starting at byte " + chunkStart, e);
 						}
+						lineIndex++;
 					}
+					return columns;
 				}
-				
-				lineIndex++;
-			}
+			});
 		}
 		
+		// merge the chunks in order
+		final Frame<K, T> frame = new Frame<>();
+		for (final Future<Columns<T>> future : pool.invokeAll(tasks)) {
+			try {
+				future.get().stageTo(frame);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while reading " + file, e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException)e.getCause();
+				}
+				throw new IOException("Could not read " + file, e.getCause());
+			}
+		}
 		frame.acceptStaged();
 		return frame;
 	}
+	
+	/**
+	 * Find the start of the line at or after the position.
+	 */
+	private static final long findLineStart(
+			final RandomAccessFile raf, 
+			final long position, 
+			final long fileLength) throws IOException {
+		
+		if (position >= fileLength) {
+			return fileLength;
+		}
+		raf.seek(position);
+		final byte[] buf = new byte[8192];
+		long offset = position;
+		while (offset < fileLength) {
+			final int count = raf.read(buf);
+			if (count < 0) {
+				break;
+			}
+			for (int i=0; i<count; i++) {
+				if (buf[i] == NEW_LINE) {
+					return offset + i + 1;
+				}
+			}
+			offset += count;
+		}
+		return fileLength;
+	}
+	
+	/**
+	 * Mapping of fields in the headers to keys.
+	 */
+	private static final class Header<K> {
+		
+		public final int timeFieldIdx;
+		public final int fieldCount;
+		public final IOType timeDataType;
+		public final int[] fieldIdxs;
+		public final List<K> keys;
+		public final IOType[] dataTypes;
+		
+		public Header(final CSVLineReader lineReader, final IOMap<K> ioMap) throws IOException {
+			
+			int timeIdx = -1;
+			final List<Integer> idxs = new ArrayList<>();
+			keys = new ArrayList<>();
+			fieldCount = lineReader.getFieldCount();
+			for (int i=0; i<fieldCount; i++) {
+				final String fieldName = lineReader.getFieldString(i);
+				if (fieldName.equalsIgnoreCase(ioMap.getTimeFieldName())) {
+					timeIdx = i;
+				} else {
+					K key = ioMap.getKey(fieldName);
+					if (key != null) {
+						idxs.add(i);
+						keys.add(key);
+					}
+				}
+			}
+			if (timeIdx < 0) {
+				throw new IOException("Could not find time field '" + ioMap.getTimeFieldName() + "' in the headers");
+			}
+			timeFieldIdx = timeIdx;
+			timeDataType = ioMap.getTimeDataType();
+			fieldIdxs = new int[idxs.size()];
+			dataTypes = new IOType[idxs.size()];
+			for (int j=0; j<idxs.size(); j++) {
+				fieldIdxs[j] = idxs.get(j);
+				dataTypes[j] = ioMap.getDataType(keys.get(j));
+			}
+		}
+	}
+	
+	/**
+	 * Items parsed for each of the mapped fields.
+	 */
+	private static final class Columns<T extends Comparable<T>> {
+		
+		private final Header<?> _header;
+		private final List<List<TItem<T>>> _items;
+		
+		public Columns(final Header<?> header) {
+			_header = header;
+			_items = new ArrayList<>(header.fieldIdxs.length);
+			for (int j=0; j<header.fieldIdxs.length; j++) {
+				_items.add(new ArrayList<TItem<T>>());
+			}
+		}
+		
+		public void parseLine(final CSVLineReader lineReader, final int lineIndex) throws IOException {
+			
+			if (lineReader.getFieldCount() != _header.fieldCount) {
+				throw new IOException(
+						"Number of fields (" + lineReader.getFieldCount() + ") at line index " + lineIndex + 
+						" does not match the number of fields (" + _header.fieldCount + ") in the headers");
+			}
+			
+			final char[] buf = lineReader.getBuffer();
+			final int timeStart = lineReader.getFieldStart(_header.timeFieldIdx);
+			final int timeEnd = lineReader.getFieldEnd(_header.timeFieldIdx);
+			final T time;
+			try {
+				@SuppressWarnings("unchecked")
+				final T parsedTime = (T)_header.timeDataType.fromChars(buf, timeStart, timeEnd);
+				time = parsedTime;
+			} catch (Exception ex) {
+				throw new IOException("Could not parse time at line index " + lineIndex + ": '" + 
+						new String(buf, timeStart, timeEnd - timeStart) + "'");
+			}
+			
+			for (int j=0; j<_header.fieldIdxs.length; j++) {
+				final int fieldIdx = _header.fieldIdxs[j];
+				if (lineReader.isFieldEmpty(fieldIdx)) {
+					continue;
+				}
+				final Object value = _header.dataTypes[j].fromChars(
+						buf, 
+						lineReader.getFieldStart(fieldIdx), 
+						lineReader.getFieldEnd(fieldIdx));
+				if (value != null) {
+					_items.get(j).add(new TItem<T>(time, value));
+				}
+			}
+		}
+		
+		@SuppressWarnings("unchecked")
+		public <K> void stageTo(final Frame<K, T> frame) {
+			for (int j=0; j<_items.size(); j++) {
+				final K key = (K)_header.keys.get(j);
+				final List<TItem<T>> items = _items.get(j);
+				for (int i=0; i<items.size(); i++) {
+					frame.stage(key, items.get(i));
+				}
+			}
+		}
+	}
 }
@@ -0,0 +1,91 @@
+package me.akuz.ts.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import me.akuz.core.TDateTime;
+import me.akuz.ts.Frame;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Manual benchmark of writing a frame to a CSV file,
+ * and reading it back serially and in parallel;
+ * arguments (optional): row count, key count, threads, repeats.
+ *
+ */
+public final class CSV_IOBenchmark {
+
+	public static void main(String[] args) throws IOException {
+
+		final int rowCount = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		final int keyCount = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		final int threadCount = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+		final int repeats = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+		final Random rnd = new Random(3);
+		final IOMap<String> ioMap = new IOMap<>("time", IOType.TDateTimeType);
+		final Frame<String, TDateTime> frame = new Frame<>();
+		for (int k=0; k<keyCount; k++) {
+			ioMap.add("k" + k, "field, " + k, IOType.DoubleType);
+		}
+		long ms = new DateTime(2014, 1, 1, 0, 0, DateTimeZone.UTC).getMillis();
+		for (int i=0; i<rowCount; i++) {
+			ms += 1 + rnd.nextInt(1000);
+			final TDateTime time = new TDateTime(new DateTime(ms, DateTimeZone.UTC));
+			for (int k=0; k<keyCount; k++) {
+				if (rnd.nextInt(3) > 0) {
+					frame.add("k" + k, time, rnd.nextGaussian());
+				}
+			}
+		}
+
+		final ForkJoinPool pool = new ForkJoinPool(threadCount);
+		final File file = File.createTempFile("csv_io_benchmark", ".csv");
+		try {
+
+			// keep the results, so that the runs are not optimized out
+			long check = 0;
+
+			long writeMs = Long.MAX_VALUE;
+			long serialMs = Long.MAX_VALUE;
+			long parallelMs = Long.MAX_VALUE;
+
+			// first round is a warm up
+			for (int k=0; k<=repeats; k++) {
+
+				long startMs = System.currentTimeMillis();
+				CSV_IO.toCSV(file, frame, ioMap);
+				final long write = System.currentTimeMillis() - startMs;
+
+				startMs = System.currentTimeMillis();
+				check += CSV_IO.fromCSV(file, ioMap).getKeys().size();
+				final long serial = System.currentTimeMillis() - startMs;
+
+				startMs = System.currentTimeMillis();
+				check += CSV_IO.fromCSV(file, ioMap, pool).getKeys().size();
+				final long parallel = System.currentTimeMillis() - startMs;
+
+				if (k > 0) {
+					writeMs = Math.min(writeMs, write);
+					serialMs = Math.min(serialMs, serial);
+					parallelMs = Math.min(parallelMs, parallel);
+				}
+			}
+
+			System.out.println("Best of " + repeats + " on " + (file.length() / 1024) + " KB (check " + check + "):");
+			System.out.println("CSV write " + writeMs + " ms, read: serial " + serialMs + " ms, " +
+					"parallel (" + threadCount + " threads) " + parallelMs + " ms");
+
+		} finally {
+			pool.shutdown();
+			if (file.exists()) {
+				file.delete();
+			}
+		}
+	}
+
+}
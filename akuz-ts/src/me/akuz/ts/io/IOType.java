@@ -30,4 +30,54 @@ public abstract class IOType {
 	public abstract Object fromString(String str) throws IOException;
 	public abstract String toString(Object value);
 	
+	/**
+	 * Parse value from a range of characters; types
+	 * override this to parse without creating strings.
+	 */
+	public Object fromChars(char[] chars, int start, int end) throws IOException {
+		return fromString(new String(chars, start, end - start));
+	}
+	
+	/**
+	 * Write value into a binary column (see {@link BIN_IO});
+	 * by default, as a string; types override this
+	 * to write values in a fixed size encoding.
+	 */
+	public void toBinary(BinBuffer buf, Object value) {
+		buf.putString(toString(value));
+	}
+	
+	/**
+	 * Read value written by toBinary().
+	 */
+	public Object fromBinary(BinBuffer buf) throws IOException {
+		return fromString(buf.getString());
+	}
+	
+	/**
+	 * Get time as a long for binary storage, which 
+	 * preserves the order of times; only the types,
+	 * which can be used as time, support this.
+	 */
+	public long toTimeLong(Object time) {
+		throw new IllegalStateException("Data type " + getClass().getSimpleName() + " cannot be used as binary time");
+	}
+	
+	/**
+	 * Get time from a long returned by toTimeLong(), 
+	 * in the time zone with the provided id (null, 
+	 * if the type doesn't have time zones).
+	 */
+	public Object fromTimeLong(long value, String zoneId) throws IOException {
+		throw new IllegalStateException("Data type " + getClass().getSimpleName() + " cannot be used as binary time");
+	}
+	
+	/**
+	 * Get id of the time zone of the time,
+	 * or null, if the type has no time zones.
+	 */
+	public String getTimeZoneId(Object time) {
+		return null;
+	}
+	
 }
@@ -13,6 +13,7 @@ import me.akuz.ts.FrameCursor;
 import me.akuz.ts.FrameFilter;
 import me.akuz.ts.FrameIterator;
 import me.akuz.ts.TItem;
+import me.akuz.ts.align.FrameAligner;
 import me.akuz.ts.log.TLog;
 import Jama.Matrix;
 
@@ -37,11 +38,7 @@ public final class JAMA_IO {
 			final Frame<K, T> frame,
 			final Index<K> keysIndex) {
 		
-		return intoMatrix(
-				frame,
-				keysIndex,
-				null,
-				null);
+		return new FrameAligner<>(frame, keysIndex.getList()).toMatrix();
 	}
 
 	public static <K, T extends Comparable<T>> Matrix intoMatrix(
@@ -2,6 +2,7 @@ package me.akuz.ts.io.types;
 
 import java.io.IOException;
 
+import me.akuz.ts.io.BinBuffer;
 import me.akuz.ts.io.IOType;
 
 
@@ -37,4 +38,14 @@ public final class IOBoolean extends IOType {
 	public Object fromString(String str) throws IOException {
 		return Boolean.parseBoolean(str);
 	}
+	
+	@Override
+	public void toBinary(BinBuffer buf, Object value) {
+		buf.putByte((Boolean)value ? (byte)1 : (byte)0);
+	}
+	
+	@Override
+	public Object fromBinary(BinBuffer buf) {
+		return buf.getByte() != 0;
+	}
 }
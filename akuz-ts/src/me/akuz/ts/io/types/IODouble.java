@@ -2,11 +2,22 @@ package me.akuz.ts.io.types;
 
 import java.io.IOException;
 
+import me.akuz.ts.io.BinBuffer;
 import me.akuz.ts.io.IOType;
 
 import com.google.gson.JsonObject;
 
 public final class IODouble extends IOType {
+	
+	// powers of ten, which are exact doubles
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 
+		1e21, 1e22 };
+	
+	// max number of significant digits,
+	// which are exact in a double
+	private static final int MAX_EXACT_DIGITS = 15;
 
 	@Override
 	public Object fromJsonField(JsonObject obj, String name) {
@@ -40,4 +51,97 @@ public final class IODouble extends IOType {
 			throw new IOException("Could not parse double '" + str + "'", e);
 		}
 	}
+	
+	/**
+	 * Parses simple decimals with up to 15 significant digits
+	 * and small exponents directly, in which case the result
+	 * is exact after one rounding (same as Double.parseDouble);
+	 * other formats are parsed by Double.parseDouble.
+	 */
+	@Override
+	public Object fromChars(char[] chars, int start, int end) throws IOException {
+		
+		int i = start;
+		boolean negative = false;
+		if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+			negative = chars[i] == '-';
+			i++;
+		}
+		
+		long mantissa = 0;
+		int digitCount = 0;
+		int significantCount = 0;
+		int exp10 = 0;
+		boolean dot = false;
+		for (; i<end; i++) {
+			final char c = chars[i];
+			if (c >= '0' && c <= '9') {
+				digitCount++;
+				if (significantCount > 0 || c != '0') {
+					if (++significantCount > MAX_EXACT_DIGITS) {
+						return fromString(new String(chars, start, end - start));
+					}
+					mantissa = mantissa * 10 + (c - '0');
+				}
+				if (dot) {
+					exp10--;
+				}
+			} else if (c == '.' && !dot) {
+				dot = true;
+			} else {
+				break;
+			}
+		}
+		if (digitCount == 0) {
+			return fromString(new String(chars, start, end - start));
+		}
+		
+		if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+			i++;
+			boolean expNegative = false;
+			if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+				expNegative = chars[i] == '-';
+				i++;
+			}
+			int exp = 0;
+			int expDigitCount = 0;
+			for (; i<end && expDigitCount < 4; i++) {
+				final char c = chars[i];
+				if (c < '0' || c > '9') {
+					break;
+				}
+				exp = exp * 10 + (c - '0');
+				expDigitCount++;
+			}
+			if (expDigitCount == 0) {
+				return fromString(new String(chars, start, end - start));
+			}
+			exp10 += expNegative ? -exp : exp;
+		}
+		if (i < end) {
+			return fromString(new String(chars, start, end - start));
+		}
+		
+		double value;
+		if (mantissa == 0) {
+			value = 0.0;
+		} else if (exp10 >= 0 && exp10 < POW10.length) {
+			value = mantissa * POW10[exp10];
+		} else if (exp10 < 0 && -exp10 < POW10.length) {
+			value = mantissa / POW10[-exp10];
+		} else {
+			return fromString(new String(chars, start, end - start));
+		}
+		return negative ? -value : value;
+	}
+	
+	@Override
+	public void toBinary(BinBuffer buf, Object value) {
+		buf.putDouble((Double)value);
+	}
+	
+	@Override
+	public Object fromBinary(BinBuffer buf) {
+		return buf.getDouble();
+	}
 }
@@ -3,6 +3,7 @@ package me.akuz.ts.io.types;
 
 import java.io.IOException;
 
+import me.akuz.ts.io.BinBuffer;
 import me.akuz.ts.io.IOType;
 
 import com.google.gson.JsonObject;
@@ -41,4 +42,45 @@ public final class IOInteger extends IOType {
 			throw new IOException("Could not parse integer '" + str + "'", e);
 		}
 	}
+	
+	@Override
+	public Object fromChars(char[] chars, int start, int end) throws IOException {
+		
+		int i = start;
+		boolean negative = false;
+		if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+			negative = chars[i] == '-';
+			i++;
+		}
+		
+		// at most 10 digits fit into long without overflow
+		if (i == end || end - i > 10) {
+			return fromString(new String(chars, start, end - start));
+		}
+		long value = 0;
+		for (; i<end; i++) {
+			final char c = chars[i];
+			if (c < '0' || c > '9') {
+				return fromString(new String(chars, start, end - start));
+			}
+			value = value * 10 + (c - '0');
+		}
+		if (negative) {
+			value = -value;
+		}
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			return fromString(new String(chars, start, end - start));
+		}
+		return (int)value;
+	}
+	
+	@Override
+	public void toBinary(BinBuffer buf, Object value) {
+		buf.putInt((Integer)value);
+	}
+	
+	@Override
+	public Object fromBinary(BinBuffer buf) {
+		return buf.getInt();
+	}
 }
@@ -3,11 +3,31 @@ package me.akuz.ts.io.types;
 import java.io.IOException;
 
 import me.akuz.core.TDate;
+import me.akuz.ts.io.BinBuffer;
 import me.akuz.ts.io.IOType;
 
 import com.google.gson.JsonObject;
 
 public final class IOTDate extends IOType {
+	
+	private static final int DATE_LENGTH = 10; // yyyy-MM-dd
+	
+	/**
+	 * Last parsed date (immutable, so
+	 * it can be shared between threads).
+	 */
+	private static final class Parsed {
+		
+		public final int num;
+		public final TDate date;
+		
+		public Parsed(final int num, final TDate date) {
+			this.num = num;
+			this.date = date;
+		}
+	}
+	
+	private Parsed _last;
 
 	public IOTDate() {
 	}
@@ -41,6 +61,90 @@ public final class IOTDate extends IOType {
 	
 	@Override
 	public Object fromString(String str) throws IOException {
-		return new TDate(str);
+		return TDate.parse(str);
+	}
+	
+	/**
+	 * Parses yyyy-MM-dd dates directly, reusing the
+	 * last parsed date, if it's the same (common in
+	 * files with many rows per date); other formats
+	 * are parsed by fromString().
+	 */
+	@Override
+	public Object fromChars(char[] chars, int start, int end) throws IOException {
+		final int num = parseDateNum(chars, start, end);
+		if (num < 0) {
+			return fromString(new String(chars, start, end - start));
+		}
+		return fromNum(num);
+	}
+	
+	/**
+	 * Get date from yyyyMMdd number, reusing 
+	 * the last date, if it's the same.
+	 */
+	private TDate fromNum(final int num) throws IOException {
+		final Parsed last = _last;
+		if (last != null && last.num == num) {
+			return last.date;
+		}
+		final TDate date;
+		try {
+			date = new TDate(num / 10000, num / 100 % 100, num % 100);
+		} catch (RuntimeException e) {
+			throw new IOException("Could not parse date " + num, e);
+		}
+		_last = new Parsed(num, date);
+		return date;
+	}
+	
+	@Override
+	public void toBinary(BinBuffer buf, Object value) {
+		buf.putInt(((TDate)value).getNum());
+	}
+	
+	@Override
+	public Object fromBinary(BinBuffer buf) throws IOException {
+		return fromNum(buf.getInt());
+	}
+	
+	/**
+	 * Dates are stored as yyyyMMdd numbers.
+	 */
+	@Override
+	public long toTimeLong(Object time) {
+		return ((TDate)time).getNum();
+	}
+	
+	@Override
+	public Object fromTimeLong(long value, String zoneId) throws IOException {
+		return fromNum((int)value);
+	}
+	
+	/**
+	 * Parse yyyy-MM-dd into yyyyMMdd number,
+	 * or return -1, if the format is different.
+	 */
+	public static int parseDateNum(char[] chars, int start, int end) {
+		if (end - start != DATE_LENGTH ||
+			chars[start + 4] != '-' ||
+			chars[start + 7] != '-') {
+			return -1;
+		}
+		int num = 0;
+		for (int i=start; i<end; i++) {
+			final char c = chars[i];
+			if (c == '-') {
+				if (i == start + 4 || i == start + 7) {
+					continue;
+				}
+				return -1;
+			}
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			num = num * 10 + (c - '0');
+		}
+		return num;
 	}
 }
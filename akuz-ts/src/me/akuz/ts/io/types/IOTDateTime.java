@@ -3,11 +3,60 @@ package me.akuz.ts.io.types;
 import java.io.IOException;
 
 import me.akuz.core.TDateTime;
+import me.akuz.ts.io.BinBuffer;
 import me.akuz.ts.io.IOType;
 
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+
 import com.google.gson.JsonObject;
 
 public final class IOTDateTime extends IOType {
+	
+	private static final int DATE_LENGTH = 10;       // yyyy-MM-dd
+	private static final int DATE_TIME_LENGTH = 23;  // yyyy-MM-ddTHH:mm:ss.SSS
+	private static final int OFFSET_LENGTH = 6;      // +HH:mm
+	private static final long MS_IN_SECOND = 1000L;
+	private static final long MS_IN_MINUTE = 60L * MS_IN_SECOND;
+	private static final long MS_IN_HOUR = 60L * MS_IN_MINUTE;
+	
+	/**
+	 * Last parsed date and offset (immutable,
+	 * so it can be shared between threads).
+	 */
+	private static final class Parsed {
+		
+		public final int dateNum;
+		public final long dateMs;
+		public final int offsetMs;
+		public final DateTimeZone zone;
+		
+		public Parsed(final int dateNum, final long dateMs, final int offsetMs, final DateTimeZone zone) {
+			this.dateNum = dateNum;
+			this.dateMs = dateMs;
+			this.offsetMs = offsetMs;
+			this.zone = zone;
+		}
+	}
+	
+	private Parsed _last;
+	
+	/**
+	 * Last time zone read from binary.
+	 */
+	private static final class Zone {
+		
+		public final String id;
+		public final DateTimeZone zone;
+		
+		public Zone(final String id, final DateTimeZone zone) {
+			this.id = id;
+			this.zone = zone;
+		}
+	}
+	
+	private Zone _lastZone;
 
 	public IOTDateTime() {
 	}
@@ -43,4 +92,139 @@ public final class IOTDateTime extends IOType {
 	public Object fromString(String str) throws IOException {
 		return TDateTime.parse(str);
 	}
+	
+	/**
+	 * Parses yyyy-MM-ddTHH:mm:ss.SSS date times with Z or 
+	 * +HH:mm offsets (as written by toString) directly, 
+	 * reusing the start of day of the last parsed date;
+	 * other formats are parsed by fromString().
+	 */
+	@Override
+	public Object fromChars(char[] chars, int start, int end) throws IOException {
+		
+		final int length = end - start;
+		if ((length != DATE_TIME_LENGTH + 1 && length != DATE_TIME_LENGTH + OFFSET_LENGTH) ||
+			chars[start + DATE_LENGTH] != 'T' ||
+			chars[start + 13] != ':' ||
+			chars[start + 16] != ':' ||
+			chars[start + 19] != '.') {
+			return fromString(new String(chars, start, length));
+		}
+		
+		final int dateNum = IOTDate.parseDateNum(chars, start, start + DATE_LENGTH);
+		final int hour = parseDigits(chars, start + 11, 2);
+		final int minute = parseDigits(chars, start + 14, 2);
+		final int second = parseDigits(chars, start + 17, 2);
+		final int millis = parseDigits(chars, start + 20, 3);
+		final int offsetMs = parseOffsetMs(chars, start + DATE_TIME_LENGTH, end);
+		if (dateNum < 0 || 
+			hour < 0 || hour > 23 || 
+			minute < 0 || minute > 59 || 
+			second < 0 || second > 59 || 
+			millis < 0 || 
+			offsetMs == Integer.MIN_VALUE) {
+			return fromString(new String(chars, start, length));
+		}
+		
+		Parsed last = _last;
+		if (last == null || last.dateNum != dateNum || last.offsetMs != offsetMs) {
+			final long dateMs;
+			try {
+				dateMs = new LocalDate(dateNum / 10000, dateNum / 100 % 100, dateNum % 100)
+						.toDateTimeAtStartOfDay(DateTimeZone.UTC)
+						.getMillis();
+			} catch (RuntimeException e) {
+				throw new IOException("Could not parse date time '" + new String(chars, start, length) + "'", e);
+			}
+			final DateTimeZone zone = last != null && last.offsetMs == offsetMs 
+					? last.zone : DateTimeZone.forOffsetMillis(offsetMs);
+			last = new Parsed(dateNum, dateMs, offsetMs, zone);
+			_last = last;
+		}
+		
+		final long ms = last.dateMs
+				+ hour * MS_IN_HOUR
+				+ minute * MS_IN_MINUTE
+				+ second * MS_IN_SECOND
+				+ millis
+				- offsetMs;
+		
+		return new TDateTime(new DateTime(ms, last.zone));
+	}
+	
+	@Override
+	public void toBinary(BinBuffer buf, Object value) {
+		final DateTime dateTime = ((TDateTime)value).get();
+		buf.putLong(dateTime.getMillis());
+		buf.putString(dateTime.getZone().getID());
+	}
+	
+	@Override
+	public Object fromBinary(BinBuffer buf) throws IOException {
+		final long ms = buf.getLong();
+		return fromTimeLong(ms, buf.getString());
+	}
+	
+	/**
+	 * Date times are stored as epoch milliseconds,
+	 * and the time zone is stored separately.
+	 */
+	@Override
+	public long toTimeLong(Object time) {
+		return ((TDateTime)time).getMillis();
+	}
+	
+	@Override
+	public Object fromTimeLong(long value, String zoneId) throws IOException {
+		Zone last = _lastZone;
+		if (last == null || !last.id.equals(zoneId)) {
+			final DateTimeZone zone;
+			try {
+				zone = DateTimeZone.forID(zoneId);
+			} catch (RuntimeException e) {
+				throw new IOException("Unknown time zone '" + zoneId + "'", e);
+			}
+			last = new Zone(zoneId, zone);
+			_lastZone = last;
+		}
+		return new TDateTime(new DateTime(value, last.zone));
+	}
+	
+	@Override
+	public String getTimeZoneId(Object time) {
+		return ((TDateTime)time).get().getZone().getID();
+	}
+	
+	private static int parseDigits(char[] chars, int start, int count) {
+		int value = 0;
+		for (int i=start; i<start+count; i++) {
+			final char c = chars[i];
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+	
+	/**
+	 * Parse Z or +HH:mm offset, returns
+	 * Integer.MIN_VALUE, if not valid.
+	 */
+	private static int parseOffsetMs(char[] chars, int start, int end) {
+		if (end - start == 1) {
+			return chars[start] == 'Z' ? 0 : Integer.MIN_VALUE;
+		}
+		final char sign = chars[start];
+		if ((sign != '+' && sign != '-') || chars[start + 3] != ':') {
+			return Integer.MIN_VALUE;
+		}
+		final int hours = parseDigits(chars, start + 1, 2);
+		final int minutes = parseDigits(chars, start + 4, 2);
+		if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+			return Integer.MIN_VALUE;
+		}
+		final int offsetMs = (int)(hours * MS_IN_HOUR + minutes * MS_IN_MINUTE);
+		return sign == '-' ? -offsetMs : offsetMs;
+	}
 }
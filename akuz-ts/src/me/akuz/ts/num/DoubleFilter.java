@@ -0,0 +1,138 @@
+package me.akuz.ts.num;
+
+import java.util.Arrays;
+
+import me.akuz.ts.CurrTime;
+
+/**
+ * Base class for 1D filters on {@link DoubleSeq}s, the
+ * primitive counterpart of {@link me.akuz.ts.Filter}.
+ *
+ * Filters determine the current rolling state based on
+ * the values "moved" through time, and keep their output
+ * in primitive buffers, which are reused on each move.
+ *
+ * Use {@link DoubleSeqFilter} to run them on a DoubleSeq,
+ * or {@link DoubleFilterAdapter} to run them within a
+ * SeqFilter or FrameFilter on TDateTime sequences.
+ *
+ */
+public abstract class DoubleFilter implements Cloneable {
+
+	private static final int DEFAULT_MOVED_CAPACITY = 4;
+
+	private long _currTime;
+	private boolean _hasCurrValue;
+	private double _currValue;
+	private int _movedCount;
+	private long[] _movedTimes;
+	private double[] _movedValues;
+
+	public DoubleFilter() {
+		_currTime = CurrTime.UNSET;
+		_movedTimes = new long[DEFAULT_MOVED_CAPACITY];
+		_movedValues = new double[DEFAULT_MOVED_CAPACITY];
+	}
+
+	/**
+	 * Notify filter about the next values moved through time,
+	 * which the cursor has just been moved to; subclasses must
+	 * call startNext(time) first, and then output the current
+	 * value (if any) and all intermediate values (if any) in
+	 * strict chronological order, using addMoved().
+	 */
+	public abstract void next(final long time, final DoubleSeqCursor cursor);
+
+	/**
+	 * Start the next move of the filter.
+	 */
+	protected final void startNext(final long time) {
+		CurrTime.checkNew(_currTime, time);
+		_currTime = time;
+		_hasCurrValue = false;
+		_movedCount = 0;
+	}
+
+	/**
+	 * Output value at a time, which becomes
+	 * the current value, if at current time.
+	 */
+	protected final void addMoved(final long time, final double value) {
+		if (_movedCount > 0 && _movedTimes[_movedCount-1] >= time) {
+			throw new IllegalStateException("Filter output must be in chronological order");
+		}
+		if (time > _currTime) {
+			throw new IllegalStateException("Filter output cannot be in the future");
+		}
+		if (_movedCount == _movedTimes.length) {
+			_movedTimes = Arrays.copyOf(_movedTimes, _movedCount * 2);
+			_movedValues = Arrays.copyOf(_movedValues, _movedCount * 2);
+		}
+		_movedTimes[_movedCount] = time;
+		_movedValues[_movedCount] = value;
+		_movedCount++;
+		if (time == _currTime) {
+			_hasCurrValue = true;
+			_currValue = value;
+		}
+	}
+
+	/**
+	 * Get current time of the filter.
+	 */
+	public final long getCurrTime() {
+		CurrTime.checkSet(_currTime);
+		return _currTime;
+	}
+
+	public final boolean hasCurrValue() {
+		CurrTime.checkSet(_currTime);
+		return _hasCurrValue;
+	}
+
+	public final double getCurrValue() {
+		if (!hasCurrValue()) {
+			throw new IllegalStateException("No value at current time " + _currTime);
+		}
+		return _currValue;
+	}
+
+	public final int getMovedCount() {
+		CurrTime.checkSet(_currTime);
+		return _movedCount;
+	}
+
+	public final long getMovedTime(final int index) {
+		if (index >= _movedCount) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds, moved count " + _movedCount);
+		}
+		return _movedTimes[index];
+	}
+
+	public final double getMovedValue(final int index) {
+		if (index >= _movedCount) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds, moved count " + _movedCount);
+		}
+		return _movedValues[index];
+	}
+
+	/**
+	 * Filter must be cloneable in order to be able
+	 * to be used as a prototype for many sequences.
+	 * Make sure to override the clone() method for
+	 * nontrivial filters that contain pointers to
+	 * data structures allocated on heap.
+	 */
+	@Override
+	public DoubleFilter clone() {
+		try {
+			final DoubleFilter copy = (DoubleFilter)super.clone();
+			copy._movedTimes = _movedTimes.clone();
+			copy._movedValues = _movedValues.clone();
+			return copy;
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException("Cloning error", e);
+		}
+	}
+
+}
@@ -0,0 +1,181 @@
+package me.akuz.ts.num;
+
+import java.util.List;
+
+import me.akuz.core.Out;
+import me.akuz.core.TDateTime;
+import me.akuz.ts.CurrTime;
+import me.akuz.ts.Filter;
+import me.akuz.ts.SeqCursor;
+import me.akuz.ts.TItem;
+import me.akuz.ts.log.TLog;
+
+import org.joda.time.DateTime;
+
+/**
+ * Adapter, which runs a {@link DoubleFilter} as a 1D filter
+ * on a numeric sequence with {@link TDateTime} times, so that
+ * it can be used in a SeqFilter or a FrameFilter.
+ *
+ * The moved items are passed to the filter without copying
+ * them into a {@link DoubleSeq}, but the filter output is
+ * converted back into new TItems on each move, so only the
+ * state of the filter itself is kept in primitives.
+ *
+ */
+public final class DoubleFilterAdapter extends Filter<TDateTime> {
+
+	private DoubleFilter _filter;
+	private ItemsCursor _itemsCursor;
+
+	public DoubleFilterAdapter(final DoubleFilter filter) {
+		if (filter == null) {
+			throw new IllegalArgumentException("Filter cannot be null");
+		}
+		_filter = filter;
+		_itemsCursor = new ItemsCursor();
+	}
+
+	@Override
+	public void next(
+			final TDateTime time,
+			final SeqCursor<TDateTime> cursor,
+			final TLog<TDateTime> log) {
+
+		CurrTime.checkNew(_currTime, time);
+
+		_itemsCursor.set(time, cursor);
+		_filter.next(time.getMillis(), _itemsCursor);
+
+		_currItem = null;
+		_movedItems.clear();
+		final List<TItem<TDateTime>> inputItems = cursor.getMovedItems();
+		int inputIndex = 0;
+		final int movedCount = _filter.getMovedCount();
+		for (int i=0; i<movedCount; i++) {
+
+			// reuse the time objects of the input items
+			final long ms = _filter.getMovedTime(i);
+			TDateTime movedTime = null;
+			if (ms == time.getMillis()) {
+				movedTime = time;
+			} else if (inputItems != null) {
+				while (inputIndex < inputItems.size() && inputItems.get(inputIndex).getTime().getMillis() < ms) {
+					inputIndex++;
+				}
+				if (inputIndex < inputItems.size() && inputItems.get(inputIndex).getTime().getMillis() == ms) {
+					movedTime = inputItems.get(inputIndex).getTime();
+				}
+			}
+			if (movedTime == null) {
+				movedTime = new TDateTime(new DateTime(ms, time.get().getZone()));
+			}
+
+			final TItem<TDateTime> movedItem = new TItem<TDateTime>(movedTime, _filter.getMovedValue(i));
+			_movedItems.add(movedItem);
+			if (movedTime == time) {
+				_currItem = movedItem;
+			}
+		}
+
+		_currTime = time;
+	}
+
+	@Override
+	public Filter<TDateTime> clone() {
+		final DoubleFilterAdapter copy = (DoubleFilterAdapter)super.clone();
+		copy._filter = _filter.clone();
+		copy._itemsCursor = new ItemsCursor();
+		return copy;
+	}
+
+	/**
+	 * Primitive view of the items cursor, which is
+	 * passed to the filter; it can only be moved
+	 * by moving the underlying cursor.
+	 */
+	private static final class ItemsCursor implements DoubleSeqCursor {
+
+		private final Out<TDateTime> _nextTime;
+		private TDateTime _time;
+		private SeqCursor<TDateTime> _cursor;
+
+		public ItemsCursor() {
+			_nextTime = new Out<>();
+		}
+
+		public void set(final TDateTime time, final SeqCursor<TDateTime> cursor) {
+			_time = time;
+			_cursor = cursor;
+		}
+
+		@Override
+		public long getCurrTime() {
+			CurrTime.checkSet(_time);
+			return _time.getMillis();
+		}
+
+		@Override
+		public boolean hasNextTime() {
+			return _cursor.getNextTime(_nextTime);
+		}
+
+		@Override
+		public long getNextTime() {
+			if (!_cursor.getNextTime(_nextTime)) {
+				throw new IllegalStateException("No next time");
+			}
+			return _nextTime.getValue().getMillis();
+		}
+
+		@Override
+		public void moveToTime(final long time) {
+			throw new IllegalStateException(
+					"Sequence cursor of a DoubleFilterAdapter can " +
+					"only be moved by moving the underlying cursor");
+		}
+
+		@Override
+		public DoubleSeq getSeq() {
+			throw new IllegalStateException(
+					"Sequence cursor of a DoubleFilterAdapter " +
+					"is not backed by a DoubleSeq");
+		}
+
+		@Override
+		public int getNextCursor() {
+			return _cursor.getNextCursor();
+		}
+
+		@Override
+		public boolean hasCurrValue() {
+			return _cursor.getCurrItem() != null;
+		}
+
+		@Override
+		public double getCurrValue() {
+			final TItem<TDateTime> currItem = _cursor.getCurrItem();
+			if (currItem == null) {
+				throw new IllegalStateException("No value at current time " + _time);
+			}
+			return currItem.getNumber().doubleValue();
+		}
+
+		@Override
+		public int getMovedCount() {
+			final List<TItem<TDateTime>> movedItems = _cursor.getMovedItems();
+			return movedItems != null ? movedItems.size() : 0;
+		}
+
+		@Override
+		public long getMovedTime(final int index) {
+			return _cursor.getMovedItems().get(index).getTime().getMillis();
+		}
+
+		@Override
+		public double getMovedValue(final int index) {
+			return _cursor.getMovedItems().get(index).getNumber().doubleValue();
+		}
+	}
+
+}
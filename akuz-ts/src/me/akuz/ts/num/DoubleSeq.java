@@ -0,0 +1,130 @@
+package me.akuz.ts.num;
+
+import java.util.Arrays;
+import java.util.List;
+
+import me.akuz.core.TDateTime;
+import me.akuz.ts.CurrTime;
+import me.akuz.ts.Seq;
+import me.akuz.ts.TItem;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Time series sequence of double values, with times
+ * as epoch milliseconds, stored in parallel growable
+ * primitive arrays (no objects per item).
+ *
+ */
+public final class DoubleSeq {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int _size;
+	private long[] _times;
+	private double[] _values;
+
+	public DoubleSeq() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public DoubleSeq(final int capacity) {
+		_times = new long[Math.max(1, capacity)];
+		_values = new double[_times.length];
+	}
+
+	/**
+	 * Create a sequence from a sequence of numbers.
+	 */
+	public static DoubleSeq fromSeq(final Seq<TDateTime> seq) {
+		final List<TItem<TDateTime>> items = seq.getItems();
+		final DoubleSeq result = new DoubleSeq(items.size());
+		for (int i=0; i<items.size(); i++) {
+			final TItem<TDateTime> item = items.get(i);
+			result.add(item.getTime().getMillis(), item.getNumber().doubleValue());
+		}
+		return result;
+	}
+
+	/**
+	 * Convert to a sequence of Doubles,
+	 * with times in the default time zone.
+	 */
+	public Seq<TDateTime> toSeq() {
+		return toSeq(DateTimeZone.getDefault());
+	}
+
+	/**
+	 * Convert to a sequence of Doubles,
+	 * with times in the given time zone.
+	 */
+	public Seq<TDateTime> toSeq(final DateTimeZone zone) {
+		final Seq<TDateTime> seq = new Seq<>();
+		for (int i=0; i<_size; i++) {
+			seq.add(new TDateTime(new DateTime(_times[i], zone)), _values[i]);
+		}
+		return seq;
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	public long getTime(final int index) {
+		if (index >= _size) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds, size " + _size);
+		}
+		return _times[index];
+	}
+
+	public double getValue(final int index) {
+		if (index >= _size) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds, size " + _size);
+		}
+		return _values[index];
+	}
+
+	/**
+	 * Get time of the last item, or
+	 * {@link CurrTime#UNSET} if empty.
+	 */
+	public long getLastTime() {
+		return _size > 0 ? _times[_size-1] : CurrTime.UNSET;
+	}
+
+	public void add(final long time, final double value) {
+		if (time == CurrTime.UNSET) {
+			throw new IllegalArgumentException("Time value " + time + " is reserved for unset time");
+		}
+		if (_size > 0 && _times[_size-1] >= time) {
+			throw new IllegalStateException("Time series values must be added in chronological order, " +
+											"previous item time '" + _times[_size-1] + "', " +
+											"added item time '" + time + "'");
+		}
+		if (_size == _times.length) {
+			final int newCapacity = _times.length * 2;
+			_times = Arrays.copyOf(_times, newCapacity);
+			_values = Arrays.copyOf(_values, newCapacity);
+		}
+		_times[_size] = time;
+		_values[_size] = value;
+		_size++;
+	}
+
+	/**
+	 * Release unused capacity of the internal arrays.
+	 */
+	public void trimToSize() {
+		_times = Arrays.copyOf(_times, Math.max(1, _size));
+		_values = Arrays.copyOf(_values, _times.length);
+	}
+
+	/**
+	 * Returns iterator on this sequence.
+	 */
+	public DoubleSeqIterator iterator() {
+		return new DoubleSeqIterator(this);
+	}
+
+}
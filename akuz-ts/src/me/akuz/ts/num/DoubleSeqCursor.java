@@ -0,0 +1,53 @@
+package me.akuz.ts.num;
+
+import me.akuz.ts.sync.LongTimeSchedule;
+
+/**
+ * Primitive counterpart of {@link me.akuz.ts.SeqCursor}: provides
+ * information about the current value, if any, in a sequence at
+ * a particular (current) point in time, and about the values
+ * "moved" during the last move through time.
+ *
+ */
+public interface DoubleSeqCursor extends LongTimeSchedule {
+
+	/**
+	 * Get underlying sequence.
+	 */
+	DoubleSeq getSeq();
+
+	/**
+	 * Get next cursor index in
+	 * the underlying sequence.
+	 */
+	int getNextCursor();
+
+	/**
+	 * Check if there is a value
+	 * at the current time.
+	 */
+	boolean hasCurrValue();
+
+	/**
+	 * Get current value; throws exception,
+	 * if there is no current value.
+	 */
+	double getCurrValue();
+
+	/**
+	 * Get number of values moved during last
+	 * time move, including the current value.
+	 */
+	int getMovedCount();
+
+	/**
+	 * Get time of a moved value.
+	 */
+	long getMovedTime(int index);
+
+	/**
+	 * Get moved value.
+	 */
+	double getMovedValue(int index);
+
+}
@@ -0,0 +1,176 @@
+package me.akuz.ts.num;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import me.akuz.ts.CurrTime;
+
+/**
+ * {@link DoubleSeq} filter, which applies one or more
+ * 1D filters to the underlying sequence and allows
+ * to obtain current filtered value for the sequence.
+ * 
+ * Only one of the filters is allowed to generate the 
+ * current value, otherwise an exception will occur.
+ * 
+ * This is the primitive counterpart of {@link me.akuz.ts.SeqFilter};
+ * to use a DoubleFilter in a SeqFilter or a FrameFilter instead,
+ * wrap it into a {@link DoubleFilterAdapter}.
+ *
+ */
+public final class DoubleSeqFilter
+implements DoubleSeqCursor {
+	
+	private String _fieldName;
+	private final DoubleSeqCursor _seqCursor;
+	private final boolean _moveCursor;
+	private final List<DoubleFilter> _filters;
+	private DoubleFilter _currFilter;
+	private DoubleFilter _movedFilter;
+	private long _currTime;
+	
+	public DoubleSeqFilter(final DoubleSeqCursor seqCursor) {
+		this(seqCursor, true);
+	}
+	
+	public DoubleSeqFilter(final DoubleSeqCursor seqCursor, final boolean moveCursor) {
+		if (seqCursor == null) {
+			throw new IllegalArgumentException("Cannot filter null sequence cursor");
+		}
+		_seqCursor = seqCursor;
+		_moveCursor = moveCursor;
+		_filters = new ArrayList<>();
+		_currTime = CurrTime.UNSET;
+	}
+	
+	public String getFieldName() {
+		return _fieldName != null ? _fieldName : "unspecified";
+	}
+	
+	public DoubleSeqFilter setFieldName(final String fieldName) {
+		_fieldName = fieldName;
+		return this;
+	}
+	
+	public DoubleSeqFilter addFilter(final DoubleFilter filter) {
+		_filters.add(filter.clone());
+		return this;
+	}
+	
+	public DoubleSeqFilter addFilters(final Collection<DoubleFilter> filters) {
+		for (final DoubleFilter filter : filters) {
+			addFilter(filter);
+		}
+		return this;
+	}
+	
+	@Override
+	public DoubleSeq getSeq() {
+		return _seqCursor.getSeq();
+	}
+	
+	@Override
+	public int getNextCursor() {
+		return _seqCursor.getNextCursor();
+	}
+	
+	@Override
+	public long getCurrTime() {
+		CurrTime.checkSet(_currTime);
+		return _currTime;
+	}
+	
+	@Override
+	public boolean hasCurrValue() {
+		CurrTime.checkSet(_currTime);
+		return _currFilter != null;
+	}
+	
+	@Override
+	public double getCurrValue() {
+		if (!hasCurrValue()) {
+			throw new IllegalStateException("No value at current time " + _currTime);
+		}
+		return _currFilter.getCurrValue();
+	}
+	
+	@Override
+	public int getMovedCount() {
+		CurrTime.checkSet(_currTime);
+		return _movedFilter != null ? _movedFilter.getMovedCount() : 0;
+	}
+	
+	@Override
+	public long getMovedTime(final int index) {
+		if (_movedFilter == null) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds, no moved values");
+		}
+		return _movedFilter.getMovedTime(index);
+	}
+	
+	@Override
+	public double getMovedValue(final int index) {
+		if (_movedFilter == null) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds, no moved values");
+		}
+		return _movedFilter.getMovedValue(index);
+	}
+	
+	@Override
+	public boolean hasNextTime() {
+		return _seqCursor.hasNextTime();
+	}
+	
+	@Override
+	public long getNextTime() {
+		return _seqCursor.getNextTime();
+	}
+
+	@Override
+	public void moveToTime(final long time) {
+		
+		if (_filters.size() == 0) {
+			throw new IllegalStateException(
+					"DoubleSeqFilter on field \"" + getFieldName() + 
+					"\" does not have any 1D filters assigned");
+		}
+		
+		CurrTime.checkNew(_currTime, time);
+		
+		if (_moveCursor) {
+			_seqCursor.moveToTime(time);
+		}
+		
+		_currFilter = null;
+		_movedFilter = null;
+		for (int i=0; i<_filters.size(); i++) {
+			
+			final DoubleFilter filter = _filters.get(i);
+			
+			filter.next(time, _seqCursor);
+			
+			if (filter.hasCurrValue()) {
+				if (_currFilter != null) {
+					throw new IllegalStateException(
+							"Two 1D filters have proposed current value " +
+							"for DoubleSeqFilter on field \"" + getFieldName() +
+							"\", cannot choose between them");
+				}
+				_currFilter = filter;
+			}
+			
+			if (filter.getMovedCount() > 0) {
+				if (_movedFilter != null) {
+					throw new IllegalStateException(
+							"Two 1D filters have proposed moved values " +
+							"for DoubleSeqFilter on field \"" + getFieldName() +
+							"\", cannot choose between them");
+				}
+				_movedFilter = filter;
+			}
+		}
+		_currTime = time;
+	}
+
+}
@@ -0,0 +1,113 @@
+package me.akuz.ts.num;
+
+import me.akuz.ts.CurrTime;
+
+/**
+ * {@link DoubleSeq} iterator; moved values are
+ * a range of the underlying sequence, so moving
+ * through time doesn't allocate.
+ *
+ */
+public final class DoubleSeqIterator
+implements DoubleSeqCursor, Cloneable {
+
+	private final DoubleSeq _seq;
+	private int _nextCursor;
+	private long _currTime;
+	private boolean _hasCurrValue;
+	private int _movedStart;
+
+	public DoubleSeqIterator(final DoubleSeq seq) {
+		if (seq == null) {
+			throw new IllegalArgumentException("Cannot iterate over null sequence");
+		}
+		_seq = seq;
+		_currTime = CurrTime.UNSET;
+	}
+
+	@Override
+	public DoubleSeq getSeq() {
+		return _seq;
+	}
+
+	@Override
+	public int getNextCursor() {
+		return _nextCursor;
+	}
+
+	@Override
+	public long getCurrTime() {
+		CurrTime.checkSet(_currTime);
+		return _currTime;
+	}
+
+	@Override
+	public boolean hasCurrValue() {
+		CurrTime.checkSet(_currTime);
+		return _hasCurrValue;
+	}
+
+	@Override
+	public double getCurrValue() {
+		if (!hasCurrValue()) {
+			throw new IllegalStateException("No value at current time " + _currTime);
+		}
+		return _seq.getValue(_nextCursor - 1);
+	}
+
+	@Override
+	public int getMovedCount() {
+		CurrTime.checkSet(_currTime);
+		return _nextCursor - _movedStart;
+	}
+
+	@Override
+	public long getMovedTime(final int index) {
+		return _seq.getTime(_movedStart + index);
+	}
+
+	@Override
+	public double getMovedValue(final int index) {
+		return _seq.getValue(_movedStart + index);
+	}
+
+	@Override
+	public boolean hasNextTime() {
+		return _nextCursor < _seq.size();
+	}
+
+	@Override
+	public long getNextTime() {
+		if (_nextCursor >= _seq.size()) {
+			throw new IllegalStateException("No next time, reached the end of the sequence");
+		}
+		return _seq.getTime(_nextCursor);
+	}
+
+	@Override
+	public void moveToTime(final long time) {
+
+		CurrTime.checkNew(_currTime, time);
+
+		_movedStart = _nextCursor;
+		final int size = _seq.size();
+		while (_nextCursor < size && _seq.getTime(_nextCursor) <= time) {
+			_nextCursor++;
+		}
+		_hasCurrValue =
+			_nextCursor > _movedStart &&
+			_seq.getTime(_nextCursor - 1) == time;
+
+		_currTime = time;
+	}
+
+	@Override
+	public DoubleSeqIterator clone() {
+		try {
+			return (DoubleSeqIterator)super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new InternalError("Clone error");
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+package me.akuz.ts.num;
+
+import me.akuz.ts.CurrTime;
+import me.akuz.ts.sync.LongTimeSchedule;
+
+/**
+ * Allows sampling underlying sequence cursor 
+ * at specific points in time (to which the cursor
+ * is moved to), and collecting the results into
+ * a new sequence, which can be obtained using
+ * getResult().
+ * 
+ */
+public final class DoubleSeqSampler
+implements LongTimeSchedule {
+
+	private final DoubleSeqCursor _seqCursor;
+	private final boolean _moveCursor;
+	private long _currTime;
+	private final DoubleSeq _result;
+	
+	public DoubleSeqSampler(final DoubleSeqCursor seqCursor) {
+		this(seqCursor, true);
+	}
+	
+	public DoubleSeqSampler(final DoubleSeqCursor seqCursor, final boolean moveCursor) {
+		_seqCursor = seqCursor;
+		_moveCursor = moveCursor;
+		_currTime = CurrTime.UNSET;
+		_result = new DoubleSeq();
+	}
+	
+	/**
+	 * Get the result sequence (sampled).
+	 */
+	public DoubleSeq getResult() {
+		return _result;
+	}
+	
+	/**
+	 * Run the sampler through all times
+	 * in the underlying cursor and collect
+	 * all samples from the cursor.
+	 */
+	public DoubleSeq runToEnd() {
+		if (!_moveCursor) {
+			throw new IllegalStateException(
+					"Sampler is set not to move the underlying " +
+					"cursor, and so it cannot run to the end.");
+		}
+		while (hasNextTime()) {
+			moveToTime(getNextTime());
+		}
+		return _result;
+	}
+	
+	@Override
+	public long getCurrTime() {
+		CurrTime.checkSet(_currTime);
+		return _currTime;
+	}
+	
+	@Override
+	public boolean hasNextTime() {
+		return _seqCursor.hasNextTime();
+	}
+	
+	@Override
+	public long getNextTime() {
+		return _seqCursor.getNextTime();
+	}
+	
+	@Override
+	public void moveToTime(final long time) {
+
+		CurrTime.checkNew(_currTime, time);
+
+		if (_moveCursor) {
+			_seqCursor.moveToTime(time);
+		}
+		
+		if (_seqCursor.hasCurrValue()) {
+			_result.add(time, _seqCursor.getCurrValue());
+		}
+		
+		_currTime = time;
+	}
+}
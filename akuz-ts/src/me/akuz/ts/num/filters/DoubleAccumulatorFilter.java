@@ -0,0 +1,56 @@
+package me.akuz.ts.num.filters;
+
+import me.akuz.ts.filters.stats.accs.Accumulator;
+import me.akuz.ts.filters.stats.accs.DoubleAccumulator;
+import me.akuz.ts.num.DoubleFilter;
+import me.akuz.ts.num.DoubleSeqCursor;
+
+/**
+ * Accumulator filter (1D), primitive counterpart of
+ * {@link me.akuz.ts.filters.stats.AccumulatorFilter}
+ * for the accumulators, which implement {@link DoubleAccumulator};
+ * the values are passed to the accumulator without boxing, 
+ * so moving through time does not allocate.
+ *
+ */
+public final class DoubleAccumulatorFilter extends DoubleFilter {
+	
+	private Accumulator<?> _accumulator;
+	private DoubleAccumulator _doubleAccumulator;
+	
+	public DoubleAccumulatorFilter(final Accumulator<?> accumulator) {
+		if (accumulator == null) {
+			throw new IllegalArgumentException("Accumulator cannot be null");
+		}
+		if (!(accumulator instanceof DoubleAccumulator)) {
+			throw new IllegalArgumentException(
+					"Accumulator " + accumulator.getClass().getSimpleName() + 
+					" depends on the times of the values, and cannot be " +
+					"run on primitive values (not a DoubleAccumulator)");
+		}
+		_accumulator = accumulator;
+		_doubleAccumulator = (DoubleAccumulator)accumulator;
+	}
+
+	@Override
+	public void next(final long time, final DoubleSeqCursor cursor) {
+		
+		startNext(time);
+		
+		final int movedCount = cursor.getMovedCount();
+		for (int i=0; i<movedCount; i++) {
+			_doubleAccumulator.addDouble(cursor.getMovedValue(i));
+		}
+		
+		addMoved(time, _doubleAccumulator.getDouble());
+	}
+	
+	@Override
+	public DoubleFilter clone() {
+		final DoubleAccumulatorFilter copy = (DoubleAccumulatorFilter)super.clone();
+		copy._accumulator = _accumulator.clone();
+		copy._doubleAccumulator = (DoubleAccumulator)copy._accumulator;
+		return copy;
+	}
+
+}
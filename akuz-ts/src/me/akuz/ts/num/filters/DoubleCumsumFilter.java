@@ -0,0 +1,42 @@
+package me.akuz.ts.num.filters;
+
+import me.akuz.ts.num.DoubleFilter;
+import me.akuz.ts.num.DoubleSeqCursor;
+
+/**
+ * Cumsum filter (1D), primitive counterpart
+ * of {@link me.akuz.ts.filters.stats.CumsumFilter}.
+ *
+ */
+public final class DoubleCumsumFilter extends DoubleFilter {
+	
+	private final double _startValue;
+	private double _currValue;
+	
+	public DoubleCumsumFilter() {
+		this(0.0);
+	}
+	
+	public DoubleCumsumFilter(final double startValue) {
+		_startValue = startValue;
+		_currValue = startValue;
+	}
+	
+	public double getStartValue() {
+		return _startValue;
+	}
+
+	@Override
+	public void next(final long time, final DoubleSeqCursor cursor) {
+		
+		startNext(time);
+		
+		final int movedCount = cursor.getMovedCount();
+		for (int i=0; i<movedCount; i++) {
+			_currValue += cursor.getMovedValue(i);
+		}
+		
+		addMoved(time, _currValue);
+	}
+
+}
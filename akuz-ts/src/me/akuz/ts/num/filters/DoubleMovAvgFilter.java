@@ -0,0 +1,99 @@
+package me.akuz.ts.num.filters;
+
+import me.akuz.ts.CurrTime;
+import me.akuz.ts.num.DoubleFilter;
+import me.akuz.ts.num.DoubleSeqCursor;
+
+/**
+ * Moving average filter (1D), primitive counterpart of
+ * {@link me.akuz.ts.filters.stats.MovAvgTDateTimeFilter};
+ * the samples are kept in a ring of doubles, and the
+ * average is reset after a gap longer than gapOkMs.
+ *
+ */
+public final class DoubleMovAvgFilter extends DoubleFilter {
+	
+	private final long _gapOkMs;
+	private double[] _buff;
+	private int _buffStart;
+	private int _buffSize;
+	private long _lastTime;
+	private double _curr;
+	
+	public DoubleMovAvgFilter(
+			final int sampleCount,
+			final long gapOkMs) {
+		
+		if (sampleCount < 2) {
+			throw new IllegalArgumentException("Sample count must be >= 2");
+		}
+		if (gapOkMs <= 0) {
+			throw new IllegalArgumentException("GapOK duration must be positive");
+		}
+		_buff = new double[sampleCount];
+		_gapOkMs = gapOkMs;
+		_lastTime = CurrTime.UNSET;
+	}
+	
+	private void reset() {
+		_buffStart = 0;
+		_buffSize = 0;
+		_curr = 0.0;
+	}
+	
+	private void checkGap(final long time) {
+		if (_lastTime != CurrTime.UNSET && time - _lastTime > _gapOkMs) {
+			reset();
+		}
+	}
+	
+	private void add(final long time, final double newValue) {
+		
+		CurrTime.checkNew(_lastTime, time);
+		checkGap(time);
+		
+		if (_buffSize == _buff.length) {
+			final double oldValue = _buff[_buffStart];
+			_buff[_buffStart] = newValue;
+			_buffStart = (_buffStart + 1) % _buff.length;
+			_curr -= oldValue / _buffSize;
+			_curr += newValue / _buffSize;
+		} else {
+			_buff[(_buffStart + _buffSize) % _buff.length] = newValue;
+			_buffSize++;
+			if (_buffSize == 1) {
+				_curr = newValue;
+			} else {
+				_curr 
+					= _curr / _buffSize * (_buffSize - 1)
+					+ newValue / _buffSize;
+			}
+		}
+		
+		_lastTime = time;
+	}
+
+	@Override
+	public void next(final long time, final DoubleSeqCursor cursor) {
+		
+		startNext(time);
+		
+		final int movedCount = cursor.getMovedCount();
+		for (int i=0; i<movedCount; i++) {
+			add(cursor.getMovedTime(i), cursor.getMovedValue(i));
+		}
+		if (!cursor.hasCurrValue()) {
+			checkGap(time);
+		}
+		
+		addMoved(time, _buffSize == _buff.length ? _curr : Double.NaN);
+	}
+	
+	@Override
+	public DoubleFilter clone() {
+		final DoubleMovAvgFilter copy = (DoubleMovAvgFilter)super.clone();
+		copy._buff = _buff.clone();
+		return copy;
+	}
+
+}
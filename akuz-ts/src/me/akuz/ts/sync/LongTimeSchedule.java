@@ -0,0 +1,32 @@
+package me.akuz.ts.sync;
+
+/**
+ * Primitive counterpart of {@link TimeSchedule}, with times
+ * given as epoch milliseconds, so that moving through time
+ * doesn't box the times.
+ * 
+ */
+public interface LongTimeSchedule {
+	
+	/**
+	 * Get current time.
+	 */
+	long getCurrTime();
+	
+	/**
+	 * Check if there is next available time.
+	 */
+	boolean hasNextTime();
+	
+	/**
+	 * Get next available time; throws 
+	 * exception, if there is none.
+	 */
+	long getNextTime();
+
+	/**
+	 * Move to the next time.
+	 */
+	void moveToTime(long time);
+
+}
@@ -0,0 +1,180 @@
+package me.akuz.ts;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import me.akuz.core.Out;
+import me.akuz.ts.filters.stats.CumsumFilter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrameHeapIterTest {
+	
+	private static final int KEY_COUNT = 2000;
+	private static final int TIME_COUNT = 2000;
+	
+	private static Frame<Integer, Integer> createFrame(final Random rnd) {
+		Frame<Integer, Integer> frame = new Frame<>();
+		for (int k=0; k<KEY_COUNT; k++) {
+			// sparse updates, some keys are empty
+			final double prob = rnd.nextInt(10) == 0 ? 0.0 : 0.01 * rnd.nextDouble();
+			for (int t=0; t<TIME_COUNT; t++) {
+				if (rnd.nextDouble() < prob) {
+					frame.add(k, t, rnd.nextDouble());
+				}
+			}
+			if (frame.getSeq(k, false) == null) {
+				frame.addSeq(k, new Seq<Integer>());
+			}
+		}
+		return frame;
+	}
+	
+	private static void assertItem(TItem<Integer> expected, TItem<Integer> actual) {
+		if (expected == null) {
+			Assert.assertNull(actual);
+		} else {
+			Assert.assertNotNull(actual);
+			Assert.assertEquals(expected.getTime(), actual.getTime());
+			Assert.assertEquals(expected.getObject(), actual.getObject());
+		}
+	}
+	
+	private static int size(List<TItem<Integer>> items) {
+		return items != null ? items.size() : 0;
+	}
+	
+	private static void assertSame(FrameCursor<Integer, Integer> expected, FrameCursor<Integer, Integer> actual) {
+		Assert.assertEquals(expected.getCurrTime(), actual.getCurrTime());
+		Assert.assertEquals(expected.getCurrItems().size(), actual.getCurrItems().size());
+		for (int k=0; k<KEY_COUNT; k++) {
+			assertItem(expected.getCurrItem(k), actual.getCurrItem(k));
+			assertItem(expected.getSeqCursor(k).getCurrItem(), actual.getSeqCursor(k).getCurrItem());
+			List<TItem<Integer>> expectedMoved = expected.getMovedItems(k);
+			List<TItem<Integer>> actualMoved = actual.getMovedItems(k);
+			Assert.assertEquals(size(expectedMoved), size(actualMoved));
+			for (int i=0; i<size(expectedMoved); i++) {
+				assertItem(expectedMoved.get(i), actualMoved.get(i));
+			}
+		}
+		for (Map.Entry<Integer, List<TItem<Integer>>> entry : actual.getMovedItems().entrySet()) {
+			Assert.assertTrue(entry.getValue().size() > 0);
+		}
+	}
+	
+	@Test
+	public void testSameAsFrameIterator() {
+		
+		Frame<Integer, Integer> frame = createFrame(new Random(1));
+		
+		FrameIterator<Integer, Integer> iter = frame.iterator();
+		FrameHeapIterator<Integer, Integer> heapIter = frame.heapIterator();
+		
+		Out<Integer> nextTime = new Out<>();
+		Out<Integer> heapNextTime = new Out<>();
+		while (iter.getNextTime(nextTime)) {
+			Assert.assertTrue(heapIter.getNextTime(heapNextTime));
+			Assert.assertEquals(nextTime.getValue(), heapNextTime.getValue());
+			iter.moveToTime(nextTime.getValue());
+			heapIter.moveToTime(nextTime.getValue());
+			assertSame(iter, heapIter);
+		}
+		Assert.assertFalse(heapIter.getNextTime(heapNextTime));
+	}
+	
+	@Test
+	public void testAppendToExhausted() {
+		
+		Frame<String, Integer> frame = new Frame<>();
+		frame.add("a", 0, 1.0);
+		frame.add("a", 1, 2.0);
+		frame.add("b", 0, 3.0);
+		
+		FrameIterator<String, Integer> iter = frame.iterator();
+		FrameHeapIterator<String, Integer> heapIter = frame.heapIterator();
+		Out<Integer> nextTime = new Out<>();
+		
+		heapIter.moveToTime(0);
+		heapIter.moveToTime(1);
+		iter.moveToTime(0);
+		iter.moveToTime(1);
+		Assert.assertFalse(heapIter.getNextTime(nextTime));
+		
+		// both sequences are exhausted, "b" since the first move
+		frame.add("b", 2, 4.0);
+		frame.add("a", 3, 5.0);
+		frame.add("b", 3, 6.0);
+		
+		Assert.assertTrue(heapIter.getNextTime(nextTime));
+		Assert.assertEquals(Integer.valueOf(2), nextTime.getValue());
+		heapIter.moveToTime(2);
+		iter.moveToTime(2);
+		Assert.assertEquals(4.0, heapIter.getCurrItem("b").getDouble(), 0.0);
+		Assert.assertNull(heapIter.getCurrItem("a"));
+		
+		// moving without asking for the next time
+		heapIter.moveToTime(3);
+		iter.moveToTime(3);
+		Assert.assertEquals(iter.getCurrItems(), heapIter.getCurrItems());
+		Assert.assertEquals(5.0, heapIter.getCurrItem("a").getDouble(), 0.0);
+		Assert.assertEquals(6.0, heapIter.getCurrItem("b").getDouble(), 0.0);
+		Assert.assertFalse(heapIter.getNextTime(nextTime));
+	}
+	
+	@Test
+	public void testFrameFilter() {
+		
+		Frame<Integer, Integer> frame = createFrame(new Random(2));
+		
+		FrameFilter<Integer, Integer> filter = new FrameFilter<>(frame.iterator())
+				.addFilter(frame.getKeys(), new CumsumFilter<Integer>());
+		FrameFilter<Integer, Integer> heapFilter = new FrameFilter<>(frame.heapIterator())
+				.addFilter(frame.getKeys(), new CumsumFilter<Integer>());
+		
+		// move on a grid, including times without items
+		for (int t=0; t<TIME_COUNT+5; t+=3) {
+			filter.moveToTime(t);
+			heapFilter.moveToTime(t);
+			assertSame(filter, heapFilter);
+		}
+	}
+	
+	@Test
+	public void testSampler() {
+		
+		Frame<Integer, Integer> frame = createFrame(new Random(3));
+
+		Frame<Integer, Integer> sampled = new FrameSampler<>(frame.iterator()).runToEnd();
+		Frame<Integer, Integer> heapSampled = new FrameSampler<>(frame.heapIterator()).runToEnd();
+		
+		for (int k=0; k<KEY_COUNT; k++) {
+			List<TItem<Integer>> items = frame.getSeq(k).getItems();
+			if (items.size() == 0) {
+				Assert.assertNull(sampled.getSeq(k, false));
+				Assert.assertNull(heapSampled.getSeq(k, false));
+			} else {
+				Assert.assertEquals(items, sampled.getSeq(k).getItems());
+				Assert.assertEquals(items, heapSampled.getSeq(k).getItems());
+			}
+		}
+	}
+	
+	@Test
+	public void testSamplerKeyOrder() {
+		
+		// keys in an order different from the hash order
+		Frame<String, Integer> frame = new Frame<>();
+		for (int k=KEY_COUNT-1; k>=0; k--) {
+			frame.add("key" + k, 0, (double)k);
+			frame.add("key" + k, 1 + k % 3, (double)k);
+		}
+		
+		Frame<String, Integer> sampled = new FrameSampler<>(frame.iterator()).runToEnd();
+		Frame<String, Integer> heapSampled = new FrameSampler<>(frame.heapIterator()).runToEnd();
+		Assert.assertEquals(frame.getKeys(), sampled.getKeys());
+		Assert.assertEquals(frame.getKeys(), heapSampled.getKeys());
+	}
+
+}
@@ -0,0 +1,126 @@
+package me.akuz.ts;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import me.akuz.core.TDateTime;
+import me.akuz.core.TPeriod;
+import me.akuz.ts.filters.check.CheckNumberJumps;
+import me.akuz.ts.filters.stats.MovAvgTDateTimeFilter;
+import me.akuz.ts.log.TAlert;
+import me.akuz.ts.log.TLog;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrameParallelSamplerTest {
+	
+	private static final int KEY_COUNT = 300;
+	private static final int TIME_COUNT = 500;
+	private static final long START_MS = new DateTime(2014, 1, 1, 0, 0, DateTimeZone.UTC).getMillis();
+	private static final long STEP_MS = 60 * 1000;
+	
+	private static Frame<Integer, TDateTime> createFrame(final Random rnd) {
+		Frame<Integer, TDateTime> frame = new Frame<>();
+		for (int k=0; k<KEY_COUNT; k++) {
+			final double prob = 0.1 + 0.5 * rnd.nextDouble();
+			double value = 100.0;
+			for (int t=0; t<TIME_COUNT; t++) {
+				if (rnd.nextDouble() < prob) {
+					value *= Math.exp(0.02 * rnd.nextGaussian());
+					frame.add(k, new TDateTime(new DateTime(START_MS + t * STEP_MS, DateTimeZone.UTC)), value);
+				}
+			}
+		}
+		return frame;
+	}
+	
+	/**
+	 * Passes the current item, if any, without repeating it.
+	 */
+	private static final class CurrItemFilter extends Filter<Integer> {
+		
+		@Override
+		public void next(Integer time, SeqCursor<Integer> cursor, TLog<Integer> log) {
+			CurrTime.checkNew(_currTime, time);
+			_currItem = cursor.getCurrItem();
+			_movedItems.clear();
+			if (_currItem != null) {
+				_movedItems.add(_currItem);
+			}
+			_currTime = time;
+		}
+	}
+	
+	private static void addFilters(FrameFilter<Integer, TDateTime> frameFilter, List<Integer> keys) {
+		frameFilter.addFilter(keys, new MovAvgTDateTimeFilter(5, new TPeriod(10 * STEP_MS)));
+		frameFilter.addFilter(keys, new CheckNumberJumps<TDateTime>("test", 0.02, 0.03, 0.05, true));
+	}
+	
+	@Test
+	public void testSameAsSerial() {
+		
+		Frame<Integer, TDateTime> frame = createFrame(new Random(1));
+		
+		TLog<TDateTime> serialLog = new TLog<>();
+		FrameFilter<Integer, TDateTime> frameFilter = new FrameFilter<>(frame.iterator()).setLog(serialLog);
+		addFilters(frameFilter, frame.getKeys());
+		Frame<Integer, TDateTime> serial = new FrameSampler<>(frameFilter).runToEnd();
+		
+		TLog<TDateTime> parallelLog = new TLog<>();
+		Frame<Integer, TDateTime> parallel = new FrameParallelSampler<>(frame)
+				.setLog(parallelLog)
+				.addFilter(frame.getKeys(), new MovAvgTDateTimeFilter(5, new TPeriod(10 * STEP_MS)))
+				.addFilter(frame.getKeys(), new CheckNumberJumps<TDateTime>("test", 0.02, 0.03, 0.05, true))
+				.runToEnd(new ForkJoinPool(4));
+		
+		Assert.assertEquals(serial.getKeys(), parallel.getKeys());
+		for (int k=0; k<KEY_COUNT; k++) {
+			List<TItem<TDateTime>> expected = serial.getSeq(k).getItems();
+			List<TItem<TDateTime>> actual = parallel.getSeq(k).getItems();
+			Assert.assertEquals(expected.size(), actual.size());
+			for (int i=0; i<expected.size(); i++) {
+				Assert.assertEquals(expected.get(i).getTime(), actual.get(i).getTime());
+				Assert.assertEquals(expected.get(i).getDouble(), actual.get(i).getDouble());
+			}
+		}
+		
+		Assert.assertTrue(serialLog.getCount() > 0);
+		List<TItem<TDateTime>> expectedAlerts = serialLog.getInfosOrHigher().getItems();
+		List<TItem<TDateTime>> actualAlerts = parallelLog.getInfosOrHigher().getItems();
+		Assert.assertEquals(expectedAlerts.size(), actualAlerts.size());
+		for (int i=0; i<expectedAlerts.size(); i++) {
+			Assert.assertEquals(expectedAlerts.get(i).getTime(), actualAlerts.get(i).getTime());
+			List<TAlert> expectedList = expectedAlerts.get(i).get();
+			List<TAlert> actualList = actualAlerts.get(i).get();
+			Assert.assertEquals(expectedList.toString(), actualList.toString());
+		}
+	}
+	
+	@Test
+	public void testKeyOrder() {
+		
+		// keys added in an order different from their first items
+		Frame<String, Integer> frame = new Frame<>();
+		frame.add("late", 5, 1.0);
+		frame.add("early", 0, 2.0);
+		frame.add("same1", 3, 3.0);
+		frame.add("same2", 3, 4.0);
+		frame.add("early", 6, 5.0);
+		
+		FrameFilter<String, Integer> frameFilter = new FrameFilter<>(frame.iterator())
+				.addFilter(frame.getKeys(), new CurrItemFilter());
+		Frame<String, Integer> serial = new FrameSampler<>(frameFilter).runToEnd();
+		Frame<String, Integer> parallel = new FrameParallelSampler<>(frame)
+				.addFilter(frame.getKeys(), new CurrItemFilter())
+				.runToEnd(new ForkJoinPool(2));
+		
+		Assert.assertEquals(Arrays.asList("early", "same1", "same2", "late"), serial.getKeys());
+		Assert.assertEquals(serial.getKeys(), parallel.getKeys());
+	}
+
+}
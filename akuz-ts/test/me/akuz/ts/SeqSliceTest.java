@@ -0,0 +1,148 @@
+package me.akuz.ts;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SeqSliceTest {
+
+	private static Seq<Integer> evenSeq(final int count) {
+		// times 0, 2, 4, ...
+		Seq<Integer> seq = new Seq<>();
+		for (int i=0; i<count; i++) {
+			seq.add(2*i, i);
+		}
+		return seq;
+	}
+
+	@Test
+	public void testFindPosition() {
+
+		Seq<Integer> seq = evenSeq(100);
+
+		Assert.assertEquals(0, seq.findPosition(-5));
+		Assert.assertEquals(0, seq.findPosition(0));
+		Assert.assertEquals(1, seq.findPosition(1));
+		Assert.assertEquals(1, seq.findPosition(2));
+		Assert.assertEquals(99, seq.findPosition(198));
+		Assert.assertEquals(100, seq.findPosition(199));
+
+		Assert.assertEquals(Integer.valueOf(21), seq.getItemAtTime(42).getInteger());
+		Assert.assertNull(seq.getItemAtTime(43));
+		Assert.assertNull(seq.getItemAtTime(500));
+		Assert.assertNull(new Seq<Integer>().getItemAtTime(0));
+
+		// positions are absolute in streaming mode
+		Seq<Integer> streaming = new Seq<>(SeqRetention.<Integer>byCount(10));
+		for (int i=0; i<100; i++) {
+			streaming.add(2*i, i);
+		}
+		Assert.assertEquals(90, streaming.getTrimmedCount());
+		Assert.assertEquals(90, streaming.findPosition(0));
+		Assert.assertEquals(95, streaming.findPosition(189));
+		Assert.assertEquals(Integer.valueOf(95), streaming.getItemAtTime(190).getInteger());
+	}
+
+	@Test
+	public void testSlice() {
+
+		Seq<Integer> seq = evenSeq(100);
+
+		Seq<Integer> slice = seq.slice(11, 20);
+		Assert.assertTrue(slice.isSlice());
+		List<TItem<Integer>> items = slice.getItems();
+		Assert.assertEquals(4, items.size());
+		Assert.assertSame(seq.getItems().get(6), items.get(0));
+		Assert.assertSame(seq.getItems().get(9), items.get(3));
+		Assert.assertEquals(0, seq.slice(11, 12).getItems().size());
+		Assert.assertEquals(0, seq.slice(20, 10).getItems().size());
+		Assert.assertEquals(100, seq.slice(null, null).getItems().size());
+		Assert.assertEquals(5, seq.slice(190, null).getItems().size());
+
+		// slice of a slice
+		Seq<Integer> inner = slice.slice(14, null);
+		Assert.assertEquals(3, inner.getItems().size());
+		Assert.assertEquals(Integer.valueOf(7), inner.getItems().get(0).getInteger());
+
+		// iterating the slice
+		SeqIterator<Integer> iter = slice.iterator();
+		iter.moveToTime(15);
+		Assert.assertEquals(2, iter.getMovedItems().size());
+		Assert.assertNull(iter.getCurrItem());
+		iter.moveToTime(100);
+		Assert.assertEquals(2, iter.getMovedItems().size());
+		Assert.assertEquals(Integer.valueOf(9), iter.getMovedItems().get(1).getInteger());
+
+		try {
+			slice.add(100, 1);
+			Assert.fail("Slice must be read-only");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		try {
+			slice.setRetention(SeqRetention.<Integer>byCount(2));
+			Assert.fail("Slice must be read-only");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testFrameSlice() {
+
+		Frame<String, Integer> frame = new Frame<>();
+		frame.addSeq("even", evenSeq(50));
+		for (int i=0; i<50; i++) {
+			frame.add("odd", 2*i + 1, i);
+		}
+
+		Frame<String, Integer> slice = frame.slice(10, 20);
+		Assert.assertEquals(frame.getKeys(), slice.getKeys());
+		Assert.assertEquals(5, slice.getSeq("even").getItems().size());
+		Assert.assertEquals(5, slice.getSeq("odd").getItems().size());
+
+		FrameSampler<String, Integer> sampler = new FrameSampler<>(slice.iterator());
+		sampler.runToEnd();
+		Assert.assertEquals(5, sampler.getResult().getSeq("odd").getItems().size());
+	}
+
+	@Test
+	public void testSeek() {
+
+		Seq<Integer> seq = evenSeq(1000);
+
+		SeqIterator<Integer> walk = seq.iterator();
+		SeqIterator<Integer> seek = seq.iterator();
+
+		walk.moveToTime(1000);
+		seek.seekToTime(1000);
+		Assert.assertSame(walk.getCurrItem(), seek.getCurrItem());
+		Assert.assertEquals(501, walk.getMovedItems().size());
+		Assert.assertEquals(1, seek.getMovedItems().size());
+		Assert.assertEquals(walk.getNextCursor(), seek.getNextCursor());
+
+		// between items
+		seek.seekToTime(1501);
+		Assert.assertNull(seek.getCurrItem());
+		Assert.assertEquals(0, seek.getMovedItems().size());
+		Assert.assertEquals(751, seek.getNextCursor());
+
+		// continue moving after seek
+		walk.moveToTime(1501);
+		for (int t=1502; t<2100; t+=3) {
+			walk.moveToTime(t);
+			seek.moveToTime(t);
+			Assert.assertSame(walk.getCurrItem(), seek.getCurrItem());
+			Assert.assertEquals(walk.getMovedItems(), seek.getMovedItems());
+		}
+
+		try {
+			seek.seekToTime(0);
+			Assert.fail("Cannot seek back in time");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+}
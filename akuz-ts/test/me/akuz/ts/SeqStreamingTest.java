@@ -0,0 +1,130 @@
+package me.akuz.ts;
+
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import me.akuz.core.Out;
+import me.akuz.core.TDateTime;
+import me.akuz.core.TPeriod;
+import me.akuz.ts.filters.stats.CumsumFilter;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SeqStreamingTest {
+	
+	@Test
+	public void testRetentionByCount() {
+		
+		Seq<Integer> seq = new Seq<>(SeqRetention.<Integer>byCount(10));
+		SeqIterator<Integer> iter = seq.iterator();
+		
+		for (int i=0; i<1000; i++) {
+			seq.add(i, i);
+			Assert.assertTrue(seq.getItems().size() <= 10);
+			if (i % 3 == 0) {
+				iter.moveToTime(i);
+				Assert.assertEquals((Integer)i, iter.getCurrItem().getInteger());
+			}
+		}
+		Assert.assertEquals(990, seq.getTrimmedCount());
+		Assert.assertEquals(1000, seq.getEndPosition());
+		Assert.assertEquals((Integer)990, seq.getItems().get(0).getInteger());
+		
+		// new iterator starts at the first retained item
+		SeqIterator<Integer> newIter = seq.iterator();
+		newIter.moveToTime(995);
+		Assert.assertEquals(6, newIter.getMovedItems().size());
+		
+		// lagging iterator cannot skip trimmed items
+		SeqIterator<Integer> laggingIter = newIter.clone();
+		for (int i=1000; i<1020; i++) {
+			seq.add(i, i);
+		}
+		try {
+			laggingIter.moveToTime(1019);
+			Assert.fail();
+		} catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testRetentionByPeriod() {
+		
+		final long startMs = new DateTime(2014, 1, 1, 0, 0, DateTimeZone.UTC).getMillis();
+		Seq<TDateTime> seq = new Seq<>(SeqRetention.byPeriod(TPeriod.fromMinutes(5)));
+		for (int i=0; i<100; i++) {
+			seq.add(new TDateTime(new DateTime(startMs + i * 60000L, DateTimeZone.UTC)), i);
+		}
+		// items at 94..99 minutes are within 5 minutes of the last
+		Assert.assertEquals(6, seq.getItems().size());
+		Assert.assertEquals((Integer)94, seq.getItems().get(0).getInteger());
+	}
+	
+	@Test
+	public void testConcurrentStaging() throws Exception {
+		
+		final int keyCount = 5;
+		final int itemCount = 20000;
+		
+		final Frame<Integer, Integer> frame = new Frame<>();
+		for (int k=0; k<keyCount; k++) {
+			frame.addSeq(k, new Seq<Integer>());
+		}
+		frame.setRetention(SeqRetention.<Integer>byCount(100));
+		
+		// feed can get ahead of the consumer by
+		// fewer items than the retention count
+		final Semaphore ahead = new Semaphore(50);
+		final AtomicBoolean done = new AtomicBoolean();
+		Thread feed = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i=0; i<itemCount; i++) {
+					ahead.acquireUninterruptibly();
+					frame.stage(i % keyCount, i, 1.0);
+				}
+				done.set(true);
+			}
+		});
+		
+		final FrameFilter<Integer, Integer> filter = new FrameFilter<>(frame.iterator())
+				.addFilter(frame.getKeys(), new CumsumFilter<Integer>());
+		
+		feed.start();
+		
+		double[] sums = new double[keyCount];
+		final Out<Integer> nextTime = new Out<>();
+		while (true) {
+			final boolean feedDone = done.get();
+			frame.acceptStaged();
+			while (filter.getNextTime(nextTime)) {
+				filter.moveToTime(nextTime.getValue());
+				for (int k=0; k<keyCount; k++) {
+					TItem<Integer> item = filter.getCurrItem(k);
+					if (item != null) {
+						sums[k] = item.getDouble();
+					}
+				}
+				// one item at each time
+				ahead.release();
+			}
+			if (feedDone) {
+				break;
+			}
+		}
+		feed.join();
+		
+		double[] expected = new double[keyCount];
+		Arrays.fill(expected, itemCount / keyCount);
+		Assert.assertArrayEquals(expected, sums, 0.0);
+		for (int k=0; k<keyCount; k++) {
+			Assert.assertTrue(frame.getSeq(k).getItems().size() <= 100);
+		}
+	}
+
+}
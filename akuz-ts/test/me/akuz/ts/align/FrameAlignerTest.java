@@ -0,0 +1,107 @@
+package me.akuz.ts.align;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import me.akuz.core.HashIndex;
+import me.akuz.core.Index;
+import me.akuz.core.TDate;
+import me.akuz.ts.Filter;
+import me.akuz.ts.Frame;
+import me.akuz.ts.filters.RepeatValueWithDateExpiry;
+import me.akuz.ts.io.JAMA_IO;
+
+import org.joda.time.Days;
+import org.junit.Assert;
+import org.junit.Test;
+
+import Jama.Matrix;
+
+public final class FrameAlignerTest {
+
+	private static Frame<String, TDate> createRandomFrame(final int keyCount, final int dayCount) {
+		final Random rnd = new Random(1);
+		final Frame<String, TDate> frame = new Frame<>();
+		TDate date = new TDate(2010, 1, 1);
+		for (int d=0; d<dayCount; d++) {
+			for (int k=0; k<keyCount; k++) {
+				// keys with different sparsity
+				if (rnd.nextInt(k % 5 + 1) == 0) {
+					frame.add("k" + k, date, rnd.nextGaussian());
+				}
+			}
+			date = date.plusDays(1 + rnd.nextInt(2));
+		}
+		return frame;
+	}
+
+	private static void assertMatrixEquals(final Matrix expected, final Matrix actual) {
+		Assert.assertEquals(expected.getRowDimension(), actual.getRowDimension());
+		Assert.assertEquals(expected.getColumnDimension(), actual.getColumnDimension());
+		for (int i=0; i<expected.getRowDimension(); i++) {
+			for (int j=0; j<expected.getColumnDimension(); j++) {
+				Assert.assertEquals(expected.get(i, j), actual.get(i, j), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testSimple() {
+
+		Frame<String, Integer> frame = new Frame<>();
+		frame.add("f1", 0, 10);
+		frame.add("f1", 1, 11);
+		frame.add("f1", 3, 13);
+		frame.add("f2", 0, 20);
+		frame.add("f2", 4, 24);
+
+		FrameAligner<String, Integer> aligner = new FrameAligner<>(frame, Arrays.asList("f2", "f1", "f3"));
+		Assert.assertEquals(Arrays.asList(0, 1, 3, 4), aligner.getTimes());
+
+		final double nan = Double.NaN;
+		Assert.assertArrayEquals(new double[] {
+				20, nan, nan, 24,
+				10, 11, 13, nan,
+				nan, nan, nan, nan }, aligner.toColumnMajor(), 0.0);
+
+		aligner.setFill(AlignFill.<Integer>forward());
+		aligner.setFill("f1", AlignFill.<Integer>forwardRows(1));
+		Assert.assertArrayEquals(new double[] { 20, 20, 20, 24 }, aligner.getColumn("f2"), 0.0);
+		Assert.assertArrayEquals(new double[] { 10, 11, 13, 13 }, aligner.getColumn("f1"), 0.0);
+
+		aligner.setFill("f1", AlignFill.<Integer>forwardRows(0));
+		Assert.assertArrayEquals(new double[] { 10, 11, 13, nan }, aligner.getColumn("f1"), 0.0);
+
+		Matrix matrix = aligner.toMatrix();
+		Assert.assertEquals(4, matrix.getRowDimension());
+		Assert.assertEquals(3, matrix.getColumnDimension());
+		Assert.assertEquals(24.0, matrix.get(3, 0), 0.0);
+		Assert.assertEquals(13.0, matrix.get(2, 1), 0.0);
+
+		Assert.assertEquals(0, new FrameAligner<>(new Frame<String, Integer>()).toMatrix().getRowDimension());
+	}
+
+	@Test
+	public void testSameAsIterator() {
+
+		final Frame<String, TDate> frame = createRandomFrame(200, 1000);
+		final Index<String> keysIndex = new HashIndex<>(frame.getKeys());
+
+		// NaN fill
+		final Matrix expected = JAMA_IO.intoMatrix(frame, keysIndex, null, null);
+		final Matrix actual = JAMA_IO.intoMatrix(frame, keysIndex);
+		assertMatrixEquals(expected, actual);
+
+		// forward fill with expiry
+		final List<Filter<TDate>> filters = new ArrayList<>();
+		filters.add(new RepeatValueWithDateExpiry(Days.days(3)));
+		final Matrix expectedFill = JAMA_IO.intoMatrix(frame, keysIndex, filters, null);
+		final Matrix actualFill = new FrameAligner<>(frame, keysIndex.getList())
+				.setFill(AlignFill.forwardDays(Days.days(3)))
+				.toMatrix();
+		assertMatrixEquals(expectedFill, actualFill);
+	}
+
+}
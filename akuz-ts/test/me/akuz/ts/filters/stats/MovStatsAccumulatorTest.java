@@ -0,0 +1,226 @@
+package me.akuz.ts.filters.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import me.akuz.ts.Seq;
+import me.akuz.ts.SeqFilter;
+import me.akuz.ts.filters.stats.accs.Accumulator;
+import me.akuz.ts.filters.stats.accs.CumsumAccumulator;
+import me.akuz.ts.filters.stats.accs.EwmaAccumulator;
+import me.akuz.ts.filters.stats.accs.MovCorrAccumulator;
+import me.akuz.ts.filters.stats.accs.MovCovAccumulator;
+import me.akuz.ts.filters.stats.accs.MovMaxAccumulator;
+import me.akuz.ts.filters.stats.accs.MovMinAccumulator;
+import me.akuz.ts.filters.stats.accs.MovStdevAccumulator;
+import me.akuz.ts.filters.stats.accs.MovVarAccumulator;
+import me.akuz.ts.filters.stats.accs.MovZScoreAccumulator;
+import me.akuz.ts.num.DoubleSeq;
+import me.akuz.ts.num.DoubleSeqFilter;
+import me.akuz.ts.num.filters.DoubleAccumulatorFilter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MovStatsAccumulatorTest {
+
+	private static final int WINDOW = 20;
+	private static final int COUNT = 5000;
+
+	private static double mean(final List<Double> xs) {
+		double sum = 0.0;
+		for (double x : xs) {
+			sum += x;
+		}
+		return sum / xs.size();
+	}
+
+	private static double cov(final List<Double> xs, final List<Double> ys) {
+		final double meanX = mean(xs);
+		final double meanY = mean(ys);
+		double sum = 0.0;
+		for (int i=0; i<xs.size(); i++) {
+			sum += (xs.get(i) - meanX) * (ys.get(i) - meanY);
+		}
+		return sum / (xs.size() - 1);
+	}
+
+	private static Seq<Integer> randomSeq(final Random rnd, final double scale, final double offset) {
+		final Seq<Integer> seq = new Seq<>();
+		for (int t=0; t<COUNT; t++) {
+			// occasional ties for min/max
+			final double value = rnd.nextInt(10) == 0 ? 1.0 : offset + scale * rnd.nextGaussian();
+			seq.add(t, value);
+		}
+		return seq;
+	}
+
+	private static List<Double> runFilter(final Seq<Integer> seq, final Accumulator<Integer> acc) {
+		final SeqFilter<Integer> filter
+			= new SeqFilter<>(seq.iterator())
+				.addFilter(new AccumulatorFilter<>(acc));
+		final List<Double> result = new ArrayList<>();
+		for (int t=0; t<COUNT; t++) {
+			filter.moveToTime(t);
+			result.add(filter.getCurrItem().getDouble());
+		}
+		return result;
+	}
+
+	private static void assertClose(final double expected, final double actual, final double tolerance) {
+		if (Double.isNaN(expected)) {
+			Assert.assertTrue("Expected NaN, got " + actual, Double.isNaN(actual));
+		} else {
+			Assert.assertEquals(expected, actual, tolerance * Math.max(1.0, Math.abs(expected)));
+		}
+	}
+
+	@Test
+	public void testSingleSeqStats() {
+
+		// large offset tests numerical stability of removal
+		final Seq<Integer> seq = randomSeq(new Random(1), 2.0, 1000.0);
+
+		final List<Double> var = runFilter(seq, new MovVarAccumulator<Integer>(WINDOW));
+		final List<Double> stdev = runFilter(seq, new MovStdevAccumulator<Integer>(WINDOW));
+		final List<Double> zscore = runFilter(seq, new MovZScoreAccumulator<Integer>(WINDOW));
+		final List<Double> min = runFilter(seq, new MovMinAccumulator<Integer>(WINDOW));
+		final List<Double> max = runFilter(seq, new MovMaxAccumulator<Integer>(WINDOW));
+		final List<Double> ewma = runFilter(seq, new EwmaAccumulator<Integer>(0.1));
+
+		final List<Double> window = new ArrayList<>();
+		double expectedEwma = Double.NaN;
+		for (int t=0; t<COUNT; t++) {
+			final double value = seq.getItems().get(t).getDouble();
+			window.add(value);
+			if (window.size() > WINDOW) {
+				window.remove(0);
+			}
+			expectedEwma = t == 0 ? value : expectedEwma + 0.1 * (value - expectedEwma);
+			assertClose(expectedEwma, ewma.get(t), 1e-12);
+
+			if (window.size() < WINDOW) {
+				Assert.assertTrue(Double.isNaN(var.get(t)));
+				Assert.assertTrue(Double.isNaN(min.get(t)));
+				continue;
+			}
+			final double expectedVar = cov(window, window);
+			assertClose(expectedVar, var.get(t), 1e-6);
+			assertClose(Math.sqrt(expectedVar), stdev.get(t), 1e-6);
+			assertClose((value - mean(window)) / Math.sqrt(expectedVar), zscore.get(t), 1e-6);
+
+			double expectedMin = Double.POSITIVE_INFINITY;
+			double expectedMax = Double.NEGATIVE_INFINITY;
+			for (double x : window) {
+				expectedMin = Math.min(expectedMin, x);
+				expectedMax = Math.max(expectedMax, x);
+			}
+			Assert.assertEquals(expectedMin, min.get(t), 0.0);
+			Assert.assertEquals(expectedMax, max.get(t), 0.0);
+		}
+	}
+
+	@Test
+	public void testPairStats() {
+
+		final Random rnd = new Random(2);
+		final Seq<Integer> seqX = randomSeq(rnd, 1.0, 0.0);
+
+		// other sequence has gaps and
+		// is correlated with the first
+		final Seq<Integer> seqY = new Seq<>();
+		for (int t=0; t<COUNT; t++) {
+			if (rnd.nextInt(4) > 0) {
+				seqY.add(t, 0.5 * seqX.getItems().get(t).getDouble() + rnd.nextGaussian());
+			}
+		}
+
+		final List<Double> cov = runFilter(seqX, new MovCovAccumulator<Integer>(seqY, WINDOW));
+		final List<Double> corr = runFilter(seqX, new MovCorrAccumulator<Integer>(seqY, WINDOW));
+
+		final List<Double> xs = new ArrayList<>();
+		final List<Double> ys = new ArrayList<>();
+		int cursorY = 0;
+		for (int t=0; t<COUNT; t++) {
+			while (cursorY < seqY.getItems().size() && seqY.getItems().get(cursorY).getTime() < t) {
+				cursorY++;
+			}
+			if (cursorY < seqY.getItems().size() && seqY.getItems().get(cursorY).getTime() == t) {
+				xs.add(seqX.getItems().get(t).getDouble());
+				ys.add(seqY.getItems().get(cursorY).getDouble());
+				if (xs.size() > WINDOW) {
+					xs.remove(0);
+					ys.remove(0);
+				}
+			}
+			if (xs.size() < WINDOW) {
+				Assert.assertTrue(Double.isNaN(cov.get(t)));
+				Assert.assertTrue(Double.isNaN(corr.get(t)));
+				continue;
+			}
+			final double expectedCov = cov(xs, ys);
+			assertClose(expectedCov, cov.get(t), 1e-9);
+			assertClose(expectedCov / Math.sqrt(cov(xs, xs) * cov(ys, ys)), corr.get(t), 1e-9);
+		}
+	}
+
+	@Test
+	public void testDoubleAccumulatorFilter() {
+
+		final Seq<Integer> seq = randomSeq(new Random(4), 2.0, 10.0);
+		final DoubleSeq doubleSeq = new DoubleSeq();
+		for (int t=0; t<COUNT; t++) {
+			doubleSeq.add(t, seq.getItems().get(t).getDouble());
+		}
+
+		final List<Accumulator<Integer>> accs = new ArrayList<>();
+		accs.add(new MovVarAccumulator<Integer>(WINDOW));
+		accs.add(new MovStdevAccumulator<Integer>(WINDOW));
+		accs.add(new MovZScoreAccumulator<Integer>(WINDOW));
+		accs.add(new MovMinAccumulator<Integer>(WINDOW));
+		accs.add(new MovMaxAccumulator<Integer>(WINDOW));
+		accs.add(new EwmaAccumulator<Integer>(0.1));
+		accs.add(new CumsumAccumulator<Integer>());
+		for (final Accumulator<Integer> acc : accs) {
+			final List<Double> expected = runFilter(seq, acc);
+			final DoubleSeqFilter filter
+				= new DoubleSeqFilter(doubleSeq.iterator())
+					.addFilter(new DoubleAccumulatorFilter(acc));
+			for (int t=0; t<COUNT; t++) {
+				filter.moveToTime(t);
+				Assert.assertEquals(expected.get(t), filter.getCurrValue(), 0.0);
+			}
+		}
+
+		// accumulators, which depend on time, are rejected
+		try {
+			new DoubleAccumulatorFilter(new MovCovAccumulator<Integer>(seq, WINDOW));
+			Assert.fail("Expected an exception");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testClone() {
+
+		final Seq<Integer> seq = randomSeq(new Random(3), 1.0, 0.0);
+		final MovMaxAccumulator<Integer> acc = new MovMaxAccumulator<>(3);
+		acc.add(0, 5.0);
+		acc.add(1, 1.0);
+		acc.add(2, 2.0);
+		Assert.assertEquals(5.0, (Double)acc.get(), 0.0);
+
+		final Accumulator<Integer> copy = acc.clone();
+		acc.add(3, 0.0);
+		Assert.assertEquals(2.0, (Double)acc.get(), 0.0);
+		Assert.assertEquals(5.0, (Double)copy.get(), 0.0);
+
+		// prototype filter is cloned per sequence
+		Assert.assertEquals(
+			runFilter(seq, new MovVarAccumulator<Integer>(WINDOW)),
+			runFilter(seq, new MovVarAccumulator<Integer>(WINDOW).clone()));
+	}
+
+}
@@ -0,0 +1,224 @@
+package me.akuz.ts.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import me.akuz.core.TDate;
+import me.akuz.core.TDateTime;
+import me.akuz.ts.Cube;
+import me.akuz.ts.Frame;
+import me.akuz.ts.TItem;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BIN_IO_Test {
+
+	private static File tempFile() {
+		return new File("/tmp/" + UUID.randomUUID().toString() + ".bin");
+	}
+
+	private static <T extends Comparable<T>> void assertSeqEquals(
+			final List<TItem<T>> expected,
+			final List<TItem<T>> actual) {
+
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i=0; i<expected.size(); i++) {
+			Assert.assertEquals(expected.get(i).getTime(), actual.get(i).getTime());
+			Assert.assertEquals(expected.get(i).getObject(), actual.get(i).getObject());
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+
+		final DateTimeZone zone = DateTimeZone.forID("Europe/London");
+		final IOMap<String> ioMap = new IOMap<>("time", IOType.TDateTimeType);
+		ioMap.add("price", IOType.DoubleType);
+		ioMap.add("size", IOType.IntegerType);
+		ioMap.add("flag", IOType.BooleanType);
+		ioMap.add("note", "note, text", IOType.StringType);
+		ioMap.add("settle", IOType.TDateTimeType);
+		ioMap.add("date", IOType.TDateType);
+
+		Random rnd = new Random(1);
+		Frame<String, TDateTime> frame = new Frame<>();
+		long ms = new DateTime(2014, 3, 29, 0, 0, zone).getMillis();
+		for (int i=0; i<10000; i++) {
+			ms += 1 + rnd.nextInt(60000);
+			final TDateTime time = new TDateTime(new DateTime(ms, zone));
+			frame.add("price", time, rnd.nextGaussian());
+			if (i % 2 == 0) {
+				frame.add("size", time, rnd.nextInt() - 1000);
+			}
+			if (i % 3 == 0) {
+				frame.add("flag", time, rnd.nextBoolean());
+				frame.add("settle", time, new TDateTime(new DateTime(ms + 1000, DateTimeZone.forOffsetHours(2))));
+			}
+			if (i % 5 == 0) {
+				frame.add("note", time, "n\u00e9 " + i);
+				frame.add("date", time, new TDate(2014, 1 + i % 12, 1 + i % 28));
+			}
+		}
+
+		final File file = tempFile();
+		try {
+			BIN_IO.toBin(file, frame, ioMap, 1000);
+			final Frame<String, TDateTime> actual = BIN_IO.fromBin(file, ioMap);
+			Assert.assertEquals(ioMap.getKeys(), actual.getKeys());
+			for (String key : ioMap.getKeys()) {
+				assertSeqEquals(frame.getSeq(key).getItems(), actual.getSeq(key).getItems());
+			}
+
+			// only the fields in the map are read
+			final IOMap<String> priceMap = new IOMap<>("time", IOType.TDateTimeType);
+			priceMap.add("p", "price", IOType.DoubleType);
+			final Frame<String, TDateTime> prices = BIN_IO.fromBin(file, priceMap);
+			Assert.assertEquals(1, prices.getKeys().size());
+			assertSeqEquals(frame.getSeq("price").getItems(), prices.getSeq("p").getItems());
+
+			// type must match
+			final IOMap<String> wrongMap = new IOMap<>("time", IOType.TDateTimeType);
+			wrongMap.add("price", IOType.IntegerType);
+			try {
+				BIN_IO.fromBin(file, wrongMap);
+				Assert.fail("Reading with a wrong type must fail");
+			} catch (IOException e) {
+				// expected
+			}
+		} finally {
+			if (file.exists()) {
+				file.delete();
+			}
+		}
+	}
+
+	@Test
+	public void testTimeRange() throws IOException {
+
+		final IOMap<String> ioMap = new IOMap<>("date", IOType.TDateType);
+		final Frame<String, TDate> frame = new Frame<>();
+		final Random rnd = new Random(2);
+		for (int k=0; k<5; k++) {
+			ioMap.add("t" + k, IOType.DoubleType);
+			TDate date = new TDate(2000, 1, 3).plusDays(k);
+			for (int i=0; i<3000; i++) {
+				frame.add("t" + k, date, rnd.nextDouble());
+				date = date.plusDays(1 + rnd.nextInt(3));
+			}
+		}
+
+		final TDate[][] ranges = {
+			{ new TDate(2003, 2, 1), new TDate(2003, 3, 1) },
+			{ null, new TDate(2000, 2, 1) },
+			{ new TDate(2010, 6, 15), null },
+			{ new TDate(1990, 1, 1), new TDate(1991, 1, 1) },
+			{ new TDate(2005, 1, 1), new TDate(2005, 1, 1) },
+		};
+
+		final File file = tempFile();
+		try {
+			BIN_IO.toBin(file, frame, ioMap, 64);
+			for (TDate[] range : ranges) {
+				final Frame<String, TDate> actual = BIN_IO.fromBin(file, ioMap, range[0], range[1]);
+				for (String key : ioMap.getKeys()) {
+					final Frame<String, TDate> expected = new Frame<>();
+					for (TItem<TDate> item : frame.getSeq(key).getItems()) {
+						if ((range[0] == null || item.getTime().compareTo(range[0]) >= 0) &&
+							(range[1] == null || item.getTime().compareTo(range[1]) < 0)) {
+							expected.add(key, item);
+						}
+					}
+					if (expected.getKeys().size() == 0) {
+						Assert.assertNull(actual.getSeq(key, false));
+					} else {
+						assertSeqEquals(expected.getSeq(key).getItems(), actual.getSeq(key).getItems());
+					}
+				}
+			}
+		} finally {
+			if (file.exists()) {
+				file.delete();
+			}
+		}
+	}
+
+	@Test
+	public void testCube() throws IOException {
+
+		final IOMap<String> ioMap = new IOMap<>("date", IOType.TDateType);
+		ioMap.add("close", IOType.DoubleType);
+		ioMap.add("volume", IOType.IntegerType);
+
+		final Cube<String, String, TDate> cube = new Cube<>();
+		final String[] tickers = { "AAPL", "MSFT", "GOOG" };
+		for (int t=0; t<tickers.length; t++) {
+			TDate date = new TDate(2014, 1, 1);
+			for (int i=0; i<500; i++) {
+				cube.add(tickers[t], "close", date, 100.0 * (t + 1) + i);
+				cube.add(tickers[t], "volume", date, 1000 * t + i);
+				date = date.plusDays(1);
+			}
+		}
+
+		final File file = tempFile();
+		try {
+			BIN_IO.toBin(file, cube, ioMap, 100);
+
+			final Cube<String, String, TDate> actual = BIN_IO.fromBinCube(file, ioMap);
+			Assert.assertEquals(cube.getKeys(), actual.getKeys());
+			for (String ticker : tickers) {
+				for (String key : ioMap.getKeys()) {
+					assertSeqEquals(
+						cube.getFrame(ticker).getSeq(key).getItems(),
+						actual.getFrame(ticker).getSeq(key).getItems());
+				}
+			}
+
+			final Frame<String, TDate> month = BIN_IO.fromBin(
+					file, "MSFT", ioMap, new TDate(2014, 3, 1), new TDate(2014, 4, 1));
+			Assert.assertEquals(31, month.getSeq("close").getItems().size());
+			Assert.assertEquals(new TDate(2014, 3, 1), month.getSeq("close").getItems().get(0).getTime());
+			Assert.assertEquals(200.0 + 59, month.getSeq("close").getItems().get(0).getDouble(), 0.0);
+
+			try {
+				BIN_IO.fromBin(file, ioMap);
+				Assert.fail("Reading a cube as a frame must fail");
+			} catch (IOException e) {
+				// expected
+			}
+		} finally {
+			if (file.exists()) {
+				file.delete();
+			}
+		}
+	}
+
+	@Test
+	public void testMixedTimeZones() throws IOException {
+
+		final IOMap<String> ioMap = new IOMap<>("time", IOType.TDateTimeType);
+		ioMap.add("a", IOType.DoubleType);
+		final Frame<String, TDateTime> frame = new Frame<>();
+		frame.add("a", new TDateTime(new DateTime(1000L, DateTimeZone.UTC)), 1.0);
+		frame.add("a", new TDateTime(new DateTime(2000L, DateTimeZone.forOffsetHours(1))), 2.0);
+
+		final File file = tempFile();
+		try {
+			BIN_IO.toBin(file, frame, ioMap);
+			Assert.fail("Writing times in different time zones must fail");
+		} catch (IllegalStateException e) {
+			// expected
+		} finally {
+			if (file.exists()) {
+				file.delete();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,178 @@
+package me.akuz.ts.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import me.akuz.core.TDate;
+import me.akuz.core.TDateTime;
+import me.akuz.ts.Frame;
+import me.akuz.ts.TItem;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CSV_IO_Test {
+	
+	private static Object fromChars(IOType type, String str) throws IOException {
+		// parse from the middle of a larger buffer
+		final char[] chars = ("xx" + str + "yy").toCharArray();
+		return type.fromChars(chars, 2, 2 + str.length());
+	}
+	
+	@Test
+	public void testParseNumbers() throws IOException {
+		
+		Random rnd = new Random(1);
+		String[] special = { 
+			"0", "-0", "0.0", "-0.0", "1", "+1", "1.", ".5", "-.5", "1e5", "1E-5", "1.5e+10",
+			"123456789012345", "1234567890123456789", "0.1", "0.3", "3.14159265358979",
+			"1e22", "1e23", "1e-22", "1e-23", "4.9E-324", "1.7976931348623157E308",
+			"NaN", "Infinity", "-Infinity", "1d", "2f", "0x1p3", "00001.25000" };
+		for (String str : special) {
+			Assert.assertEquals(str, 
+				Double.doubleToRawLongBits(Double.parseDouble(str)), 
+				Double.doubleToRawLongBits((Double)fromChars(IOType.DoubleType, str)));
+		}
+		for (int i=0; i<100000; i++) {
+			final String str;
+			switch (i % 4) {
+			case 0: str = Double.toString(rnd.nextDouble()); break;
+			case 1: str = Double.toString(rnd.nextGaussian() * Math.pow(10, rnd.nextInt(40) - 20)); break;
+			case 2: str = String.format("%.4f", (rnd.nextDouble() - 0.5) * 1000); break;
+			default: str = Long.toString(rnd.nextLong() % 1000000000L); break;
+			}
+			Assert.assertEquals(str, 
+				Double.doubleToRawLongBits(Double.parseDouble(str)), 
+				Double.doubleToRawLongBits((Double)fromChars(IOType.DoubleType, str)));
+		}
+		
+		String[] ints = { "0", "-0", "+7", "2147483647", "-2147483648", "123", "-99" };
+		for (String str : ints) {
+			Assert.assertEquals(Integer.parseInt(str), fromChars(IOType.IntegerType, str));
+		}
+		String[] badInts = { "", "-", "2147483648", "-2147483649", "12345678901", "1.0", "1a" };
+		for (String str : badInts) {
+			try {
+				fromChars(IOType.IntegerType, str);
+				Assert.fail(str);
+			} catch (IOException ex) {
+				// expected
+			}
+		}
+	}
+	
+	@Test
+	public void testParseDates() throws IOException {
+		
+		Random rnd = new Random(2);
+		DateTimeZone[] zones = { 
+			DateTimeZone.UTC, 
+			DateTimeZone.forOffsetHours(3), 
+			DateTimeZone.forOffsetHoursMinutes(-5, -30) };
+		for (int i=0; i<10000; i++) {
+			final long ms = 1000000000000L + (long)(rnd.nextDouble() * 500000000000L);
+			final TDateTime dateTime = new TDateTime(new DateTime(ms, zones[rnd.nextInt(zones.length)]));
+			final String str = IOType.TDateTimeType.toString(dateTime);
+			final Object expected = IOType.TDateTimeType.fromString(str);
+			final Object actual = fromChars(IOType.TDateTimeType, str);
+			Assert.assertEquals(expected, actual);
+			Assert.assertEquals(str, IOType.TDateTimeType.toString(actual));
+			
+			final TDate date = dateTime.toLocalDate();
+			Assert.assertEquals(date, fromChars(IOType.TDateType, date.toString()));
+		}
+		Assert.assertEquals(
+			IOType.TDateTimeType.fromString("2014-01-02T10:00"), 
+			fromChars(IOType.TDateTimeType, "2014-01-02T10:00"));
+		Assert.assertEquals(
+			IOType.TDateType.fromString("20140102"), 
+			fromChars(IOType.TDateType, "20140102"));
+	}
+	
+	@Test
+	public void testLineReader() throws IOException {
+		
+		CSVLineReader reader = new CSVLineReader(new StringReader(
+				"t, a\\,b ,c\r\n1,,\r\n\n2,x\\y,\\,\r3,4,5"));
+		
+		Assert.assertTrue(reader.nextLine());
+		Assert.assertEquals(3, reader.getFieldCount());
+		Assert.assertEquals("t", reader.getFieldString(0));
+		Assert.assertEquals("a,b", reader.getFieldString(1));
+		Assert.assertEquals("c", reader.getFieldString(2));
+		
+		Assert.assertTrue(reader.nextLine());
+		Assert.assertEquals(3, reader.getFieldCount());
+		Assert.assertTrue(reader.isFieldEmpty(1));
+		Assert.assertTrue(reader.isFieldEmpty(2));
+		
+		Assert.assertTrue(reader.nextLine());
+		Assert.assertEquals("x\\y", reader.getFieldString(1));
+		Assert.assertEquals(",", reader.getFieldString(2));
+		
+		Assert.assertTrue(reader.nextLine());
+		Assert.assertEquals("5", reader.getFieldString(2));
+		
+		Assert.assertFalse(reader.nextLine());
+	}
+	
+	@Test
+	public void testParallelRead() throws IOException {
+		
+		Random rnd = new Random(3);
+		final int keyCount = 10;
+		final IOMap<String> ioMap = new IOMap<>("time", IOType.TDateTimeType);
+		Frame<String, TDateTime> frame = new Frame<>();
+		for (int k=0; k<keyCount; k++) {
+			ioMap.add("k" + k, "field, " + k, IOType.DoubleType);
+		}
+		long ms = new DateTime(2014, 1, 1, 0, 0, DateTimeZone.UTC).getMillis();
+		for (int i=0; i<50000; i++) {
+			ms += 1 + rnd.nextInt(1000);
+			final TDateTime time = new TDateTime(new DateTime(ms, DateTimeZone.UTC));
+			for (int k=0; k<keyCount; k++) {
+				if (rnd.nextInt(3) > 0) {
+					frame.add("k" + k, time, rnd.nextGaussian());
+				}
+			}
+		}
+		
+		final File file = new File("/tmp/" + UUID.randomUUID().toString() + ".csv");
+		try {
+			CSV_IO.toCSV(file, frame, ioMap);
+			
+			final Frame<String, TDateTime> serial = CSV_IO.fromCSV(file, ioMap);
+			final Frame<String, TDateTime> parallel = CSV_IO.fromCSV(file, ioMap, new ForkJoinPool(4));
+			
+			Assert.assertEquals(new HashSet<>(frame.getKeys()), new HashSet<>(serial.getKeys()));
+			Assert.assertEquals(serial.getKeys(), parallel.getKeys());
+			for (int k=0; k<keyCount; k++) {
+				final List<TItem<TDateTime>> expected = frame.getSeq("k" + k).getItems();
+				final List<TItem<TDateTime>> actualSerial = serial.getSeq("k" + k).getItems();
+				final List<TItem<TDateTime>> actualParallel = parallel.getSeq("k" + k).getItems();
+				Assert.assertEquals(expected.size(), actualSerial.size());
+				Assert.assertEquals(expected.size(), actualParallel.size());
+				for (int i=0; i<expected.size(); i++) {
+					Assert.assertEquals(expected.get(i).getTime(), actualSerial.get(i).getTime());
+					Assert.assertEquals(expected.get(i).getTime(), actualParallel.get(i).getTime());
+					Assert.assertEquals(expected.get(i).getDouble(), actualSerial.get(i).getDouble());
+					Assert.assertEquals(expected.get(i).getDouble(), actualParallel.get(i).getDouble());
+				}
+			}
+			Assert.assertEquals(CSV_IO.toCSV(frame, ioMap), CSV_IO.toCSV(parallel, ioMap));
+		} finally {
+			if (file.exists()) {
+				file.delete();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,194 @@
+package me.akuz.ts.num;
+
+import java.util.Random;
+
+import me.akuz.core.TDateTime;
+import me.akuz.core.TPeriod;
+import me.akuz.ts.Frame;
+import me.akuz.ts.FrameFilter;
+import me.akuz.ts.Seq;
+import me.akuz.ts.SeqFilter;
+import me.akuz.ts.TItem;
+import me.akuz.ts.filters.stats.CumsumFilter;
+import me.akuz.ts.filters.stats.MovAvgTDateTimeFilter;
+import me.akuz.ts.num.filters.DoubleCumsumFilter;
+import me.akuz.ts.num.filters.DoubleMovAvgFilter;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DoubleSeqTest {
+	
+	private static final long START_MS = new DateTime(2014, 1, 1, 0, 0, DateTimeZone.UTC).getMillis();
+	private static final long STEP_MS = 60 * 1000;
+	
+	private static Seq<TDateTime> createSeq(final Random rnd, final int count) {
+		Seq<TDateTime> seq = new Seq<>();
+		long ms = START_MS;
+		for (int i=0; i<count; i++) {
+			// occasional large gaps
+			ms += STEP_MS * (rnd.nextInt(10) == 0 ? 1 + rnd.nextInt(20) : 1);
+			seq.add(new TDateTime(new DateTime(ms, DateTimeZone.UTC)), rnd.nextGaussian());
+		}
+		return seq;
+	}
+	
+	@Test
+	public void testBridge() {
+		
+		Seq<TDateTime> seq = createSeq(new Random(1), 1000);
+		DoubleSeq doubleSeq = DoubleSeq.fromSeq(seq);
+		Assert.assertEquals(seq.getItems().size(), doubleSeq.size());
+		
+		Seq<TDateTime> back = doubleSeq.toSeq(DateTimeZone.UTC);
+		Assert.assertEquals(seq.getItems().size(), back.getItems().size());
+		for (int i=0; i<seq.getItems().size(); i++) {
+			TItem<TDateTime> expected = seq.getItems().get(i);
+			TItem<TDateTime> actual = back.getItems().get(i);
+			Assert.assertEquals(expected.getTime(), actual.getTime());
+			Assert.assertEquals(expected.getDouble(), actual.getDouble());
+		}
+		
+		try {
+			doubleSeq.add(doubleSeq.getLastTime(), 0.0);
+			Assert.fail();
+		} catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testIterator() {
+		
+		DoubleSeq seq = new DoubleSeq();
+		seq.add(10, 1.0);
+		seq.add(20, 2.0);
+		seq.add(30, 3.0);
+		
+		DoubleSeqIterator iter = seq.iterator();
+		Assert.assertTrue(iter.hasNextTime());
+		Assert.assertEquals(10, iter.getNextTime());
+		
+		iter.moveToTime(5);
+		Assert.assertFalse(iter.hasCurrValue());
+		Assert.assertEquals(0, iter.getMovedCount());
+		
+		iter.moveToTime(25);
+		Assert.assertFalse(iter.hasCurrValue());
+		Assert.assertEquals(2, iter.getMovedCount());
+		Assert.assertEquals(20, iter.getMovedTime(1));
+		Assert.assertEquals(2.0, iter.getMovedValue(1), 0.0);
+		
+		iter.moveToTime(30);
+		Assert.assertTrue(iter.hasCurrValue());
+		Assert.assertEquals(3.0, iter.getCurrValue(), 0.0);
+		Assert.assertEquals(1, iter.getMovedCount());
+		Assert.assertFalse(iter.hasNextTime());
+		
+		try {
+			iter.moveToTime(30);
+			Assert.fail();
+		} catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testFiltersMatchObjectFilters() {
+		
+		Random rnd = new Random(2);
+		Seq<TDateTime> seq = createSeq(rnd, 5000);
+		DoubleSeq doubleSeq = DoubleSeq.fromSeq(seq);
+		
+		final int sampleCount = 5;
+		final long gapOkMs = 5 * STEP_MS;
+		
+		SeqFilter<TDateTime> movAvg = new SeqFilter<>(seq.iterator())
+				.addFilter(new MovAvgTDateTimeFilter(sampleCount, new TPeriod(gapOkMs)));
+		SeqFilter<TDateTime> cumsum = new SeqFilter<>(seq.iterator())
+				.addFilter(new CumsumFilter<TDateTime>());
+		
+		DoubleSeqFilter doubleMovAvg = new DoubleSeqFilter(doubleSeq.iterator())
+				.addFilter(new DoubleMovAvgFilter(sampleCount, gapOkMs));
+		DoubleSeqFilter doubleCumsum = new DoubleSeqFilter(doubleSeq.iterator())
+				.addFilter(new DoubleCumsumFilter());
+		
+		// move on a grid, which skips some items and
+		// includes times without any items
+		long ms = START_MS;
+		final long endMs = doubleSeq.getLastTime() + STEP_MS;
+		while (ms <= endMs) {
+			
+			movAvg.moveToTime(new TDateTime(new DateTime(ms, DateTimeZone.UTC)));
+			cumsum.moveToTime(new TDateTime(new DateTime(ms, DateTimeZone.UTC)));
+			doubleMovAvg.moveToTime(ms);
+			doubleCumsum.moveToTime(ms);
+			
+			Assert.assertTrue(doubleMovAvg.hasCurrValue());
+			Assert.assertEquals(movAvg.getCurrItem().getDouble(), doubleMovAvg.getCurrValue(), 0.0);
+			Assert.assertTrue(doubleCumsum.hasCurrValue());
+			Assert.assertEquals(cumsum.getCurrItem().getDouble(), doubleCumsum.getCurrValue(), 0.0);
+			
+			ms += STEP_MS * (1 + rnd.nextInt(3));
+		}
+	}
+	
+	@Test
+	public void testFilterAdapter() {
+		
+		Random rnd = new Random(4);
+		Seq<TDateTime> seq = createSeq(rnd, 2000);
+		
+		final int sampleCount = 5;
+		final long gapOkMs = 5 * STEP_MS;
+		
+		SeqFilter<TDateTime> movAvg = new SeqFilter<>(seq.iterator())
+				.addFilter(new MovAvgTDateTimeFilter(sampleCount, new TPeriod(gapOkMs)));
+		SeqFilter<TDateTime> adaptedMovAvg = new SeqFilter<>(seq.iterator())
+				.addFilter(new DoubleFilterAdapter(new DoubleMovAvgFilter(sampleCount, gapOkMs)));
+		
+		Frame<String, TDateTime> frame = new Frame<>("x", seq);
+		FrameFilter<String, TDateTime> cumsum = new FrameFilter<>(frame.iterator())
+				.addFilter("x", new CumsumFilter<TDateTime>());
+		FrameFilter<String, TDateTime> adaptedCumsum = new FrameFilter<>(frame.iterator())
+				.addFilter("x", new DoubleFilterAdapter(new DoubleCumsumFilter()));
+		
+		long ms = START_MS;
+		final long endMs = seq.getLast().getTime().getMillis() + STEP_MS;
+		while (ms <= endMs) {
+			
+			TDateTime time = new TDateTime(new DateTime(ms, DateTimeZone.UTC));
+			movAvg.moveToTime(time);
+			adaptedMovAvg.moveToTime(time);
+			cumsum.moveToTime(time);
+			adaptedCumsum.moveToTime(time);
+			
+			Assert.assertEquals(time, adaptedMovAvg.getCurrItem().getTime());
+			Assert.assertEquals(movAvg.getCurrItem().getDouble(), adaptedMovAvg.getCurrItem().getDouble());
+			Assert.assertEquals(cumsum.getCurrItem("x").getDouble(), adaptedCumsum.getCurrItem("x").getDouble());
+			
+			ms += STEP_MS * (1 + rnd.nextInt(3));
+		}
+	}
+	
+	@Test
+	public void testSampler() {
+		
+		DoubleSeq seq = DoubleSeq.fromSeq(createSeq(new Random(3), 100));
+		DoubleSeq result = new DoubleSeqSampler(
+				new DoubleSeqFilter(seq.iterator())
+					.addFilter(new DoubleCumsumFilter(1.0)))
+				.runToEnd();
+		
+		Assert.assertEquals(seq.size(), result.size());
+		double sum = 1.0;
+		for (int i=0; i<seq.size(); i++) {
+			sum += seq.getValue(i);
+			Assert.assertEquals(seq.getTime(i), result.getTime(i));
+			Assert.assertEquals(sum, result.getValue(i), 0.0);
+		}
+	}
+
+}